@@ -0,0 +1,46 @@
+package pl.com.salsoft.exercise1.jcstress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import java.time.Clock;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.TransferService;
+
+/**
+ * Two deletes of the same order at the same time: only one of them reports the order as deleted.
+ */
+@JCStressTest
+@Outcome(id = { "true, false", "false, true" }, expect = ACCEPTABLE, desc = "Exactly one delete succeeded.")
+@Outcome(expect = FORBIDDEN, desc = "Order deleted twice, or not at all.")
+@State
+public class DeleteTransferRace {
+	private static final JsonService JSON_SERVICE = new JsonService();
+
+	private final TransferService transferService;
+
+	public DeleteTransferRace() {
+		final InMemoryTransferOrderDao dao = new InMemoryTransferOrderDao();
+		dao.persist(TransferOrder.builder().id(1L).build());
+		transferService = new TransferService(dao, JSON_SERVICE, Clock.systemUTC());
+	}
+
+	@Actor
+	public void first(final ZZ_Result result) {
+		result.r1 = transferService.deleteTransfer(1L);
+	}
+
+	@Actor
+	public void second(final ZZ_Result result) {
+		result.r2 = transferService.deleteTransfer(1L);
+	}
+}
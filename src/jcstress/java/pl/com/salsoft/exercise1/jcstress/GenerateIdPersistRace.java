@@ -0,0 +1,44 @@
+package pl.com.salsoft.exercise1.jcstress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.JJ_Result;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * ID generated at the same time as an order with the next ID is persisted explicitly.
+ * Results are the generated ID and ID generated after both actors finished.
+ */
+@JCStressTest
+@Outcome(id = "1, 2", expect = ACCEPTABLE, desc = "Persisted first, sequence advanced past its ID.")
+@Outcome(id = "0, 1", expect = ACCEPTABLE_INTERESTING,
+		desc = "Generated first, then taken by the explicit persist. New orders must use persistIfAbsent.")
+@Outcome(expect = FORBIDDEN, desc = "Sequence went back, or persisted ID generated afterwards.")
+@State
+public class GenerateIdPersistRace {
+	private final InMemoryTransferOrderDao dao = new InMemoryTransferOrderDao();
+
+	@Actor
+	public void generate(final JJ_Result result) {
+		result.r1 = dao.generateId();
+	}
+
+	@Actor
+	public void persist() {
+		dao.persist(TransferOrder.builder().id(0L).build());
+	}
+
+	@Arbiter
+	public void generateAfter(final JJ_Result result) {
+		result.r2 = dao.generateId();
+	}
+}
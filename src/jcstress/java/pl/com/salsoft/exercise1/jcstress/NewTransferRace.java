@@ -0,0 +1,54 @@
+package pl.com.salsoft.exercise1.jcstress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.JJJ_Result;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.TransferService;
+
+/**
+ * Two orders created at the same time with the same requested ID: one of them gets the ID,
+ * the other one a generated ID, and neither overwrites the other.
+ * Results are IDs given to both orders and number of stored orders.
+ */
+@JCStressTest
+@Outcome(id = { "1, 2, 2", "2, 1, 2" }, expect = ACCEPTABLE, desc = "One order got requested ID, the other one next ID.")
+@Outcome(expect = FORBIDDEN, desc = "Same ID given twice, or an order overwritten.")
+@State
+public class NewTransferRace {
+	private static final JsonService JSON_SERVICE = new JsonService();
+
+	private final InMemoryTransferOrderDao dao = new InMemoryTransferOrderDao();
+	private final TransferService transferService = new TransferService(dao, JSON_SERVICE, Clock.systemUTC());
+
+	@Actor
+	public void first(final JJJ_Result result) {
+		result.r1 = transferService.newTransfer(order(1L)).getId();
+	}
+
+	@Actor
+	public void second(final JJJ_Result result) {
+		result.r2 = transferService.newTransfer(order(2L)).getId();
+	}
+
+	@Arbiter
+	public void stored(final JJJ_Result result) {
+		result.r3 = dao.getAll().size();
+	}
+
+	private static TransferOrder order(final long amount) {
+		return TransferOrder.builder().id(1L).amount(BigDecimal.valueOf(amount)).build();
+	}
+}
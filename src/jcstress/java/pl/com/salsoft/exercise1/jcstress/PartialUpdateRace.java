@@ -0,0 +1,58 @@
+package pl.com.salsoft.exercise1.jcstress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.ZZZZ_Result;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.SavedOrder;
+import pl.com.salsoft.exercise1.service.TransferService;
+
+/**
+ * Partial updates of different fields of a missing order at the same time: both fields end up in the order,
+ * and exactly one of the updates reports the order as created.
+ * Results are created flags of both updates, and whether the stored order has the amount and the account.
+ */
+@JCStressTest
+@Outcome(id = { "true, false, true, true", "false, true, true, true" }, expect = ACCEPTABLE,
+		desc = "One update created the order, the other one merged into it.")
+@Outcome(expect = FORBIDDEN, desc = "Update lost, or order created twice.")
+@State
+public class PartialUpdateRace {
+	private static final JsonService JSON_SERVICE = new JsonService();
+
+	private final InMemoryTransferOrderDao dao = new InMemoryTransferOrderDao();
+	private final TransferService transferService = new TransferService(dao, JSON_SERVICE, Clock.systemUTC());
+
+	@Actor
+	public void amount(final ZZZZ_Result result) {
+		final SavedOrder saved = transferService.updateTransferPartially(1L,
+				TransferOrder.builder().amount(BigDecimal.ONE).build());
+		result.r1 = saved.isCreated();
+	}
+
+	@Actor
+	public void account(final ZZZZ_Result result) {
+		final SavedOrder saved = transferService.updateTransferPartially(1L,
+				TransferOrder.builder().sourceAccount("123").build());
+		result.r2 = saved.isCreated();
+	}
+
+	@Arbiter
+	public void stored(final ZZZZ_Result result) {
+		final TransferOrder order = dao.get(1L).get();
+		result.r3 = order.getAmount() != null;
+		result.r4 = order.getSourceAccount() != null;
+	}
+}
@@ -1,46 +1,127 @@
 package pl.com.salsoft.exercise1;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
 
 import com.google.inject.Guice;
 
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.cluster.ClusterService;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.lifecycle.LifecycleService;
+import pl.com.salsoft.exercise1.replication.ReplicationNode;
+import pl.com.salsoft.exercise1.rest.AppServerFactory;
+import pl.com.salsoft.exercise1.rest.ClusterController;
+import pl.com.salsoft.exercise1.rest.DebugController;
+import pl.com.salsoft.exercise1.rest.JettyTransferHandler;
+import pl.com.salsoft.exercise1.rest.LifecycleController;
+import pl.com.salsoft.exercise1.rest.ReplicationController;
 import pl.com.salsoft.exercise1.rest.TransferOrderController;
+import pl.com.salsoft.exercise1.scheduler.TransferScheduler;
+import pl.com.salsoft.exercise1.service.RetentionService;
+import pl.com.salsoft.exercise1.tenant.TenantRegistry;
+import pl.com.salsoft.exercise1.tracing.FlightRecording;
+import pl.com.salsoft.exercise1.webhook.WebhookDispatcher;
 import spark.Spark;
 
 /**
  * Exercise1 application entry point.
  */
 public class App {
-	private static final String CONFIG_FILE_NAME = "config.properties";
 	private static final String CONFIG_PORT = "port";
-	private static final Properties CONFIG = new Properties();
+	private static final String CONFIG_WIRING = "wiring";
+	private static final String CONFIG_TRAINING_RUN = "startup.trainingRun";
+	private static final String CONFIG_HANDOFF_FROM = "handoff.from";
+	private static final String WIRING_GUICE = "guice";
+	private static final String WIRING_EXPLICIT = "explicit";
+	// Set by GraalVM in native images, where Guice can't generate its classes at runtime.
+	private static final String NATIVE_IMAGE_PROPERTY = "org.graalvm.nativeimage.imagecode";
+	private static final String TRAINING_ORDER = "{\"sourceAccount\": \"1\", \"targetAccount\": \"2\", \"amount\": 1.00}";
+
+	/**
+	 * Source of application components: either Guice injector or {@link ExplicitWiring}.
+	 */
+	private interface Components {
+		<T> T getInstance(Class<T> type);
+	}
 
 	/**
 	 * Runs Spark (REST) and Guice (IoC/DI), effectively starting the application.
 	 * @param args Command line arguments. None are supported at the moment. Anything passed here will be ignored.
-	 * @throws IOException If configuration file could not be read.
 	 */
-	public static void main(final String[] args) throws IOException {
-		loadProperties();
-		Spark.port(getServerPort());
+	public static void main(final String[] args) {
+		final AppConfig config = AppConfig.load();
+		final Components components = createComponents(config);
+
+		// Store is loaded before the server is started, so the first requests already see it.
+		final LifecycleService lifecycleService = components.getInstance(LifecycleService.class);
+		final String handoffFrom = config.getString(CONFIG_HANDOFF_FROM, "");
+		if (handoffFrom.isEmpty()) {
+			lifecycleService.loadSnapshot();
+		} else {
+			lifecycleService.takeOver(handoffFrom, config.getInt(CONFIG_PORT));
+		}
+		lifecycleService.registerShutdownHook();
+
+		Spark.port(config.getInt(CONFIG_PORT));
+		components.getInstance(FlightRecording.class).start();
+		components.getInstance(AccessLog.class).start();
+		components.getInstance(AppServerFactory.class).install();
+		components.getInstance(ReplicationNode.class).start();
+		components.getInstance(RetentionService.class).start();
+		components.getInstance(TransferScheduler.class).start();
+		components.getInstance(TenantRegistry.class).start();
+		// Follows the store only now, so orders loaded above are not notified again.
+		components.getInstance(WebhookDispatcher.class).start(components.getInstance(TransferOrderDao.class));
+		components.getInstance(ClusterService.class).init();
+		components.getInstance(LifecycleController.class).initMapping();
+		components.getInstance(TransferOrderController.class).initMapping();
+		components.getInstance(JettyTransferHandler.class).install();
+		components.getInstance(ReplicationController.class).initMapping();
+		components.getInstance(ClusterController.class).initMapping();
+		components.getInstance(DebugController.class).initMapping();
 
-		Guice.createInjector(new AppModule())
-			.getInstance(TransferOrderController.class)
-			.initMapping();
+		if (config.getBoolean(CONFIG_TRAINING_RUN, false)) {
+			trainingRun(config.getInt(CONFIG_PORT));
+		}
 	}
 
-	private static int getServerPort() {
-		if (!CONFIG.containsKey(CONFIG_PORT)) {
-			throw new RuntimeException(String.format("Missing configuration entry: %s", CONFIG_PORT));
+	private static Components createComponents(final AppConfig config) {
+		final String wiring = System.getProperty(NATIVE_IMAGE_PROPERTY) != null
+				? WIRING_EXPLICIT
+				: config.getString(CONFIG_WIRING, WIRING_GUICE);
+		switch (wiring) {
+			case WIRING_GUICE:
+				return Guice.createInjector(new AppModule(config))::getInstance;
+			case WIRING_EXPLICIT:
+				return new ExplicitWiring(config)::getInstance;
+			default:
+				throw new RuntimeException(String.format("Unsupported %s: %s", CONFIG_WIRING, wiring));
 		}
-		return Integer.parseInt(CONFIG.get(CONFIG_PORT).toString());
 	}
 
-	private static void loadProperties() throws IOException {
-		try (InputStream input = App.class.getClassLoader().getResourceAsStream(CONFIG_FILE_NAME)) {
-			CONFIG.load(input);
+	/**
+	 * Sends a few typical requests to this instance and exits. Used to record classes loaded
+	 * on the request path when building the AppCDS archive.
+	 */
+	private static void trainingRun(final int port) {
+		Spark.awaitInitialization();
+		final HttpClient client = HttpClient.newHttpClient();
+		final URI resource = URI.create(String.format("http://localhost:%d/transfer", port));
+		try {
+			client.send(HttpRequest.newBuilder(resource).POST(BodyPublishers.ofString(TRAINING_ORDER)).build(),
+					BodyHandlers.ofString());
+			client.send(HttpRequest.newBuilder(resource).GET().build(), BodyHandlers.ofString());
+		} catch (final IOException e) {
+			throw new RuntimeException("Training run failed.", e);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+		Spark.stop();
+		System.exit(0);
 	}
 }
@@ -0,0 +1,120 @@
+package pl.com.salsoft.exercise1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+import lombok.NonNull;
+
+/**
+ * Application configuration, as read from the config.properties file.
+ * It provides typed access to configuration entries, so the parsing is not scattered
+ * across all components that need to be configured.
+ *
+ * Any entry can be overridden with JVM system property of the same name (i.e. -Dport=8001),
+ * which makes it easy to run several application instances from the same build.
+ */
+public class AppConfig {
+	private static final String CONFIG_FILE_NAME = "config.properties";
+
+	private final Properties properties;
+
+	/**
+	 * Creates configuration backed by given properties.
+	 * @param properties Configuration entries. Cannot be null.
+	 */
+	public AppConfig(@NonNull final Properties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Loads configuration from the config.properties file available in the classpath.
+	 * @return Loaded configuration.
+	 * @throws UncheckedIOException If configuration file could not be read.
+	 */
+	public static AppConfig load() {
+		final Properties properties = new Properties();
+		try (InputStream input = AppConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE_NAME)) {
+			properties.load(input);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not read configuration file.", e);
+		}
+		return new AppConfig(properties);
+	}
+
+	/**
+	 * Reads mandatory configuration entry.
+	 * @param key Entry name. Cannot be null.
+	 * @return Value of the entry.
+	 * @throws RuntimeException If the entry is not defined.
+	 */
+	public @NonNull String getString(@NonNull final String key) {
+		final String value = lookup(key);
+		if (value == null) {
+			throw new RuntimeException(String.format("Missing configuration entry: %s", key));
+		}
+		return value.trim();
+	}
+
+	/**
+	 * Reads optional configuration entry.
+	 * @param key Entry name. Cannot be null.
+	 * @param defaultValue Value to use if the entry is not defined.
+	 * @return Value of the entry, or the default value.
+	 */
+	public String getString(@NonNull final String key, final String defaultValue) {
+		final String value = lookup(key);
+		return value == null ? defaultValue : value.trim();
+	}
+
+	/**
+	 * Reads mandatory configuration entry as integer number.
+	 * @param key Entry name. Cannot be null.
+	 * @return Value of the entry.
+	 * @throws RuntimeException If the entry is not defined.
+	 * @throws NumberFormatException If the entry is not an integer number.
+	 */
+	public int getInt(@NonNull final String key) {
+		return Integer.parseInt(getString(key));
+	}
+
+	/**
+	 * Reads optional configuration entry as integer number.
+	 * @param key Entry name. Cannot be null.
+	 * @param defaultValue Value to use if the entry is not defined.
+	 * @return Value of the entry, or the default value.
+	 * @throws NumberFormatException If the entry is not an integer number.
+	 */
+	public int getInt(@NonNull final String key, final int defaultValue) {
+		final String value = getString(key, null);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	/**
+	 * Reads optional configuration entry as long integer number.
+	 * @param key Entry name. Cannot be null.
+	 * @param defaultValue Value to use if the entry is not defined.
+	 * @return Value of the entry, or the default value.
+	 * @throws NumberFormatException If the entry is not an integer number.
+	 */
+	public long getLong(@NonNull final String key, final long defaultValue) {
+		final String value = getString(key, null);
+		return value == null ? defaultValue : Long.parseLong(value);
+	}
+
+	/**
+	 * Reads optional configuration entry as boolean flag.
+	 * @param key Entry name. Cannot be null.
+	 * @param defaultValue Value to use if the entry is not defined.
+	 * @return Value of the entry, or the default value.
+	 */
+	public boolean getBoolean(@NonNull final String key, final boolean defaultValue) {
+		final String value = getString(key, null);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+
+	private String lookup(final String key) {
+		return System.getProperty(key, properties.getProperty(key));
+	}
+}
@@ -1,24 +1,491 @@
 package pl.com.salsoft.exercise1;
 
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.cluster.ClusterClient;
+import pl.com.salsoft.exercise1.cluster.ClusterMembership;
+import pl.com.salsoft.exercise1.cluster.ClusterNode;
+import pl.com.salsoft.exercise1.cluster.ClusterService;
+import pl.com.salsoft.exercise1.dao.AsyncTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.JdbcTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.OrderMutationListener;
+import pl.com.salsoft.exercise1.dao.TieredTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.TracedTransferOrderDao;
 import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.index.AccountIndex;
+import pl.com.salsoft.exercise1.index.AmountIndex;
+import pl.com.salsoft.exercise1.index.TimeIndex;
+import pl.com.salsoft.exercise1.lifecycle.InFlightRequests;
+import pl.com.salsoft.exercise1.lifecycle.LifecycleService;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.replication.ReplicationFollower;
+import pl.com.salsoft.exercise1.replication.ReplicationLeader;
+import pl.com.salsoft.exercise1.replication.ReplicationNode;
+import pl.com.salsoft.exercise1.replication.StandaloneNode;
+import pl.com.salsoft.exercise1.rest.AppServerFactory;
+import pl.com.salsoft.exercise1.rest.ClusterController;
+import pl.com.salsoft.exercise1.rest.DebugController;
+import pl.com.salsoft.exercise1.rest.JettyTransferHandler;
+import pl.com.salsoft.exercise1.rest.LifecycleController;
+import pl.com.salsoft.exercise1.rest.ReplicationController;
+import pl.com.salsoft.exercise1.rest.ServerSettings;
 import pl.com.salsoft.exercise1.rest.TransferOrderController;
+import pl.com.salsoft.exercise1.scheduler.TransferScheduler;
+import pl.com.salsoft.exercise1.service.BulkService;
 import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.RetentionService;
+import pl.com.salsoft.exercise1.service.SearchService;
 import pl.com.salsoft.exercise1.service.TransferService;
+import pl.com.salsoft.exercise1.tenant.TenantRegistry;
+import pl.com.salsoft.exercise1.tenant.TenantSettings;
+import pl.com.salsoft.exercise1.tracing.FlightRecording;
+import pl.com.salsoft.exercise1.tracing.SlowRequestLog;
+import pl.com.salsoft.exercise1.velocity.VelocityLimiter;
+import pl.com.salsoft.exercise1.webhook.WebhookDispatcher;
+import pl.com.salsoft.exercise1.webhook.WebhookSettings;
 
 /**
  * Default IoC configuration for this application used by Guice framework.
  */
 public class AppModule extends AbstractModule {
+	private static final String CONFIG_DAO_BACKEND = "dao.backend";
+	private static final String CONFIG_H2_URL = "dao.h2.url";
+	private static final String CONFIG_H2_BATCH_SIZE = "dao.h2.batchSize";
+	private static final String CONFIG_H2_FLUSH_INTERVAL = "dao.h2.flushIntervalMillis";
+	private static final String CONFIG_H2_CACHE_SIZE = "dao.h2.cacheSize";
+	private static final String CONFIG_TIERED_DIRECTORY = "dao.tiered.directory";
+	private static final String CONFIG_TIERED_MIN_AGE = "dao.tiered.minAgeMillis";
+	private static final String CONFIG_TIERED_INTERVAL = "dao.tiered.intervalMillis";
+	private static final String CONFIG_TIERED_SEGMENT_SIZE = "dao.tiered.segmentSize";
+	private static final String CONFIG_DAO_ASYNC_THREADS = "dao.asyncThreads";
+	private static final String BACKEND_MEMORY = "memory";
+	private static final String BACKEND_H2 = "h2";
+	private static final String BACKEND_TIERED = "tiered";
+	private static final String CONFIG_REPLICATION_ROLE = "replication.role";
+	private static final String CONFIG_REPLICATION_PORT = "replication.port";
+	private static final String CONFIG_REPLICATION_LOG_CAPACITY = "replication.logCapacity";
+	private static final String CONFIG_REPLICATION_BATCH_SIZE = "replication.batchSize";
+	private static final String CONFIG_REPLICATION_LEADER_HOST = "replication.leader.host";
+	private static final String CONFIG_REPLICATION_LEADER_PORT = "replication.leader.port";
+	private static final String CONFIG_REPLICATION_LEADER_URL = "replication.leader.url";
+	private static final String ROLE_NONE = "none";
+	private static final String ROLE_LEADER = "leader";
+	private static final String ROLE_FOLLOWER = "follower";
+	private static final int DEFAULT_REPLICATION_LOG_CAPACITY = 1_000_000;
+	private static final int DEFAULT_REPLICATION_BATCH_SIZE = 512;
+	private static final String CONFIG_CLUSTER_ENABLED = "cluster.enabled";
+	private static final String CONFIG_CLUSTER_NODE_ID = "cluster.nodeId";
+	private static final String CONFIG_CLUSTER_NODES = "cluster.nodes";
+	private static final String CONFIG_CLUSTER_VIRTUAL_NODES = "cluster.virtualNodes";
+	private static final int DEFAULT_CLUSTER_VIRTUAL_NODES = 128;
+	private static final String CONFIG_ACCESS_LOG_ENABLED = "accesslog.enabled";
+	private static final String CONFIG_ACCESS_LOG_FILE = "accesslog.file";
+	private static final String CONFIG_ACCESS_LOG_MAX_FILE_BYTES = "accesslog.maxFileBytes";
+	private static final String CONFIG_ACCESS_LOG_MAX_FILES = "accesslog.maxFiles";
+	private static final String CONFIG_ACCESS_LOG_CAPACITY = "accesslog.capacity";
+	private static final String CONFIG_ACCESS_LOG_BATCH_SIZE = "accesslog.batchSize";
+	private static final String CONFIG_SLOW_REQUEST_MILLIS = "tracing.slowRequestMillis";
+	private static final String CONFIG_SLOW_REQUEST_CAPACITY = "tracing.slowRequestCapacity";
+	private static final String CONFIG_JFR_ENABLED = "tracing.jfr.enabled";
+	private static final String CONFIG_JFR_FILE = "tracing.jfr.file";
+	private static final String CONFIG_JFR_REQUEST_THRESHOLD = "tracing.jfr.requestThresholdMillis";
+	private static final String CONFIG_JFR_DAO_THRESHOLD = "tracing.jfr.daoThresholdMillis";
+	private static final String CONFIG_JFR_JSON_THRESHOLD = "tracing.jfr.jsonThresholdMillis";
+	private static final String CONFIG_JFR_UPDATE_THRESHOLD = "tracing.jfr.updateThresholdMillis";
+	private static final String CONFIG_SERVER_HTTP2_ENABLED = "server.http2.enabled";
+	private static final String CONFIG_SERVER_MAX_CONNECTIONS = "server.maxConnections";
+	private static final String CONFIG_SERVER_IDLE_TIMEOUT = "server.idleTimeoutMillis";
+	private static final String CONFIG_SERVER_REQUEST_HEADER_SIZE = "server.requestHeaderSize";
+	private static final String CONFIG_SERVER_MAX_CONCURRENT_STREAMS = "server.http2.maxConcurrentStreams";
+	private static final String CONFIG_SERVER_HEADER_TABLE_SIZE = "server.http2.headerTableSize";
+	private static final String CONFIG_SERVER_ENGINE = "server.engine";
+	private static final String ENGINE_SPARK = "spark";
+	private static final String ENGINE_JETTY = "jetty";
+	private static final String CONFIG_DRAIN_TIMEOUT = "shutdown.drainTimeoutMillis";
+	private static final String CONFIG_SNAPSHOT_FILE = "shutdown.snapshotFile";
+	private static final String CONFIG_RETENTION_MAX_AGE = "retention.maxAgeMillis";
+	private static final String CONFIG_RETENTION_INTERVAL = "retention.intervalMillis";
+	private static final String CONFIG_SCHEDULER_TICK = "scheduler.tickMillis";
+	private static final String CONFIG_SCHEDULER_BATCH_SIZE = "scheduler.batchSize";
+	private static final String CONFIG_WEBHOOK_URLS = "webhook.urls";
+	private static final String CONFIG_WEBHOOK_INTERVAL = "webhook.intervalMillis";
+	private static final String CONFIG_WEBHOOK_QUEUE_CAPACITY = "webhook.queueCapacity";
+	private static final String CONFIG_WEBHOOK_BATCH_SIZE = "webhook.batchSize";
+	private static final String CONFIG_WEBHOOK_MAX_ATTEMPTS = "webhook.maxAttempts";
+	private static final String CONFIG_WEBHOOK_INITIAL_BACKOFF = "webhook.initialBackoffMillis";
+	private static final String CONFIG_WEBHOOK_MAX_BACKOFF = "webhook.maxBackoffMillis";
+	private static final String CONFIG_WEBHOOK_FAILURE_THRESHOLD = "webhook.failureThreshold";
+	private static final String CONFIG_WEBHOOK_OPEN = "webhook.openMillis";
+	private static final String CONFIG_WEBHOOK_REQUEST_TIMEOUT = "webhook.requestTimeoutMillis";
+	private static final String CONFIG_TENANT_NAMES = "tenant.names";
+	private static final String CONFIG_TENANT_MAX_ORDERS = "tenant.maxOrders";
+	private static final String CONFIG_TENANT_REQUESTS_PER_SECOND = "tenant.requestsPerSecond";
+	private static final String CONFIG_TENANT_BURST = "tenant.burst";
+	private static final String CONFIG_TENANT_MAX_CONCURRENT_REQUESTS = "tenant.maxConcurrentRequests";
+	private static final String CONFIG_BULK_PARALLELISM = "bulk.parallelism";
+	private static final String CONFIG_VELOCITY_WINDOW = "velocity.windowMillis";
+	private static final String CONFIG_VELOCITY_BUCKETS = "velocity.buckets";
+	private static final String CONFIG_VELOCITY_MAX_ORDERS = "velocity.maxOrders";
+	private static final String CONFIG_VELOCITY_MAX_AMOUNT = "velocity.maxAmount";
+
+	private final AppConfig config;
+
+	/**
+	 * Creates module configured from the config.properties file available in the classpath.
+	 */
+	public AppModule() {
+		this(AppConfig.load());
+	}
+
+	/**
+	 * Creates module configured with given configuration.
+	 * @param config Application configuration. Cannot be null.
+	 */
+	public AppModule(@NonNull final AppConfig config) {
+		this.config = config;
+	}
 
 	@Override
 	protected void configure() {
-		bind(TransferOrderDao.class).in(Scopes.SINGLETON);
+		bind(AppConfig.class).toInstance(config);
 		bind(TransferOrderController.class).in(Scopes.SINGLETON);
+		bind(ReplicationController.class).in(Scopes.SINGLETON);
+		bind(ClusterController.class).in(Scopes.SINGLETON);
+		bind(DebugController.class).in(Scopes.SINGLETON);
+		bind(LifecycleController.class).in(Scopes.SINGLETON);
+		bind(AppServerFactory.class).in(Scopes.SINGLETON);
+		bind(JettyTransferHandler.class).in(Scopes.SINGLETON);
+		bind(InFlightRequests.class).in(Scopes.SINGLETON);
 		bind(TransferService.class).in(Scopes.SINGLETON);
+		bind(SearchService.class).in(Scopes.SINGLETON);
+		bind(ClusterService.class).in(Scopes.SINGLETON);
+		bind(ClusterClient.class).in(Scopes.SINGLETON);
 		bind(JsonService.class).in(Scopes.SINGLETON);
 	}
 
+	@Provides
+	@Singleton
+	TransferOrderDao provideTransferOrderDao() {
+		return new TracedTransferOrderDao(createTransferOrderDao());
+	}
+
+	@Provides
+	@Singleton
+	AsyncTransferOrderDao provideAsyncTransferOrderDao(final TransferOrderDao transferOrderDao) {
+		return new AsyncTransferOrderDao(transferOrderDao,
+				config.getInt(CONFIG_DAO_ASYNC_THREADS, AsyncTransferOrderDao.DEFAULT_THREADS));
+	}
+
+	private TransferOrderDao createTransferOrderDao() {
+		final String backend = config.getString(CONFIG_DAO_BACKEND, BACKEND_MEMORY);
+		switch (backend) {
+			case BACKEND_MEMORY:
+				return new InMemoryTransferOrderDao();
+			case BACKEND_H2:
+				return new JdbcTransferOrderDao(
+						config.getString(CONFIG_H2_URL),
+						config.getInt(CONFIG_H2_BATCH_SIZE, JdbcTransferOrderDao.DEFAULT_BATCH_SIZE),
+						config.getLong(CONFIG_H2_FLUSH_INTERVAL, JdbcTransferOrderDao.DEFAULT_FLUSH_INTERVAL_MILLIS),
+						config.getInt(CONFIG_H2_CACHE_SIZE, JdbcTransferOrderDao.DEFAULT_CACHE_SIZE));
+			case BACKEND_TIERED:
+				return new TieredTransferOrderDao(
+						Paths.get(config.getString(CONFIG_TIERED_DIRECTORY)),
+						config.getLong(CONFIG_TIERED_MIN_AGE, TieredTransferOrderDao.DEFAULT_MIN_AGE_MILLIS),
+						config.getLong(CONFIG_TIERED_INTERVAL, TieredTransferOrderDao.DEFAULT_INTERVAL_MILLIS),
+						config.getInt(CONFIG_TIERED_SEGMENT_SIZE, TieredTransferOrderDao.DEFAULT_SEGMENT_SIZE));
+			default:
+				throw new RuntimeException(String.format("Unsupported %s: %s", CONFIG_DAO_BACKEND, backend));
+		}
+	}
+
+	@Provides
+	@Singleton
+	AccountIndex provideAccountIndex(final TransferOrderDao transferOrderDao) {
+		final AccountIndex accountIndex = new AccountIndex();
+		attachIndex(transferOrderDao, accountIndex, accountIndex::add);
+		return accountIndex;
+	}
+
+	@Provides
+	@Singleton
+	AmountIndex provideAmountIndex(final TransferOrderDao transferOrderDao) {
+		final AmountIndex amountIndex = new AmountIndex();
+		attachIndex(transferOrderDao, amountIndex, amountIndex::add);
+		return amountIndex;
+	}
+
+	@Provides
+	@Singleton
+	TimeIndex provideTimeIndex(final TransferOrderDao transferOrderDao) {
+		final TimeIndex timeIndex = new TimeIndex();
+		attachIndex(transferOrderDao, timeIndex, timeIndex::add);
+		return timeIndex;
+	}
+
+	@Provides
+	@Singleton
+	Clock provideClock() {
+		return Clock.systemUTC();
+	}
+
+	@Provides
+	@Singleton
+	RetentionService provideRetentionService(final TransferOrderDao transferOrderDao, final TimeIndex timeIndex,
+			final Clock clock) {
+		// Followers get removals from the leader, removing orders on their own clock would diverge from it.
+		final boolean follower = ROLE_FOLLOWER.equals(config.getString(CONFIG_REPLICATION_ROLE, ROLE_NONE));
+		return new RetentionService(transferOrderDao, timeIndex, clock,
+				follower ? 0L : config.getLong(CONFIG_RETENTION_MAX_AGE, 0L),
+				config.getLong(CONFIG_RETENTION_INTERVAL, RetentionService.DEFAULT_INTERVAL_MILLIS));
+	}
+
+	@Provides
+	@Singleton
+	TransferScheduler provideTransferScheduler(final TransferOrderDao transferOrderDao, final Clock clock) {
+		final TransferScheduler transferScheduler = createTransferScheduler(transferOrderDao, clock);
+		attachIndex(transferOrderDao, transferScheduler, transferScheduler::schedule);
+		return transferScheduler;
+	}
+
+	@Provides
+	@Singleton
+	WebhookDispatcher provideWebhookDispatcher(final JsonService jsonService) {
+		// Followers would repeat notifications already sent by the leader.
+		final List<URI> urls = ROLE_FOLLOWER.equals(config.getString(CONFIG_REPLICATION_ROLE, ROLE_NONE))
+				? List.of()
+				: parseWebhookUrls(config.getString(CONFIG_WEBHOOK_URLS, ""));
+		return new WebhookDispatcher(urls, jsonService, WebhookSettings.builder()
+				.intervalMillis(config.getLong(CONFIG_WEBHOOK_INTERVAL, WebhookSettings.DEFAULT_INTERVAL_MILLIS))
+				.queueCapacity(config.getInt(CONFIG_WEBHOOK_QUEUE_CAPACITY, WebhookSettings.DEFAULT_QUEUE_CAPACITY))
+				.batchSize(config.getInt(CONFIG_WEBHOOK_BATCH_SIZE, WebhookSettings.DEFAULT_BATCH_SIZE))
+				.maxAttempts(config.getInt(CONFIG_WEBHOOK_MAX_ATTEMPTS, WebhookSettings.DEFAULT_MAX_ATTEMPTS))
+				.initialBackoffMillis(config.getLong(CONFIG_WEBHOOK_INITIAL_BACKOFF, WebhookSettings.DEFAULT_INITIAL_BACKOFF_MILLIS))
+				.maxBackoffMillis(config.getLong(CONFIG_WEBHOOK_MAX_BACKOFF, WebhookSettings.DEFAULT_MAX_BACKOFF_MILLIS))
+				.failureThreshold(config.getInt(CONFIG_WEBHOOK_FAILURE_THRESHOLD, WebhookSettings.DEFAULT_FAILURE_THRESHOLD))
+				.openMillis(config.getLong(CONFIG_WEBHOOK_OPEN, WebhookSettings.DEFAULT_OPEN_MILLIS))
+				.requestTimeoutMillis(config.getLong(CONFIG_WEBHOOK_REQUEST_TIMEOUT,
+						WebhookSettings.DEFAULT_REQUEST_TIMEOUT_MILLIS))
+				.build());
+	}
+
+	@Provides
+	@Singleton
+	VelocityLimiter provideVelocityLimiter() {
+		return createVelocityLimiter();
+	}
+
+	private VelocityLimiter createVelocityLimiter() {
+		return new VelocityLimiter(
+				config.getLong(CONFIG_VELOCITY_WINDOW, VelocityLimiter.DEFAULT_WINDOW_MILLIS),
+				config.getInt(CONFIG_VELOCITY_BUCKETS, VelocityLimiter.DEFAULT_BUCKETS),
+				config.getLong(CONFIG_VELOCITY_MAX_ORDERS, 0L),
+				new BigDecimal(config.getString(CONFIG_VELOCITY_MAX_AMOUNT, "0")));
+	}
+
+	@Provides
+	@Singleton
+	BulkService provideBulkService(final TransferOrderDao transferOrderDao, final JsonService jsonService) {
+		return new BulkService(transferOrderDao, jsonService,
+				config.getInt(CONFIG_BULK_PARALLELISM, BulkService.DEFAULT_PARALLELISM));
+	}
+
+	@Provides
+	@Singleton
+	TenantRegistry provideTenantRegistry(final JsonService jsonService, final Clock clock) {
+		final List<String> names = Arrays.stream(config.getString(CONFIG_TENANT_NAMES, "").split(","))
+				.map(String::trim)
+				.filter(name -> !name.isEmpty())
+				.collect(Collectors.toList());
+		return new TenantRegistry(names, TenantSettings.builder()
+				.maxOrders(config.getLong(CONFIG_TENANT_MAX_ORDERS, TenantSettings.DEFAULT_MAX_ORDERS))
+				.requestsPerSecond(config.getLong(CONFIG_TENANT_REQUESTS_PER_SECOND, TenantSettings.DEFAULT_REQUESTS_PER_SECOND))
+				.burst(config.getInt(CONFIG_TENANT_BURST, TenantSettings.DEFAULT_BURST))
+				.maxConcurrentRequests(config.getInt(CONFIG_TENANT_MAX_CONCURRENT_REQUESTS,
+						TenantSettings.DEFAULT_MAX_CONCURRENT_REQUESTS))
+				.build(), jsonService, clock, this::createVelocityLimiter,
+				transferOrderDao -> createTransferScheduler(transferOrderDao, clock));
+	}
+
+	@Provides
+	@Singleton
+	ReplicationNode provideReplicationNode(final TransferOrderDao transferOrderDao) {
+		final String role = config.getString(CONFIG_REPLICATION_ROLE, ROLE_NONE);
+		switch (role) {
+			case ROLE_NONE:
+				return new StandaloneNode();
+			case ROLE_LEADER:
+				return new ReplicationLeader(transferOrderDao,
+						config.getInt(CONFIG_REPLICATION_PORT),
+						config.getInt(CONFIG_REPLICATION_LOG_CAPACITY, DEFAULT_REPLICATION_LOG_CAPACITY),
+						config.getInt(CONFIG_REPLICATION_BATCH_SIZE, DEFAULT_REPLICATION_BATCH_SIZE));
+			case ROLE_FOLLOWER:
+				return new ReplicationFollower(transferOrderDao,
+						config.getString(CONFIG_REPLICATION_LEADER_HOST),
+						config.getInt(CONFIG_REPLICATION_LEADER_PORT),
+						config.getString(CONFIG_REPLICATION_LEADER_URL));
+			default:
+				throw new RuntimeException(String.format("Unsupported %s: %s", CONFIG_REPLICATION_ROLE, role));
+		}
+	}
+
+	@Provides
+	@Singleton
+	ClusterMembership provideClusterMembership() {
+		if (!config.getBoolean(CONFIG_CLUSTER_ENABLED, false)) {
+			return ClusterMembership.standalone();
+		}
+		return new ClusterMembership(
+				config.getString(CONFIG_CLUSTER_NODE_ID),
+				parseClusterNodes(config.getString(CONFIG_CLUSTER_NODES)),
+				config.getInt(CONFIG_CLUSTER_VIRTUAL_NODES, DEFAULT_CLUSTER_VIRTUAL_NODES));
+	}
+
+	@Provides
+	@Singleton
+	AccessLog provideAccessLog() {
+		final int capacity = config.getInt(CONFIG_ACCESS_LOG_CAPACITY, AccessLog.DEFAULT_CAPACITY);
+		if (!config.getBoolean(CONFIG_ACCESS_LOG_ENABLED, false)) {
+			return AccessLog.errorsOnly(capacity);
+		}
+		return new AccessLog(
+				Paths.get(config.getString(CONFIG_ACCESS_LOG_FILE)),
+				config.getLong(CONFIG_ACCESS_LOG_MAX_FILE_BYTES, AccessLog.DEFAULT_MAX_FILE_BYTES),
+				config.getInt(CONFIG_ACCESS_LOG_MAX_FILES, AccessLog.DEFAULT_MAX_FILES),
+				capacity,
+				config.getInt(CONFIG_ACCESS_LOG_BATCH_SIZE, AccessLog.DEFAULT_BATCH_SIZE));
+	}
+
+	@Provides
+	@Singleton
+	SlowRequestLog provideSlowRequestLog() {
+		return new SlowRequestLog(
+				config.getLong(CONFIG_SLOW_REQUEST_MILLIS, SlowRequestLog.DEFAULT_THRESHOLD_MILLIS),
+				config.getInt(CONFIG_SLOW_REQUEST_CAPACITY, SlowRequestLog.DEFAULT_CAPACITY));
+	}
+
+	@Provides
+	@Singleton
+	FlightRecording provideFlightRecording() {
+		if (!config.getBoolean(CONFIG_JFR_ENABLED, false)) {
+			return FlightRecording.disabled();
+		}
+		return new FlightRecording(
+				Paths.get(config.getString(CONFIG_JFR_FILE)),
+				config.getLong(CONFIG_JFR_REQUEST_THRESHOLD, FlightRecording.DEFAULT_REQUEST_THRESHOLD_MILLIS),
+				config.getLong(CONFIG_JFR_DAO_THRESHOLD, FlightRecording.DEFAULT_DAO_THRESHOLD_MILLIS),
+				config.getLong(CONFIG_JFR_JSON_THRESHOLD, FlightRecording.DEFAULT_JSON_THRESHOLD_MILLIS),
+				config.getLong(CONFIG_JFR_UPDATE_THRESHOLD, FlightRecording.DEFAULT_UPDATE_THRESHOLD_MILLIS));
+	}
+
+	@Provides
+	@Singleton
+	ServerSettings provideServerSettings() {
+		return ServerSettings.builder()
+				.http2Enabled(config.getBoolean(CONFIG_SERVER_HTTP2_ENABLED, true))
+				.maxConnections(config.getInt(CONFIG_SERVER_MAX_CONNECTIONS, ServerSettings.DEFAULT_MAX_CONNECTIONS))
+				.idleTimeoutMillis(config.getLong(CONFIG_SERVER_IDLE_TIMEOUT, ServerSettings.DEFAULT_IDLE_TIMEOUT_MILLIS))
+				.requestHeaderSize(config.getInt(CONFIG_SERVER_REQUEST_HEADER_SIZE, ServerSettings.DEFAULT_REQUEST_HEADER_SIZE))
+				.maxConcurrentStreams(config.getInt(CONFIG_SERVER_MAX_CONCURRENT_STREAMS,
+						ServerSettings.DEFAULT_MAX_CONCURRENT_STREAMS))
+				.headerTableSize(config.getInt(CONFIG_SERVER_HEADER_TABLE_SIZE, ServerSettings.DEFAULT_HEADER_TABLE_SIZE))
+				.engine(readEngine())
+				.build();
+	}
+
+	private ServerSettings.Engine readEngine() {
+		final String engine = config.getString(CONFIG_SERVER_ENGINE, ENGINE_SPARK);
+		switch (engine) {
+			case ENGINE_SPARK:
+				return ServerSettings.Engine.SPARK;
+			case ENGINE_JETTY:
+				return ServerSettings.Engine.JETTY;
+			default:
+				throw new RuntimeException(String.format("Unsupported %s: %s", CONFIG_SERVER_ENGINE, engine));
+		}
+	}
+
+	@Provides
+	@Singleton
+	LifecycleService provideLifecycleService(final AppServerFactory serverFactory, final InFlightRequests inFlightRequests,
+			final TransferOrderDao transferOrderDao, final TenantRegistry tenantRegistry,
+			final ReplicationNode replicationNode, final AccessLog accessLog, final JsonService jsonService) {
+		// Only in-memory stores (including the hot tier) need a snapshot, others persist orders on their own.
+		final String snapshotFile = config.getString(CONFIG_SNAPSHOT_FILE, "");
+		final String backend = config.getString(CONFIG_DAO_BACKEND, BACKEND_MEMORY);
+		final boolean snapshot = (BACKEND_MEMORY.equals(backend) || BACKEND_TIERED.equals(backend))
+				&& !snapshotFile.isEmpty();
+		// Tenant stores are always in memory.
+		return new LifecycleService(serverFactory, inFlightRequests, transferOrderDao, tenantRegistry, replicationNode,
+				accessLog, jsonService, snapshot ? Paths.get(snapshotFile) : null,
+				snapshotFile.isEmpty() ? null : Paths.get(snapshotFile),
+				config.getLong(CONFIG_DRAIN_TIMEOUT, LifecycleService.DEFAULT_DRAIN_TIMEOUT_MILLIS));
+	}
+
+	private TransferScheduler createTransferScheduler(final TransferOrderDao transferOrderDao, final Clock clock) {
+		// Followers get promotions from the leader.
+		return new TransferScheduler(transferOrderDao, clock,
+				config.getLong(CONFIG_SCHEDULER_TICK, TransferScheduler.DEFAULT_TICK_MILLIS),
+				config.getInt(CONFIG_SCHEDULER_BATCH_SIZE, TransferScheduler.DEFAULT_BATCH_SIZE),
+				!ROLE_FOLLOWER.equals(config.getString(CONFIG_REPLICATION_ROLE, ROLE_NONE)));
+	}
+
+	/**
+	 * Makes the index follow modifications of the repository and adds orders already stored to it.
+	 * Listener is registered first, so no modification is missed in between.
+	 */
+	private static void attachIndex(final TransferOrderDao transferOrderDao, final OrderMutationListener index,
+			final Consumer<TransferOrder> add) {
+		transferOrderDao.addMutationListener(index);
+		transferOrderDao.getAll().forEach(add);
+	}
+
+	/**
+	 * Parses comma separated list of URLs.
+	 */
+	private List<URI> parseWebhookUrls(final String value) {
+		return Arrays.stream(value.split(","))
+				.map(String::trim)
+				.filter(entry -> !entry.isEmpty())
+				.map(entry -> {
+					try {
+						return new URI(entry);
+					} catch (final URISyntaxException e) {
+						throw new RuntimeException(String.format("Invalid %s entry: %s", CONFIG_WEBHOOK_URLS, entry), e);
+					}
+				})
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Parses list of nodes in format: id1=url1,id2=url2,...
+	 */
+	private List<ClusterNode> parseClusterNodes(final String value) {
+		return Arrays.stream(value.split(","))
+				.map(String::trim)
+				.filter(entry -> !entry.isEmpty())
+				.map(entry -> {
+					final int separator = entry.indexOf('=');
+					if (separator <= 0) {
+						throw new RuntimeException(String.format("Invalid %s entry: %s", CONFIG_CLUSTER_NODES, entry));
+					}
+					return new ClusterNode(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+				})
+				.collect(Collectors.toList());
+	}
 }
@@ -0,0 +1,53 @@
+package pl.com.salsoft.exercise1;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import pl.com.salsoft.exercise1.lifecycle.LifecycleService;
+import pl.com.salsoft.exercise1.service.BulkFormat;
+import pl.com.salsoft.exercise1.service.BulkService;
+
+/**
+ * Offline bulk import: loads orders from a NDJSON or CSV file into the store configured in config.properties,
+ * while the application is not running. The in-memory store is loaded from its snapshot first and saved back
+ * to it at the end, so the next start serves imported orders. See {@link BulkService} for the import itself.
+ */
+public class BulkImport {
+	private static final Logger log = LoggerFactory.getLogger(BulkImport.class);
+
+	/**
+	 * @param args Path of the file to import, optionally followed by its format (ndjson or csv).
+	 * Without the format, it's CSV for files with .csv extension, and NDJSON otherwise.
+	 * @throws IOException If the file could not be read.
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: BulkImport <file> [ndjson|csv]");
+			System.exit(2);
+		}
+		final Path file = Paths.get(args[0]);
+		final BulkFormat format = args.length > 1
+				? BulkFormat.of(args[1]).orElseThrow(() -> new IllegalArgumentException("Unsupported format: " + args[1]))
+				: file.getFileName().toString().toLowerCase().endsWith(".csv") ? BulkFormat.CSV : BulkFormat.NDJSON;
+
+		final Injector injector = Guice.createInjector(new AppModule(AppConfig.load()));
+		final LifecycleService lifecycleService = injector.getInstance(LifecycleService.class);
+		lifecycleService.loadSnapshot();
+
+		final long start = System.nanoTime();
+		final long imported = injector.getInstance(BulkService.class).importFile(file, format);
+		final long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		log.info("Imported {} orders from {} in {} ms ({} orders/s)", imported, file, millis, imported * 1000 / millis);
+
+		lifecycleService.saveStore();
+		System.exit(0);
+	}
+}
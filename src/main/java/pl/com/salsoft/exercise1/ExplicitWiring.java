@@ -0,0 +1,119 @@
+package pl.com.salsoft.exercise1;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.cluster.ClusterClient;
+import pl.com.salsoft.exercise1.cluster.ClusterMembership;
+import pl.com.salsoft.exercise1.cluster.ClusterService;
+import pl.com.salsoft.exercise1.dao.AsyncTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.index.AccountIndex;
+import pl.com.salsoft.exercise1.index.AmountIndex;
+import pl.com.salsoft.exercise1.index.TimeIndex;
+import pl.com.salsoft.exercise1.lifecycle.InFlightRequests;
+import pl.com.salsoft.exercise1.lifecycle.LifecycleService;
+import pl.com.salsoft.exercise1.replication.ReplicationNode;
+import pl.com.salsoft.exercise1.rest.AppServerFactory;
+import pl.com.salsoft.exercise1.rest.ClusterController;
+import pl.com.salsoft.exercise1.rest.DebugController;
+import pl.com.salsoft.exercise1.rest.JettyTransferHandler;
+import pl.com.salsoft.exercise1.rest.LifecycleController;
+import pl.com.salsoft.exercise1.rest.ReplicationController;
+import pl.com.salsoft.exercise1.rest.ServerSettings;
+import pl.com.salsoft.exercise1.rest.TransferOrderController;
+import pl.com.salsoft.exercise1.scheduler.TransferScheduler;
+import pl.com.salsoft.exercise1.service.BulkService;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.RetentionService;
+import pl.com.salsoft.exercise1.service.SearchService;
+import pl.com.salsoft.exercise1.service.TransferService;
+import pl.com.salsoft.exercise1.tenant.TenantRegistry;
+import pl.com.salsoft.exercise1.tracing.FlightRecording;
+import pl.com.salsoft.exercise1.tracing.SlowRequestLog;
+import pl.com.salsoft.exercise1.velocity.VelocityLimiter;
+import pl.com.salsoft.exercise1.webhook.WebhookDispatcher;
+
+/**
+ * Alternative to Guice: builds the same object graph as {@link AppModule}, but with plain constructor calls.
+ *
+ * No reflection is involved, so the application starts faster and a native image needs no reflection
+ * configuration for the wiring. Components that depend on the configuration are created with
+ * the {@link AppModule} provider methods, so both ways of wiring stay consistent. Any new component
+ * bound in {@link AppModule} must be added here as well.
+ */
+public class ExplicitWiring {
+	private final Map<Class<?>, Object> components = new HashMap<>();
+
+	/**
+	 * Creates all application components.
+	 * @param config Application configuration. Cannot be null.
+	 */
+	public ExplicitWiring(@NonNull final AppConfig config) {
+		final AppModule module = new AppModule(config);
+		final JsonService jsonService = register(JsonService.class, new JsonService());
+		final TransferOrderDao transferOrderDao = register(TransferOrderDao.class, module.provideTransferOrderDao());
+		final AsyncTransferOrderDao asyncTransferOrderDao = register(AsyncTransferOrderDao.class,
+				module.provideAsyncTransferOrderDao(transferOrderDao));
+		final ReplicationNode replicationNode = register(ReplicationNode.class, module.provideReplicationNode(transferOrderDao));
+		final ClusterMembership clusterMembership = register(ClusterMembership.class, module.provideClusterMembership());
+		final ClusterClient clusterClient = register(ClusterClient.class, new ClusterClient(jsonService));
+		final ClusterService clusterService = register(ClusterService.class,
+				new ClusterService(clusterMembership, clusterClient, transferOrderDao));
+		final Clock clock = register(Clock.class, module.provideClock());
+		final VelocityLimiter velocityLimiter = register(VelocityLimiter.class, module.provideVelocityLimiter());
+		final TransferService transferService = register(TransferService.class,
+				new TransferService(asyncTransferOrderDao, jsonService, clock, velocityLimiter));
+		final AccountIndex accountIndex = register(AccountIndex.class, module.provideAccountIndex(transferOrderDao));
+		final AmountIndex amountIndex = register(AmountIndex.class, module.provideAmountIndex(transferOrderDao));
+		final TimeIndex timeIndex = register(TimeIndex.class, module.provideTimeIndex(transferOrderDao));
+		final SearchService searchService = register(SearchService.class,
+				new SearchService(transferOrderDao, accountIndex, amountIndex, timeIndex));
+		register(RetentionService.class, module.provideRetentionService(transferOrderDao, timeIndex, clock));
+		register(TransferScheduler.class, module.provideTransferScheduler(transferOrderDao, clock));
+		register(WebhookDispatcher.class, module.provideWebhookDispatcher(jsonService));
+		final BulkService bulkService = register(BulkService.class, module.provideBulkService(transferOrderDao, jsonService));
+		final TenantRegistry tenantRegistry = register(TenantRegistry.class, module.provideTenantRegistry(jsonService, clock));
+		final AccessLog accessLog = register(AccessLog.class, module.provideAccessLog());
+		final SlowRequestLog slowRequestLog = register(SlowRequestLog.class, module.provideSlowRequestLog());
+		register(FlightRecording.class, module.provideFlightRecording());
+		final InFlightRequests inFlightRequests = register(InFlightRequests.class, new InFlightRequests());
+		final ServerSettings serverSettings = register(ServerSettings.class, module.provideServerSettings());
+		final AppServerFactory serverFactory = register(AppServerFactory.class,
+				new AppServerFactory(serverSettings, accessLog, slowRequestLog, inFlightRequests));
+		final LifecycleService lifecycleService = register(LifecycleService.class, module.provideLifecycleService(
+				serverFactory, inFlightRequests, transferOrderDao, tenantRegistry, replicationNode, accessLog, jsonService));
+
+		register(AppConfig.class, config);
+		register(TransferOrderController.class,
+				new TransferOrderController(transferService, searchService, bulkService, jsonService, clusterMembership,
+						clusterClient, tenantRegistry, accessLog));
+		register(ReplicationController.class, new ReplicationController(replicationNode, jsonService, accessLog));
+		register(ClusterController.class, new ClusterController(clusterService, clusterClient, jsonService, accessLog));
+		register(DebugController.class, new DebugController(slowRequestLog, jsonService, accessLog));
+		register(LifecycleController.class, new LifecycleController(lifecycleService, jsonService, accessLog));
+		register(JettyTransferHandler.class, new JettyTransferHandler(serverSettings, serverFactory, transferService,
+				jsonService, accessLog, clusterMembership, replicationNode, lifecycleService));
+	}
+
+	/**
+	 * @param type Type of the component, as bound in {@link AppModule}. Cannot be null.
+	 * @return The component.
+	 * @throws IllegalArgumentException If there's no such component.
+	 */
+	public <T> T getInstance(@NonNull final Class<T> type) {
+		final Object component = components.get(type);
+		if (component == null) {
+			throw new IllegalArgumentException(String.format("No component of type %s", type.getName()));
+		}
+		return type.cast(component);
+	}
+
+	private <T> T register(final Class<T> type, final T component) {
+		components.put(type, component);
+		return component;
+	}
+}
@@ -0,0 +1,339 @@
+package pl.com.salsoft.exercise1.accesslog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+
+/**
+ * Asynchronous log of handled requests and request errors.
+ *
+ * Request threads only claim a slot of a preallocated ring buffer (with a single CAS) and fill it in,
+ * they never wait for I/O nor for each other. A background thread drains the ring in batches: access records
+ * are appended to a rotating file and errors are logged with SLF4J, with their cause chain.
+ * If the ring is full, the record is dropped and counted. Number of dropped records is written to the file
+ * and logged as a warning, at most once per {@value #DROP_REPORT_INTERVAL_MILLIS} ms.
+ */
+public class AccessLog {
+	/**
+	 * Request attribute with the matched route (i.e. /transfer/:id), used instead of the path,
+	 * so the log can be aggregated by route.
+	 */
+	public static final String ROUTE_ATTRIBUTE = AccessLog.class.getName() + ".route";
+	public static final int DEFAULT_CAPACITY = 8192;
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	public static final long DEFAULT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+	public static final int DEFAULT_MAX_FILES = 5;
+
+	private static final long DROP_REPORT_INTERVAL_MILLIS = 1000L;
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+	private static final long STOP_TIMEOUT_MILLIS = 5000L;
+	private static final String NO_ROUTE = "-";
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private final Entry[] ring;
+	private final int mask;
+	private final int batchSize;
+	private final RotatingLogFile file;
+	private final AtomicLong claimed = new AtomicLong();
+	private final LongAdder dropped = new LongAdder();
+	private final StringBuilder lines = new StringBuilder();
+	private volatile long consumed;
+	private volatile boolean running;
+	private Thread writer;
+	private long reportedDropped;
+	private long nextDropReport;
+
+	/**
+	 * Single record in the ring. Fields are written by the producer that claimed the slot and made visible
+	 * to the writer by the volatile write of the sequence number.
+	 */
+	private static final class Entry {
+		private volatile long published = -1L;
+		private long timestampMillis;
+		private String method;
+		private String route;
+		private int status;
+		private long latencyNanos;
+		private long bytes;
+		private String uri;
+		private Throwable error;
+	}
+
+	/**
+	 * Creates log writing access records to given file.
+	 * @param file Path of the access log file. Cannot be null.
+	 * @param maxFileBytes Size, after which the file is rotated. Must be positive.
+	 * @param maxFiles Number of rotated files kept, besides the current one. Cannot be negative.
+	 * @param capacity Number of records buffered for the writer. Rounded up to power of two.
+	 * @param batchSize Maximum number of records written at once. Must be positive.
+	 */
+	public AccessLog(@NonNull final Path file, final long maxFileBytes, final int maxFiles, final int capacity,
+			final int batchSize) {
+		this(new RotatingLogFile(file, maxFileBytes, maxFiles), capacity, batchSize);
+	}
+
+	private AccessLog(final RotatingLogFile file, final int capacity, final int batchSize) {
+		if (capacity <= 0 || capacity > (1 << 30) || batchSize <= 0) {
+			throw new IllegalArgumentException("Access log capacity and batch size must be positive.");
+		}
+		this.file = file;
+		this.batchSize = batchSize;
+		this.ring = new Entry[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+		this.mask = ring.length - 1;
+		for (int i = 0; i < ring.length; i++) {
+			ring[i] = new Entry();
+		}
+	}
+
+	/**
+	 * Creates log which discards access records and only logs request errors.
+	 * @param capacity Number of errors buffered for the writer.
+	 * @return New log.
+	 */
+	public static AccessLog errorsOnly(final int capacity) {
+		return new AccessLog(null, capacity, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Starts background writer. Should be called at the application start.
+	 * Records added before are buffered (up to the capacity).
+	 */
+	public synchronized void start() {
+		if (writer != null) {
+			return;
+		}
+		running = true;
+		writer = new Thread(this::writeLoop, "access-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Stops background writer, after it writes all buffered records, and closes the file.
+	 */
+	public synchronized void stop() {
+		running = false;
+		if (writer != null) {
+			LockSupport.unpark(writer);
+			try {
+				writer.join(STOP_TIMEOUT_MILLIS);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			writer = null;
+		} else {
+			drainAll();
+		}
+		try {
+			if (file != null) {
+				file.close();
+			}
+		} catch (final IOException e) {
+			log.warn("Could not close access log: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Records handled request. Never blocks.
+	 * @param method HTTP method.
+	 * @param route Matched route, or null if no route was matched.
+	 * @param status Response status code.
+	 * @param latencyNanos Time from receiving the request until the response was completed.
+	 * @param bytes Number of response bytes written.
+	 */
+	public void record(final String method, final String route, final int status, final long latencyNanos,
+			final long bytes) {
+		if (file == null) {
+			return;
+		}
+		final long sequence = claim();
+		if (sequence < 0) {
+			return;
+		}
+		final Entry entry = ring[(int) sequence & mask];
+		entry.timestampMillis = System.currentTimeMillis();
+		entry.method = method;
+		entry.route = route;
+		entry.status = status;
+		entry.latencyNanos = latencyNanos;
+		entry.bytes = bytes;
+		entry.published = sequence;
+	}
+
+	/**
+	 * Records request error, to be logged by the background writer. Never blocks.
+	 * @param method HTTP method.
+	 * @param uri Requested URI.
+	 * @param error Cause of the failure. Cannot be null.
+	 */
+	public void error(final String method, final String uri, @NonNull final Throwable error) {
+		final long sequence = claim();
+		if (sequence < 0) {
+			return;
+		}
+		final Entry entry = ring[(int) sequence & mask];
+		entry.timestampMillis = System.currentTimeMillis();
+		entry.method = method;
+		entry.uri = uri;
+		entry.error = error;
+		entry.published = sequence;
+	}
+
+	/**
+	 * @return Total number of records dropped, because the writer could not keep up.
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return Sequence number of a free slot, or -1 if the ring is full.
+	 */
+	private long claim() {
+		long sequence;
+		do {
+			sequence = claimed.get();
+			if (sequence - consumed >= ring.length) {
+				dropped.increment();
+				return -1L;
+			}
+		} while (!claimed.compareAndSet(sequence, sequence + 1));
+		return sequence;
+	}
+
+	private void writeLoop() {
+		while (running) {
+			if (drain() == 0) {
+				flush();
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			}
+			reportDropped(false);
+		}
+		drainAll();
+	}
+
+	private void drainAll() {
+		while (drain() > 0) {
+			// Keep draining
+		}
+		reportDropped(true);
+		flush();
+	}
+
+	/**
+	 * Writes a batch of consecutive published records.
+	 * @return Number of records written.
+	 */
+	private int drain() {
+		long sequence = consumed;
+		int count = 0;
+		while (count < batchSize) {
+			final Entry entry = ring[(int) sequence & mask];
+			if (entry.published != sequence) {
+				break;
+			}
+			if (entry.error != null) {
+				logError(entry);
+			} else {
+				appendLine(entry);
+			}
+			entry.method = null;
+			entry.route = null;
+			entry.uri = null;
+			entry.error = null;
+			sequence++;
+			count++;
+		}
+		if (count > 0) {
+			// Slots are released only after they were read and cleared.
+			consumed = sequence;
+			writeLines();
+		}
+		return count;
+	}
+
+	private void appendLine(final Entry entry) {
+		lines.append(Instant.ofEpochMilli(entry.timestampMillis))
+				.append(' ').append(entry.method)
+				.append(' ').append(entry.route != null ? entry.route : NO_ROUTE)
+				.append(' ').append(entry.status)
+				.append(' ').append(TimeUnit.NANOSECONDS.toMicros(entry.latencyNanos)).append("us")
+				.append(' ').append(entry.bytes).append('B')
+				.append('\n');
+	}
+
+	private void logError(final Entry entry) {
+		final Throwable error = entry.error;
+		log.error("Request failed: method={} uri={} time={} error={} message=\"{}\" causes=[{}]",
+				entry.method, entry.uri, Instant.ofEpochMilli(entry.timestampMillis), error.getClass().getName(),
+				error.getMessage(), describeCauses(error));
+	}
+
+	/**
+	 * @return Cause chain of the error, as "class: message" entries from the outermost one, separated by " <- ".
+	 */
+	static String describeCauses(final Throwable error) {
+		final StringBuilder causes = new StringBuilder();
+		Throwable cause = error.getCause();
+		// Limited, in case of a cycle in the chain
+		for (int depth = 0; cause != null && cause != error && depth < 16; depth++, cause = cause.getCause()) {
+			if (causes.length() > 0) {
+				causes.append(" <- ");
+			}
+			causes.append(cause.getClass().getName()).append(": ").append(cause.getMessage());
+		}
+		return causes.toString();
+	}
+
+	private void reportDropped(final boolean force) {
+		final long now = System.currentTimeMillis();
+		if (!force && now < nextDropReport) {
+			return;
+		}
+		nextDropReport = now + DROP_REPORT_INTERVAL_MILLIS;
+		final long total = dropped.sum();
+		if (total == reportedDropped) {
+			return;
+		}
+		final long recent = total - reportedDropped;
+		reportedDropped = total;
+		log.warn("Access log dropped {} records ({} in total), the writer could not keep up.", recent, total);
+		if (file != null) {
+			lines.append(Instant.ofEpochMilli(now)).append(" # dropped ").append(recent).append(" records\n");
+			writeLines();
+		}
+	}
+
+	private void writeLines() {
+		if (lines.length() == 0) {
+			return;
+		}
+		try {
+			if (file != null) {
+				file.write(lines);
+			}
+		} catch (final IOException e) {
+			log.warn("Could not write access log: {}", e.getMessage());
+		}
+		lines.setLength(0);
+	}
+
+	private void flush() {
+		try {
+			if (file != null) {
+				file.flush();
+			}
+		} catch (final IOException e) {
+			log.warn("Could not write access log: {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package pl.com.salsoft.exercise1.accesslog;
+
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.Request;
+
+import lombok.NonNull;
+
+/**
+ * Jetty listener feeding the {@link AccessLog} with every completed request. It's notified after
+ * the response was fully written, so the status and the number of bytes are final, which is not
+ * the case for any of Spark filters.
+ */
+public class AccessLogListener implements HttpChannel.Listener {
+	private static final String START_ATTRIBUTE = AccessLogListener.class.getName() + ".start";
+
+	private final AccessLog accessLog;
+
+	/**
+	 * @param accessLog Log to record requests in. Cannot be null.
+	 */
+	public AccessLogListener(@NonNull final AccessLog accessLog) {
+		this.accessLog = accessLog;
+	}
+
+	@Override
+	public void onRequestBegin(final Request request) {
+		request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+	}
+
+	@Override
+	public void onComplete(final Request request) {
+		final Object start = request.getAttribute(START_ATTRIBUTE);
+		final long latencyNanos = start instanceof Long ? System.nanoTime() - (Long) start : 0L;
+		accessLog.record(request.getMethod(), (String) request.getAttribute(AccessLog.ROUTE_ATTRIBUTE),
+				request.getResponse().getStatus(), latencyNanos, request.getHttpChannel().getBytesWritten());
+	}
+}
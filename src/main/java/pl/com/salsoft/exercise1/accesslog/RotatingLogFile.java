@@ -0,0 +1,100 @@
+package pl.com.salsoft.exercise1.accesslog;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Text file, which is rotated when it grows over the size limit: access.log is renamed
+ * to access.log.1, access.log.1 to access.log.2 and so on, and the oldest file is deleted.
+ * The file is opened on the first write, so nothing is created until there's something to log.
+ *
+ * It's not thread-safe, it's meant to be used by a single writer thread.
+ */
+class RotatingLogFile {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path file;
+	private final long maxFileBytes;
+	private final int maxFiles;
+	private OutputStream output;
+	private long size;
+
+	/**
+	 * @param file Path of the current log file. Cannot be null.
+	 * @param maxFileBytes Size, after which the file is rotated. Must be positive.
+	 * @param maxFiles Number of rotated files kept, besides the current one. Cannot be negative.
+	 */
+	RotatingLogFile(final Path file, final long maxFileBytes, final int maxFiles) {
+		if (maxFileBytes <= 0 || maxFiles < 0) {
+			throw new IllegalArgumentException("Log file size must be positive and number of files cannot be negative.");
+		}
+		this.file = file;
+		this.maxFileBytes = maxFileBytes;
+		this.maxFiles = maxFiles;
+	}
+
+	/**
+	 * Appends text to the file, rotating it first if it's already full.
+	 * Text is buffered, use {@link #flush()} to write it out.
+	 */
+	void write(final CharSequence text) throws IOException {
+		if (output == null) {
+			open();
+		} else if (size >= maxFileBytes) {
+			rotate();
+		}
+		final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+		output.write(bytes);
+		size += bytes.length;
+	}
+
+	void flush() throws IOException {
+		if (output != null) {
+			output.flush();
+		}
+	}
+
+	void close() throws IOException {
+		if (output != null) {
+			output.close();
+			output = null;
+		}
+	}
+
+	private void open() throws IOException {
+		final Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		size = Files.exists(file) ? Files.size(file) : 0L;
+		output = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+				BUFFER_SIZE);
+	}
+
+	private void rotate() throws IOException {
+		close();
+		Files.deleteIfExists(rotated(maxFiles));
+		for (int index = maxFiles - 1; index >= 1; index--) {
+			final Path source = rotated(index);
+			if (Files.exists(source)) {
+				Files.move(source, rotated(index + 1), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		if (maxFiles > 0) {
+			Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+		} else {
+			Files.deleteIfExists(file);
+		}
+		open();
+	}
+
+	private Path rotated(final int index) {
+		return file.resolveSibling(String.format("%s.%d", file.getFileName(), index));
+	}
+}
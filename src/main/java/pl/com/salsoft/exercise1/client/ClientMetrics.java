@@ -0,0 +1,138 @@
+package pl.com.salsoft.exercise1.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.NonNull;
+
+/**
+ * Latencies of the operations of {@link TransferClient}, as seen by its callers, and numbers of failed ones.
+ *
+ * Latencies are counted in log-linear buckets (8 per power of 2 microseconds), so recording is a single
+ * atomic increment, and percentiles are accurate to 12.5%. Values are kept since the client was created.
+ */
+public class ClientMetrics {
+	/**
+	 * Operations of the client.
+	 */
+	public enum Operation {
+		GET,
+		LIST,
+		STREAM,
+		/**
+		 * Creation of a single order, including the time it waited to be batched with others.
+		 */
+		CREATE,
+		/**
+		 * Request creating a batch of orders.
+		 */
+		BATCH,
+		REPLACE,
+		PATCH,
+		DELETE,
+		;
+	}
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// Values below it have a bucket of their own.
+	private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+	private static final int BUCKETS = LINEAR_LIMIT + (Long.SIZE - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+	private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+
+	ClientMetrics() {
+		for (final Operation operation : Operation.values()) {
+			histograms.put(operation, new Histogram());
+		}
+	}
+
+	/**
+	 * @param operation Operation. Cannot be null.
+	 * @return Number of completed operations, including failed ones.
+	 */
+	public long getCount(@NonNull final Operation operation) {
+		return histograms.get(operation).count.sum();
+	}
+
+	/**
+	 * @param operation Operation. Cannot be null.
+	 * @return Number of failed operations.
+	 */
+	public long getErrors(@NonNull final Operation operation) {
+		return histograms.get(operation).errors.sum();
+	}
+
+	/**
+	 * @param operation Operation. Cannot be null.
+	 * @param fraction Fraction of operations, i.e. 0.99 for the 99th percentile. Must be between 0 and 1.
+	 * @return Latency, in microseconds, that given fraction of operations didn't exceed, or 0 if there were none.
+	 */
+	public long getPercentileMicros(@NonNull final Operation operation, final double fraction) {
+		if (fraction < 0.0 || fraction > 1.0) {
+			throw new IllegalArgumentException("Fraction must be between 0 and 1.");
+		}
+		final AtomicLongArray buckets = histograms.get(operation).buckets;
+		long total = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += buckets.get(i);
+		}
+		if (total == 0L) {
+			return 0L;
+		}
+		final long rank = Math.max(1L, (long) Math.ceil(total * fraction));
+		long seen = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return upperBound(i);
+			}
+		}
+		return upperBound(BUCKETS - 1);
+	}
+
+	/**
+	 * Records completed operation.
+	 * @param operation Operation.
+	 * @param startNanos Start of the operation, from {@link System#nanoTime()}.
+	 * @param failed true if the operation failed.
+	 */
+	void record(final Operation operation, final long startNanos, final boolean failed) {
+		final Histogram histogram = histograms.get(operation);
+		histogram.count.increment();
+		if (failed) {
+			histogram.errors.increment();
+		}
+		histogram.buckets.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos)));
+	}
+
+	static int bucketOf(final long micros) {
+		if (micros < LINEAR_LIMIT) {
+			return (int) Math.max(0L, micros);
+		}
+		final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+		final int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @return The greatest value counted in the bucket.
+	 */
+	static long upperBound(final int bucket) {
+		if (bucket < LINEAR_LIMIT) {
+			return bucket;
+		}
+		final int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+		final long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+		return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	private static class Histogram {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	}
+}
@@ -0,0 +1,55 @@
+package pl.com.salsoft.exercise1.client;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Settings of {@link TransferClient}.
+ */
+@Builder
+@Getter
+public final class ClientSettings {
+	public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+	public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+	public static final int DEFAULT_MAX_BATCHES_IN_FLIGHT = 4;
+	public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 2_000L;
+	public static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = 30_000L;
+
+	/**
+	 * URL of the service, i.e. http://localhost:8000, without the trailing slash.
+	 */
+	@NonNull
+	private final String baseUrl;
+	/**
+	 * true to multiplex requests over HTTP/2 connections, if the service supports them (server.http2.enabled),
+	 * false to use a pool of HTTP/1.1 keep-alive connections.
+	 */
+	@Builder.Default
+	private final boolean http2 = true;
+	/**
+	 * Maximum number of requests in progress at once. Further requests are queued until a slot is freed.
+	 */
+	@Builder.Default
+	private final int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+	/**
+	 * Maximum number of orders created in a single request.
+	 */
+	@Builder.Default
+	private final int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+	/**
+	 * Maximum number of requests creating orders in progress at once. Orders created meanwhile are batched.
+	 */
+	@Builder.Default
+	private final int maxBatchesInFlight = DEFAULT_MAX_BATCHES_IN_FLIGHT;
+	/**
+	 * Time to wait for a connection to the service.
+	 */
+	@Builder.Default
+	private final long connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+	/**
+	 * Time to wait for the response of the service.
+	 */
+	@Builder.Default
+	private final long requestTimeoutMillis = DEFAULT_REQUEST_TIMEOUT_MILLIS;
+}
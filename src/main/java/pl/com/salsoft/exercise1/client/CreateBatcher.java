@@ -0,0 +1,117 @@
+package pl.com.salsoft.exercise1.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Coalesces concurrent creations of single orders into batches.
+ *
+ * Orders are sent right away, as long as fewer than the maximum number of batches are in flight, so a lone
+ * order never waits for others. Orders created while all batches are in flight are queued, and the queue is
+ * sent as a single batch (or a few, up to the maximum batch size) as soon as any of the batches completes.
+ * So batches grow with the load on their own, without any timer, and an order waits at most for
+ * a batch in flight to complete. A batch is created all or none, so if it fails, every order of it fails,
+ * and none of them was created.
+ */
+class CreateBatcher {
+	private final int maxBatchSize;
+	private final int maxBatchesInFlight;
+	private final Function<List<TransferOrder>, CompletableFuture<List<TransferOrder>>> sender;
+	private final Queue<PendingOrder> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger batchesInFlight = new AtomicInteger();
+
+	/**
+	 * @param maxBatchSize Maximum number of orders in a batch. Must be positive.
+	 * @param maxBatchesInFlight Maximum number of batches sent at once. Must be positive.
+	 * @param sender Sends the batch and completes with created orders, in the same order.
+	 */
+	CreateBatcher(final int maxBatchSize, final int maxBatchesInFlight,
+			final Function<List<TransferOrder>, CompletableFuture<List<TransferOrder>>> sender) {
+		if (maxBatchSize <= 0 || maxBatchesInFlight <= 0) {
+			throw new IllegalArgumentException("Batch size and batches in flight must be positive.");
+		}
+		this.maxBatchSize = maxBatchSize;
+		this.maxBatchesInFlight = maxBatchesInFlight;
+		this.sender = sender;
+	}
+
+	/**
+	 * @param order Order to create.
+	 * @return Future completed with the created order, when the batch it was sent in completes.
+	 */
+	CompletableFuture<TransferOrder> create(final TransferOrder order) {
+		final PendingOrder pending = new PendingOrder(order);
+		queue.add(pending);
+		drain();
+		return pending.created;
+	}
+
+	/**
+	 * Sends queued orders, while there are free batch slots. The order is queued before slots are checked,
+	 * and a slot is freed before the queue is checked, so an order is never left behind: either its creator
+	 * takes a free slot, or the batch freeing the slot takes the order.
+	 */
+	private void drain() {
+		while (!queue.isEmpty()) {
+			final int inFlight = batchesInFlight.get();
+			if (inFlight >= maxBatchesInFlight) {
+				return;
+			}
+			if (!batchesInFlight.compareAndSet(inFlight, inFlight + 1)) {
+				continue;
+			}
+			final List<PendingOrder> batch = new ArrayList<>();
+			PendingOrder pending;
+			while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+				batch.add(pending);
+			}
+			if (batch.isEmpty()) {
+				// Taken by another thread meanwhile.
+				batchesInFlight.decrementAndGet();
+			} else {
+				send(batch);
+			}
+		}
+	}
+
+	private void send(final List<PendingOrder> batch) {
+		final List<TransferOrder> orders = new ArrayList<>(batch.size());
+		batch.forEach(pending -> orders.add(pending.order));
+		CompletableFuture<List<TransferOrder>> result;
+		try {
+			result = sender.apply(orders);
+		} catch (final RuntimeException e) {
+			result = CompletableFuture.failedFuture(e);
+		}
+		result.whenComplete((created, error) -> {
+			batchesInFlight.decrementAndGet();
+			for (int i = 0; i < batch.size(); i++) {
+				if (error != null) {
+					batch.get(i).created.completeExceptionally(error);
+				} else if (created.size() != batch.size()) {
+					batch.get(i).created.completeExceptionally(new TransferClientException(String.format(
+							"Service created %d orders of %d.", created.size(), batch.size()), 0));
+				} else {
+					batch.get(i).created.complete(created.get(i));
+				}
+			}
+			drain();
+		});
+	}
+
+	private static class PendingOrder {
+		private final TransferOrder order;
+		private final CompletableFuture<TransferOrder> created = new CompletableFuture<>();
+
+		private PendingOrder(final TransferOrder order) {
+			this.order = order;
+		}
+	}
+}
@@ -0,0 +1,432 @@
+package pl.com.salsoft.exercise1.client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import lombok.Getter;
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.client.ClientMetrics.Operation;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Client of the /transfer resource of the service, for other Java applications.
+ *
+ * All requests share a single JDK HTTP client, so connections are kept alive and reused: with HTTP/2 requests
+ * are multiplexed over a single connection, with HTTP/1.1 they're spread over a pool of connections.
+ * At most {@link ClientSettings#getMaxInFlight()} requests are in progress at once, so the client never overloads
+ * the service. Requests beyond that are queued and sent as soon as a slot is freed: asynchronous methods never block,
+ * not even on threads of the HTTP client completing other requests, only synchronous ones wait for the result.
+ *
+ * Orders created at the same time by many threads are sent in batches (POST /transfer/batch),
+ * see {@link CreateBatcher}, so each of them still gets its own created order. Large lists are streamed
+ * from the export of the service order by order, see {@link #stream()}. Latencies of all operations
+ * are recorded in {@link #getMetrics()}.
+ *
+ * Every operation has a synchronous and an asynchronous variant. Failures are reported as
+ * {@link TransferClientException}, thrown or failing the future.
+ */
+public class TransferClient {
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String APPLICATION_JSON = "application/json";
+	private static final String MERGE_PATCH_TYPE = "application/merge-patch+json";
+	private static final String RESOURCE_ROOT = "/transfer";
+	private static final String RESOURCE_BATCH = RESOURCE_ROOT + "/batch";
+	private static final String RESOURCE_EXPORT = RESOURCE_ROOT + "/export";
+	private static final TypeReference<List<TransferOrder>> ORDER_LIST = new TypeReference<List<TransferOrder>>() {};
+	private static final int OK = 200;
+	private static final int CREATED = 201;
+	private static final int NO_CONTENT = 204;
+	private static final int NOT_FOUND = 404;
+
+	private final ObjectMapper mapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	private final String baseUrl;
+	private final Duration requestTimeout;
+	private final HttpClient httpClient;
+	private final int maxInFlight;
+	private final Queue<CompletableFuture<Void>> waiting = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final CreateBatcher batcher;
+	@Getter
+	private final ClientMetrics metrics = new ClientMetrics();
+
+	/**
+	 * @param settings Settings of the client. Cannot be null.
+	 */
+	public TransferClient(@NonNull final ClientSettings settings) {
+		if (settings.getMaxInFlight() <= 0 || settings.getMaxBatchesInFlight() > settings.getMaxInFlight()) {
+			throw new IllegalArgumentException("Requests in flight must be positive, and not fewer than batches in flight.");
+		}
+		this.baseUrl = settings.getBaseUrl();
+		this.requestTimeout = Duration.ofMillis(settings.getRequestTimeoutMillis());
+		this.httpClient = HttpClient.newBuilder()
+				.version(settings.isHttp2() ? Version.HTTP_2 : Version.HTTP_1_1)
+				.connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMillis()))
+				.build();
+		this.maxInFlight = settings.getMaxInFlight();
+		this.batcher = new CreateBatcher(settings.getMaxBatchSize(), settings.getMaxBatchesInFlight(), this::createBatch);
+	}
+
+	/**
+	 * @param id ID of the order.
+	 * @return The order, or empty Optional if there is no order with given ID.
+	 */
+	public Optional<TransferOrder> get(final long id) {
+		return join(getAsync(id));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #get(long)}.
+	 */
+	public CompletableFuture<Optional<TransferOrder>> getAsync(final long id) {
+		return send(Operation.GET, newRequest(byId(id)).GET(), response -> response.statusCode() == NOT_FOUND
+				? Optional.empty()
+				: Optional.of(read(response, OK, TransferOrder.class)));
+	}
+
+	/**
+	 * Lists all orders. Whole response is kept in memory, large lists should be streamed with {@link #stream()}.
+	 * @return All orders, in no particular order.
+	 */
+	public List<TransferOrder> list() {
+		return join(listAsync());
+	}
+
+	/**
+	 * Asynchronous variant of {@link #list()}.
+	 */
+	public CompletableFuture<List<TransferOrder>> listAsync() {
+		return send(Operation.LIST, newRequest(RESOURCE_ROOT).GET(), response -> read(response, OK, ORDER_LIST));
+	}
+
+	/**
+	 * Finds first orders matching given filter, in given order, see GET /transfer?filter=&sort=&limit=.
+	 * @param filter Filter expression, i.e. "status eq PLANNED and amount gt 100", or null to match all orders.
+	 * @param sort Sort expression, i.e. "-amount", or null to sort by ID.
+	 * @param limit Maximum number of orders. Must be positive.
+	 * @return Matching orders, sorted.
+	 */
+	public List<TransferOrder> find(final String filter, final String sort, final int limit) {
+		return join(findAsync(filter, sort, limit));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #find(String, String, int)}.
+	 */
+	public CompletableFuture<List<TransferOrder>> findAsync(final String filter, final String sort, final int limit) {
+		final StringBuilder query = new StringBuilder(RESOURCE_ROOT).append("?limit=").append(limit);
+		if (filter != null) {
+			query.append("&filter=").append(URLEncoder.encode(filter, StandardCharsets.UTF_8));
+		}
+		if (sort != null) {
+			query.append("&sort=").append(URLEncoder.encode(sort, StandardCharsets.UTF_8));
+		}
+		return send(Operation.LIST, newRequest(query.toString()).GET(), response -> read(response, OK, ORDER_LIST));
+	}
+
+	/**
+	 * Streams all orders from the export of the service, parsing them as they arrive, so the list is never
+	 * kept in memory. The stream holds a connection and a request slot until it's closed, so it should be used
+	 * in try-with-resources.
+	 * @return Stream of all orders, in no particular order.
+	 */
+	public Stream<TransferOrder> stream() {
+		return join(streamAsync());
+	}
+
+	/**
+	 * Asynchronous variant of {@link #stream()}. The future completes when the response starts.
+	 */
+	public CompletableFuture<Stream<TransferOrder>> streamAsync() {
+		final long start = System.nanoTime();
+		final CompletableFuture<HttpResponse<Stream<String>>> started = acquire().thenCompose(slot ->
+				httpClient.sendAsync(newRequest(RESOURCE_EXPORT).GET().build(), BodyHandlers.ofLines()));
+		return started.handle((response, error) -> {
+			if (error != null || response.statusCode() != OK) {
+				if (response != null) {
+					response.body().close();
+				}
+				release();
+				metrics.record(Operation.STREAM, start, true);
+				throw failure(error, response);
+			}
+			metrics.record(Operation.STREAM, start, false);
+			return response.body()
+					.filter(line -> !line.isEmpty())
+					.map(line -> map(line, TransferOrder.class))
+					.onClose(this::release);
+		});
+	}
+
+	/**
+	 * Creates the order. Orders created concurrently by other threads are sent to the service together with it.
+	 * @param order Order to create. Cannot be null.
+	 * @return Created order, with the ID and status assigned by the service.
+	 */
+	public TransferOrder create(@NonNull final TransferOrder order) {
+		return join(createAsync(order));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #create(TransferOrder)}.
+	 */
+	public CompletableFuture<TransferOrder> createAsync(@NonNull final TransferOrder order) {
+		final long start = System.nanoTime();
+		return batcher.create(order).whenComplete((created, error) -> metrics.record(Operation.CREATE, start, error != null));
+	}
+
+	/**
+	 * Creates all orders in a single request, all or none of them, see POST /transfer/batch.
+	 * @param orders Orders to create. Cannot be null.
+	 * @return Created orders, in the same order.
+	 */
+	public List<TransferOrder> createAll(@NonNull final List<TransferOrder> orders) {
+		return join(createAllAsync(orders));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #createAll(List)}.
+	 */
+	public CompletableFuture<List<TransferOrder>> createAllAsync(@NonNull final List<TransferOrder> orders) {
+		return send(Operation.BATCH, newRequest(RESOURCE_BATCH).POST(BodyPublishers.ofByteArray(write(orders))),
+				response -> read(response, CREATED, ORDER_LIST));
+	}
+
+	/**
+	 * Replaces the order with given ID, or creates it if it doesn't exist.
+	 * @param id ID of the order.
+	 * @param order New value of the order. Cannot be null.
+	 * @return Saved order.
+	 */
+	public TransferOrder replace(final long id, @NonNull final TransferOrder order) {
+		return join(replaceAsync(id, order));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #replace(long, TransferOrder)}.
+	 */
+	public CompletableFuture<TransferOrder> replaceAsync(final long id, @NonNull final TransferOrder order) {
+		return send(Operation.REPLACE, newRequest(byId(id)).PUT(BodyPublishers.ofByteArray(write(order))),
+				this::readSaved);
+	}
+
+	/**
+	 * Applies JSON Merge Patch (RFC 7396) onto the order with given ID, or creates it if it doesn't exist.
+	 * @param id ID of the order.
+	 * @param mergePatch Patch document, i.e. {"status": "FINISHED"}. Cannot be null.
+	 * @return Saved order.
+	 */
+	public TransferOrder patch(final long id, @NonNull final String mergePatch) {
+		return join(patchAsync(id, mergePatch));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #patch(long, String)}.
+	 */
+	public CompletableFuture<TransferOrder> patchAsync(final long id, @NonNull final String mergePatch) {
+		return send(Operation.PATCH, newRequest(byId(id), MERGE_PATCH_TYPE)
+				.method("PATCH", BodyPublishers.ofString(mergePatch)), this::readSaved);
+	}
+
+	/**
+	 * @param id ID of the order.
+	 * @return true if the order existed and was deleted, false otherwise.
+	 */
+	public boolean delete(final long id) {
+		return join(deleteAsync(id));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #delete(long)}.
+	 */
+	public CompletableFuture<Boolean> deleteAsync(final long id) {
+		return send(Operation.DELETE, newRequest(byId(id)).DELETE(), response -> {
+			if (response.statusCode() != NO_CONTENT && response.statusCode() != NOT_FOUND) {
+				throw failure(null, response);
+			}
+			return response.statusCode() == NO_CONTENT;
+		});
+	}
+
+	/**
+	 * Sends a batch of orders queued by the {@link CreateBatcher}. A single order is sent with plain POST.
+	 */
+	private CompletableFuture<List<TransferOrder>> createBatch(final List<TransferOrder> orders) {
+		if (orders.size() > 1) {
+			return createAllAsync(orders);
+		}
+		return send(Operation.BATCH, newRequest(RESOURCE_ROOT).POST(BodyPublishers.ofByteArray(write(orders.get(0)))),
+				response -> List.of(read(response, CREATED, TransferOrder.class)));
+	}
+
+	/**
+	 * Sends the request as soon as it gets a request slot, and reads the response with given function.
+	 */
+	private <T> CompletableFuture<T> send(final Operation operation, final HttpRequest.Builder builder,
+			final Function<HttpResponse<byte[]>, T> reader) {
+		final long start = System.nanoTime();
+		final CompletableFuture<HttpResponse<byte[]>> response = acquire().thenCompose(slot ->
+				httpClient.sendAsync(builder.build(), BodyHandlers.ofByteArray()));
+		return response.handle((received, error) -> {
+			release();
+			try {
+				if (error != null) {
+					throw failure(error, null);
+				}
+				final T result = reader.apply(received);
+				metrics.record(operation, start, false);
+				return result;
+			} catch (final RuntimeException e) {
+				metrics.record(operation, start, true);
+				throw e;
+			}
+		});
+	}
+
+	/**
+	 * @return Future completed (never exceptionally) when the request gets a slot, right away if one is free.
+	 * The slot must be released with {@link #release()}.
+	 */
+	private CompletableFuture<Void> acquire() {
+		final CompletableFuture<Void> slot = new CompletableFuture<>();
+		waiting.add(slot);
+		grantSlots();
+		return slot;
+	}
+
+	private void release() {
+		inFlight.decrementAndGet();
+		grantSlots();
+	}
+
+	/**
+	 * Grants free slots to waiting requests. The request is queued before slots are checked, and a slot is freed
+	 * before the queue is checked, so a request is never left behind, the same way as in {@link CreateBatcher}.
+	 */
+	private void grantSlots() {
+		while (!waiting.isEmpty()) {
+			final int taken = inFlight.get();
+			if (taken >= maxInFlight) {
+				return;
+			}
+			if (!inFlight.compareAndSet(taken, taken + 1)) {
+				continue;
+			}
+			final CompletableFuture<Void> slot = waiting.poll();
+			if (slot == null) {
+				// Taken by another thread meanwhile.
+				inFlight.decrementAndGet();
+			} else {
+				slot.complete(null);
+			}
+		}
+	}
+
+	private HttpRequest.Builder newRequest(final String path) {
+		return newRequest(path, APPLICATION_JSON);
+	}
+
+	/**
+	 * @param contentType The only Content-Type header of the request, the service reads the first one anyway.
+	 */
+	private HttpRequest.Builder newRequest(final String path, final String contentType) {
+		return HttpRequest.newBuilder()
+				.uri(URI.create(baseUrl + path))
+				.timeout(requestTimeout)
+				.header(CONTENT_TYPE, contentType);
+	}
+
+	private static String byId(final long id) {
+		return RESOURCE_ROOT + "/" + id;
+	}
+
+	private TransferOrder readSaved(final HttpResponse<byte[]> response) {
+		return read(response, response.statusCode() == CREATED ? CREATED : OK, TransferOrder.class);
+	}
+
+	private <T> T read(final HttpResponse<byte[]> response, final int expectedStatus, final Class<T> cls) {
+		if (response.statusCode() != expectedStatus) {
+			throw failure(null, response);
+		}
+		try {
+			return mapper.readValue(response.body(), cls);
+		} catch (final IOException e) {
+			throw new TransferClientException("Could not read response of the service.", e);
+		}
+	}
+
+	private <T> T read(final HttpResponse<byte[]> response, final int expectedStatus, final TypeReference<T> type) {
+		if (response.statusCode() != expectedStatus) {
+			throw failure(null, response);
+		}
+		try {
+			return mapper.readValue(response.body(), type);
+		} catch (final IOException e) {
+			throw new TransferClientException("Could not read response of the service.", e);
+		}
+	}
+
+	private <T> T map(final String json, final Class<T> cls) {
+		try {
+			return mapper.readValue(json, cls);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not read order streamed by the service.", e);
+		}
+	}
+
+	private byte[] write(final Object value) {
+		try {
+			return mapper.writeValueAsBytes(value);
+		} catch (final JsonProcessingException e) {
+			throw new IllegalArgumentException("Could not serialize order to JSON.", e);
+		}
+	}
+
+	private static TransferClientException failure(final Throwable error, final HttpResponse<?> response) {
+		if (error != null) {
+			final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+			return cause instanceof TransferClientException
+					? (TransferClientException) cause
+					: new TransferClientException("Request to the service failed.", cause);
+		}
+		return new TransferClientException(String.format("Service responded to %s %s with %d.",
+				response.request().method(), response.request().uri(), response.statusCode()), response.statusCode());
+	}
+
+	private static <T> T join(final CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new TransferClientException("Request to the service failed.", e.getCause());
+		}
+	}
+}
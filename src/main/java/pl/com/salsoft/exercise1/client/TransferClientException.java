@@ -0,0 +1,27 @@
+package pl.com.salsoft.exercise1.client;
+
+import lombok.Getter;
+
+/**
+ * Raised by {@link TransferClient} when the service responds with an unexpected status,
+ * or the request could not be sent or its response read.
+ */
+@Getter
+public class TransferClientException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Status of the response, or 0 if there was no response.
+	 */
+	private final int status;
+
+	public TransferClientException(final String message, final int status) {
+		super(message);
+		this.status = status;
+	}
+
+	public TransferClientException(final String message, final Throwable cause) {
+		super(message, cause);
+		this.status = 0;
+	}
+}
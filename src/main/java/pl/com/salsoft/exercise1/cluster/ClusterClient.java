@@ -0,0 +1,208 @@
+package pl.com.salsoft.exercise1.cluster;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.eclipse.jetty.http.HttpStatus;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.inject.Inject;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.service.JsonService;
+import spark.Request;
+import spark.Response;
+
+/**
+ * HTTP communication between cluster nodes.
+ *
+ * Requests sent by this client are marked with a header, so the receiving node serves them from its own
+ * partition instead of routing them again. That prevents forwarding loops when nodes temporarily
+ * disagree on the membership.
+ */
+public class ClusterClient {
+	private static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String APPLICATION_JSON = "application/json";
+	private static final List<String> RELAYED_HEADERS = List.of(CONTENT_TYPE, "Location", "Allow");
+	private static final String TRANSFER_RESOURCE = "/transfer";
+	private static final String HANDOFF_RESOURCE = "/cluster/handoff";
+	private static final String NODES_RESOURCE = "/cluster/nodes";
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.version(Version.HTTP_1_1)
+			.connectTimeout(CONNECT_TIMEOUT)
+			.build();
+
+	private final JsonService jsonService;
+
+	/**
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 */
+	@Inject
+	public ClusterClient(@NonNull final JsonService jsonService) {
+		this.jsonService = jsonService;
+	}
+
+	/**
+	 * @param request Incoming request. Cannot be null.
+	 * @return true if the request was forwarded by other cluster node, so it must be served locally.
+	 */
+	public boolean isForwarded(@NonNull final Request request) {
+		return request.headers(FORWARDED_HEADER) != null;
+	}
+
+	/**
+	 * Sends the request to given node and writes node's response as the response to the original request.
+	 * @param node Node to forward to. Cannot be null.
+	 * @param request Request to forward. Cannot be null.
+	 * @param response Response to fill in. Cannot be null.
+	 * @return Always null, as the response body is already written.
+	 */
+	public Object forward(@NonNull final ClusterNode node, @NonNull final Request request, @NonNull final Response response) {
+		final String query = request.queryString();
+		final HttpRequest.Builder builder = newRequest(node, request.pathInfo() + (query == null ? "" : "?" + query))
+				.method(request.requestMethod(), BodyPublishers.ofByteArray(request.bodyAsBytes()));
+		final HttpResponse<byte[]> forwarded = send(builder, BodyHandlers.ofByteArray());
+
+		response.status(forwarded.statusCode());
+		for (final String header : RELAYED_HEADERS) {
+			forwarded.headers().firstValue(header).ifPresent(value -> response.header(header, value));
+		}
+		try {
+			response.raw().getOutputStream().write(forwarded.body());
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not write forwarded response.", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Lists orders from the local partition and from all given nodes, and writes them as a single
+	 * JSON array. Remote lists are requested in parallel and copied to the output element by element,
+	 * while they are still being received, so they are never built in memory.
+	 * @param nodes Remote nodes to list orders from. Cannot be null.
+	 * @param localOrders Orders from the local partition. Cannot be null.
+	 * @param response Response to write to. Cannot be null.
+	 * @return Always null, as the response body is already written.
+	 */
+	public Object scatterGather(@NonNull final Collection<ClusterNode> nodes, @NonNull final Collection<TransferOrder> localOrders,
+			@NonNull final Response response) {
+		final List<CompletableFuture<HttpResponse<InputStream>>> remoteLists = nodes.stream()
+				.map(node -> httpClient.sendAsync(newRequest(node, TRANSFER_RESOURCE).GET().build(), BodyHandlers.ofInputStream()))
+				.collect(Collectors.toList());
+
+		// Futures complete as soon as headers arrive, so all statuses are known before anything is written.
+		final List<HttpResponse<InputStream>> responses = new ArrayList<>();
+		for (final CompletableFuture<HttpResponse<InputStream>> remoteList : remoteLists) {
+			responses.add(join(remoteList));
+		}
+		for (final HttpResponse<InputStream> remote : responses) {
+			if (remote.statusCode() != HttpStatus.OK_200) {
+				responses.forEach(this::closeQuietly);
+				throw new IllegalStateException(String.format("Node %s responded with %d.", remote.uri(), remote.statusCode()));
+			}
+		}
+
+		response.status(HttpStatus.OK_200);
+		try (JsonGenerator generator = jsonService.createGenerator(response.raw().getOutputStream())) {
+			generator.writeStartArray();
+			for (final TransferOrder order : localOrders) {
+				generator.writeObject(order);
+			}
+			for (final HttpResponse<InputStream> remote : responses) {
+				try (JsonParser parser = jsonService.createParser(remote.body())) {
+					if (parser.nextToken() != JsonToken.START_ARRAY) {
+						throw new IOException(String.format("Node %s did not respond with an array.", remote.uri()));
+					}
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						generator.copyCurrentStructure(parser);
+					}
+				}
+			}
+			generator.writeEndArray();
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not merge order lists.", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Sends orders to their new owner.
+	 * @param node New owner. Cannot be null.
+	 * @param orders Orders to hand over. Cannot be null.
+	 * @throws IllegalStateException If the node did not accept the orders.
+	 */
+	public void handOff(@NonNull final ClusterNode node, @NonNull final Collection<TransferOrder> orders) {
+		final HttpRequest.Builder builder = newRequest(node, HANDOFF_RESOURCE)
+				.POST(BodyPublishers.ofString(jsonService.map(orders)));
+		final HttpResponse<String> response = send(builder, BodyHandlers.ofString());
+		if (response.statusCode() != HttpStatus.NO_CONTENT_204) {
+			throw new IllegalStateException(String.format("Node %s rejected handoff with %d.", node.getId(), response.statusCode()));
+		}
+	}
+
+	/**
+	 * Informs given node about the new cluster membership.
+	 * @param node Node to inform. Cannot be null.
+	 * @param nodes New cluster members. Cannot be null.
+	 * @return Future completed when the node acknowledged the membership.
+	 */
+	public CompletableFuture<HttpResponse<String>> announce(@NonNull final ClusterNode node, @NonNull final List<ClusterNode> nodes) {
+		final HttpRequest request = newRequest(node, NODES_RESOURCE)
+				.PUT(BodyPublishers.ofString(jsonService.map(nodes)))
+				.build();
+		return httpClient.sendAsync(request, BodyHandlers.ofString());
+	}
+
+	private HttpRequest.Builder newRequest(final ClusterNode node, final String path) {
+		return HttpRequest.newBuilder()
+				.uri(URI.create(node.getUrl() + path))
+				.timeout(REQUEST_TIMEOUT)
+				.header(FORWARDED_HEADER, "true")
+				.header(CONTENT_TYPE, APPLICATION_JSON);
+	}
+
+	private <T> HttpResponse<T> send(final HttpRequest.Builder builder, final HttpResponse.BodyHandler<T> bodyHandler) {
+		return join(httpClient.sendAsync(builder.build(), bodyHandler));
+	}
+
+	private <T> T join(final CompletableFuture<T> future) {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for cluster node.", e);
+		} catch (final ExecutionException e) {
+			throw new IllegalStateException("Cluster node request failed.", e.getCause());
+		}
+	}
+
+	private void closeQuietly(final HttpResponse<InputStream> response) {
+		try {
+			response.body().close();
+		} catch (final IOException e) {
+			// Nothing more can be done
+		}
+	}
+}
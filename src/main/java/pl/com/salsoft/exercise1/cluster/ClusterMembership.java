@@ -0,0 +1,130 @@
+package pl.com.salsoft.exercise1.cluster;
+
+import java.util.List;
+import java.util.Optional;
+
+import lombok.NonNull;
+
+/**
+ * Current view of the cluster from this node's perspective: who are the members and which of them
+ * owns which order IDs.
+ *
+ * When membership changes, the previous ring is kept until this node finishes handing over
+ * the orders it no longer owns, so reads can still find orders that are in transit.
+ * Node removed from the cluster owns no IDs anymore, so it forwards all requests to the remaining members.
+ */
+public class ClusterMembership {
+	private final boolean enabled;
+	private final String selfId;
+	private final int virtualNodes;
+	private volatile ConsistentHashRing ring;
+	private volatile ConsistentHashRing previousRing;
+
+	/**
+	 * Creates membership of a cluster-enabled node.
+	 * @param selfId ID of this node. Cannot be null.
+	 * @param nodes Initial cluster members. Cannot be null nor empty.
+	 * @param virtualNodes Number of positions of every node on the hash ring.
+	 */
+	public ClusterMembership(@NonNull final String selfId, @NonNull final List<ClusterNode> nodes, final int virtualNodes) {
+		this.enabled = true;
+		this.selfId = selfId;
+		this.virtualNodes = virtualNodes;
+		this.ring = createRing(nodes);
+	}
+
+	private ClusterMembership() {
+		this.enabled = false;
+		this.selfId = null;
+		this.virtualNodes = 0;
+	}
+
+	/**
+	 * @return Membership of a node which is not a part of any cluster. Such node owns all IDs.
+	 */
+	public static ClusterMembership standalone() {
+		return new ClusterMembership();
+	}
+
+	/**
+	 * @return true if this node is a part of the cluster.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return ID of this node.
+	 */
+	public String getSelfId() {
+		return selfId;
+	}
+
+	/**
+	 * @return true if clustering is disabled, or this node is one of the cluster members.
+	 */
+	public boolean isMember() {
+		return !enabled || ring.getNodes().stream().anyMatch(node -> node.getId().equals(selfId));
+	}
+
+	/**
+	 * @return All cluster members, or empty list if clustering is disabled.
+	 */
+	public List<ClusterNode> getNodes() {
+		return enabled ? ring.getNodes() : List.of();
+	}
+
+	/**
+	 * @param id Order ID.
+	 * @return true if the order belongs to this node.
+	 */
+	public boolean isOwner(final long id) {
+		return !enabled || ring.ownerOf(id).getId().equals(selfId);
+	}
+
+	/**
+	 * @param id Order ID.
+	 * @return Node the order belongs to, or empty if it belongs to this node.
+	 */
+	public Optional<ClusterNode> remoteOwnerOf(final long id) {
+		return enabled ? remote(ring.ownerOf(id)) : Optional.empty();
+	}
+
+	/**
+	 * @param id Order ID.
+	 * @return Node the order belonged to before the membership change, if the change is still
+	 * being rebalanced and that node was not this node.
+	 */
+	public Optional<ClusterNode> previousRemoteOwnerOf(final long id) {
+		final ConsistentHashRing previous = previousRing;
+		return previous != null ? remote(previous.ownerOf(id)) : Optional.empty();
+	}
+
+	/**
+	 * Replaces cluster members. Previous members are remembered until {@link #rebalanceFinished()} is called.
+	 * @param nodes New cluster members. Cannot be null nor empty.
+	 */
+	public synchronized void update(@NonNull final List<ClusterNode> nodes) {
+		if (!enabled) {
+			throw new IllegalStateException("Clustering is disabled.");
+		}
+		final ConsistentHashRing newRing = createRing(nodes);
+		previousRing = ring;
+		ring = newRing;
+	}
+
+	/**
+	 * Forgets previous members, as all orders were handed over to their new owners.
+	 */
+	public void rebalanceFinished() {
+		previousRing = null;
+	}
+
+	private ConsistentHashRing createRing(final List<ClusterNode> nodes) {
+		return new ConsistentHashRing(nodes, virtualNodes);
+	}
+
+	private Optional<ClusterNode> remote(final ClusterNode node) {
+		return node.getId().equals(selfId) ? Optional.empty() : Optional.of(node);
+	}
+}
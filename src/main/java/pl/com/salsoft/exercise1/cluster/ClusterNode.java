@@ -0,0 +1,32 @@
+package pl.com.salsoft.exercise1.cluster;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * Single application instance taking part in the cluster.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class ClusterNode {
+	/**
+	 * Stable name of the node. Placement of orders depends on it, not on the URL.
+	 */
+	private final String id;
+	/**
+	 * Base URL of node's REST API.
+	 */
+	private final String url;
+
+	@JsonCreator
+	public ClusterNode(@JsonProperty("id") @NonNull final String id, @JsonProperty("url") @NonNull final String url) {
+		this.id = id;
+		this.url = url;
+	}
+}
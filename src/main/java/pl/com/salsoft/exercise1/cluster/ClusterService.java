@@ -0,0 +1,161 @@
+package pl.com.salsoft.exercise1.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Service managing cluster membership and moving orders between nodes when the membership changes.
+ */
+public class ClusterService {
+	private static final int HANDOFF_BATCH_SIZE = 500;
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	// Single thread, so rebalances triggered by consecutive membership changes never overlap.
+	private final ExecutorService rebalancer = Executors.newSingleThreadExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "cluster-rebalancer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final ClusterMembership clusterMembership;
+	private final ClusterClient clusterClient;
+	private final TransferOrderDao transferOrderDao;
+
+	/**
+	 * @param clusterMembership Current cluster members. Cannot be null.
+	 * @param clusterClient Client for communication with other cluster nodes. Cannot be null.
+	 * @param transferOrderDao Storage of transfer orders. Cannot be null.
+	 */
+	@Inject
+	public ClusterService(@NonNull final ClusterMembership clusterMembership, @NonNull final ClusterClient clusterClient,
+			@NonNull final TransferOrderDao transferOrderDao) {
+		this.clusterMembership = clusterMembership;
+		this.clusterClient = clusterClient;
+		this.transferOrderDao = transferOrderDao;
+	}
+
+	/**
+	 * Restricts IDs generated by this node to the ones it owns, so created orders never need to be moved.
+	 * Should be called at the application start.
+	 */
+	public void init() {
+		if (clusterMembership.isEnabled()) {
+			transferOrderDao.setIdFilter(id -> !clusterMembership.isMember() || clusterMembership.isOwner(id));
+		}
+	}
+
+	/**
+	 * @return Current cluster members.
+	 */
+	public List<ClusterNode> getNodes() {
+		return clusterMembership.getNodes();
+	}
+
+	/**
+	 * Replaces cluster members and starts handing over orders this node no longer owns, in the background.
+	 * @param nodes New cluster members. Cannot be null nor empty.
+	 * @param announce If true, all previous and new members are informed about the change as well.
+	 */
+	public void updateMembership(@NonNull final List<ClusterNode> nodes, final boolean announce) {
+		final Set<ClusterNode> affectedNodes = new LinkedHashSet<>(clusterMembership.getNodes());
+		affectedNodes.addAll(nodes);
+
+		clusterMembership.update(nodes);
+		log.info("Cluster membership changed to {}", nodes);
+
+		if (announce) {
+			affectedNodes.stream()
+					.filter(node -> !node.getId().equals(clusterMembership.getSelfId()))
+					.forEach(node -> clusterClient.announce(node, nodes).whenComplete((response, error) -> {
+						if (error != null) {
+							log.error("Could not announce membership to node {}: {}", node.getId(), error.getMessage());
+						}
+					}));
+		}
+		rebalancer.execute(this::rebalance);
+	}
+
+	/**
+	 * Stores orders handed over by other node. Orders already present are overwritten only if they were updated
+	 * before the ones handed over: an order modified on the previous owner while it was being handed over is sent
+	 * again, while orders written here after the membership change are newer.
+	 * @param orders Orders to store. Cannot be null.
+	 */
+	public void acceptHandoff(@NonNull final Collection<TransferOrder> orders) {
+		for (final TransferOrder order : orders) {
+			if (!transferOrderDao.persistIfAbsent(order)) {
+				transferOrderDao.updateIf(order.getId(), present -> isOlder(present, order), present -> order);
+			}
+		}
+	}
+
+	private void rebalance() {
+		final Map<ClusterNode, List<TransferOrder>> batches = new HashMap<>();
+		int movedOrders = 0;
+		try {
+			for (final TransferOrder order : transferOrderDao.getAll()) {
+				final var owner = clusterMembership.remoteOwnerOf(order.getId());
+				if (owner.isEmpty()) {
+					continue;
+				}
+
+				final List<TransferOrder> batch = batches.computeIfAbsent(owner.get(), node -> new ArrayList<>());
+				batch.add(order);
+				if (batch.size() >= HANDOFF_BATCH_SIZE) {
+					movedOrders += handOff(owner.get(), batch);
+				}
+			}
+			for (final Map.Entry<ClusterNode, List<TransferOrder>> batch : batches.entrySet()) {
+				movedOrders += handOff(batch.getKey(), batch.getValue());
+			}
+			clusterMembership.rebalanceFinished();
+			log.info("Rebalance finished, {} orders handed over.", movedOrders);
+		} catch (final RuntimeException e) {
+			log.error("Rebalance failed after handing over {} orders: {}", movedOrders, e.getMessage());
+		}
+	}
+
+	private int handOff(final ClusterNode node, final List<TransferOrder> batch) {
+		if (batch.isEmpty()) {
+			return 0;
+		}
+		final int count = batch.size();
+		List<TransferOrder> pending = new ArrayList<>(batch);
+		while (!pending.isEmpty()) {
+			clusterClient.handOff(node, pending);
+			// Orders are deleted only after the new owner confirmed it has stored them, and only if they weren't
+			// modified meanwhile. Modified ones are sent again, so the new owner gets their last version.
+			final List<TransferOrder> modified = new ArrayList<>();
+			for (final TransferOrder order : pending) {
+				if (!transferOrderDao.deleteIf(order.getId(), order::equals)) {
+					transferOrderDao.get(order.getId()).ifPresent(modified::add);
+				}
+			}
+			pending = modified;
+		}
+		batch.clear();
+		return count;
+	}
+
+	private static boolean isOlder(final TransferOrder order, final TransferOrder than) {
+		return order.getUpdatedAt() == null
+				|| than.getUpdatedAt() != null && order.getUpdatedAt().isBefore(than.getUpdatedAt());
+	}
+}
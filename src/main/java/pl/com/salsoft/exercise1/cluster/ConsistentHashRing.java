@@ -0,0 +1,83 @@
+package pl.com.salsoft.exercise1.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import lombok.NonNull;
+
+/**
+ * Assigns order IDs to cluster nodes with consistent hashing.
+ *
+ * Every node is placed on the hash ring many times (as virtual nodes), so the ID space is split
+ * evenly, and adding or removing a node moves only the IDs adjacent to that node's virtual nodes,
+ * roughly 1/N of all IDs. The ring is immutable, membership change builds a new ring.
+ */
+public final class ConsistentHashRing {
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final List<ClusterNode> nodes;
+	private final NavigableMap<Long, ClusterNode> ring = new TreeMap<>();
+
+	/**
+	 * @param nodes Cluster members. Cannot be null nor empty.
+	 * @param virtualNodes Number of positions of every node on the ring. Must be positive.
+	 */
+	public ConsistentHashRing(@NonNull final Collection<ClusterNode> nodes, final int virtualNodes) {
+		if (nodes.isEmpty() || virtualNodes <= 0) {
+			throw new IllegalArgumentException("Ring needs at least one node and one virtual node per node.");
+		}
+		// Sorted, so every cluster member builds exactly the same ring, even on hash collisions.
+		this.nodes = nodes.stream()
+				.sorted(Comparator.comparing(ClusterNode::getId))
+				.collect(Collectors.toUnmodifiableList());
+		for (final ClusterNode node : this.nodes) {
+			for (int i = 0; i < virtualNodes; i++) {
+				ring.putIfAbsent(hash(node.getId() + "#" + i), node);
+			}
+		}
+	}
+
+	/**
+	 * @return All cluster members, sorted by ID.
+	 */
+	public List<ClusterNode> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @param id Order ID.
+	 * @return Node the order belongs to.
+	 */
+	public @NonNull ClusterNode ownerOf(final long id) {
+		final Map.Entry<Long, ClusterNode> entry = ring.ceilingEntry(mix(id));
+		return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+	}
+
+	private static long hash(final String value) {
+		long hash = FNV_OFFSET_BASIS;
+		for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= FNV_PRIME;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Finalization step of MurmurHash3, spreading sequential values evenly over the ring.
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
@@ -0,0 +1,76 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Common part of transfer order repositories: ID sequence and mutation listeners.
+ */
+public abstract class AbstractTransferOrderDao implements TransferOrderDao {
+	private final AtomicLong idSequence;
+	private final List<OrderMutationListener> listeners = new CopyOnWriteArrayList<>();
+	private volatile LongPredicate idFilter = id -> true;
+
+	/**
+	 * @param initialId First ID to be returned from {@link #generateId()}.
+	 */
+	protected AbstractTransferOrderDao(final long initialId) {
+		this.idSequence = new AtomicLong(initialId);
+	}
+
+	@Override
+	public void addMutationListener(@NonNull final OrderMutationListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public long generateId() {
+		long id;
+		do {
+			id = idSequence.getAndIncrement();
+		} while (!idFilter.test(id));
+		return id;
+	}
+
+	@Override
+	public void setIdFilter(@NonNull final LongPredicate idFilter) {
+		this.idFilter = idFilter;
+	}
+
+	/**
+	 * Makes sure that the ID sequence will not generate given ID.
+	 * @param id ID of just persisted order.
+	 */
+	protected void advanceIdSequence(final long id) {
+		// If persisted order has ID not lower than current ID sequence (the next ID to generate), then we need to
+		// traverse sequence (atomically) to value higher than this ID, so the #generateId()
+		// returns unused ID.
+		idSequence.updateAndGet(currentSequenceId -> {
+			return id >= currentSequenceId ? id + 1 : currentSequenceId;
+		});
+	}
+
+	/**
+	 * @return true if there is at least one mutation listener registered.
+	 */
+	protected boolean hasListeners() {
+		return !listeners.isEmpty();
+	}
+
+	protected void firePersist(final TransferOrder previous, final TransferOrder order) {
+		for (final OrderMutationListener listener : listeners) {
+			listener.onPersist(previous, order);
+		}
+	}
+
+	protected void fireDelete(final TransferOrder previous) {
+		for (final OrderMutationListener listener : listeners) {
+			listener.onDelete(previous);
+		}
+	}
+}
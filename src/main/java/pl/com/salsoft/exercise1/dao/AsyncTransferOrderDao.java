@@ -0,0 +1,184 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Non-blocking variants of operations of a repository, completing {@link CompletableFuture}s.
+ *
+ * Operations of a blocking repository (see {@link TransferOrderDao#isBlocking()}) run on the executor,
+ * so the calling thread is free while they wait for I/O. Operations of a non-blocking one run on the calling
+ * thread and return completed futures, as handing them off would cost more than running them.
+ * Failures of operations complete the futures exceptionally, they are never thrown.
+ */
+public class AsyncTransferOrderDao {
+	/**
+	 * Default number of threads running operations of blocking repositories.
+	 */
+	public static final int DEFAULT_THREADS = 16;
+
+	private final TransferOrderDao delegate;
+	private final Executor executor;
+
+	/**
+	 * Creates repository running operations on its own pool of daemon threads.
+	 * @param delegate Actual repository. Cannot be null.
+	 * @param threads Number of threads running operations of the repository, if it's blocking. At least 1.
+	 */
+	public AsyncTransferOrderDao(@NonNull final TransferOrderDao delegate, final int threads) {
+		this(delegate, Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger sequence = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "dao-async-" + sequence.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		}));
+	}
+
+	/**
+	 * @param delegate Actual repository. Cannot be null.
+	 * @param executor Executor running operations of the repository, if it's blocking. Cannot be null.
+	 */
+	public AsyncTransferOrderDao(@NonNull final TransferOrderDao delegate, @NonNull final Executor executor) {
+		this.delegate = delegate;
+		this.executor = executor;
+	}
+
+	/**
+	 * @param delegate Repository. Cannot be null.
+	 * @return Async variants of operations of the repository, running on the calling thread, blocking or not.
+	 */
+	public static AsyncTransferOrderDao direct(@NonNull final TransferOrderDao delegate) {
+		return new AsyncTransferOrderDao(delegate, Runnable::run);
+	}
+
+	/**
+	 * @return The actual repository.
+	 */
+	public TransferOrderDao getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Runs an operation made of several calls of the repository, as a whole, the same way as single operations,
+	 * so it's handed off to the executor only once.
+	 * @param operation Operation calling the repository. Cannot be null.
+	 * @return Result of the operation.
+	 */
+	public <T> CompletableFuture<T> supply(@NonNull final Supplier<T> operation) {
+		if (!delegate.isBlocking()) {
+			try {
+				return CompletableFuture.completedFuture(operation.get());
+			} catch (final RuntimeException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+		try {
+			return CompletableFuture.supplyAsync(operation, executor);
+		} catch (final RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * @see TransferOrderDao#contains(Long)
+	 */
+	public CompletableFuture<Boolean> contains(@NonNull final Long id) {
+		return supply(() -> delegate.contains(id));
+	}
+
+	/**
+	 * @see TransferOrderDao#delete(Long)
+	 */
+	public CompletableFuture<Void> delete(@NonNull final Long id) {
+		return supply(() -> {
+			delegate.delete(id);
+			return null;
+		});
+	}
+
+	/**
+	 * @see TransferOrderDao#deleteIf(Long, Predicate)
+	 */
+	public CompletableFuture<Boolean> deleteIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition) {
+		return supply(() -> delegate.deleteIf(id, condition));
+	}
+
+	/**
+	 * @see TransferOrderDao#generateId()
+	 */
+	public CompletableFuture<Long> generateId() {
+		return supply(delegate::generateId);
+	}
+
+	/**
+	 * @see TransferOrderDao#get(Long)
+	 */
+	public CompletableFuture<Optional<TransferOrder>> get(@NonNull final Long id) {
+		return supply(() -> delegate.get(id));
+	}
+
+	/**
+	 * @see TransferOrderDao#find(Predicate, Comparator, int)
+	 */
+	public CompletableFuture<List<TransferOrder>> find(@NonNull final Predicate<TransferOrder> condition,
+			@NonNull final Comparator<TransferOrder> order, final int limit) {
+		return supply(() -> delegate.find(condition, order, limit));
+	}
+
+	/**
+	 * @see TransferOrderDao#getAll()
+	 */
+	public CompletableFuture<Set<TransferOrder>> getAll() {
+		return supply(delegate::getAll);
+	}
+
+	/**
+	 * @see TransferOrderDao#persist(TransferOrder)
+	 */
+	public CompletableFuture<Void> persist(@NonNull final TransferOrder order) {
+		return supply(() -> {
+			delegate.persist(order);
+			return null;
+		});
+	}
+
+	/**
+	 * @see TransferOrderDao#persistIfAbsent(TransferOrder)
+	 */
+	public CompletableFuture<Boolean> persistIfAbsent(@NonNull final TransferOrder order) {
+		return supply(() -> delegate.persistIfAbsent(order));
+	}
+
+	/**
+	 * @see TransferOrderDao#update(Long, UnaryOperator)
+	 */
+	public CompletableFuture<TransferOrder> update(@NonNull final Long id, @NonNull final UnaryOperator<TransferOrder> updater) {
+		return supply(() -> delegate.update(id, updater));
+	}
+
+	/**
+	 * @see TransferOrderDao#updateIf(Long, Predicate, UnaryOperator)
+	 */
+	public CompletableFuture<Boolean> updateIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition,
+			@NonNull final UnaryOperator<TransferOrder> updater) {
+		return supply(() -> delegate.updateIf(id, condition, updater));
+	}
+}
@@ -0,0 +1,347 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Immutable file of orders moved out of the heap by {@link TieredTransferOrderDao}.
+ *
+ * Orders are sorted by ID and written in {@link OrderCodec} format, in blocks of {@value #BLOCK_SIZE},
+ * each block compressed separately. The file ends with a sparse index: first ID and position of every block,
+ * so finding an order takes a binary search over the index (held on heap, a few bytes per block) and decompressing
+ * a single block of the memory-mapped file.
+ *
+ * Since the file can't be modified, orders changed or deleted after they were moved here are only marked
+ * as dead. Dead IDs are kept in memory and saved to a file next to the segment when it's closed.
+ */
+final class ColdSegment {
+	static final int BLOCK_SIZE = 64;
+	static final String SUFFIX = ".cold";
+	static final String DEAD_SUFFIX = ".dead";
+
+	private static final int MAGIC = 0x4F524443; // "ORDC"
+	private static final int VERSION = 1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private final Path file;
+	private final MappedByteBuffer buffer;
+	private final int count;
+	private final long[] firstIds;
+	private final int[] offsets;
+	private final int[] lengths;
+	private final int[] counts;
+	private final long maxId;
+	private final Set<Long> dead = ConcurrentHashMap.newKeySet();
+
+	private ColdSegment(final Path file, final MappedByteBuffer buffer, final int count, final long[] firstIds,
+			final int[] offsets, final int[] lengths, final int[] counts) {
+		this.file = file;
+		this.buffer = buffer;
+		this.count = count;
+		this.firstIds = firstIds;
+		this.offsets = offsets;
+		this.lengths = lengths;
+		this.counts = counts;
+		this.maxId = count > 0 ? lastId() : Long.MIN_VALUE;
+	}
+
+	/**
+	 * Writes new segment file and opens it.
+	 * @param file Segment file, must not exist yet.
+	 * @param orders Orders to write, sorted by ID. Must not be empty.
+	 * @return Opened segment.
+	 * @throws IOException If the file could not be written.
+	 */
+	static ColdSegment write(final Path file, final List<TransferOrder> orders) throws IOException {
+		final Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+		final int blockCount = (orders.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		final long[] firstIds = new long[blockCount];
+		final int[] offsets = new int[blockCount];
+		final int[] lengths = new int[blockCount];
+		final int[] counts = new int[blockCount];
+		final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+					Channels.newOutputStream(channel), BUFFER_SIZE));
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(orders.size());
+			final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+			final DataOutputStream rawOutput = new DataOutputStream(raw);
+			final byte[] compressed = new byte[BUFFER_SIZE];
+			for (int block = 0; block < blockCount; block++) {
+				final List<TransferOrder> blockOrders = orders.subList(block * BLOCK_SIZE,
+						Math.min(orders.size(), (block + 1) * BLOCK_SIZE));
+				raw.reset();
+				for (final TransferOrder order : blockOrders) {
+					OrderCodec.write(rawOutput, order);
+				}
+				firstIds[block] = blockOrders.get(0).getId();
+				offsets[block] = output.size();
+				counts[block] = blockOrders.size();
+				deflater.reset();
+				deflater.setInput(raw.toByteArray());
+				deflater.finish();
+				while (!deflater.finished()) {
+					output.write(compressed, 0, deflater.deflate(compressed));
+				}
+				lengths[block] = output.size() - offsets[block];
+			}
+			final int indexOffset = output.size();
+			for (int block = 0; block < blockCount; block++) {
+				output.writeLong(firstIds[block]);
+				output.writeInt(offsets[block]);
+				output.writeInt(lengths[block]);
+				output.writeInt(counts[block]);
+			}
+			output.writeInt(blockCount);
+			output.writeInt(indexOffset);
+			output.flush();
+			channel.force(true);
+		} finally {
+			deflater.end();
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+		return open(file);
+	}
+
+	/**
+	 * Opens segment written with {@link #write(Path, List)}, with its dead IDs.
+	 * @param file Segment file.
+	 * @return Opened segment.
+	 * @throws IOException If the file could not be read or it's not a valid segment.
+	 */
+	static ColdSegment open(final Path file) throws IOException {
+		final MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.limit() < 20 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException(String.format("Not a valid order segment: %s", file));
+		}
+		final int count = buffer.getInt(8);
+		final int blockCount = buffer.getInt(buffer.limit() - 8);
+		int position = buffer.getInt(buffer.limit() - 4);
+		final long[] firstIds = new long[blockCount];
+		final int[] offsets = new int[blockCount];
+		final int[] lengths = new int[blockCount];
+		final int[] counts = new int[blockCount];
+		for (int block = 0; block < blockCount; block++) {
+			firstIds[block] = buffer.getLong(position);
+			offsets[block] = buffer.getInt(position + 8);
+			lengths[block] = buffer.getInt(position + 12);
+			counts[block] = buffer.getInt(position + 16);
+			position += 20;
+		}
+		final ColdSegment segment = new ColdSegment(file, buffer, count, firstIds, offsets, lengths, counts);
+		final Path deadFile = segment.deadFile();
+		if (Files.exists(deadFile)) {
+			try (DataInputStream input = new DataInputStream(Files.newInputStream(deadFile))) {
+				final int deadCount = input.readInt();
+				for (int i = 0; i < deadCount; i++) {
+					segment.dead.add(input.readLong());
+				}
+			}
+		}
+		return segment;
+	}
+
+	/**
+	 * @return Number of alive orders in the file.
+	 */
+	int getAliveCount() {
+		return count - dead.size();
+	}
+
+	/**
+	 * @return Highest ID in the file, or {@link Long#MIN_VALUE} if the file is empty.
+	 */
+	long getMaxId() {
+		return maxId;
+	}
+
+	/**
+	 * @param id Order ID.
+	 * @return Order with given ID, unless it's not in this segment or it's dead.
+	 */
+	Optional<TransferOrder> get(final long id) {
+		if (count == 0 || id < firstIds[0] || id > maxId || dead.contains(id)) {
+			return Optional.empty();
+		}
+		final int found = Arrays.binarySearch(firstIds, id);
+		final int block = found >= 0 ? found : -found - 2;
+		for (final TransferOrder order : readBlock(block)) {
+			if (order.getId() == id) {
+				return Optional.of(order);
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Marks order with given ID as dead, if this segment holds it alive.
+	 * @param id Order ID.
+	 * @return true if the order was alive in this segment.
+	 */
+	boolean kill(final long id) {
+		return get(id).isPresent() && dead.add(id);
+	}
+
+	/**
+	 * Marks orders with given IDs as dead, without checking whether they are in this segment.
+	 * @param ids IDs of orders of this segment.
+	 */
+	void killAll(final Collection<Long> ids) {
+		dead.addAll(ids);
+	}
+
+	/**
+	 * Marks order with given ID, which was marked as dead, as alive again.
+	 * @param id ID of an order of this segment.
+	 */
+	void revive(final long id) {
+		dead.remove(id);
+	}
+
+	/**
+	 * @return IDs of orders marked as dead at the moment, for {@link #iterator(Set)}.
+	 */
+	Set<Long> deadIds() {
+		return Set.copyOf(dead);
+	}
+
+	/**
+	 * @return Iterator over alive orders, decompressing one block at a time.
+	 */
+	Iterator<TransferOrder> iterator() {
+		return iterator(dead);
+	}
+
+	/**
+	 * @param deadIds IDs of orders to skip, i.e. dead ones taken before with {@link #deadIds()}.
+	 * @return Iterator over orders not among given dead ones, decompressing one block at a time.
+	 */
+	Iterator<TransferOrder> iterator(final Set<Long> deadIds) {
+		return new Iterator<>() {
+			private int nextBlock;
+			private Iterator<TransferOrder> blockIterator = Collections.emptyIterator();
+			private TransferOrder next;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null) {
+					if (blockIterator.hasNext()) {
+						final TransferOrder order = blockIterator.next();
+						if (!deadIds.contains(order.getId())) {
+							next = order;
+						}
+					} else if (nextBlock < firstIds.length) {
+						blockIterator = readBlock(nextBlock++).iterator();
+					} else {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			@Override
+			public TransferOrder next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final TransferOrder order = next;
+				next = null;
+				return order;
+			}
+		};
+	}
+
+	/**
+	 * Saves dead IDs next to the segment file, so they are still dead after reopening.
+	 * @throws IOException If the file could not be written.
+	 */
+	void saveDead() throws IOException {
+		if (dead.isEmpty()) {
+			return;
+		}
+		final Path temporary = deadFile().resolveSibling(deadFile().getFileName() + TEMPORARY_SUFFIX);
+		final Long[] ids = dead.toArray(new Long[0]);
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+			output.writeInt(ids.length);
+			for (final Long id : ids) {
+				output.writeLong(id);
+			}
+		}
+		Files.move(temporary, deadFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	@Override
+	public String toString() {
+		return file.toString();
+	}
+
+	private Path deadFile() {
+		final String name = file.getFileName().toString();
+		return file.resolveSibling(name.substring(0, name.length() - SUFFIX.length()) + DEAD_SUFFIX);
+	}
+
+	private long lastId() {
+		final List<TransferOrder> lastBlock = readBlock(firstIds.length - 1);
+		return lastBlock.get(lastBlock.size() - 1).getId();
+	}
+
+	private List<TransferOrder> readBlock(final int block) {
+		final byte[] compressed = new byte[lengths[block]];
+		buffer.duplicate().position(offsets[block]).get(compressed);
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			final ByteArrayOutputStream raw = new ByteArrayOutputStream(compressed.length * 4);
+			final byte[] chunk = new byte[BUFFER_SIZE];
+			while (!inflater.finished()) {
+				final int inflated = inflater.inflate(chunk);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IOException(String.format("Truncated block %d in %s", block, file));
+				}
+				raw.write(chunk, 0, inflated);
+			}
+			final DataInputStream input = new DataInputStream(new ByteArrayInputStream(raw.toByteArray()));
+			final TransferOrder[] orders = new TransferOrder[counts[block]];
+			for (int i = 0; i < orders.length; i++) {
+				orders[i] = OrderCodec.read(input);
+			}
+			return Arrays.asList(orders);
+		} catch (final IOException | DataFormatException e) {
+			throw new DaoException(String.format("Corrupted block %d in %s", block, file), e);
+		} finally {
+			inflater.end();
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package pl.com.salsoft.exercise1.dao;
+
+/**
+ * Raised when the storage backend fails to carry out the requested operation.
+ * It's unchecked for the same reasons as in JsonService - there is no way to recover
+ * from storage failure at the early stage, so it's left for the exception handler.
+ */
+public class DaoException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public DaoException(final String message, final Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,145 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Default, in-heap implementation of the transfer order repository.
+ * Underneath it uses a Map (JDK's ConcurrentHashMap to provide efficient thread-safety),
+ * because it's fast, sufficient for the requirements and goes along with KISS principle.
+ */
+public class InMemoryTransferOrderDao extends AbstractTransferOrderDao {
+	private final Map<Long, TransferOrder> orderStore = new ConcurrentHashMap<>();
+
+	public InMemoryTransferOrderDao() {
+		super(0L);
+	}
+
+	@Override
+	public boolean contains(@NonNull final Long id) {
+		return orderStore.containsKey(id);
+	}
+
+	@Override
+	public void delete(@NonNull final Long id) {
+		orderStore.computeIfPresent(id, (key, previous) -> {
+			fireDelete(previous);
+			return null;
+		});
+	}
+
+	@Override
+	public boolean deleteIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition) {
+		final boolean[] deleted = new boolean[1];
+		orderStore.computeIfPresent(id, (key, previous) -> {
+			if (!condition.test(previous)) {
+				return previous;
+			}
+			fireDelete(previous);
+			deleted[0] = true;
+			return null;
+		});
+		return deleted[0];
+	}
+
+	@Override
+	public boolean updateIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition,
+			@NonNull final UnaryOperator<TransferOrder> updater) {
+		final boolean[] updated = new boolean[1];
+		orderStore.computeIfPresent(id, (key, previous) -> {
+			if (!condition.test(previous)) {
+				return previous;
+			}
+			final TransferOrder order = updater.apply(previous);
+			firePersist(previous, order);
+			updated[0] = true;
+			return order;
+		});
+		return updated[0];
+	}
+
+	@Override
+	public Optional<TransferOrder> get(@NonNull final Long id) {
+		return Optional.ofNullable(orderStore.get(id));
+	}
+
+	@Override
+	public Set<TransferOrder> getAll() {
+		final Collection<TransferOrder> values = orderStore.values();
+		// While it's safe to call values() out of synchronized block,
+		// iterating over the result collection should already be done inside of such block.
+		// That's what Java documentation states.
+		synchronized (orderStore) {
+			return Set.copyOf(values);
+		}
+	}
+
+	@Override
+	public void forEach(@NonNull final Consumer<TransferOrder> consumer) {
+		orderStore.values().forEach(consumer);
+	}
+
+	@Override
+	public void persist(@NonNull final TransferOrder order) {
+		// Listeners are notified inside of the atomic update, so notifications for the same ID
+		// are delivered in the same order as updates were applied.
+		orderStore.compute(order.getId(), (id, previous) -> {
+			firePersist(previous, order);
+			return order;
+		});
+		advanceIdSequence(order.getId());
+	}
+
+	/**
+	 * Saves orders like {@link #persist(TransferOrder)}, but advances the ID sequence only once.
+	 */
+	@Override
+	public void persistAll(@NonNull final Collection<TransferOrder> orders) {
+		long maxId = Long.MIN_VALUE;
+		for (final TransferOrder order : orders) {
+			orderStore.compute(order.getId(), (id, previous) -> {
+				firePersist(previous, order);
+				return order;
+			});
+			maxId = Math.max(maxId, order.getId());
+		}
+		if (!orders.isEmpty()) {
+			advanceIdSequence(maxId);
+		}
+	}
+
+	@Override
+	public boolean persistIfAbsent(@NonNull final TransferOrder order) {
+		final TransferOrder stored = orderStore.computeIfAbsent(order.getId(), id -> {
+			firePersist(null, order);
+			return order;
+		});
+		advanceIdSequence(order.getId());
+		return stored == order;
+	}
+
+	@Override
+	public TransferOrder update(@NonNull final Long id, @NonNull final UnaryOperator<TransferOrder> updater) {
+		final TransferOrder stored = orderStore.compute(id, (key, previous) -> {
+			final TransferOrder order = updater.apply(previous);
+			firePersist(previous, order);
+			return order;
+		});
+		advanceIdSequence(id);
+		return stored;
+	}
+
+	@Override
+	public boolean isBlocking() {
+		return false;
+	}
+}
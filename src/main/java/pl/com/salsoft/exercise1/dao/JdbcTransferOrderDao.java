@@ -0,0 +1,453 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Transfer order repository backed by an embedded database (H2), accessed through JDBC.
+ *
+ * Writes are not executed immediately. They are coalesced in a pending-writes map (the last write
+ * to given ID wins) and written to the database in JDBC batches, either by a background flusher
+ * running periodically, or as soon as the number of pending writes reaches the batch size.
+ * Until written, pending values are served straight from the pending-writes map, so readers always
+ * see their own and others' writes.
+ *
+ * Reads are served through a bounded cache of recently read orders, so hot orders don't hit the database.
+ *
+ * Conditional writes need the stored order, which is read before the pending write of the ID is locked,
+ * so the database is never queried inside a compute function of the map. See {@link #computeWrite}.
+ */
+public class JdbcTransferOrderDao extends AbstractTransferOrderDao {
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50L;
+	public static final int DEFAULT_CACHE_SIZE = 100_000;
+
+	private static final String COLUMNS = "id, source_account, target_account, amount, status, created_at, updated_at, "
+			+ "execute_at";
+	// Timestamps are epoch milliseconds.
+	private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS transfer_order ("
+			+ "id BIGINT PRIMARY KEY, source_account VARCHAR(255), target_account VARCHAR(255), "
+			+ "amount DECIMAL, status VARCHAR(32), created_at BIGINT, updated_at BIGINT, execute_at BIGINT)";
+	// Databases created before orders had timestamps.
+	private static final String ADD_CREATED_AT = "ALTER TABLE transfer_order ADD COLUMN IF NOT EXISTS created_at BIGINT";
+	private static final String ADD_UPDATED_AT = "ALTER TABLE transfer_order ADD COLUMN IF NOT EXISTS updated_at BIGINT";
+	// Databases created before orders could be scheduled.
+	private static final String ADD_EXECUTE_AT = "ALTER TABLE transfer_order ADD COLUMN IF NOT EXISTS execute_at BIGINT";
+	private static final String SELECT_MAX_ID = "SELECT MAX(id) FROM transfer_order";
+	private static final String SELECT_BY_ID = "SELECT " + COLUMNS + " FROM transfer_order WHERE id = ?";
+	private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM transfer_order";
+	private static final String MERGE = "MERGE INTO transfer_order (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String DELETE = "DELETE FROM transfer_order WHERE id = ?";
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final JdbcConnectionPool connectionPool;
+	private final int batchSize;
+	private final OrderCache cache;
+	// Value is an empty Optional for pending delete.
+	private final Map<Long, Optional<TransferOrder>> pendingWrites = new ConcurrentHashMap<>();
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	// Bumped by every flush after the database is written, before flushed writes are removed from pending ones.
+	private final AtomicLong flushes = new AtomicLong();
+	private final Object flushLock = new Object();
+	private final ScheduledExecutorService flusher;
+
+	/**
+	 * Opens the database (creating the schema if needed) and starts background flusher.
+	 * @param jdbcUrl H2 database JDBC URL. Cannot be null.
+	 * @param batchSize Number of pending writes that triggers flush to the database. Must be positive.
+	 * @param flushIntervalMillis Maximum time (in milliseconds) the write stays pending. Must be positive.
+	 * @param cacheSize Maximum number of orders kept in the read cache. Must be positive.
+	 * @throws DaoException If database could not be initialized.
+	 */
+	public JdbcTransferOrderDao(@NonNull final String jdbcUrl, final int batchSize, final long flushIntervalMillis,
+			final int cacheSize) {
+		this(JdbcConnectionPool.create(jdbcUrl, "", ""), batchSize, flushIntervalMillis, cacheSize);
+	}
+
+	private JdbcTransferOrderDao(final JdbcConnectionPool connectionPool, final int batchSize, final long flushIntervalMillis,
+			final int cacheSize) {
+		super(initSchema(connectionPool));
+		if (batchSize <= 0 || flushIntervalMillis <= 0) {
+			throw new IllegalArgumentException("Batch size and flush interval must be positive.");
+		}
+		this.connectionPool = connectionPool;
+		this.batchSize = batchSize;
+		this.cache = new OrderCache(cacheSize);
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "jdbc-dao-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public boolean contains(@NonNull final Long id) {
+		return get(id).isPresent();
+	}
+
+	@Override
+	public void delete(@NonNull final Long id) {
+		write(id, Optional.empty());
+	}
+
+	@Override
+	public boolean deleteIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition) {
+		final boolean[] deleted = new boolean[1];
+		computeWrite(id, (pending, previous) -> {
+			if (previous == null || !condition.test(previous)) {
+				return pending;
+			}
+			fireDelete(previous);
+			deleted[0] = true;
+			return Optional.empty();
+		});
+		if (deleted[0]) {
+			cache.invalidate(id);
+			requestFlushIfFull();
+		}
+		return deleted[0];
+	}
+
+	@Override
+	public boolean updateIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition,
+			@NonNull final UnaryOperator<TransferOrder> updater) {
+		final boolean[] updated = new boolean[1];
+		computeWrite(id, (pending, previous) -> {
+			if (previous == null || !condition.test(previous)) {
+				return pending;
+			}
+			final TransferOrder order = updater.apply(previous);
+			firePersist(previous, order);
+			updated[0] = true;
+			return Optional.of(order);
+		});
+		if (updated[0]) {
+			cache.invalidate(id);
+			requestFlushIfFull();
+		}
+		return updated[0];
+	}
+
+	@Override
+	public Optional<TransferOrder> get(@NonNull final Long id) {
+		// Version must be taken before looking into pending writes. See OrderCache for details.
+		final long cacheVersion = cache.version(id);
+		final Optional<TransferOrder> pending = pendingWrites.get(id);
+		if (pending != null) {
+			return pending;
+		}
+
+		final TransferOrder cached = cache.get(id);
+		if (cached != null) {
+			return Optional.of(cached);
+		}
+
+		final Optional<TransferOrder> loaded = load(id);
+		loaded.ifPresent(order -> cache.putIfUnchanged(order, cacheVersion));
+		return loaded;
+	}
+
+	@Override
+	public Set<TransferOrder> getAll() {
+		flush();
+		try (Connection connection = connectionPool.getConnection();
+				PreparedStatement statement = connection.prepareStatement(SELECT_ALL);
+				ResultSet resultSet = statement.executeQuery()) {
+			final Set<TransferOrder> orders = new HashSet<>();
+			while (resultSet.next()) {
+				orders.add(readOrder(resultSet));
+			}
+			return Set.copyOf(orders);
+		} catch (final SQLException e) {
+			throw new DaoException("Could not read orders from the database.", e);
+		}
+	}
+
+	/**
+	 * Streams orders from the database, after pending writes are flushed.
+	 */
+	@Override
+	public void forEach(@NonNull final Consumer<TransferOrder> consumer) {
+		flush();
+		try (Connection connection = connectionPool.getConnection();
+				PreparedStatement statement = connection.prepareStatement(SELECT_ALL)) {
+			statement.setFetchSize(batchSize);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					consumer.accept(readOrder(resultSet));
+				}
+			}
+		} catch (final SQLException e) {
+			throw new DaoException("Could not read orders from the database.", e);
+		}
+	}
+
+	@Override
+	public void persist(@NonNull final TransferOrder order) {
+		write(order.getId(), Optional.of(order));
+		advanceIdSequence(order.getId());
+	}
+
+	@Override
+	public boolean persistIfAbsent(@NonNull final TransferOrder order) {
+		final boolean[] persisted = new boolean[1];
+		// Pending write for the ID is locked for the time of the check, so no other write can interleave.
+		computeWrite(order.getId(), (pending, previous) -> {
+			if (previous != null) {
+				return pending;
+			}
+			firePersist(null, order);
+			persisted[0] = true;
+			return Optional.of(order);
+		});
+
+		if (persisted[0]) {
+			cache.invalidate(order.getId());
+			advanceIdSequence(order.getId());
+			requestFlushIfFull();
+		}
+		return persisted[0];
+	}
+
+	@Override
+	public TransferOrder update(@NonNull final Long id, @NonNull final UnaryOperator<TransferOrder> updater) {
+		final Optional<TransferOrder> stored = computeWrite(id, (pending, previous) -> {
+			final TransferOrder order = updater.apply(previous);
+			firePersist(previous, order);
+			return Optional.of(order);
+		});
+		cache.invalidate(id);
+		advanceIdSequence(id);
+		requestFlushIfFull();
+		return stored.orElseThrow();
+	}
+
+	/**
+	 * Writes all pending changes to the database in a single transaction.
+	 * @throws DaoException If writing to the database failed. Pending changes are kept for the next attempt.
+	 */
+	public void flush() {
+		synchronized (flushLock) {
+			flushRequested.set(false);
+			if (pendingWrites.isEmpty()) {
+				return;
+			}
+
+			final List<Map.Entry<Long, Optional<TransferOrder>>> batch = new ArrayList<>(pendingWrites.size());
+			pendingWrites.forEach((id, write) -> batch.add(Map.entry(id, write)));
+
+			try (Connection connection = connectionPool.getConnection()) {
+				connection.setAutoCommit(false);
+				try (PreparedStatement merge = connection.prepareStatement(MERGE);
+						PreparedStatement delete = connection.prepareStatement(DELETE)) {
+					for (final Map.Entry<Long, Optional<TransferOrder>> entry : batch) {
+						if (entry.getValue().isPresent()) {
+							bindOrder(merge, entry.getValue().orElseThrow());
+							merge.addBatch();
+						} else {
+							delete.setLong(1, entry.getKey());
+							delete.addBatch();
+						}
+					}
+					merge.executeBatch();
+					delete.executeBatch();
+					connection.commit();
+				} catch (final SQLException e) {
+					connection.rollback();
+					throw e;
+				}
+			} catch (final SQLException e) {
+				throw new DaoException("Could not write pending orders to the database.", e);
+			}
+
+			flushes.incrementAndGet();
+			// Only remove entries that were not overwritten in the meantime.
+			batch.forEach(entry -> pendingWrites.remove(entry.getKey(), entry.getValue()));
+		}
+	}
+
+	/**
+	 * Stops background flusher, writes all pending changes and closes the database.
+	 */
+	@Override
+	public void close() {
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		connectionPool.dispose();
+	}
+
+	private void write(final Long id, final Optional<TransferOrder> write) {
+		if (hasListeners()) {
+			// Pending write for the ID is locked for the time of notification, so notifications
+			// for the same ID are delivered in the same order as writes were applied.
+			computeWrite(id, (pending, previous) -> {
+				if (write.isPresent()) {
+					firePersist(previous, write.orElseThrow());
+				} else if (previous != null) {
+					fireDelete(previous);
+				}
+				return write;
+			});
+		} else {
+			pendingWrites.put(id, write);
+		}
+		cache.invalidate(id);
+		requestFlushIfFull();
+	}
+
+	private void requestFlushIfFull() {
+		if (pendingWrites.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+			flusher.execute(this::flushQuietly);
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (final RuntimeException e) {
+			log.error("Background flush failed, will retry: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Replaces pending write of the order with the result of the writer, with the pending write locked,
+	 * so no other write to the ID can interleave. The stored order is read from the database beforehand,
+	 * as the lock is held by the map, which blocks other IDs (of the same bin) and the flusher meanwhile.
+	 * The read is out of date only if a pending write to the ID was flushed in between, and it's repeated then:
+	 * the flush counter is taken before the read, and it's bumped before a flushed write disappears.
+	 * @param writer Gets the pending write (null if there is none) and the current order (null if there is none),
+	 * and returns the new pending write (null to keep none). It should be fast.
+	 * @return The new pending write.
+	 */
+	private Optional<TransferOrder> computeWrite(final Long id,
+			final BiFunction<Optional<TransferOrder>, TransferOrder, Optional<TransferOrder>> writer) {
+		while (true) {
+			final long flushed = flushes.get();
+			// Skipped if there's a pending write. If it's flushed before the lock is taken, the read is repeated.
+			final Optional<TransferOrder> stored = pendingWrites.containsKey(id) ? null : lookup(id);
+			final boolean[] outdated = new boolean[1];
+			final Optional<TransferOrder> result = pendingWrites.compute(id, (key, pending) -> {
+				if (pending == null && (stored == null || flushes.get() != flushed)) {
+					outdated[0] = true;
+					return null;
+				}
+				return writer.apply(pending, pending != null ? pending.orElse(null) : stored.orElse(null));
+			});
+			if (!outdated[0]) {
+				return result;
+			}
+		}
+	}
+
+	private Optional<TransferOrder> lookup(final Long id) {
+		final TransferOrder cached = cache.get(id);
+		return cached != null ? Optional.of(cached) : load(id);
+	}
+
+	private static long initSchema(final JdbcConnectionPool connectionPool) {
+		try (Connection connection = connectionPool.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute(CREATE_TABLE);
+			statement.execute(ADD_CREATED_AT);
+			statement.execute(ADD_UPDATED_AT);
+			statement.execute(ADD_EXECUTE_AT);
+			try (ResultSet resultSet = statement.executeQuery(SELECT_MAX_ID)) {
+				resultSet.next();
+				final long maxId = resultSet.getLong(1);
+				return resultSet.wasNull() ? 0L : maxId + 1;
+			}
+		} catch (final SQLException e) {
+			throw new DaoException("Could not initialize the database.", e);
+		}
+	}
+
+	private Optional<TransferOrder> load(final Long id) {
+		try (Connection connection = connectionPool.getConnection();
+				PreparedStatement statement = connection.prepareStatement(SELECT_BY_ID)) {
+			statement.setLong(1, id);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() ? Optional.of(readOrder(resultSet)) : Optional.empty();
+			}
+		} catch (final SQLException e) {
+			throw new DaoException("Could not read order from the database.", e);
+		}
+	}
+
+	private static void bindOrder(final PreparedStatement statement, final TransferOrder order) throws SQLException {
+		statement.setLong(1, order.getId());
+		statement.setString(2, order.getSourceAccount());
+		statement.setString(3, order.getTargetAccount());
+		statement.setBigDecimal(4, order.getAmount());
+		if (order.getStatus() == null) {
+			statement.setNull(5, Types.VARCHAR);
+		} else {
+			statement.setString(5, order.getStatus().name());
+		}
+		bindTime(statement, 6, order.getCreatedAt());
+		bindTime(statement, 7, order.getUpdatedAt());
+		bindTime(statement, 8, order.getExecuteAt());
+	}
+
+	private static void bindTime(final PreparedStatement statement, final int index, final Instant time) throws SQLException {
+		if (time == null) {
+			statement.setNull(index, Types.BIGINT);
+		} else {
+			statement.setLong(index, time.toEpochMilli());
+		}
+	}
+
+	private static TransferOrder readOrder(final ResultSet resultSet) throws SQLException {
+		final String status = resultSet.getString(5);
+		return TransferOrder.builder()
+				.id(resultSet.getLong(1))
+				.sourceAccount(resultSet.getString(2))
+				.targetAccount(resultSet.getString(3))
+				.amount(resultSet.getBigDecimal(4))
+				.status(status == null ? null : TransferStatus.valueOf(status))
+				.createdAt(readTime(resultSet, 6))
+				.updatedAt(readTime(resultSet, 7))
+				.executeAt(readTime(resultSet, 8))
+				.build();
+	}
+
+	private static Instant readTime(final ResultSet resultSet, final int index) throws SQLException {
+		final long millis = resultSet.getLong(index);
+		return resultSet.wasNull() ? null : Instant.ofEpochMilli(millis);
+	}
+}
@@ -0,0 +1,106 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Bounded cache of recently read orders, with least-recently-used eviction policy.
+ * It's split into segments (each guarded by its own lock) selected by order ID,
+ * so concurrent readers of different orders rarely compete for the same lock.
+ *
+ * Every segment carries a version number, bumped on each invalidation. Readers loading an order
+ * from the backing storage take the version before the load and put the loaded order only if the version
+ * did not change in the meantime. That way a slow read can never overwrite a concurrent, newer write.
+ */
+class OrderCache {
+	private static final int SEGMENTS = 16;
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	/**
+	 * Creates cache with given capacity.
+	 * @param capacity Maximum number of orders kept in the cache. Must be positive.
+	 */
+	OrderCache(final int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Cache capacity must be positive.");
+		}
+		final int segmentCapacity = Math.max(1, capacity / SEGMENTS);
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(segmentCapacity);
+		}
+	}
+
+	/**
+	 * @param id Order ID. Cannot be null.
+	 * @return Cached order, or null if it's not in the cache.
+	 */
+	TransferOrder get(@NonNull final Long id) {
+		final Segment segment = segmentFor(id);
+		synchronized (segment) {
+			return segment.get(id);
+		}
+	}
+
+	/**
+	 * @param id Order ID. Cannot be null.
+	 * @return Current version of the segment holding the order. To be used with {@link #putIfUnchanged(TransferOrder, long)}.
+	 */
+	long version(@NonNull final Long id) {
+		final Segment segment = segmentFor(id);
+		synchronized (segment) {
+			return segment.version;
+		}
+	}
+
+	/**
+	 * Puts order into the cache, possibly evicting the least recently used one,
+	 * but only if there was no invalidation in the segment since given version was taken.
+	 * @param order Order to cache. Cannot be null. Must have ID defined.
+	 * @param version Version returned by {@link #version(Long)} before the order was loaded.
+	 */
+	void putIfUnchanged(@NonNull final TransferOrder order, final long version) {
+		final Segment segment = segmentFor(order.getId());
+		synchronized (segment) {
+			if (segment.version == version) {
+				segment.put(order.getId(), order);
+			}
+		}
+	}
+
+	/**
+	 * Drops order from the cache. Must be called whenever the order is modified.
+	 * @param id ID of order to drop from the cache. Cannot be null.
+	 */
+	void invalidate(@NonNull final Long id) {
+		final Segment segment = segmentFor(id);
+		synchronized (segment) {
+			segment.remove(id);
+			segment.version++;
+		}
+	}
+
+	private Segment segmentFor(final long id) {
+		return segments[Long.hashCode(id) & (SEGMENTS - 1)];
+	}
+
+	private static class Segment extends LinkedHashMap<Long, TransferOrder> {
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+		private long version;
+
+		Segment(final int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Long, TransferOrder> eldest) {
+			return size() > capacity;
+		}
+	}
+}
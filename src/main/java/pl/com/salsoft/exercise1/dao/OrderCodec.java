@@ -0,0 +1,110 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Compact binary representation of transfer orders, for moving them between processes and files
+ * without the overhead of JSON. Nullable fields are marked in a leading bit mask,
+ * so absent values take no space.
+ */
+public final class OrderCodec {
+	private static final int HAS_SOURCE_ACCOUNT = 1;
+	private static final int HAS_TARGET_ACCOUNT = 1 << 1;
+	private static final int HAS_AMOUNT = 1 << 2;
+	private static final int HAS_STATUS = 1 << 3;
+	private static final int HAS_CREATED_AT = 1 << 4;
+	private static final int HAS_UPDATED_AT = 1 << 5;
+	private static final int HAS_EXECUTE_AT = 1 << 6;
+
+	private OrderCodec() {
+	}
+
+	/**
+	 * Writes order in binary form.
+	 * @param output Target to write to. Cannot be null.
+	 * @param order Order to write. Cannot be null. It must have ID defined.
+	 * @throws IOException If writing to the output failed.
+	 */
+	public static void write(@NonNull final DataOutput output, @NonNull final TransferOrder order) throws IOException {
+		int mask = 0;
+		mask |= order.getSourceAccount() != null ? HAS_SOURCE_ACCOUNT : 0;
+		mask |= order.getTargetAccount() != null ? HAS_TARGET_ACCOUNT : 0;
+		mask |= order.getAmount() != null ? HAS_AMOUNT : 0;
+		mask |= order.getStatus() != null ? HAS_STATUS : 0;
+		mask |= order.getCreatedAt() != null ? HAS_CREATED_AT : 0;
+		mask |= order.getUpdatedAt() != null ? HAS_UPDATED_AT : 0;
+		mask |= order.getExecuteAt() != null ? HAS_EXECUTE_AT : 0;
+
+		output.writeByte(mask);
+		output.writeLong(order.getId());
+		if (order.getSourceAccount() != null) {
+			output.writeUTF(order.getSourceAccount());
+		}
+		if (order.getTargetAccount() != null) {
+			output.writeUTF(order.getTargetAccount());
+		}
+		if (order.getAmount() != null) {
+			final byte[] unscaled = order.getAmount().unscaledValue().toByteArray();
+			output.writeInt(order.getAmount().scale());
+			output.writeShort(unscaled.length);
+			output.write(unscaled);
+		}
+		if (order.getStatus() != null) {
+			output.writeUTF(order.getStatus().name());
+		}
+		if (order.getCreatedAt() != null) {
+			output.writeLong(order.getCreatedAt().toEpochMilli());
+		}
+		if (order.getUpdatedAt() != null) {
+			output.writeLong(order.getUpdatedAt().toEpochMilli());
+		}
+		if (order.getExecuteAt() != null) {
+			output.writeLong(order.getExecuteAt().toEpochMilli());
+		}
+	}
+
+	/**
+	 * Reads order written with {@link #write(DataOutput, TransferOrder)}.
+	 * @param input Source to read from. Cannot be null.
+	 * @return Order read. Never null.
+	 * @throws IOException If reading from the input failed.
+	 */
+	public static @NonNull TransferOrder read(@NonNull final DataInput input) throws IOException {
+		final int mask = input.readUnsignedByte();
+		final TransferOrder.TransferOrderBuilder builder = TransferOrder.builder().id(input.readLong());
+		if ((mask & HAS_SOURCE_ACCOUNT) != 0) {
+			builder.sourceAccount(input.readUTF());
+		}
+		if ((mask & HAS_TARGET_ACCOUNT) != 0) {
+			builder.targetAccount(input.readUTF());
+		}
+		if ((mask & HAS_AMOUNT) != 0) {
+			final int scale = input.readInt();
+			final byte[] unscaled = new byte[input.readUnsignedShort()];
+			input.readFully(unscaled);
+			builder.amount(new BigDecimal(new BigInteger(unscaled), scale));
+		}
+		if ((mask & HAS_STATUS) != 0) {
+			builder.status(TransferStatus.valueOf(input.readUTF()));
+		}
+		if ((mask & HAS_CREATED_AT) != 0) {
+			builder.createdAt(Instant.ofEpochMilli(input.readLong()));
+		}
+		if ((mask & HAS_UPDATED_AT) != 0) {
+			builder.updatedAt(Instant.ofEpochMilli(input.readLong()));
+		}
+		if ((mask & HAS_EXECUTE_AT) != 0) {
+			builder.executeAt(Instant.ofEpochMilli(input.readLong()));
+		}
+		return builder.build();
+	}
+}
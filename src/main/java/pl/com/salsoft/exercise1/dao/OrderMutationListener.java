@@ -0,0 +1,25 @@
+package pl.com.salsoft.exercise1.dao;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Receives notifications about every modification of the transfer order repository.
+ *
+ * Notifications for the same order ID are delivered in the same order in which modifications
+ * were applied to the repository (they are fired while the modification is still in progress),
+ * therefore listeners must be fast and must not call back into the repository.
+ */
+public interface OrderMutationListener {
+	/**
+	 * Called when order was stored in the repository.
+	 * @param previous Order that was replaced, or null if there was no order with that ID.
+	 * @param order Stored order. Never null.
+	 */
+	void onPersist(TransferOrder previous, TransferOrder order);
+
+	/**
+	 * Called when order was deleted from the repository.
+	 * @param previous Deleted order. Never null.
+	 */
+	void onDelete(TransferOrder previous);
+}
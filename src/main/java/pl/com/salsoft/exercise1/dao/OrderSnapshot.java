@@ -0,0 +1,117 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * File with all orders of a repository, in {@link OrderCodec} format, used to carry the store over
+ * to the next process. The file is written to a temporary file first and then moved in place, so a reader
+ * never sees a partial snapshot. It's read through a memory mapping, so loading is not slowed down by
+ * reading the file in small chunks.
+ */
+public final class OrderSnapshot {
+	private static final int MAGIC = 0x4F524453; // "ORDS"
+	private static final int VERSION = 1;
+	private static final int BUFFER_SIZE = 256 * 1024;
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private OrderSnapshot() {
+	}
+
+	/**
+	 * Writes snapshot of given orders, replacing the file if it exists.
+	 * @param file Snapshot file. Cannot be null.
+	 * @param orders Orders to write. Cannot be null.
+	 * @throws IOException If the file could not be written.
+	 */
+	public static void write(@NonNull final Path file, @NonNull final Collection<TransferOrder> orders) throws IOException {
+		final Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		final Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+					Channels.newOutputStream(channel), BUFFER_SIZE));
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(orders.size());
+			for (final TransferOrder order : orders) {
+				OrderCodec.write(output, order);
+			}
+			output.flush();
+			channel.force(true);
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads snapshot written with {@link #write(Path, Collection)}.
+	 * @param file Snapshot file. Cannot be null.
+	 * @param consumer Receives every order read. Cannot be null.
+	 * @return Number of orders read.
+	 * @throws IOException If the file could not be read or it's not a valid snapshot.
+	 */
+	public static int read(@NonNull final Path file, @NonNull final Consumer<TransferOrder> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			final DataInputStream input = new DataInputStream(new ByteBufferInputStream(buffer));
+			if (buffer.remaining() < 12 || input.readInt() != MAGIC || input.readInt() != VERSION) {
+				throw new IOException(String.format("Not a valid order snapshot: %s", file));
+			}
+			final int count = input.readInt();
+			for (int i = 0; i < count; i++) {
+				consumer.accept(OrderCodec.read(input));
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Input stream over a byte buffer, so the codec can read straight from the mapped file.
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(final byte[] bytes, final int offset, final int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			final int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
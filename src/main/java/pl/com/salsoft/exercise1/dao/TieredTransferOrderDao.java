@@ -0,0 +1,528 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Transfer order repository with two tiers: a hot one in the heap (the same as {@link InMemoryTransferOrderDao})
+ * and a cold one in compressed, memory-mapped {@link ColdSegment} files.
+ *
+ * Terminal orders ({@link TransferStatus#FINISHED} and {@link TransferStatus#REJECTED}), which were not modified
+ * for at least the minimum age, are moved to a new cold segment by a background task running periodically,
+ * so the heap holds only orders that are still being worked on. Reads fall through to the cold tier when
+ * an order is not in the heap, and {@link #getAll()} decompresses cold orders only as they are iterated.
+ * An order modified or deleted after it was moved is brought back to the heap (or removed) and its cold copy
+ * is marked as dead.
+ *
+ * All modifications of an ID, including the moves between tiers, are done inside of the hot map's atomic
+ * update of that ID, so they never interleave. Moving orders out does not notify mutation listeners,
+ * as it doesn't change the content of the repository. {@link #getAll()} takes its view of both tiers while
+ * no order is being moved in either direction, so every order is listed exactly once.
+ *
+ * Segments are opened on the first access, so a process taking over from another one (see LifecycleService)
+ * sees all segments the other one wrote before it exited. Only the cold tier is persistent, the hot one
+ * has to be saved at shutdown, see {@link #getMemoryResident()}.
+ */
+public class TieredTransferOrderDao extends AbstractTransferOrderDao {
+	public static final long DEFAULT_MIN_AGE_MILLIS = 3_600_000L;
+	public static final long DEFAULT_INTERVAL_MILLIS = 60_000L;
+	public static final int DEFAULT_SEGMENT_SIZE = 100_000;
+
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final Path directory;
+	private final long minAgeNanos;
+	private final int segmentSize;
+	private final Map<Long, TransferOrder> hotStore = new ConcurrentHashMap<>();
+	// Since when (System.nanoTime()) terminal orders in the hot store are unchanged.
+	private final Map<Long, Long> terminalSince = new ConcurrentHashMap<>();
+	private final Object tieringLock = new Object();
+	// Read (shared) by updates bringing orders back from the cold tier, until they are visible in the heap,
+	// write (exclusive) by listings taking their view of both tiers. Moving orders out is under the tiering lock.
+	private final ReadWriteLock revivalLock = new ReentrantReadWriteLock();
+	// Separate from the tiering lock, which is held while updating the hot store.
+	private final Object openLock = new Object();
+	private final ScheduledExecutorService tiering;
+	// Newest first, null until opened.
+	private volatile List<ColdSegment> segments;
+	private long nextSegment;
+
+	/**
+	 * Starts the background task moving orders to the cold tier. Segments are not opened yet.
+	 * @param directory Directory of the cold segments. Cannot be null. It's created when the first segment is written.
+	 * @param minAgeMillis Minimum time (in milliseconds) a terminal order has to be unchanged to be moved.
+	 * @param intervalMillis Time (in milliseconds) between runs of the background task. Must be positive.
+	 * @param segmentSize Maximum number of orders moved in one run, to a single segment. Must be positive.
+	 */
+	public TieredTransferOrderDao(@NonNull final Path directory, final long minAgeMillis, final long intervalMillis,
+			final int segmentSize) {
+		super(0L);
+		if (intervalMillis <= 0 || segmentSize <= 0) {
+			throw new IllegalArgumentException("Tiering interval and segment size must be positive.");
+		}
+		this.directory = directory;
+		this.minAgeNanos = TimeUnit.MILLISECONDS.toNanos(minAgeMillis);
+		this.segmentSize = segmentSize;
+		this.tiering = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "order-tiering");
+			thread.setDaemon(true);
+			return thread;
+		});
+		tiering.scheduleWithFixedDelay(this::tierOutQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public boolean contains(@NonNull final Long id) {
+		return get(id).isPresent();
+	}
+
+	@Override
+	public void delete(@NonNull final Long id) {
+		computeHot(id, (key, previous) -> {
+			final TransferOrder deleted = previous != null ? previous : takeCold(key);
+			if (deleted != null) {
+				fireDelete(deleted);
+			}
+			terminalSince.remove(key);
+			return null;
+		});
+	}
+
+	@Override
+	public boolean deleteIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition) {
+		final boolean[] deleted = new boolean[1];
+		computeHot(id, (key, previous) -> {
+			final TransferOrder order = previous != null ? previous : getCold(key).orElse(null);
+			if (order == null || !condition.test(order)) {
+				return previous;
+			}
+			if (previous == null) {
+				killCold(key);
+			}
+			fireDelete(order);
+			terminalSince.remove(key);
+			deleted[0] = true;
+			return null;
+		});
+		return deleted[0];
+	}
+
+	@Override
+	public boolean updateIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition,
+			@NonNull final UnaryOperator<TransferOrder> updater) {
+		final boolean[] updated = new boolean[1];
+		computeHot(id, (key, previous) -> {
+			final TransferOrder existing = previous != null ? previous : getCold(key).orElse(null);
+			if (existing == null || !condition.test(existing)) {
+				return previous;
+			}
+			final TransferOrder order = updater.apply(existing);
+			if (previous == null) {
+				killCold(key);
+			}
+			firePersist(existing, order);
+			trackAge(order);
+			updated[0] = true;
+			return order;
+		});
+		return updated[0];
+	}
+
+	@Override
+	public long generateId() {
+		// IDs of cold orders are known only after the segments are opened.
+		segments();
+		return super.generateId();
+	}
+
+	@Override
+	public Optional<TransferOrder> get(@NonNull final Long id) {
+		final TransferOrder hot = hotStore.get(id);
+		if (hot != null) {
+			return Optional.of(hot);
+		}
+		final Optional<TransferOrder> cold = getCold(id);
+		// Order brought back to the heap is dead in the cold tier a moment before it's visible in the hot one.
+		return cold.isPresent() ? cold : Optional.ofNullable(hotStore.get(id));
+	}
+
+	/**
+	 * Lists both tiers. Heap orders are copied at once, cold ones are read from the segments only while
+	 * the set is iterated, but from the segments and alive orders of the time of the call.
+	 */
+	@Override
+	public Set<TransferOrder> getAll() {
+		synchronized (tieringLock) {
+			revivalLock.writeLock().lock();
+			try {
+				final List<ColdSegment> cold = segments();
+				final List<Set<Long>> dead = cold.stream().map(ColdSegment::deadIds).collect(Collectors.toList());
+				return new TieredOrderSet(getMemoryResident(), cold, dead);
+			} finally {
+				revivalLock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return Orders of the hot tier only, the cold one is persistent.
+	 */
+	@Override
+	public Set<TransferOrder> getMemoryResident() {
+		final Collection<TransferOrder> values = hotStore.values();
+		synchronized (hotStore) {
+			return Set.copyOf(values);
+		}
+	}
+
+	@Override
+	public void persist(@NonNull final TransferOrder order) {
+		computeHot(order.getId(), (id, previous) -> {
+			firePersist(previous != null ? previous : takeCold(id), order);
+			trackAge(order);
+			return order;
+		});
+		advanceIdSequence(order.getId());
+	}
+
+	/**
+	 * Saves orders like {@link #persist(TransferOrder)}, but advances the ID sequence only once.
+	 */
+	@Override
+	public void persistAll(@NonNull final Collection<TransferOrder> orders) {
+		long maxId = Long.MIN_VALUE;
+		for (final TransferOrder order : orders) {
+			computeHot(order.getId(), (id, previous) -> {
+				firePersist(previous != null ? previous : takeCold(id), order);
+				trackAge(order);
+				return order;
+			});
+			maxId = Math.max(maxId, order.getId());
+		}
+		if (!orders.isEmpty()) {
+			advanceIdSequence(maxId);
+		}
+	}
+
+	@Override
+	public boolean persistIfAbsent(@NonNull final TransferOrder order) {
+		final TransferOrder stored = hotStore.compute(order.getId(), (id, previous) -> {
+			if (previous != null || getCold(id).isPresent()) {
+				return previous;
+			}
+			firePersist(null, order);
+			trackAge(order);
+			return order;
+		});
+		advanceIdSequence(order.getId());
+		return stored == order;
+	}
+
+	@Override
+	public TransferOrder update(@NonNull final Long id, @NonNull final UnaryOperator<TransferOrder> updater) {
+		final TransferOrder stored = computeHot(id, (key, previous) -> {
+			final TransferOrder existing = previous != null ? previous : getCold(key).orElse(null);
+			final TransferOrder order = updater.apply(existing);
+			if (previous == null && existing != null) {
+				killCold(key);
+			}
+			firePersist(existing, order);
+			trackAge(order);
+			return order;
+		});
+		advanceIdSequence(id);
+		return stored;
+	}
+
+	/**
+	 * Moves terminal orders unchanged for at least the minimum age from the heap to a new cold segment.
+	 * It's called periodically in the background, calling it directly is only needed in tests.
+	 * @return Number of orders moved.
+	 * @throws DaoException If the segment could not be written.
+	 */
+	public int tierOut() {
+		synchronized (tieringLock) {
+			final List<ColdSegment> current = segments();
+			final long now = System.nanoTime();
+			final List<TransferOrder> orders = new ArrayList<>();
+			for (final Map.Entry<Long, Long> entry : terminalSince.entrySet()) {
+				if (orders.size() == segmentSize) {
+					break;
+				}
+				final TransferOrder order = hotStore.get(entry.getKey());
+				if (order != null && now - entry.getValue() >= minAgeNanos) {
+					orders.add(order);
+				}
+			}
+			if (orders.isEmpty()) {
+				return 0;
+			}
+			orders.sort(Comparator.comparing(TransferOrder::getId));
+
+			final ColdSegment segment;
+			try {
+				Files.createDirectories(directory);
+				segment = ColdSegment.write(directory.resolve(SEGMENT_PREFIX + nextSegment++ + ColdSegment.SUFFIX), orders);
+			} catch (final IOException e) {
+				throw new DaoException(String.format("Could not write cold segment to %s", directory), e);
+			}
+			// Published before orders are removed from the heap, so every order is always visible in one of the tiers.
+			// Copies are dead until their orders are removed from the heap: an order modified or deleted
+			// after it was read must not be visible in the cold tier, not even for a moment.
+			segment.killAll(orders.stream().map(TransferOrder::getId).collect(Collectors.toList()));
+			segments = Stream.concat(Stream.of(segment), current.stream()).collect(Collectors.toUnmodifiableList());
+			for (final TransferOrder order : orders) {
+				hotStore.compute(order.getId(), (id, hot) -> {
+					if (!order.equals(hot)) {
+						// Modified or deleted since it was read, so the copy just written is stale.
+						return hot;
+					}
+					segment.revive(id);
+					terminalSince.remove(id);
+					return null;
+				});
+			}
+			log.info("Moved {} orders to {}", segment.getAliveCount(), segment);
+			return segment.getAliveCount();
+		}
+	}
+
+	/**
+	 * Stops the background task and saves dead IDs of the cold tier. The hot tier is not saved.
+	 * @throws DaoException If dead IDs could not be saved.
+	 */
+	@Override
+	public void close() {
+		tiering.shutdown();
+		try {
+			tiering.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		final List<ColdSegment> opened = segments;
+		if (opened == null) {
+			return;
+		}
+		for (final ColdSegment segment : opened) {
+			try {
+				segment.saveDead();
+			} catch (final IOException e) {
+				throw new DaoException(String.format("Could not save dead orders of %s", segment), e);
+			}
+		}
+	}
+
+	private void tierOutQuietly() {
+		try {
+			tierOut();
+		} catch (final RuntimeException e) {
+			log.error("Moving orders to the cold tier failed, will retry: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Updates the hot store like {@link Map#compute}, with the function possibly bringing the order back
+	 * from the cold tier (see {@link #killCold(long)}).
+	 */
+	private TransferOrder computeHot(final Long id, final BiFunction<Long, TransferOrder, TransferOrder> function) {
+		try {
+			return hotStore.compute(id, function);
+		} finally {
+			// Taken when the cold copy was killed, released once the order is in the heap.
+			if (((ReentrantReadWriteLock) revivalLock).getReadHoldCount() > 0) {
+				revivalLock.readLock().unlock();
+			}
+		}
+	}
+
+	private void trackAge(final TransferOrder order) {
+		if (order.getStatus() == TransferStatus.FINISHED || order.getStatus() == TransferStatus.REJECTED) {
+			terminalSince.put(order.getId(), System.nanoTime());
+		} else {
+			terminalSince.remove(order.getId());
+		}
+	}
+
+	private Optional<TransferOrder> getCold(final long id) {
+		for (final ColdSegment segment : segments()) {
+			final Optional<TransferOrder> order = segment.get(id);
+			if (order.isPresent()) {
+				return order;
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Marks the cold copy of the order as dead, as it's brought back to the heap (or deleted). Must be called
+	 * from a function given to {@link #computeHot}, as it takes the revival lock until the function is done.
+	 */
+	private void killCold(final long id) {
+		final ReentrantReadWriteLock lock = (ReentrantReadWriteLock) revivalLock;
+		if (lock.getReadHoldCount() == 0) {
+			lock.readLock().lock();
+		}
+		for (final ColdSegment segment : segments()) {
+			if (segment.kill(id)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return Cold copy of the order, which is marked as dead, or null if there was none.
+	 */
+	private TransferOrder takeCold(final long id) {
+		final TransferOrder order = getCold(id).orElse(null);
+		if (order != null) {
+			killCold(id);
+		}
+		return order;
+	}
+
+	private List<ColdSegment> segments() {
+		final List<ColdSegment> opened = segments;
+		if (opened != null) {
+			return opened;
+		}
+		synchronized (openLock) {
+			if (segments == null) {
+				segments = openSegments();
+			}
+			return segments;
+		}
+	}
+
+	private List<ColdSegment> openSegments() {
+		if (!Files.isDirectory(directory)) {
+			return List.of();
+		}
+		final List<ColdSegment> opened = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			final List<Long> numbers = files
+					.map(file -> file.getFileName().toString())
+					.filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(ColdSegment.SUFFIX))
+					.map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - ColdSegment.SUFFIX.length())))
+					.sorted(Comparator.reverseOrder())
+					.collect(Collectors.toList());
+			for (final long number : numbers) {
+				final ColdSegment segment = ColdSegment.open(directory.resolve(SEGMENT_PREFIX + number + ColdSegment.SUFFIX));
+				opened.add(segment);
+				advanceIdSequence(segment.getMaxId());
+				nextSegment = Math.max(nextSegment, number + 1);
+			}
+		} catch (final IOException e) {
+			throw new DaoException(String.format("Could not open cold segments in %s", directory), e);
+		}
+		log.info("Opened {} cold segments with {} orders", opened.size(),
+				opened.stream().mapToLong(ColdSegment::getAliveCount).sum());
+		return Collections.unmodifiableList(opened);
+	}
+
+	/**
+	 * Orders of both tiers, with cold ones read from the segments only as they are iterated, skipping orders dead
+	 * at the time the set was created. Orders being moved out can be found in both, so cold ones are skipped
+	 * if their ID is among the hot ones.
+	 */
+	private static final class TieredOrderSet extends AbstractSet<TransferOrder> {
+		private final Set<TransferOrder> hot;
+		private final Set<Long> hotIds;
+		private final List<ColdSegment> cold;
+		private final List<Set<Long>> dead;
+		private int size = -1;
+
+		/**
+		 * @param dead Dead IDs of every segment, in the same order.
+		 */
+		private TieredOrderSet(final Set<TransferOrder> hot, final List<ColdSegment> cold, final List<Set<Long>> dead) {
+			this.hot = hot;
+			this.hotIds = hot.stream().map(TransferOrder::getId).collect(Collectors.toSet());
+			this.cold = cold;
+			this.dead = dead;
+		}
+
+		@Override
+		public Iterator<TransferOrder> iterator() {
+			return new Iterator<>() {
+				private final Iterator<TransferOrder> hotIterator = hot.iterator();
+				private int nextSegment;
+				private Iterator<TransferOrder> coldIterator = Collections.emptyIterator();
+				private TransferOrder next;
+
+				@Override
+				public boolean hasNext() {
+					while (next == null) {
+						if (hotIterator.hasNext()) {
+							next = hotIterator.next();
+						} else if (coldIterator.hasNext()) {
+							final TransferOrder order = coldIterator.next();
+							if (!hotIds.contains(order.getId())) {
+								next = order;
+							}
+						} else if (nextSegment < cold.size()) {
+							coldIterator = cold.get(nextSegment).iterator(dead.get(nextSegment));
+							nextSegment++;
+						} else {
+							return false;
+						}
+					}
+					return true;
+				}
+
+				@Override
+				public TransferOrder next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					final TransferOrder order = next;
+					next = null;
+					return order;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			if (size < 0) {
+				int count = 0;
+				for (final Iterator<TransferOrder> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+					count++;
+				}
+				size = count;
+			}
+			return size;
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package pl.com.salsoft.exercise1.dao;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.tracing.DaoEvent;
+import pl.com.salsoft.exercise1.tracing.RequestTrace;
+import pl.com.salsoft.exercise1.tracing.RequestTrace.Phase;
+
+/**
+ * Decorator of any repository, recording time spent in it as the {@link Phase#DAO} phase
+ * of the request being handled, and as {@link DaoEvent}s of JDK Flight Recorder. Updater passed
+ * to {@link #update(Long, UnaryOperator)} can enter its own phase, which is then not counted as the repository time
+ * (but it's counted in the event).
+ */
+public class TracedTransferOrderDao implements TransferOrderDao {
+	private final TransferOrderDao delegate;
+
+	/**
+	 * @param delegate Actual repository. Cannot be null.
+	 */
+	public TracedTransferOrderDao(@NonNull final TransferOrderDao delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void addMutationListener(@NonNull final OrderMutationListener listener) {
+		delegate.addMutationListener(listener);
+	}
+
+	@Override
+	public boolean contains(@NonNull final Long id) {
+		final DaoEvent event = DaoEvent.start("contains", id);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			return delegate.contains(id);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public void delete(@NonNull final Long id) {
+		final DaoEvent event = DaoEvent.start("delete", id);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			delegate.delete(id);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public boolean deleteIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition) {
+		final DaoEvent event = DaoEvent.start("deleteIf", id);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			return delegate.deleteIf(id, condition);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public boolean updateIf(@NonNull final Long id, @NonNull final Predicate<TransferOrder> condition,
+			@NonNull final UnaryOperator<TransferOrder> updater) {
+		final DaoEvent event = DaoEvent.start("updateIf", id);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			return delegate.updateIf(id, condition, updater);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public long generateId() {
+		final DaoEvent event = DaoEvent.start("generateId", DaoEvent.NO_ORDER);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			return delegate.generateId();
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public void setIdFilter(@NonNull final LongPredicate idFilter) {
+		delegate.setIdFilter(idFilter);
+	}
+
+	@Override
+	public Optional<TransferOrder> get(@NonNull final Long id) {
+		final DaoEvent event = DaoEvent.start("get", id);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			return delegate.get(id);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public Set<TransferOrder> getAll() {
+		final DaoEvent event = DaoEvent.start("getAll", DaoEvent.NO_ORDER);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			return delegate.getAll();
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	/**
+	 * Not traced, as the time is mostly spent in the consumer.
+	 */
+	@Override
+	public void forEach(@NonNull final Consumer<TransferOrder> consumer) {
+		delegate.forEach(consumer);
+	}
+
+	@Override
+	public List<TransferOrder> find(@NonNull final Predicate<TransferOrder> condition,
+			@NonNull final Comparator<TransferOrder> order, final int limit) {
+		final DaoEvent event = DaoEvent.start("find", DaoEvent.NO_ORDER);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			return delegate.find(condition, order, limit);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public Set<TransferOrder> getMemoryResident() {
+		return delegate.getMemoryResident();
+	}
+
+	@Override
+	public void persist(@NonNull final TransferOrder order) {
+		final DaoEvent event = DaoEvent.start("persist", idOf(order.getId()));
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			delegate.persist(order);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public void persistAll(@NonNull final Collection<TransferOrder> orders) {
+		final DaoEvent event = DaoEvent.start("persistAll", DaoEvent.NO_ORDER);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			delegate.persistAll(orders);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public boolean persistIfAbsent(@NonNull final TransferOrder order) {
+		final DaoEvent event = DaoEvent.start("persistIfAbsent", idOf(order.getId()));
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			return delegate.persistIfAbsent(order);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public TransferOrder update(@NonNull final Long id, @NonNull final UnaryOperator<TransferOrder> updater) {
+		final DaoEvent event = DaoEvent.start("update", id);
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		try {
+			return delegate.update(id, updater);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit();
+		}
+	}
+
+	@Override
+	public boolean isBlocking() {
+		return delegate.isBlocking();
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+	private static long idOf(final Long id) {
+		return id != null ? id : DaoEvent.NO_ORDER;
+	}
+}
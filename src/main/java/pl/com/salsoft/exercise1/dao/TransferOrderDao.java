@@ -1,71 +1,133 @@
 package pl.com.salsoft.exercise1.dao;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Map;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import lombok.NonNull;
 import pl.com.salsoft.exercise1.model.TransferOrder;
 
 /**
  * Persistence handler for transfer orders. It carries all of common operations.
- * Underneath it uses a Map (JDK's ConcurrentHashMap to provide efficient thread-safety),
- * because it's fast, sufficient for the requirements and goes along with KISS principle.
+ * Actual storage backend is chosen in AppModule, based on the application configuration.
  */
-public class TransferOrderDao {
-	private final AtomicLong idSequence = new AtomicLong(0L);
-	private final Map<Long, TransferOrder> orderStore = new ConcurrentHashMap<>();
+public interface TransferOrderDao extends AutoCloseable {
+	/**
+	 * Registers listener notified about every modification of the repository.
+	 * @param listener Listener to register. Cannot be null.
+	 */
+	void addMutationListener(@NonNull OrderMutationListener listener);
 
 	/**
 	 * Checks whether repository contains order with given ID.
 	 * @param id Order ID to check. Cannot be null.
 	 * @return true if order exists, or false otherwise.
 	 */
-	public boolean contains(@NonNull final Long id) {
-		return orderStore.containsKey(id);
-	}
+	boolean contains(@NonNull Long id);
 
 	/**
 	 * Deletes order with given ID from the repository.
 	 * If order with this ID did not exist, this method does nothing.
 	 * @param id ID of order to delete. Cannot be null.
 	 */
-	public void delete(@NonNull final Long id) {
-		orderStore.remove(id);
-	}
+	void delete(@NonNull Long id);
+
+	/**
+	 * Deletes order with given ID from the repository, but only if it matches given condition.
+	 * Check and delete are done atomically, so the order can't be modified in between.
+	 * @param id ID of order to delete. Cannot be null.
+	 * @param condition Condition the stored order must match. Cannot be null. It should be fast,
+	 * as other modifications of the same ID wait for it.
+	 * @return true if order existed, matched the condition and was deleted, false otherwise.
+	 */
+	boolean deleteIf(@NonNull Long id, @NonNull Predicate<TransferOrder> condition);
 
 	/**
-	 * Generates next available order ID. It's guaranteed to be unused.
+	 * Generates next available order ID. It's guaranteed to be unused when it's generated
+	 * and accepted by the ID filter, if one was set. An order with explicit ID persisted at the same time
+	 * may still take it, so new orders should be stored with {@link #persistIfAbsent(TransferOrder)}.
 	 * @return Generated ID.
 	 */
-	public long generateId() {
-		return idSequence.getAndIncrement();
-	}
+	long generateId();
+
+	/**
+	 * Restricts IDs returned by {@link #generateId()} to the ones accepted by given filter.
+	 * Filter should accept a reasonable fraction of IDs, as rejected ones are simply skipped.
+	 * @param idFilter Filter to apply. Cannot be null.
+	 */
+	void setIdFilter(@NonNull LongPredicate idFilter);
 
 	/**
 	 * Finds order with given ID in the repository and returns it.
 	 * @param id ID of order to find. Cannot be null.
 	 * @return Requested order or empty Optional.
 	 */
-	public Optional<TransferOrder> get(@NonNull final Long id) {
-		return Optional.ofNullable(orderStore.get(id));
-	}
+	Optional<TransferOrder> get(@NonNull Long id);
 
 	/**
 	 * Finds all orders in the repository and returns them.
 	 * @return Unmodifiable set of orders. If no orders exist, then empty set is returned.
 	 */
-	public Set<TransferOrder> getAll() {
-		final Collection<TransferOrder> values = orderStore.values();
-		// While it's safe to call values() out of synchronized block,
-		// iterating over the result collection should already be done inside of such block.
-		// That's what Java documentation states.
-		synchronized (orderStore) {
-			return Set.copyOf(values);
+	Set<TransferOrder> getAll();
+
+	/**
+	 * Visits all orders in the repository, without collecting them first, so it's suitable for exporting
+	 * large repositories. Orders modified while being visited may be visited in either version, or not at all
+	 * if they are created or deleted meanwhile. By default it visits {@link #getAll()}.
+	 * @param consumer Receives orders. Cannot be null.
+	 */
+	default void forEach(@NonNull final Consumer<TransferOrder> consumer) {
+		getAll().forEach(consumer);
+	}
+
+	/**
+	 * Finds first orders matching given condition, in given order. By default it visits all orders with
+	 * {@link #forEach(Consumer)}, keeping only the first ones seen so far, so memory taken is proportional
+	 * to the limit rather than to the size of the repository.
+	 * @param condition Condition orders must match. Cannot be null.
+	 * @param order Order of results. Cannot be null. It should be total, or the results may differ between calls.
+	 * @param limit Maximum number of orders to return. Must be positive.
+	 * @return Matching orders, sorted.
+	 */
+	default List<TransferOrder> find(@NonNull final Predicate<TransferOrder> condition,
+			@NonNull final Comparator<TransferOrder> order, final int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException(String.format("Limit must be positive: %d", limit));
 		}
+		// Head of the queue is the last of the first orders, to be dropped when a better one comes.
+		final Comparator<TransferOrder> reversed = order.reversed();
+		final PriorityQueue<TransferOrder> first = new PriorityQueue<>(Math.min(limit, 1024) + 1, reversed);
+		forEach(candidate -> {
+			if (!condition.test(candidate)) {
+				return;
+			}
+			if (first.size() < limit) {
+				first.add(candidate);
+			} else if (reversed.compare(candidate, first.peek()) > 0) {
+				first.poll();
+				first.add(candidate);
+			}
+		});
+		final List<TransferOrder> result = new ArrayList<>(first);
+		result.sort(order);
+		return result;
+	}
+
+	/**
+	 * Finds orders held only in memory of this process, which are lost at exit unless they are saved
+	 * elsewhere (see {@link OrderSnapshot}). By default it's all orders, as returned by {@link #getAll()}.
+	 * @return Unmodifiable set of orders.
+	 */
+	default Set<TransferOrder> getMemoryResident() {
+		return getAll();
 	}
 
 	/**
@@ -74,14 +136,63 @@ public class TransferOrderDao {
 	 * @param order Order to store. Cannot be null. Also it must have ID defined.
 	 * It's forbidden to call this method with order having null ID.
 	 */
-	public void persist(@NonNull final TransferOrder order) {
-		orderStore.put(order.getId(), order);
+	void persist(@NonNull TransferOrder order);
 
-		// If persisted order has bigger ID than current ID sequence, then we need to
-		// traverse sequence (atomically) to value higher than this ID, so the #generateId()
-		// returns unused ID.
-		idSequence.updateAndGet(currentSequenceId -> {
-			return order.getId() > currentSequenceId ? order.getId() + 1 : currentSequenceId;
-		});
+	/**
+	 * Saves given orders into repository, like {@link #persist(TransferOrder)} called for each of them,
+	 * but possibly cheaper. Orders are saved one by one, not atomically as a whole.
+	 * @param orders Orders to store. Cannot be null. All of them must have ID defined.
+	 */
+	default void persistAll(@NonNull final Collection<TransferOrder> orders) {
+		orders.forEach(this::persist);
+	}
+
+	/**
+	 * Saves given order into repository, but only if there is no order with the same ID yet.
+	 * Check and save are done atomically.
+	 * @param order Order to store. Cannot be null. Also it must have ID defined.
+	 * @return true if order was saved, or false if order with the same ID already existed.
+	 */
+	boolean persistIfAbsent(@NonNull TransferOrder order);
+
+	/**
+	 * Atomically replaces order with given ID with the result of the updater. No other modification
+	 * of the same ID can interleave, so the updater can safely derive the new order from the existing one.
+	 * The updater should be fast, as other modifications of the same ID wait for it.
+	 * @param id ID of order to update. Cannot be null.
+	 * @param updater Function receiving existing order (or null if it doesn't exist) and returning the new one,
+	 * with the same ID. Cannot be null. If it throws an exception, the repository is left unchanged.
+	 * @return Stored order.
+	 */
+	TransferOrder update(@NonNull Long id, @NonNull UnaryOperator<TransferOrder> updater);
+
+	/**
+	 * Atomically replaces order with given ID with the result of the updater, but only if the order exists
+	 * and matches given condition. Unlike {@link #update(Long, UnaryOperator)}, it never creates an order,
+	 * so an order deleted in the meantime stays deleted.
+	 * @param id ID of order to update. Cannot be null.
+	 * @param condition Condition the stored order must match. Cannot be null.
+	 * @param updater Function receiving existing order and returning the new one, with the same ID. Cannot be null.
+	 * Both functions should be fast, as other modifications of the same ID wait for them.
+	 * @return true if order existed, matched the condition and was updated, false otherwise.
+	 */
+	boolean updateIf(@NonNull Long id, @NonNull Predicate<TransferOrder> condition,
+			@NonNull UnaryOperator<TransferOrder> updater);
+
+	/**
+	 * Tells whether operations of the repository may wait for I/O (disk, network), so they are worth running
+	 * off request threads, see {@link AsyncTransferOrderDao}. True by default.
+	 * @return false if all operations complete in memory, without waiting.
+	 */
+	default boolean isBlocking() {
+		return true;
+	}
+
+	/**
+	 * Writes out all pending changes and releases resources of the repository.
+	 * It should be called once, at the application shutdown. Does nothing by default.
+	 */
+	@Override
+	default void close() {
 	}
 }
@@ -0,0 +1,270 @@
+package pl.com.salsoft.exercise1.index;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.OrderMutationListener;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Index of order IDs by account number (both source and target), for search by account pattern.
+ *
+ * Distinct account numbers are kept in a radix tree, so all accounts with given prefix are found by walking
+ * down the tree and enumerating a single subtree, in the order of account numbers. Every account number
+ * has its own concurrent set of IDs of orders referring to it, which is what changes on most modifications.
+ * The tree itself changes only when a new account number shows up, which is rare, so insertions are done
+ * under a lock, while searches never lock: nodes on the path are replaced (not modified) on insertion
+ * and published through volatile fields.
+ *
+ * The index is updated as a mutation listener of the repository. IDs it returns should be checked against
+ * the repository, as the index may hold a few IDs of orders removed while the index was being built.
+ */
+public class AccountIndex implements OrderMutationListener {
+	// Root has an empty label and never holds IDs.
+	private final Node root = new Node("", new Node[0], null);
+	private final Map<String, Set<Long>> idsByAccount = new ConcurrentHashMap<>();
+
+	@Override
+	public void onPersist(final TransferOrder previous, final TransferOrder order) {
+		if (previous != null) {
+			remove(previous.getSourceAccount(), previous.getId(), order);
+			remove(previous.getTargetAccount(), previous.getId(), order);
+		}
+		add(order);
+	}
+
+	@Override
+	public void onDelete(final TransferOrder previous) {
+		remove(previous.getSourceAccount(), previous.getId(), null);
+		remove(previous.getTargetAccount(), previous.getId(), null);
+	}
+
+	/**
+	 * Adds order to the index. Adding the same order again does nothing.
+	 * @param order Order to add. Cannot be null.
+	 */
+	public void add(@NonNull final TransferOrder order) {
+		add(order.getSourceAccount(), order.getId());
+		add(order.getTargetAccount(), order.getId());
+	}
+
+	/**
+	 * Visits IDs of orders with any account matching given pattern, in the order of account numbers.
+	 * The same ID is visited twice, if both accounts of the order match.
+	 * Only accounts starting with the prefix of the pattern are looked at, up to given number of them,
+	 * so a pattern with short prefix doesn't scan all accounts.
+	 * @param pattern Account number pattern. Cannot be null.
+	 * @param maxAccounts Maximum number of accounts looked at.
+	 * @param visitor Receives IDs, until it returns false. Cannot be null.
+	 * @return false if the search was stopped after looking at maxAccounts accounts,
+	 * true if all accounts with the prefix were looked at or the visitor stopped the search.
+	 */
+	public boolean search(@NonNull final AccountPattern pattern, final int maxAccounts, @NonNull final LongPredicate visitor) {
+		// Find the subtree of accounts with the prefix, along with the account number of its root.
+		final String prefix = pattern.getPrefix();
+		Node node = root;
+		final StringBuilder path = new StringBuilder();
+		int matched = 0;
+		while (matched < prefix.length()) {
+			final Node child = node.child(prefix.charAt(matched));
+			if (child == null) {
+				return true;
+			}
+			final int length = commonPrefixLength(child.label, prefix, matched);
+			if (length < child.label.length() && matched + length < prefix.length()) {
+				return true;
+			}
+			path.append(child.label);
+			matched += length;
+			node = child;
+		}
+
+		final Deque<Node> nodes = new ArrayDeque<>();
+		final Deque<String> accounts = new ArrayDeque<>();
+		nodes.push(node);
+		accounts.push(path.toString());
+		int scanned = 0;
+		while (!nodes.isEmpty()) {
+			final Node current = nodes.pop();
+			final String account = accounts.pop();
+			final Set<Long> ids = current.ids;
+			if (ids != null) {
+				if (scanned++ == maxAccounts) {
+					return false;
+				}
+				if (pattern.matches(account)) {
+					for (final Long id : ids) {
+						if (!visitor.test(id)) {
+							return true;
+						}
+					}
+				}
+			}
+			if (pattern.isExact() && account.length() >= prefix.length()) {
+				// Exact match can't be found deeper.
+				continue;
+			}
+			final Node[] children = current.children;
+			for (int i = children.length - 1; i >= 0; i--) {
+				nodes.push(children[i]);
+				accounts.push(account + children[i].label);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Number of distinct account numbers indexed.
+	 */
+	public int getAccountCount() {
+		return idsByAccount.size();
+	}
+
+	private void add(final String account, final Long id) {
+		// Empty account can't be found by any pattern but "*", it's not worth a node.
+		if (account == null || account.isEmpty()) {
+			return;
+		}
+		Set<Long> ids = idsByAccount.get(account);
+		if (ids == null) {
+			ids = insert(account);
+		}
+		ids.add(id);
+	}
+
+	private void remove(final String account, final Long id, final TransferOrder order) {
+		if (account == null) {
+			return;
+		}
+		// Not removed, if the new version of the order still refers to the account.
+		if (order != null && (account.equals(order.getSourceAccount()) || account.equals(order.getTargetAccount()))) {
+			return;
+		}
+		final Set<Long> ids = idsByAccount.get(account);
+		if (ids != null) {
+			ids.remove(id);
+		}
+	}
+
+	/**
+	 * Inserts account number into the tree. Accounts are never removed, the same as from the account dictionary.
+	 * @return Set of IDs of the account.
+	 */
+	private synchronized Set<Long> insert(final String account) {
+		final Set<Long> existing = idsByAccount.get(account);
+		if (existing != null) {
+			return existing;
+		}
+		final Set<Long> ids = ConcurrentHashMap.newKeySet();
+		Node parent = root;
+		int matched = 0;
+		while (true) {
+			final Node child = parent.child(account.charAt(matched));
+			if (child == null) {
+				parent.addChild(new Node(account.substring(matched), new Node[0], ids));
+				break;
+			}
+			final int length = commonPrefixLength(child.label, account, matched);
+			if (length == child.label.length()) {
+				matched += length;
+				if (matched == account.length()) {
+					// Account is a prefix of another account, its node exists already.
+					child.ids = ids;
+					break;
+				}
+				parent = child;
+				continue;
+			}
+			// Edge splits: the common part becomes a new node, the rest of the old edge its child.
+			final Node tail = new Node(child.label.substring(length), child.children, child.ids);
+			final Node split;
+			if (matched + length == account.length()) {
+				split = new Node(child.label.substring(0, length), new Node[] {tail}, ids);
+			} else {
+				final Node leaf = new Node(account.substring(matched + length), new Node[0], ids);
+				split = new Node(child.label.substring(0, length), sorted(tail, leaf), null);
+			}
+			parent.replaceChild(child, split);
+			break;
+		}
+		idsByAccount.put(account, ids);
+		return ids;
+	}
+
+	private static Node[] sorted(final Node first, final Node second) {
+		return first.label.charAt(0) < second.label.charAt(0) ? new Node[] {first, second} : new Node[] {second, first};
+	}
+
+	private static int commonPrefixLength(final String label, final String key, final int offset) {
+		final int limit = Math.min(label.length(), key.length() - offset);
+		int length = 0;
+		while (length < limit && label.charAt(length) == key.charAt(offset + length)) {
+			length++;
+		}
+		return length;
+	}
+
+	/**
+	 * Node of the radix tree. Label and children of a node are fixed once the node is reachable,
+	 * except for adding a child and replacing a child with its split version, which publish a new array.
+	 */
+	private static final class Node {
+		private final String label;
+		// Sorted by the first character of the label.
+		private volatile Node[] children;
+		// IDs of orders with the account ending at this node, or null if no account ends here.
+		private volatile Set<Long> ids;
+
+		private Node(final String label, final Node[] children, final Set<Long> ids) {
+			this.label = label;
+			this.children = children;
+			this.ids = ids;
+		}
+
+		private Node child(final char first) {
+			final Node[] current = children;
+			int low = 0;
+			int high = current.length - 1;
+			while (low <= high) {
+				final int middle = (low + high) >>> 1;
+				final char label = current[middle].label.charAt(0);
+				if (label < first) {
+					low = middle + 1;
+				} else if (label > first) {
+					high = middle - 1;
+				} else {
+					return current[middle];
+				}
+			}
+			return null;
+		}
+
+		private void addChild(final Node child) {
+			final Node[] current = children;
+			int position = 0;
+			while (position < current.length && current[position].label.charAt(0) < child.label.charAt(0)) {
+				position++;
+			}
+			final Node[] updated = Arrays.copyOf(current, current.length + 1);
+			System.arraycopy(current, position, updated, position + 1, current.length - position);
+			updated[position] = child;
+			children = updated;
+		}
+
+		private void replaceChild(final Node child, final Node replacement) {
+			final Node[] updated = children.clone();
+			for (int i = 0; i < updated.length; i++) {
+				if (updated[i] == child) {
+					updated[i] = replacement;
+				}
+			}
+			children = updated;
+		}
+	}
+}
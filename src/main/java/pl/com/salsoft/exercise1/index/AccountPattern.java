@@ -0,0 +1,78 @@
+package pl.com.salsoft.exercise1.index;
+
+import java.util.regex.Pattern;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Account number pattern, where '*' stands for any (possibly empty) sequence of characters,
+ * i.e. "1234*" matches accounts starting with 1234, and "12*89" accounts starting with 12 and ending with 89.
+ * Pattern without '*' matches only the same account number.
+ */
+public final class AccountPattern {
+	private static final char WILDCARD = '*';
+
+	private final String pattern;
+	/**
+	 * Literal part of the pattern before the first '*', which every matching account starts with.
+	 */
+	@Getter
+	private final String prefix;
+	// Null if the pattern has no wildcards.
+	private final Pattern regex;
+
+	private AccountPattern(final String pattern) {
+		this.pattern = pattern;
+		final int wildcard = pattern.indexOf(WILDCARD);
+		this.prefix = wildcard >= 0 ? pattern.substring(0, wildcard) : pattern;
+		this.regex = wildcard >= 0 ? toRegex(pattern) : null;
+	}
+
+	/**
+	 * @param pattern Account number pattern. Cannot be null.
+	 * @return Parsed pattern.
+	 */
+	public static AccountPattern parse(@NonNull final String pattern) {
+		return new AccountPattern(pattern);
+	}
+
+	/**
+	 * @param account Account number, can be null.
+	 * @return true if the account matches this pattern.
+	 */
+	public boolean matches(final String account) {
+		if (account == null) {
+			return false;
+		}
+		return regex == null ? pattern.equals(account) : account.startsWith(prefix) && regex.matcher(account).matches();
+	}
+
+	/**
+	 * @return true if only a single account number matches this pattern.
+	 */
+	public boolean isExact() {
+		return regex == null;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+	private static Pattern toRegex(final String pattern) {
+		final StringBuilder regex = new StringBuilder();
+		int start = 0;
+		for (int wildcard = pattern.indexOf(WILDCARD); wildcard >= 0; wildcard = pattern.indexOf(WILDCARD, start)) {
+			if (wildcard > start) {
+				regex.append(Pattern.quote(pattern.substring(start, wildcard)));
+			}
+			regex.append(".*");
+			start = wildcard + 1;
+		}
+		if (start < pattern.length()) {
+			regex.append(Pattern.quote(pattern.substring(start)));
+		}
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}
+}
@@ -0,0 +1,122 @@
+package pl.com.salsoft.exercise1.index;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.OrderMutationListener;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Index of order IDs sorted by amount, for amount range queries and the largest (or smallest) orders.
+ *
+ * Orders are kept in concurrent skip lists of (amount, ID) entries: one with all orders, and one per status,
+ * so a query for given status doesn't skip orders with other statuses. A range query walks only the entries
+ * in the range, in either direction, so its cost depends on the number of orders read, not on the number
+ * of orders stored. Orders without amount are not indexed.
+ *
+ * The index is updated as a mutation listener of the repository. IDs it returns should be checked against
+ * the repository, as the index may hold a few IDs of orders removed while the index was being built.
+ */
+public class AmountIndex implements OrderMutationListener {
+	private static final Comparator<Entry> ORDER = Comparator.<Entry, BigDecimal>comparing(entry -> entry.amount)
+			.thenComparingLong(entry -> entry.id);
+
+	private final NavigableSet<Entry> all = new ConcurrentSkipListSet<>(ORDER);
+	private final Map<TransferStatus, NavigableSet<Entry>> byStatus = new EnumMap<>(TransferStatus.class);
+
+	/**
+	 * Creates empty index.
+	 */
+	public AmountIndex() {
+		for (final TransferStatus status : TransferStatus.values()) {
+			byStatus.put(status, new ConcurrentSkipListSet<>(ORDER));
+		}
+	}
+
+	@Override
+	public void onPersist(final TransferOrder previous, final TransferOrder order) {
+		if (previous != null) {
+			if (Objects.equals(previous.getAmount(), order.getAmount()) && previous.getStatus() == order.getStatus()) {
+				return;
+			}
+			remove(previous);
+		}
+		add(order);
+	}
+
+	@Override
+	public void onDelete(final TransferOrder previous) {
+		remove(previous);
+	}
+
+	/**
+	 * Adds order to the index. Adding the same order again does nothing.
+	 * @param order Order to add. Cannot be null.
+	 */
+	public void add(@NonNull final TransferOrder order) {
+		if (order.getAmount() == null) {
+			return;
+		}
+		final Entry entry = new Entry(order.getAmount(), order.getId());
+		all.add(entry);
+		if (order.getStatus() != null) {
+			byStatus.get(order.getStatus()).add(entry);
+		}
+	}
+
+	/**
+	 * Visits IDs of orders with amount in given range, sorted by amount, and then by ID.
+	 * @param status Only orders with this status are visited, or all orders if null.
+	 * @param minAmount Minimum amount (inclusive), or null for no minimum.
+	 * @param maxAmount Maximum amount (inclusive), or null for no maximum.
+	 * @param descending true to visit the largest amounts first.
+	 * @param visitor Receives IDs, until it returns false. Cannot be null.
+	 */
+	public void range(final TransferStatus status, final BigDecimal minAmount, final BigDecimal maxAmount,
+			final boolean descending, @NonNull final LongPredicate visitor) {
+		NavigableSet<Entry> entries = status == null ? all : byStatus.get(status);
+		if (minAmount != null) {
+			entries = entries.tailSet(new Entry(minAmount, Long.MIN_VALUE), true);
+		}
+		if (maxAmount != null) {
+			entries = entries.headSet(new Entry(maxAmount, Long.MAX_VALUE), true);
+		}
+		for (final Entry entry : descending ? entries.descendingSet() : entries) {
+			if (!visitor.test(entry.id)) {
+				return;
+			}
+		}
+	}
+
+	private void remove(final TransferOrder order) {
+		if (order.getAmount() == null) {
+			return;
+		}
+		final Entry entry = new Entry(order.getAmount(), order.getId());
+		all.remove(entry);
+		if (order.getStatus() != null) {
+			byStatus.get(order.getStatus()).remove(entry);
+		}
+	}
+
+	/**
+	 * Entry of the index. Only compared with {@link AmountIndex#ORDER}, so amounts of different scale are equal.
+	 */
+	private static final class Entry {
+		private final BigDecimal amount;
+		private final long id;
+
+		private Entry(final BigDecimal amount, final long id) {
+			this.amount = amount;
+			this.id = id;
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package pl.com.salsoft.exercise1.index;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.OrderMutationListener;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Index of order IDs by creation time and by last update time, for time range queries.
+ *
+ * Time is split into buckets of fixed length (a minute by default), every bucket holding a concurrent set
+ * of IDs of orders with a timestamp within it, and buckets are kept sorted. A range query only visits
+ * buckets overlapping the range, so its cost depends on the number of orders in the range. Order within
+ * a bucket is not defined, so IDs are visited in time order only up to the bucket length, and the first and
+ * the last bucket may hold orders out of the range. Last update time is indexed also per status, for queries
+ * such as orders stuck in given status. Orders without a timestamp are not indexed by it.
+ *
+ * Buckets emptied by deleting or updating orders are kept, until {@link #prune()} removes them.
+ * Expiring old orders walks only the oldest buckets, and removes them afterwards.
+ *
+ * The index is updated as a mutation listener of the repository. IDs it returns should be checked against
+ * the repository, as the index may hold a few IDs of orders removed while the index was being built.
+ */
+public class TimeIndex implements OrderMutationListener {
+	public static final long DEFAULT_BUCKET_MILLIS = 60_000L;
+
+	private final long bucketMillis;
+	private final Buckets created = new Buckets();
+	private final Buckets updated = new Buckets();
+	private final Map<TransferStatus, Buckets> updatedByStatus = new EnumMap<>(TransferStatus.class);
+	// Modifications take the read lock, as they can run concurrently with each other, but not with pruning.
+	private final ReadWriteLock pruneLock = new ReentrantReadWriteLock();
+
+	/**
+	 * Creates index with buckets of {@value #DEFAULT_BUCKET_MILLIS} ms.
+	 */
+	public TimeIndex() {
+		this(DEFAULT_BUCKET_MILLIS);
+	}
+
+	/**
+	 * @param bucketMillis Length of a single bucket. Must be positive.
+	 */
+	public TimeIndex(final long bucketMillis) {
+		if (bucketMillis <= 0) {
+			throw new IllegalArgumentException(String.format("Bucket length must be positive: %d", bucketMillis));
+		}
+		this.bucketMillis = bucketMillis;
+		for (final TransferStatus status : TransferStatus.values()) {
+			updatedByStatus.put(status, new Buckets());
+		}
+	}
+
+	@Override
+	public void onPersist(final TransferOrder previous, final TransferOrder order) {
+		pruneLock.readLock().lock();
+		try {
+			if (previous == null || !Objects.equals(previous.getCreatedAt(), order.getCreatedAt())) {
+				if (previous != null) {
+					created.remove(previous.getCreatedAt(), previous.getId());
+				}
+				created.add(order.getCreatedAt(), order.getId());
+			}
+			if (previous == null || !Objects.equals(previous.getUpdatedAt(), order.getUpdatedAt())
+					|| previous.getStatus() != order.getStatus()) {
+				if (previous != null) {
+					removeUpdated(previous);
+				}
+				addUpdated(order);
+			}
+		} finally {
+			pruneLock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void onDelete(final TransferOrder previous) {
+		pruneLock.readLock().lock();
+		try {
+			created.remove(previous.getCreatedAt(), previous.getId());
+			removeUpdated(previous);
+		} finally {
+			pruneLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds order to the index. Adding the same order again does nothing.
+	 * @param order Order to add. Cannot be null.
+	 */
+	public void add(@NonNull final TransferOrder order) {
+		onPersist(null, order);
+	}
+
+	/**
+	 * Visits IDs of orders created in given range, oldest buckets first.
+	 * @param from Start of the range, or null for no start.
+	 * @param to End of the range, or null for no end.
+	 * @param visitor Receives IDs, until it returns false. Cannot be null.
+	 */
+	public void created(final Instant from, final Instant to, @NonNull final LongPredicate visitor) {
+		created.visit(from, to, visitor);
+	}
+
+	/**
+	 * Visits IDs of orders last modified in given range, oldest buckets first.
+	 * @param status Only orders with this status are visited, or orders with any status if null.
+	 * @param from Start of the range, or null for no start.
+	 * @param to End of the range, or null for no end.
+	 * @param visitor Receives IDs, until it returns false. Cannot be null.
+	 */
+	public void updated(final TransferStatus status, final Instant from, final Instant to,
+			@NonNull final LongPredicate visitor) {
+		(status == null ? updated : updatedByStatus.get(status)).visit(from, to, visitor);
+	}
+
+	/**
+	 * Removes empty buckets. Modifications of the index wait for it, so it should be called only
+	 * once in a while, i.e. after removing a lot of old orders.
+	 * @return Number of buckets removed.
+	 */
+	public int prune() {
+		pruneLock.writeLock().lock();
+		try {
+			int pruned = created.prune() + updated.prune();
+			for (final Buckets buckets : updatedByStatus.values()) {
+				pruned += buckets.prune();
+			}
+			return pruned;
+		} finally {
+			pruneLock.writeLock().unlock();
+		}
+	}
+
+	private void addUpdated(final TransferOrder order) {
+		updated.add(order.getUpdatedAt(), order.getId());
+		if (order.getStatus() != null) {
+			updatedByStatus.get(order.getStatus()).add(order.getUpdatedAt(), order.getId());
+		}
+	}
+
+	private void removeUpdated(final TransferOrder order) {
+		updated.remove(order.getUpdatedAt(), order.getId());
+		if (order.getStatus() != null) {
+			updatedByStatus.get(order.getStatus()).remove(order.getUpdatedAt(), order.getId());
+		}
+	}
+
+	private long bucketOf(final Instant time) {
+		return Math.floorDiv(time.toEpochMilli(), bucketMillis);
+	}
+
+	/**
+	 * Sorted buckets of one timestamp.
+	 */
+	private final class Buckets {
+		private final NavigableMap<Long, Set<Long>> buckets = new ConcurrentSkipListMap<>();
+
+		private void add(final Instant time, final Long id) {
+			if (time != null) {
+				buckets.computeIfAbsent(bucketOf(time), bucket -> ConcurrentHashMap.newKeySet()).add(id);
+			}
+		}
+
+		private void remove(final Instant time, final Long id) {
+			if (time != null) {
+				final Set<Long> ids = buckets.get(bucketOf(time));
+				if (ids != null) {
+					ids.remove(id);
+				}
+			}
+		}
+
+		private void visit(final Instant from, final Instant to, final LongPredicate visitor) {
+			NavigableMap<Long, Set<Long>> range = buckets;
+			if (from != null) {
+				range = range.tailMap(bucketOf(from), true);
+			}
+			if (to != null) {
+				range = range.headMap(bucketOf(to), true);
+			}
+			for (final Set<Long> ids : range.values()) {
+				for (final Long id : ids) {
+					if (!visitor.test(id)) {
+						return;
+					}
+				}
+			}
+		}
+
+		private int prune() {
+			int pruned = 0;
+			for (final Iterator<Set<Long>> iterator = buckets.values().iterator(); iterator.hasNext();) {
+				if (iterator.next().isEmpty()) {
+					iterator.remove();
+					pruned++;
+				}
+			}
+			return pruned;
+		}
+	}
+}
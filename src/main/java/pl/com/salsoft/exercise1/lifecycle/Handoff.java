@@ -0,0 +1,34 @@
+package pl.com.salsoft.exercise1.lifecycle;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+
+/**
+ * Answer of an instance handing its store over to its successor.
+ */
+@Getter
+public final class Handoff {
+	/**
+	 * Absolute path of the snapshot with all orders of the store, or null if the store is persistent
+	 * and was closed, so the successor can simply open it.
+	 */
+	private final String snapshotFile;
+	private final int orders;
+	/**
+	 * Absolute paths of snapshots of tenant stores, by tenant name.
+	 */
+	private final Map<String, String> tenantSnapshotFiles;
+
+	@JsonCreator
+	public Handoff(@JsonProperty("snapshotFile") final String snapshotFile, @JsonProperty("orders") final int orders,
+			@JsonProperty("tenantSnapshotFiles") final Map<String, String> tenantSnapshotFiles) {
+		this.snapshotFile = snapshotFile;
+		this.orders = orders;
+		// Missing in answers of versions without tenant snapshots.
+		this.tenantSnapshotFiles = tenantSnapshotFiles != null ? Map.copyOf(tenantSnapshotFiles) : Map.of();
+	}
+}
@@ -0,0 +1,61 @@
+package pl.com.salsoft.exercise1.lifecycle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.Request;
+
+/**
+ * Jetty listener counting requests which were received, but not completed yet, so the shutdown
+ * can wait for them. Requests only touch an atomic counter, unless someone is waiting.
+ */
+public class InFlightRequests implements HttpChannel.Listener {
+	private static final int NOBODY_WAITS = -1;
+
+	private final AtomicInteger count = new AtomicInteger();
+	private volatile int awaitedCount = NOBODY_WAITS;
+
+	@Override
+	public void onRequestBegin(final Request request) {
+		count.incrementAndGet();
+	}
+
+	@Override
+	public void onComplete(final Request request) {
+		if (count.decrementAndGet() <= awaitedCount) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * @return Number of requests being served.
+	 */
+	public int getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Waits until at most given number of requests is being served.
+	 * @param limit Number of requests allowed to remain, i.e. 1 when called from a request.
+	 * @param timeoutMillis Maximum time to wait.
+	 * @return true if the number of requests dropped to the limit, or false if the time ran out.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public synchronized boolean awaitAtMost(final int limit, final long timeoutMillis) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		awaitedCount = limit;
+		try {
+			long remaining = timeoutMillis;
+			while (count.get() > limit && remaining > 0) {
+				wait(remaining);
+				remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			}
+			return count.get() <= limit;
+		} finally {
+			awaitedCount = NOBODY_WAITS;
+		}
+	}
+}
@@ -0,0 +1,305 @@
+package pl.com.salsoft.exercise1.lifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.dao.OrderSnapshot;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.replication.ReplicationNode;
+import pl.com.salsoft.exercise1.rest.AppServerFactory;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.tenant.Tenant;
+import pl.com.salsoft.exercise1.tenant.TenantRegistry;
+import spark.Spark;
+
+/**
+ * Start and end of the application's life: loading the store at startup, orderly shutdown and
+ * handing the store over to a successor process.
+ *
+ * Shutdown stops accepting connections, waits (up to the drain timeout) for requests in flight,
+ * stops the server and the replication, and then persists the store: the in-memory store is written
+ * to the snapshot file, which is loaded at the next start, and any other store is flushed and closed.
+ * Stores of tenants, always in memory, are written next to the snapshot file, with the tenant name appended,
+ * whatever the backend of the main store is.
+ *
+ * Handoff lets a new process take over from the running one on the same host, without a cold start.
+ * The new process asks the old one for the store before it starts its own server. The old one drains
+ * like on shutdown, answers with its snapshot and exits, so the new one loads the snapshot (memory-mapped)
+ * and binds the same port as soon as it's released.
+ */
+public class LifecycleService {
+	public static final long DEFAULT_DRAIN_TIMEOUT_MILLIS = 10_000L;
+	public static final String HANDOFF_RESOURCE = "/lifecycle/handoff";
+
+	private static final long PORT_RETRY_MILLIS = 50L;
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private final AppServerFactory serverFactory;
+	private final InFlightRequests inFlightRequests;
+	private final TransferOrderDao transferOrderDao;
+	private final TenantRegistry tenantRegistry;
+	private final ReplicationNode replicationNode;
+	private final AccessLog accessLog;
+	private final JsonService jsonService;
+	private final Path snapshotFile;
+	private final Path tenantSnapshotFile;
+	private final long drainTimeoutMillis;
+	private volatile boolean draining;
+	private boolean stopped;
+	private Handoff storeHandoff;
+
+	/**
+	 * @param serverFactory Factory of the HTTP server. Cannot be null.
+	 * @param inFlightRequests Counter of requests being served. Cannot be null.
+	 * @param transferOrderDao Order store. Cannot be null.
+	 * @param tenantRegistry Tenants with their own stores. Cannot be null.
+	 * @param replicationNode Replication role of this instance. Cannot be null.
+	 * @param accessLog Log of requests, flushed at the end. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param snapshotFile File the in-memory store is saved to, or null if the store is persistent on its own.
+	 * @param tenantSnapshotFile File stores of tenants are saved to, each with ".{tenant}" appended to the name,
+	 * or null if they're not saved.
+	 * @param drainTimeoutMillis Maximum time to wait for requests in flight.
+	 */
+	public LifecycleService(@NonNull final AppServerFactory serverFactory, @NonNull final InFlightRequests inFlightRequests,
+			@NonNull final TransferOrderDao transferOrderDao, @NonNull final TenantRegistry tenantRegistry,
+			@NonNull final ReplicationNode replicationNode, @NonNull final AccessLog accessLog,
+			@NonNull final JsonService jsonService, final Path snapshotFile, final Path tenantSnapshotFile,
+			final long drainTimeoutMillis) {
+		this.serverFactory = serverFactory;
+		this.inFlightRequests = inFlightRequests;
+		this.transferOrderDao = transferOrderDao;
+		this.tenantRegistry = tenantRegistry;
+		this.replicationNode = replicationNode;
+		this.accessLog = accessLog;
+		this.jsonService = jsonService;
+		this.snapshotFile = snapshotFile;
+		this.tenantSnapshotFile = tenantSnapshotFile;
+		this.drainTimeoutMillis = drainTimeoutMillis;
+	}
+
+	/**
+	 * Loads the store and stores of tenants saved at the last shutdown, if there are any.
+	 * Should be called at the application start, before the server is started.
+	 * @throws UncheckedIOException If a snapshot exists, but could not be read.
+	 */
+	public void loadSnapshot() {
+		if (snapshotFile != null && Files.exists(snapshotFile)) {
+			load(snapshotFile, transferOrderDao);
+		}
+		if (tenantSnapshotFile != null) {
+			for (final Tenant tenant : tenantRegistry.getAll()) {
+				final Path file = tenantSnapshotFile(tenant);
+				if (Files.exists(file)) {
+					load(file, tenant.getTransferOrderDao());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Takes the store over from the instance running at given URL and waits until it releases the port.
+	 * Should be called at the application start, instead of {@link #loadSnapshot()}.
+	 * @param url Base URL of the running instance. Cannot be null.
+	 * @param port Port this instance is going to listen on.
+	 * @throws RuntimeException If the running instance refused the handoff or the port was not released in time.
+	 */
+	public void takeOver(@NonNull final String url, final int port) {
+		final HttpResponse<String> response;
+		try {
+			response = HttpClient.newHttpClient().send(
+					HttpRequest.newBuilder(URI.create(url + HANDOFF_RESOURCE)).POST(BodyPublishers.noBody()).build(),
+					BodyHandlers.ofString());
+		} catch (final IOException e) {
+			throw new UncheckedIOException(String.format("Could not take over from %s", url), e);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while taking over.", e);
+		}
+		if (response.statusCode() != HttpStatus.OK_200) {
+			throw new RuntimeException(String.format("Handoff refused by %s with status %d", url, response.statusCode()));
+		}
+		final Handoff handoff = jsonService.map(response.body(), Handoff.class);
+		if (handoff.getSnapshotFile() != null) {
+			load(Paths.get(handoff.getSnapshotFile()), transferOrderDao);
+		}
+		handoff.getTenantSnapshotFiles().forEach((name, file) -> tenantRegistry.get(name).ifPresentOrElse(
+				tenant -> load(Paths.get(file), tenant.getTransferOrderDao()),
+				() -> log.warn("Tenant {} is not configured, its orders in {} are not loaded", name, file)));
+		awaitPortReleased(port);
+	}
+
+	/**
+	 * @return true if this instance is shutting down, so it doesn't accept any new requests.
+	 */
+	public boolean isDraining() {
+		return draining;
+	}
+
+	/**
+	 * Hands the store over to a successor. Waits for other requests in flight, persists the store
+	 * and exits the application in the background, after the answer is sent.
+	 * Must be called from the handoff request.
+	 * @return Where the successor finds the store.
+	 */
+	public synchronized Handoff handOff() {
+		drain(1);
+		final Handoff handoff = persistStore();
+		final Thread exit = new Thread(() -> {
+			// Wait for the handoff answer to be sent
+			awaitRequests(0);
+			System.exit(0);
+		}, "handoff-exit");
+		exit.start();
+		return handoff;
+	}
+
+	/**
+	 * Makes the JVM shut down the application in order, see {@link #shutdown()}.
+	 */
+	public void registerShutdownHook() {
+		Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "graceful-shutdown"));
+	}
+
+	/**
+	 * Shuts the application down in order: drains requests, stops the server and the replication,
+	 * and persists the store. Any next call does nothing.
+	 */
+	public synchronized void shutdown() {
+		if (stopped) {
+			return;
+		}
+		stopped = true;
+		log.info("Shutting down, {} requests in flight", inFlightRequests.getCount());
+		drain(0);
+		Spark.stop();
+		Spark.awaitStop();
+		replicationNode.stop();
+		persistStore();
+		accessLog.stop();
+		log.info("Shut down");
+	}
+
+	/**
+	 * Persists the store, as at shutdown, without stopping anything else. Used by offline tools,
+	 * which modify the store without running the server.
+	 */
+	public synchronized void saveStore() {
+		persistStore();
+	}
+
+	private void drain(final int ownRequests) {
+		if (!draining) {
+			draining = true;
+			serverFactory.stopAccepting();
+		}
+		awaitRequests(ownRequests);
+	}
+
+	private void awaitRequests(final int limit) {
+		try {
+			if (!inFlightRequests.awaitAtMost(limit, drainTimeoutMillis)) {
+				log.warn("{} requests still in flight after {} ms", inFlightRequests.getCount() - limit, drainTimeoutMillis);
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Writes the snapshot (in-memory store) or closes the store (persistent store), and writes snapshots
+	 * of tenant stores. Done only once, both handoff and the following shutdown need it.
+	 */
+	private Handoff persistStore() {
+		if (storeHandoff != null) {
+			return storeHandoff;
+		}
+		final Map<String, String> tenantSnapshotFiles = new HashMap<>();
+		if (tenantSnapshotFile != null) {
+			for (final Tenant tenant : tenantRegistry.getAll()) {
+				final Path file = tenantSnapshotFile(tenant);
+				save(file, tenant.getTransferOrderDao());
+				tenantSnapshotFiles.put(tenant.getName(), file.toAbsolutePath().toString());
+			}
+		}
+		if (snapshotFile == null) {
+			transferOrderDao.close();
+			storeHandoff = new Handoff(null, 0, tenantSnapshotFiles);
+			return storeHandoff;
+		}
+		final int orders = save(snapshotFile, transferOrderDao);
+		storeHandoff = new Handoff(snapshotFile.toAbsolutePath().toString(), orders, tenantSnapshotFiles);
+		return storeHandoff;
+	}
+
+	/**
+	 * Writes in-memory orders of the store to the snapshot and closes the store.
+	 * @return Number of orders written.
+	 */
+	private int save(final Path file, final TransferOrderDao store) {
+		final long start = System.nanoTime();
+		final var orders = store.getMemoryResident();
+		try {
+			OrderSnapshot.write(file, orders);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(String.format("Could not write snapshot %s", file), e);
+		}
+		store.close();
+		log.info("Saved {} orders to {} in {} ms", orders.size(), file,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return orders.size();
+	}
+
+	private Path tenantSnapshotFile(final Tenant tenant) {
+		return tenantSnapshotFile.resolveSibling(tenantSnapshotFile.getFileName() + "." + tenant.getName());
+	}
+
+	private void load(final Path file, final TransferOrderDao store) {
+		final long start = System.nanoTime();
+		try {
+			final int count = OrderSnapshot.read(file, store::persist);
+			log.info("Loaded {} orders from {} in {} ms", count, file, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} catch (final IOException e) {
+			throw new UncheckedIOException(String.format("Could not read snapshot %s", file), e);
+		}
+	}
+
+	private void awaitPortReleased(final int port) {
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis);
+		while (true) {
+			try {
+				new ServerSocket(port).close();
+				return;
+			} catch (final IOException e) {
+				if (System.nanoTime() > deadline) {
+					throw new UncheckedIOException(String.format("Port %d was not released in time", port), e);
+				}
+			}
+			try {
+				Thread.sleep(PORT_RETRY_MILLIS);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while waiting for the port.", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package pl.com.salsoft.exercise1.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent dictionary assigning int codes to account numbers, so orders keep a code instead of
+ * their own copy of the account number. Every account number is stored once, no matter how many
+ * orders refer to it.
+ *
+ * Codes are never released, so the dictionary grows with the number of distinct account numbers
+ * ever seen. That's fine for the expected few thousands of accounts.
+ */
+final class AccountDictionary {
+	/**
+	 * Code of the null account number.
+	 */
+	static final int NONE = -1;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+	// Written only under the lock. Reassigned after every addition, so readers always see the new entry
+	// after reading this field, even if they got the code through a data race.
+	private volatile String[] accounts = new String[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * @param account Account number. Can be null.
+	 * @return Code of the account number, {@link #NONE} for null.
+	 */
+	int encode(final String account) {
+		if (account == null) {
+			return NONE;
+		}
+		final Integer code = codes.get(account);
+		return code != null ? code : add(account);
+	}
+
+	/**
+	 * @param code Code returned by {@link #encode(String)}.
+	 * @return Account number, or null for {@link #NONE}. The same instance is returned for the same code.
+	 */
+	String decode(final int code) {
+		return code == NONE ? null : accounts[code];
+	}
+
+	/**
+	 * @return Number of distinct account numbers stored.
+	 */
+	synchronized int size() {
+		return size;
+	}
+
+	private synchronized int add(final String account) {
+		final Integer existing = codes.get(account);
+		if (existing != null) {
+			return existing;
+		}
+		String[] current = accounts;
+		if (size == current.length) {
+			current = Arrays.copyOf(current, current.length * 2);
+		}
+		current[size] = account;
+		accounts = current;
+		codes.put(account, size);
+		return size++;
+	}
+}
@@ -1,47 +1,149 @@
 package pl.com.salsoft.exercise1.model;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.time.Instant;
+import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import lombok.Builder;
-import lombok.EqualsAndHashCode;
-import lombok.Getter;
 import lombok.NonNull;
-import lombok.ToString;
 
 /**
  * Domain class representing money transfer order. It's immutable class to
  * guarantee thread-safety and consistency during concurrent reads/writes.
- * It uses Builder pattern from Lombok to accomplish easy creation,
- * cloning and partial merging.
+ * It uses Builder pattern to accomplish easy creation, cloning and partial merging.
+ *
+ * The representation is compact, as millions of orders are kept in memory: the amount is held
+ * as unscaled long value with its scale (fixed-point minor units) and account numbers as codes
+ * from a shared dictionary, and timestamps as epoch milliseconds. Getters return the same values
+ * as they were given (timestamps truncated to milliseconds), so JSON form is not affected.
+ *
+ * Creation and last update time are assigned by the server, see TransferService. Execution time
+ * is set by the client, for orders to be executed in the future.
  */
-@Builder(toBuilder = true)
-@Getter
-@EqualsAndHashCode
-@ToString
 public final class TransferOrder {
+	/**
+	 * Maximum number of digits after the decimal point of the amount.
+	 */
+	public static final int MAX_AMOUNT_SCALE = 18;
+
+	private static final AccountDictionary ACCOUNTS = new AccountDictionary();
+	private static final byte NO_AMOUNT = -1;
+	private static final long NO_TIME = Long.MIN_VALUE;
+
 	private final Long id;
-	private final String sourceAccount;
-	private final String targetAccount;
-	private final BigDecimal amount;
+	private final int sourceAccount;
+	private final int targetAccount;
+	private final long amountUnscaled;
+	private final byte amountScale;
 	private final TransferStatus status;
+	private final long createdAt;
+	private final long updatedAt;
+	private final long executeAt;
 
 	/**
 	 * Explicit, all-fields constructor for Jackson deserializer to work with
 	 * immutable class such as this.
+	 * @throws IllegalArgumentException If the amount has more than {@value #MAX_AMOUNT_SCALE} digits
+	 * after the decimal point, or it's too large to be held as long minor units.
 	 */
 	@JsonCreator
 	public TransferOrder(@JsonProperty("id") final Long id, @JsonProperty("sourceAccount") final String sourceAccount,
 			@JsonProperty("targetAccount") final String targetAccount, @JsonProperty("amount") final BigDecimal amount,
-			@JsonProperty("status") final TransferStatus status) {
+			@JsonProperty("status") final TransferStatus status, @JsonProperty("createdAt") final Instant createdAt,
+			@JsonProperty("updatedAt") final Instant updatedAt, @JsonProperty("executeAt") final Instant executeAt) {
+		this(id, ACCOUNTS.encode(sourceAccount), ACCOUNTS.encode(targetAccount), unscaled(amount), scale(amount), status,
+				millis(createdAt), millis(updatedAt), millis(executeAt));
+	}
+
+	/**
+	 * Creates order without timestamps.
+	 * @throws IllegalArgumentException If the amount can't be held as long minor units,
+	 * see {@link #TransferOrder(Long, String, String, BigDecimal, TransferStatus, Instant, Instant, Instant)}.
+	 */
+	public TransferOrder(final Long id, final String sourceAccount, final String targetAccount, final BigDecimal amount,
+			final TransferStatus status) {
+		this(id, sourceAccount, targetAccount, amount, status, null, null, null);
+	}
+
+	private TransferOrder(final Long id, final int sourceAccount, final int targetAccount, final long amountUnscaled,
+			final byte amountScale, final TransferStatus status, final long createdAt, final long updatedAt,
+			final long executeAt) {
 		this.id = id;
 		this.sourceAccount = sourceAccount;
 		this.targetAccount = targetAccount;
-		this.amount = amount;
+		this.amountUnscaled = amountUnscaled;
+		this.amountScale = amountScale;
 		this.status = status;
+		this.createdAt = createdAt;
+		this.updatedAt = updatedAt;
+		this.executeAt = executeAt;
+	}
+
+	/**
+	 * @return New builder of an empty order.
+	 */
+	public static TransferOrderBuilder builder() {
+		return new TransferOrderBuilder();
+	}
+
+	/**
+	 * @return New builder initialized with values of this order.
+	 */
+	public TransferOrderBuilder toBuilder() {
+		final TransferOrderBuilder builder = new TransferOrderBuilder();
+		builder.id = id;
+		builder.sourceAccount = sourceAccount;
+		builder.targetAccount = targetAccount;
+		builder.amountUnscaled = amountUnscaled;
+		builder.amountScale = amountScale;
+		builder.status = status;
+		builder.createdAt = createdAt;
+		builder.updatedAt = updatedAt;
+		builder.executeAt = executeAt;
+		return builder;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getSourceAccount() {
+		return ACCOUNTS.decode(sourceAccount);
+	}
+
+	public String getTargetAccount() {
+		return ACCOUNTS.decode(targetAccount);
+	}
+
+	public BigDecimal getAmount() {
+		return amountScale == NO_AMOUNT ? null : BigDecimal.valueOf(amountUnscaled, amountScale);
+	}
+
+	public TransferStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return Time the order was created, or null if it's not known.
+	 */
+	public Instant getCreatedAt() {
+		return createdAt == NO_TIME ? null : Instant.ofEpochMilli(createdAt);
+	}
+
+	/**
+	 * @return Time the order was last modified, or null if it's not known.
+	 */
+	public Instant getUpdatedAt() {
+		return updatedAt == NO_TIME ? null : Instant.ofEpochMilli(updatedAt);
+	}
+
+	/**
+	 * @return Time the order is to be executed at, or null if it's to be executed right away.
+	 */
+	public Instant getExecuteAt() {
+		return executeAt == NO_TIME ? null : Instant.ofEpochMilli(executeAt);
 	}
 
 	/**
@@ -49,24 +151,186 @@ public final class TransferOrder {
 	 */
 	@Override
 	public TransferOrder clone() {
-		return toBuilder().build();
+		return new TransferOrder(id, sourceAccount, targetAccount, amountUnscaled, amountScale, status, createdAt, updatedAt,
+				executeAt);
 	}
 
 	/**
 	 * Copies this instance (shallow copy) and overwrite field values with
 	 * respective values (only if they are not null) from the order passed in
-	 * parameters.
+	 * parameters. Creation and update timestamps are not merged, they are kept from this order.
 	 *
 	 * @param order The other order to take non-null values from.
 	 * @return New order object with values from the other order merged with this
 	 *         order's values.
 	 */
 	public @NonNull TransferOrder mergeNonNull(@NonNull final TransferOrder order) {
-		final TransferOrderBuilder builder = this.toBuilder();
-		Optional.ofNullable(order.sourceAccount).ifPresent(builder::sourceAccount);
-		Optional.ofNullable(order.targetAccount).ifPresent(builder::targetAccount);
-		Optional.ofNullable(order.amount).ifPresent(builder::amount);
-		Optional.ofNullable(order.status).ifPresent(builder::status);
-		return builder.build();
+		final boolean hasAmount = order.amountScale != NO_AMOUNT;
+		return new TransferOrder(id,
+				order.sourceAccount != AccountDictionary.NONE ? order.sourceAccount : sourceAccount,
+				order.targetAccount != AccountDictionary.NONE ? order.targetAccount : targetAccount,
+				hasAmount ? order.amountUnscaled : amountUnscaled,
+				hasAmount ? order.amountScale : amountScale,
+				order.status != null ? order.status : status,
+				createdAt,
+				updatedAt,
+				order.executeAt != NO_TIME ? order.executeAt : executeAt);
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof TransferOrder)) {
+			return false;
+		}
+		// Same as BigDecimal.equals(), amounts with different scales are not equal.
+		final TransferOrder order = (TransferOrder) other;
+		return Objects.equals(id, order.id)
+				&& sourceAccount == order.sourceAccount
+				&& targetAccount == order.targetAccount
+				&& amountUnscaled == order.amountUnscaled
+				&& amountScale == order.amountScale
+				&& status == order.status
+				&& createdAt == order.createdAt
+				&& updatedAt == order.updatedAt
+				&& executeAt == order.executeAt;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = Objects.hashCode(id);
+		result = 31 * result + sourceAccount;
+		result = 31 * result + targetAccount;
+		result = 31 * result + Long.hashCode(amountUnscaled);
+		result = 31 * result + amountScale;
+		result = 31 * result + Objects.hashCode(status);
+		result = 31 * result + Long.hashCode(createdAt);
+		result = 31 * result + Long.hashCode(updatedAt);
+		return 31 * result + Long.hashCode(executeAt);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("TransferOrder(id=%s, sourceAccount=%s, targetAccount=%s, amount=%s, status=%s, "
+				+ "createdAt=%s, updatedAt=%s, executeAt=%s)",
+				id, getSourceAccount(), getTargetAccount(), getAmount(), status, getCreatedAt(), getUpdatedAt(), getExecuteAt());
+	}
+
+	private static long unscaled(final BigDecimal amount) {
+		if (amount == null) {
+			return 0L;
+		}
+		try {
+			return normalize(amount).unscaledValue().longValueExact();
+		} catch (final ArithmeticException e) {
+			throw new IllegalArgumentException(String.format("Amount out of range: %s", amount), e);
+		}
+	}
+
+	private static byte scale(final BigDecimal amount) {
+		if (amount == null) {
+			return NO_AMOUNT;
+		}
+		final int scale = normalize(amount).scale();
+		if (scale > MAX_AMOUNT_SCALE) {
+			throw new IllegalArgumentException(String.format("Amount has more than %d decimal places: %s", MAX_AMOUNT_SCALE, amount));
+		}
+		return (byte) scale;
+	}
+
+	private static long millis(final Instant time) {
+		return time == null ? NO_TIME : time.toEpochMilli();
+	}
+
+	/**
+	 * Negative scale (i.e. 1E+3) is stored as scale 0, so the scale of a stored amount is never negative.
+	 */
+	private static BigDecimal normalize(final BigDecimal amount) {
+		return amount.scale() < 0 ? amount.setScale(0) : amount;
+	}
+
+	/**
+	 * Builder of {@link TransferOrder}. Values are converted to the compact representation as soon as
+	 * they are set, so building an order from another one ({@link TransferOrder#toBuilder()}) copies
+	 * them without any conversion.
+	 */
+	public static final class TransferOrderBuilder {
+		private Long id;
+		private int sourceAccount = AccountDictionary.NONE;
+		private int targetAccount = AccountDictionary.NONE;
+		private long amountUnscaled;
+		private byte amountScale = NO_AMOUNT;
+		private TransferStatus status;
+		private long createdAt = NO_TIME;
+		private long updatedAt = NO_TIME;
+		private long executeAt = NO_TIME;
+
+		private TransferOrderBuilder() {
+		}
+
+		public TransferOrderBuilder id(final Long id) {
+			this.id = id;
+			return this;
+		}
+
+		public TransferOrderBuilder sourceAccount(final String sourceAccount) {
+			this.sourceAccount = ACCOUNTS.encode(sourceAccount);
+			return this;
+		}
+
+		public TransferOrderBuilder targetAccount(final String targetAccount) {
+			this.targetAccount = ACCOUNTS.encode(targetAccount);
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException If the amount can't be held as long minor units,
+		 * see {@link TransferOrder#TransferOrder(Long, String, String, BigDecimal, TransferStatus)}.
+		 */
+		public TransferOrderBuilder amount(final BigDecimal amount) {
+			this.amountScale = scale(amount);
+			this.amountUnscaled = unscaled(amount);
+			return this;
+		}
+
+		/**
+		 * Sets the amount as fixed-point minor units, i.e. 12345 with scale 2 is 123.45.
+		 * @throws IllegalArgumentException If the scale is negative or greater than {@value TransferOrder#MAX_AMOUNT_SCALE}.
+		 */
+		public TransferOrderBuilder amount(final long unscaled, final int scale) {
+			if (scale < 0 || scale > MAX_AMOUNT_SCALE) {
+				throw new IllegalArgumentException(String.format("Amount scale out of range: %d", scale));
+			}
+			this.amountScale = (byte) scale;
+			this.amountUnscaled = unscaled;
+			return this;
+		}
+
+		public TransferOrderBuilder status(final TransferStatus status) {
+			this.status = status;
+			return this;
+		}
+
+		public TransferOrderBuilder createdAt(final Instant createdAt) {
+			this.createdAt = millis(createdAt);
+			return this;
+		}
+
+		public TransferOrderBuilder updatedAt(final Instant updatedAt) {
+			this.updatedAt = millis(updatedAt);
+			return this;
+		}
+
+		public TransferOrderBuilder executeAt(final Instant executeAt) {
+			this.executeAt = millis(executeAt);
+			return this;
+		}
+
+		public TransferOrder build() {
+			return new TransferOrder(id, sourceAccount, targetAccount, amountUnscaled, amountScale, status, createdAt, updatedAt,
+					executeAt);
+		}
 	}
 }
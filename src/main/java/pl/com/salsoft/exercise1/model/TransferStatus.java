@@ -4,6 +4,10 @@ package pl.com.salsoft.exercise1.model;
  * Describes state of a transfer order.
  */
 public enum TransferStatus {
+	/**
+	 * It's waiting for its execution time, then it becomes {@link #PLANNED}.
+	 */
+	SCHEDULED,
 	/**
 	 * It was just created and is pending for processing.
 	 */
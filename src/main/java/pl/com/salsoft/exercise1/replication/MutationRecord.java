@@ -0,0 +1,28 @@
+package pl.com.salsoft.exercise1.replication;
+
+import lombok.Getter;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Single modification of the transfer order repository, numbered with its position
+ * in the replication log.
+ */
+@Getter
+public final class MutationRecord {
+	private final long sequence;
+	private final long id;
+	/**
+	 * Stored order, or null if the order was deleted.
+	 */
+	private final TransferOrder order;
+
+	public MutationRecord(final long sequence, final long id, final TransferOrder order) {
+		this.sequence = sequence;
+		this.id = id;
+		this.order = order;
+	}
+
+	public boolean isDelete() {
+		return order == null;
+	}
+}
@@ -0,0 +1,201 @@
+package pl.com.salsoft.exercise1.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.OrderCodec;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Replication role of the read-only instance, which applies modifications streamed by the leader
+ * to its own repository. Writes are redirected to the leader.
+ *
+ * Follower keeps (re)connecting to the leader in a background thread. On every connection
+ * it reports the last applied sequence number, so it can resume where it stopped, unless the leader
+ * decides to send the whole snapshot.
+ */
+public class ReplicationFollower implements ReplicationNode {
+	private static final String ROLE = "follower";
+	private static final long RECONNECT_DELAY_MILLIS = 1_000L;
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final TransferOrderDao transferOrderDao;
+	private final String leaderHost;
+	private final int leaderPort;
+	private final String leaderUrl;
+	private volatile Socket socket;
+	private volatile boolean running;
+	private volatile boolean connected;
+	private volatile long epoch;
+	private volatile long appliedSequence;
+	private volatile long leaderSequence;
+	private volatile long leaderTimestamp;
+
+	/**
+	 * @param transferOrderDao Repository to apply modifications to. Cannot be null.
+	 * @param leaderHost Host name of the leader. Cannot be null.
+	 * @param leaderPort Replication port of the leader.
+	 * @param leaderUrl Base URL of the leader's REST API, to redirect writes to. Cannot be null.
+	 */
+	public ReplicationFollower(@NonNull final TransferOrderDao transferOrderDao, @NonNull final String leaderHost,
+			final int leaderPort, @NonNull final String leaderUrl) {
+		this.transferOrderDao = transferOrderDao;
+		this.leaderHost = leaderHost;
+		this.leaderPort = leaderPort;
+		this.leaderUrl = leaderUrl;
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		final Thread thread = new Thread(this::replicate, "replication-follower");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		closeSocket();
+	}
+
+	@Override
+	public ReplicationStatus getStatus() {
+		final long lagRecords = Math.max(0, leaderSequence - appliedSequence);
+		return ReplicationStatus.builder()
+				.role(ROLE)
+				.connected(connected)
+				.sequence(appliedSequence)
+				.leaderSequence(leaderSequence)
+				.lagRecords(lagRecords)
+				.lagMillis(lagRecords > 0 ? Math.max(0, System.currentTimeMillis() - leaderTimestamp) : 0L)
+				.build();
+	}
+
+	@Override
+	public Optional<String> getWriteRedirectUrl() {
+		return Optional.of(leaderUrl);
+	}
+
+	private void replicate() {
+		while (running) {
+			try (Socket socket = new Socket(leaderHost, leaderPort)) {
+				this.socket = socket;
+				connected = true;
+				log.info("Connected to leader {}:{}", leaderHost, leaderPort);
+				stream(socket);
+			} catch (final IOException e) {
+				if (running) {
+					log.warn("Replication from leader {}:{} interrupted: {}", leaderHost, leaderPort, e.getMessage());
+				}
+			} finally {
+				connected = false;
+			}
+
+			try {
+				Thread.sleep(RECONNECT_DELAY_MILLIS);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void stream(final Socket socket) throws IOException {
+		final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), ReplicationProtocol.BUFFER_SIZE));
+		final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		output.writeLong(epoch);
+		output.writeLong(appliedSequence);
+		output.flush();
+
+		while (running) {
+			final byte frame = input.readByte();
+			switch (frame) {
+				case ReplicationProtocol.RESUME:
+					epoch = input.readLong();
+					appliedSequence = input.readLong();
+					break;
+				case ReplicationProtocol.SNAPSHOT:
+					epoch = input.readLong();
+					applySnapshot(input);
+					acknowledge(output);
+					break;
+				case ReplicationProtocol.BATCH:
+					leaderSequence = input.readLong();
+					leaderTimestamp = input.readLong();
+					applyBatch(input);
+					acknowledge(output);
+					break;
+				case ReplicationProtocol.HEARTBEAT:
+					leaderSequence = input.readLong();
+					leaderTimestamp = input.readLong();
+					break;
+				default:
+					throw new IOException(String.format("Unexpected replication frame: %d", frame));
+			}
+		}
+	}
+
+	private void applySnapshot(final DataInputStream input) throws IOException {
+		final long snapshotSequence = input.readLong();
+		final Set<Long> snapshotIds = new HashSet<>();
+		while (input.readBoolean()) {
+			final TransferOrder order = OrderCodec.read(input);
+			transferOrderDao.persist(order);
+			snapshotIds.add(order.getId());
+		}
+
+		// Orders deleted on the leader while this follower was not connected
+		for (final TransferOrder order : transferOrderDao.getAll()) {
+			if (!snapshotIds.contains(order.getId())) {
+				transferOrderDao.delete(order.getId());
+			}
+		}
+
+		appliedSequence = snapshotSequence;
+		leaderSequence = Math.max(leaderSequence, snapshotSequence);
+		log.info("Applied snapshot of {} orders at sequence {}", snapshotIds.size(), snapshotSequence);
+	}
+
+	private void applyBatch(final DataInputStream input) throws IOException {
+		final int count = input.readInt();
+		for (int i = 0; i < count; i++) {
+			final MutationRecord record = ReplicationProtocol.readRecord(input);
+			if (record.isDelete()) {
+				transferOrderDao.delete(record.getId());
+			} else {
+				transferOrderDao.persist(record.getOrder());
+			}
+			appliedSequence = record.getSequence();
+		}
+	}
+
+	private void acknowledge(final DataOutputStream output) throws IOException {
+		output.writeByte(ReplicationProtocol.ACK);
+		output.writeLong(appliedSequence);
+		output.flush();
+	}
+
+	private void closeSocket() {
+		try {
+			if (socket != null) {
+				socket.close();
+			}
+		} catch (final IOException e) {
+			log.warn("Could not close leader connection: {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package pl.com.salsoft.exercise1.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.OrderCodec;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Replication role of the instance that accepts writes and ships them to followers.
+ *
+ * Every modification of the repository is appended to the replication log. Every connected follower
+ * gets its own session thread, which reads the log from follower's position and sends records in batches,
+ * not waiting for acknowledgments (follower's acknowledgments are read by a separate thread).
+ * Output is flushed only when the session caught up with the log, so under load records are pipelined
+ * in full network buffers.
+ */
+public class ReplicationLeader implements ReplicationNode {
+	private static final String ROLE = "leader";
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final TransferOrderDao transferOrderDao;
+	private final ReplicationLog replicationLog;
+	private final int port;
+	private final int batchSize;
+	// Identifies the log of this leader run, as sequence numbers start over on every leader start.
+	private final long epoch = ThreadLocalRandom.current().nextLong();
+	private final Set<FollowerSession> sessions = ConcurrentHashMap.newKeySet();
+	private volatile ServerSocket serverSocket;
+	private volatile boolean running;
+
+	/**
+	 * Creates leader and starts recording repository modifications.
+	 * @param transferOrderDao Repository to replicate. Cannot be null.
+	 * @param port TCP port to accept follower connections on.
+	 * @param logCapacity Number of most recent modifications kept for followers that are behind.
+	 * @param batchSize Maximum number of records sent in a single batch.
+	 */
+	public ReplicationLeader(@NonNull final TransferOrderDao transferOrderDao, final int port, final int logCapacity,
+			final int batchSize) {
+		this.transferOrderDao = transferOrderDao;
+		this.replicationLog = new ReplicationLog(logCapacity);
+		this.port = port;
+		this.batchSize = batchSize;
+		transferOrderDao.addMutationListener(replicationLog);
+	}
+
+	@Override
+	public void start() {
+		try {
+			serverSocket = new ServerSocket(port);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(String.format("Could not listen for followers on port %d.", port), e);
+		}
+		running = true;
+		startThread("replication-acceptor", this::acceptFollowers);
+		log.info("Accepting followers on port {}", port);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		try {
+			if (serverSocket != null) {
+				serverSocket.close();
+			}
+		} catch (final IOException e) {
+			log.warn("Could not close replication socket: {}", e.getMessage());
+		}
+		sessions.forEach(FollowerSession::close);
+	}
+
+	@Override
+	public ReplicationStatus getStatus() {
+		final long lastSequence = replicationLog.getLastSequence();
+		final List<ReplicationStatus.FollowerStatus> followers = sessions.stream()
+				.map(session -> ReplicationStatus.FollowerStatus.builder()
+						.address(session.socket.getRemoteSocketAddress().toString())
+						.acknowledgedSequence(session.acknowledgedSequence)
+						.lagRecords(Math.max(0, lastSequence - session.acknowledgedSequence))
+						.build())
+				.collect(Collectors.toList());
+
+		return ReplicationStatus.builder()
+				.role(ROLE)
+				.sequence(lastSequence)
+				.followers(followers)
+				.build();
+	}
+
+	@Override
+	public Optional<String> getWriteRedirectUrl() {
+		return Optional.empty();
+	}
+
+	private void acceptFollowers() {
+		while (running) {
+			try {
+				final FollowerSession session = new FollowerSession(serverSocket.accept());
+				sessions.add(session);
+				startThread("replication-session-" + session.socket.getRemoteSocketAddress(), session::ship);
+			} catch (final IOException e) {
+				if (running) {
+					log.error("Could not accept follower connection: {}", e.getMessage());
+				}
+			}
+		}
+	}
+
+	private static void startThread(final String name, final Runnable runnable) {
+		final Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Connection with single follower.
+	 */
+	private class FollowerSession {
+		private final Socket socket;
+		private final DataInputStream input;
+		private final DataOutputStream output;
+		private volatile long acknowledgedSequence;
+
+		FollowerSession(final Socket socket) throws IOException {
+			this.socket = socket;
+			this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), ReplicationProtocol.BUFFER_SIZE));
+		}
+
+		void ship() {
+			try {
+				final long followerEpoch = input.readLong();
+				final long followerSequence = input.readLong();
+				long nextSequence = handshake(followerEpoch, followerSequence) + 1;
+				startThread("replication-acks-" + socket.getRemoteSocketAddress(), this::readAcknowledgments);
+
+				while (running) {
+					final List<MutationRecord> batch = replicationLog.read(nextSequence, batchSize, ReplicationProtocol.HEARTBEAT_INTERVAL_MILLIS);
+					if (batch == null) {
+						log.warn("Follower {} fell behind the replication log, disconnecting it.", socket.getRemoteSocketAddress());
+						break;
+					}
+
+					if (batch.isEmpty()) {
+						output.writeByte(ReplicationProtocol.HEARTBEAT);
+						output.writeLong(replicationLog.getLastSequence());
+						output.writeLong(System.currentTimeMillis());
+						output.flush();
+						continue;
+					}
+
+					output.writeByte(ReplicationProtocol.BATCH);
+					output.writeLong(replicationLog.getLastSequence());
+					output.writeLong(System.currentTimeMillis());
+					output.writeInt(batch.size());
+					for (final MutationRecord record : batch) {
+						ReplicationProtocol.writeRecord(output, record);
+					}
+					nextSequence += batch.size();
+
+					if (batch.size() < batchSize) {
+						// Caught up with the log, so don't keep records in the buffer any longer.
+						output.flush();
+					}
+				}
+			} catch (final IOException e) {
+				log.warn("Replication to {} interrupted: {}", socket.getRemoteSocketAddress(), e.getMessage());
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				close();
+			}
+		}
+
+		/**
+		 * @return Sequence number reflected by the follower after the handshake.
+		 */
+		private long handshake(final long followerEpoch, final long followerSequence) throws IOException {
+			final long lastSequence = replicationLog.getLastSequence();
+			if (followerEpoch == epoch && followerSequence <= lastSequence && replicationLog.canRead(followerSequence + 1)) {
+				output.writeByte(ReplicationProtocol.RESUME);
+				output.writeLong(epoch);
+				output.writeLong(followerSequence);
+				output.flush();
+				acknowledgedSequence = followerSequence;
+				return followerSequence;
+			}
+
+			// Sequence number is taken before the snapshot. Modifications done during the snapshot
+			// may be sent twice (in the snapshot and in the log), but it's harmless, as they are idempotent.
+			output.writeByte(ReplicationProtocol.SNAPSHOT);
+			output.writeLong(epoch);
+			output.writeLong(lastSequence);
+			for (final TransferOrder order : transferOrderDao.getAll()) {
+				output.writeBoolean(true);
+				OrderCodec.write(output, order);
+			}
+			output.writeBoolean(false);
+			output.flush();
+			log.info("Sent snapshot to follower {} at sequence {}", socket.getRemoteSocketAddress(), lastSequence);
+			return lastSequence;
+		}
+
+		private void readAcknowledgments() {
+			try {
+				while (input.readByte() == ReplicationProtocol.ACK) {
+					acknowledgedSequence = input.readLong();
+				}
+			} catch (final IOException e) {
+				// Connection closed, the shipping thread handles that
+			} finally {
+				close();
+			}
+		}
+
+		void close() {
+			sessions.remove(this);
+			try {
+				socket.close();
+			} catch (final IOException e) {
+				log.warn("Could not close follower connection: {}", e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package pl.com.salsoft.exercise1.replication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import pl.com.salsoft.exercise1.dao.OrderMutationListener;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Ordered log of recent repository modifications, kept in a fixed-size ring buffer.
+ * Leader appends to it (as a mutation listener of the repository) and every follower session
+ * reads it from its own position. Readers that fall behind by more than the log capacity
+ * can no longer be served from the log and have to start over from a snapshot.
+ *
+ * Appends are called inside of the repository's atomic updates, so they take no lock: a writer claims
+ * its sequence number and slot atomically, fills the slot, and then publishes all consecutive filled records.
+ * Readers see only published records, so they never skip one still being written. The lock is taken
+ * only to wake up readers waiting for new records, when there are any.
+ */
+public class ReplicationLog implements OrderMutationListener {
+	private final AtomicReferenceArray<MutationRecord> ring;
+	// Sequence number of the last claimed record.
+	private final AtomicLong lastClaimed = new AtomicLong();
+	// Sequence number of the last published record, all records up to it are filled.
+	private final AtomicLong lastSequence = new AtomicLong();
+	private final AtomicInteger waitingReaders = new AtomicInteger();
+
+	/**
+	 * @param capacity Number of most recent records kept in the log. Must be positive.
+	 */
+	public ReplicationLog(final int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Replication log capacity must be positive.");
+		}
+		this.ring = new AtomicReferenceArray<>(capacity);
+	}
+
+	@Override
+	public void onPersist(final TransferOrder previous, final TransferOrder order) {
+		append(order.getId(), order);
+	}
+
+	@Override
+	public void onDelete(final TransferOrder previous) {
+		append(previous.getId(), null);
+	}
+
+	/**
+	 * @return Sequence number of the last appended record, or 0 if nothing was appended yet.
+	 */
+	public long getLastSequence() {
+		return lastSequence.get();
+	}
+
+	/**
+	 * @param fromSequence Sequence number of the first record to read.
+	 * @return true if the record is still (or will be) available in the log, false if it was already overwritten.
+	 */
+	public boolean canRead(final long fromSequence) {
+		return fromSequence > lastSequence.get() - ring.length();
+	}
+
+	/**
+	 * Reads records starting at given sequence number, waiting for them if they were not appended yet.
+	 * @param fromSequence Sequence number of the first record to read.
+	 * @param maxRecords Maximum number of records to read.
+	 * @param timeoutMillis Maximum time to wait for the first record.
+	 * @return Records read, or empty list if none were appended before the timeout,
+	 * or null if requested records were already overwritten in the log.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public List<MutationRecord> read(final long fromSequence, final int maxRecords, final long timeoutMillis)
+			throws InterruptedException {
+		if (lastSequence.get() < fromSequence) {
+			awaitSequence(fromSequence, timeoutMillis);
+		}
+
+		if (!canRead(fromSequence)) {
+			return null;
+		}
+
+		final long toSequence = Math.min(lastSequence.get(), fromSequence + maxRecords - 1);
+		final List<MutationRecord> records = new ArrayList<>((int) Math.max(0, toSequence - fromSequence + 1));
+		for (long sequence = fromSequence; sequence <= toSequence; sequence++) {
+			final MutationRecord record = ring.get(slot(sequence));
+			if (record.getSequence() != sequence) {
+				// Overwritten while reading, the next read tells the reader it fell behind.
+				return records.isEmpty() ? null : records;
+			}
+			records.add(record);
+		}
+		return records;
+	}
+
+	private void awaitSequence(final long sequence, final long timeoutMillis) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		long remaining = timeoutMillis;
+		// Registered before checking the sequence, so a writer publishing it after the check sees the reader.
+		waitingReaders.incrementAndGet();
+		try {
+			synchronized (this) {
+				while (lastSequence.get() < sequence && remaining > 0) {
+					wait(remaining);
+					remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				}
+			}
+		} finally {
+			waitingReaders.decrementAndGet();
+		}
+	}
+
+	private void append(final long id, final TransferOrder order) {
+		final long sequence = lastClaimed.incrementAndGet();
+		final MutationRecord record = new MutationRecord(sequence, id, order);
+		final int slot = slot(sequence);
+		// Writer lapped by another one, a whole capacity ahead, must not overwrite its record.
+		ring.getAndUpdate(slot, present -> present == null || present.getSequence() < sequence ? record : present);
+		if (publish() && waitingReaders.get() > 0) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Advances the last published sequence over consecutive filled records.
+	 * Records filled after their successors are published by the writer filling them.
+	 * @return true if anything was published.
+	 */
+	private boolean publish() {
+		boolean published = false;
+		while (true) {
+			final long last = lastSequence.get();
+			final MutationRecord next = ring.get(slot(last + 1));
+			// Record of a lapped writer is lost, but readers of it are behind the log anyway.
+			if (next == null || next.getSequence() <= last) {
+				return published;
+			}
+			if (lastSequence.compareAndSet(last, last + 1)) {
+				published = true;
+			}
+		}
+	}
+
+	private int slot(final long sequence) {
+		return (int) (sequence % ring.length());
+	}
+}
@@ -0,0 +1,28 @@
+package pl.com.salsoft.exercise1.replication;
+
+import java.util.Optional;
+
+/**
+ * Role of this application instance in the replication of the transfer order repository.
+ */
+public interface ReplicationNode {
+	/**
+	 * Starts replication. Should be called at the application start.
+	 */
+	void start();
+
+	/**
+	 * Stops replication and releases its resources.
+	 */
+	void stop();
+
+	/**
+	 * @return Current replication state of this instance.
+	 */
+	ReplicationStatus getStatus();
+
+	/**
+	 * @return Base URL of the instance which accepts writes, or empty if this instance accepts writes itself.
+	 */
+	Optional<String> getWriteRedirectUrl();
+}
@@ -0,0 +1,49 @@
+package pl.com.salsoft.exercise1.replication;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import pl.com.salsoft.exercise1.dao.OrderCodec;
+
+/**
+ * Wire format of the replication stream.
+ *
+ * Follower opens the connection and sends the leader epoch and the last sequence number it has applied.
+ * Leader answers with either RESUME (follower's state is still covered by the replication log), or SNAPSHOT
+ * (all orders, followed by the sequence number they reflect). Then leader keeps sending BATCH frames
+ * without waiting for acknowledgments, and HEARTBEAT frames when there is nothing to send.
+ * Follower acknowledges every applied batch with ACK frame, so the leader knows follower's progress.
+ */
+final class ReplicationProtocol {
+	static final byte RESUME = 1;
+	static final byte SNAPSHOT = 2;
+	static final byte BATCH = 3;
+	static final byte HEARTBEAT = 4;
+	static final byte ACK = 5;
+
+	static final long HEARTBEAT_INTERVAL_MILLIS = 500L;
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	private ReplicationProtocol() {
+	}
+
+	static void writeRecord(final DataOutput output, final MutationRecord record) throws IOException {
+		output.writeLong(record.getSequence());
+		output.writeBoolean(record.isDelete());
+		if (record.isDelete()) {
+			output.writeLong(record.getId());
+		} else {
+			OrderCodec.write(output, record.getOrder());
+		}
+	}
+
+	static MutationRecord readRecord(final DataInput input) throws IOException {
+		final long sequence = input.readLong();
+		if (input.readBoolean()) {
+			return new MutationRecord(sequence, input.readLong(), null);
+		}
+		final var order = OrderCodec.read(input);
+		return new MutationRecord(sequence, order.getId(), order);
+	}
+}
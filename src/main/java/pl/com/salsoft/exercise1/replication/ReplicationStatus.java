@@ -0,0 +1,40 @@
+package pl.com.salsoft.exercise1.replication;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Replication state reported by the /replication resource.
+ * Only the members that make sense for the instance's role are filled in.
+ */
+@Builder
+@Getter
+@JsonInclude(Include.NON_NULL)
+public final class ReplicationStatus {
+	private final String role;
+	private final Boolean connected;
+	/**
+	 * Last sequence number appended to the log (leader), or applied from the log (follower).
+	 */
+	private final Long sequence;
+	private final Long leaderSequence;
+	private final Long lagRecords;
+	private final Long lagMillis;
+	private final List<FollowerStatus> followers;
+
+	/**
+	 * Progress of a single follower, as seen by the leader.
+	 */
+	@Builder
+	@Getter
+	public static final class FollowerStatus {
+		private final String address;
+		private final long acknowledgedSequence;
+		private final long lagRecords;
+	}
+}
@@ -0,0 +1,30 @@
+package pl.com.salsoft.exercise1.replication;
+
+import java.util.Optional;
+
+/**
+ * Replication role of the instance that doesn't replicate at all.
+ */
+public class StandaloneNode implements ReplicationNode {
+	private static final String ROLE = "none";
+
+	@Override
+	public void start() {
+		// Nothing to start
+	}
+
+	@Override
+	public void stop() {
+		// Nothing to stop
+	}
+
+	@Override
+	public ReplicationStatus getStatus() {
+		return ReplicationStatus.builder().role(ROLE).build();
+	}
+
+	@Override
+	public Optional<String> getWriteRedirectUrl() {
+		return Optional.empty();
+	}
+}
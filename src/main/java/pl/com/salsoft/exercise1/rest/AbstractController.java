@@ -1,14 +1,19 @@
 package pl.com.salsoft.exercise1.rest;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-import org.eclipse.jetty.http.HttpStatus;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import javax.servlet.AsyncContext;
 
-import com.google.inject.Inject;
+import org.eclipse.jetty.http.HttpStatus;
 
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
 import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.tracing.RequestTrace;
+import pl.com.salsoft.exercise1.tracing.RequestTrace.Phase;
 import spark.Request;
 import spark.Response;
 import spark.Route;
@@ -19,32 +24,124 @@ import spark.Route;
  */
 public abstract class AbstractController {
 	private static final String APPLICATION_JSON = "application/json";
+	private static final String SERVER_TIMING = "Server-Timing";
 
-	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private final JsonService jsonService;
+	private final AccessLog accessLog;
 
-	@Inject
-	private JsonService jsonService;
+	/**
+	 * @param jsonService Service serializing responses. Cannot be null.
+	 * @param accessLog Log of requests and request errors. Cannot be null.
+	 */
+	protected AbstractController(@NonNull final JsonService jsonService, @NonNull final AccessLog accessLog) {
+		this.jsonService = jsonService;
+		this.accessLog = accessLog;
+	}
 
 	/**
 	 * It's a proxy method for exception handling for all REST calls on this controller.
 	 * In case of exception in the target handler, HTTP status 500 is returned and empty body in response.
-	 * Also an appropriate error is logged with the request and the error message.
+	 * Also an appropriate error is logged with the request and the error cause chain, asynchronously,
+	 * so a burst of errors doesn't slow down request threads. Matched route is recorded for the access log.
 	 * In case of successful processing, a response object (if provided) is serialized to JSON format.
 	 * If response object was not provided, empty body is returned to the caller.
+	 * Time of every processing phase is reported in the Server-Timing header, see {@link RequestTrace}.
 	 * @param actionHandler Target handler that does actual job.
 	 * @return Result from the target handler, or null if any exception was thrown.
 	 */
 	protected Route handle(final Route actionHandler) {
+		return handleAsync(completed(actionHandler));
+	}
+
+	/**
+	 * @param handler Handler completing the response object synchronously. Cannot be null.
+	 * @return The handler, returning the response object as a completed future.
+	 */
+	protected static AsyncRoute completed(@NonNull final Route handler) {
+		return (final Request request, final Response response) -> CompletableFuture.completedFuture(handler.handle(request, response));
+	}
+
+	/**
+	 * Like {@link #handle(Route)}, but the target handler completes the response object asynchronously.
+	 * If it's not complete when the handler returns, the request is put into asynchronous mode (Servlet 3.0),
+	 * so the request thread is released. When the handler completes, the response is serialized and written
+	 * without blocking on container threads, see {@link AsyncResponseWriter}, so the thread completing
+	 * the handler is never held by a slow client. Time between is reported as the {@link Phase#WAIT} phase.
+	 * @param actionHandler Target handler that does actual job. Response status, headers and the response
+	 * object can be set as it completes.
+	 * @return Result from the target handler, or empty body if it's not complete yet.
+	 */
+	protected Route handleAsync(final AsyncRoute actionHandler) {
 		return (final Request request, final Response response) -> {
-			try {
-				response.type(APPLICATION_JSON);
-				final var body = Optional.ofNullable(actionHandler.handle(request, response));
-				return body.map(jsonService::map).orElse("");
-			} catch (final Exception e) {
-				log.error("Error while handling request {} {}: {}", request.requestMethod(), request.url(), e.getMessage());
-				response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
-				return "";
+			request.attribute(AccessLog.ROUTE_ATTRIBUTE, request.matchedPath());
+			final RequestTrace trace = RequestTrace.begin(Phase.READ);
+			request.attribute(RequestTrace.ATTRIBUTE, trace);
+			final CompletableFuture<Object> result = start(actionHandler, request, response);
+			if (result.isDone()) {
+				return respond(request, response, trace, result);
 			}
+
+			// Spark doesn't write the response of a request in asynchronous mode, see AppServerFactory.
+			final AsyncContext asyncContext = request.raw().startAsync();
+			// Operations complete on their own, so the request waits for them however long they take.
+			asyncContext.setTimeout(0L);
+			trace.suspend();
+			result.whenComplete((body, error) -> AsyncResponseWriter.start(asyncContext, () -> {
+				trace.resume();
+				return respond(request, response, trace, result).getBytes(StandardCharsets.UTF_8);
+			}));
+			return "";
 		};
 	}
+
+	/**
+	 * Reads the request body and starts the handler.
+	 * @return Result of the handler, failed if it has thrown an exception.
+	 */
+	private CompletableFuture<Object> start(final AsyncRoute actionHandler, final Request request, final Response response) {
+		try {
+			// Body is read up front, so reading is not mixed with processing. Spark keeps it for the handler.
+			request.bodyAsBytes();
+			RequestTrace.enter(Phase.SERVICE);
+			response.type(APPLICATION_JSON);
+			return actionHandler.handle(request, response);
+		} catch (final Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Serializes result of the completed handler, or responds with 500 if it failed, and ends the request trace.
+	 * @return Response body.
+	 */
+	private String respond(final Request request, final Response response, final RequestTrace trace,
+			final CompletableFuture<Object> result) {
+		try {
+			final var body = Optional.ofNullable(result.join());
+			return body.map(jsonService::map).orElse("");
+		} catch (final Exception e) {
+			final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+			accessLog.error(request.requestMethod(), request.url(), cause);
+			response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
+			return "";
+		} finally {
+			trace.endHandling();
+			// Ignored by Jetty, if the handler already committed the response by streaming it.
+			response.header(SERVER_TIMING, trace.toServerTiming());
+		}
+	}
+
+	/**
+	 * Handler of a request, completing the response object asynchronously.
+	 */
+	@FunctionalInterface
+	protected interface AsyncRoute {
+		/**
+		 * @param request The request.
+		 * @param response The response.
+		 * @return Response object, or null for empty body.
+		 * @throws Exception If the request could not be handled, like failing the result.
+		 */
+		CompletableFuture<Object> handle(Request request, Response response) throws Exception;
+	}
 }
@@ -0,0 +1,186 @@
+package pl.com.salsoft.exercise1.rest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionLimit;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.Container;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import com.google.inject.Inject;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.accesslog.AccessLogListener;
+import pl.com.salsoft.exercise1.lifecycle.InFlightRequests;
+import pl.com.salsoft.exercise1.tracing.RequestEventListener;
+import pl.com.salsoft.exercise1.tracing.SlowRequestListener;
+import pl.com.salsoft.exercise1.tracing.SlowRequestLog;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+import spark.embeddedserver.jetty.JettyServerFactory;
+
+/**
+ * Creates embedded Jetty server for Spark, the same way Spark does by default, and adjusts every connector
+ * Spark sets on the server later on: applies {@link ServerSettings}, adds cleartext HTTP/2 (h2c) next to HTTP/1.1
+ * and HTTP channel listeners (access log, slow requests, flight recorder events, in-flight requests).
+ * Responses of requests completed asynchronously are left to their handlers.
+ */
+public class AppServerFactory implements JettyServerFactory {
+	private static final int DEFAULT_MIN_THREADS = 8;
+	private static final int DEFAULT_THREAD_TIMEOUT_MILLIS = 60_000;
+
+	private final ServerSettings settings;
+	private final HttpChannel.Listener[] listeners;
+	private final List<HandlerWrapper> handlers = new CopyOnWriteArrayList<>();
+	private volatile Server server;
+
+	/**
+	 * @param settings Connection settings. Cannot be null.
+	 * @param accessLog Log of requests. Cannot be null.
+	 * @param slowRequestLog Buffer of slow requests. Cannot be null.
+	 * @param inFlightRequests Counter of requests being served. Cannot be null.
+	 */
+	@Inject
+	public AppServerFactory(@NonNull final ServerSettings settings, @NonNull final AccessLog accessLog,
+			@NonNull final SlowRequestLog slowRequestLog, @NonNull final InFlightRequests inFlightRequests) {
+		this.settings = settings;
+		this.listeners = new HttpChannel.Listener[] {
+			new AccessLogListener(accessLog),
+			new SlowRequestListener(slowRequestLog),
+			new RequestEventListener(),
+			inFlightRequests
+		};
+	}
+
+	/**
+	 * Makes Spark use this factory. Must be called before any route is mapped.
+	 */
+	public void install() {
+		EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, new EmbeddedJettyFactory(this));
+	}
+
+	/**
+	 * Adds handler in front of Spark, in every server created from now on. Handlers added later are in front
+	 * of the ones added earlier. Must be called before the server is started.
+	 * @param handler Handler to add. Cannot be null. It should pass requests it doesn't handle to its wrapped handler.
+	 */
+	public void addHandler(@NonNull final HandlerWrapper handler) {
+		handlers.add(handler);
+	}
+
+	/**
+	 * Stops accepting new connections, while requests on already accepted ones are still served.
+	 * Does nothing if the server was not created yet.
+	 */
+	public void stopAccepting() {
+		final Server created = server;
+		if (created == null) {
+			return;
+		}
+		for (final Connector connector : created.getConnectors()) {
+			connector.shutdown();
+		}
+	}
+
+	@Override
+	public Server create(final int maxThreads, final int minThreads, final int threadTimeoutMillis) {
+		if (maxThreads <= 0) {
+			return customize(new Server());
+		}
+		return customize(new Server(new QueuedThreadPool(maxThreads,
+				minThreads > 0 ? minThreads : DEFAULT_MIN_THREADS,
+				threadTimeoutMillis > 0 ? threadTimeoutMillis : DEFAULT_THREAD_TIMEOUT_MILLIS)));
+	}
+
+	@Override
+	public Server create(final ThreadPool threadPool) {
+		return customize(threadPool != null ? new Server(threadPool) : new Server());
+	}
+
+	private Server customize(final Server server) {
+		this.server = server;
+		if (settings.getMaxConnections() > 0) {
+			server.addBean(new ConnectionLimit(settings.getMaxConnections(), server));
+		}
+		// Spark sets its handler just before it starts the server.
+		server.addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener() {
+			@Override
+			public void lifeCycleStarting(final LifeCycle event) {
+				server.insertHandler(new AsyncResponseHandler());
+				handlers.forEach(server::insertHandler);
+			}
+		});
+		// Connectors are created by Spark after the server, so they are adjusted as they show up.
+		server.addEventListener(new Container.Listener() {
+			@Override
+			public void beanAdded(final Container parent, final Object child) {
+				if (child instanceof ServerConnector) {
+					customize((ServerConnector) child);
+				}
+			}
+
+			@Override
+			public void beanRemoved(final Container parent, final Object child) {
+				// Nothing to clean up
+			}
+		});
+		return server;
+	}
+
+	private void customize(final ServerConnector connector) {
+		// Spark keeps idle connections open for an hour, which only holds sockets of clients long gone.
+		connector.setIdleTimeout(settings.getIdleTimeoutMillis());
+		final HttpConnectionFactory http1 = connector.getConnectionFactory(HttpConnectionFactory.class);
+		if (http1 != null) {
+			final HttpConfiguration httpConfiguration = http1.getHttpConfiguration();
+			httpConfiguration.setRequestHeaderSize(settings.getRequestHeaderSize());
+			if (settings.isHttp2Enabled()) {
+				// Both connection preface (prior knowledge) and "Upgrade: h2c" are handled by the HTTP/1.1 connection.
+				final HTTP2CServerConnectionFactory http2 = new HTTP2CServerConnectionFactory(httpConfiguration);
+				http2.setMaxConcurrentStreams(settings.getMaxConcurrentStreams());
+				http2.setMaxDynamicTableSize(settings.getHeaderTableSize());
+				http2.setStreamIdleTimeout(settings.getIdleTimeoutMillis());
+				connector.addConnectionFactory(http2);
+			}
+		}
+		for (final HttpChannel.Listener listener : listeners) {
+			connector.addBean(listener);
+		}
+	}
+
+	/**
+	 * Hides responses of requests in asynchronous mode from Spark, which would otherwise write and close them
+	 * as soon as the route returns. They are written by whoever completes them, see {@link AbstractController}.
+	 */
+	private static final class AsyncResponseHandler extends HandlerWrapper {
+		@Override
+		public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+				final HttpServletResponse response) throws IOException, ServletException {
+			super.handle(target, baseRequest, request, new HttpServletResponseWrapper(response) {
+				@Override
+				public boolean isCommitted() {
+					return request.isAsyncStarted() || super.isCommitted();
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package pl.com.salsoft.exercise1.rest;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+/**
+ * Writes the response of a request in asynchronous mode with non-blocking output (Servlet 3.1), and completes
+ * the request. The container calls it on its own threads, so the thread completing the operation (i.e. of the
+ * DAO pool) only sets it up, and a slow client doesn't hold any thread while its response is being sent.
+ */
+final class AsyncResponseWriter implements WriteListener {
+	private final AsyncContext asyncContext;
+	private final ServletOutputStream output;
+	private final Supplier<byte[]> content;
+	private boolean written;
+
+	private AsyncResponseWriter(final AsyncContext asyncContext, final ServletOutputStream output,
+			final Supplier<byte[]> content) {
+		this.asyncContext = asyncContext;
+		this.output = output;
+		this.content = content;
+	}
+
+	/**
+	 * Starts writing the response.
+	 * @param asyncContext Asynchronous mode of the request.
+	 * @param content Produces the response body, setting status and headers as well. Called on a container thread.
+	 */
+	static void start(final AsyncContext asyncContext, final Supplier<byte[]> content) {
+		try {
+			final ServletOutputStream output = asyncContext.getResponse().getOutputStream();
+			output.setWriteListener(new AsyncResponseWriter(asyncContext, output, content));
+		} catch (final IOException e) {
+			asyncContext.complete();
+		}
+	}
+
+	@Override
+	public void onWritePossible() throws IOException {
+		if (!written) {
+			written = true;
+			output.write(content.get());
+		}
+		// Otherwise the write is still pending, and the container calls again once it's done.
+		if (output.isReady()) {
+			asyncContext.complete();
+		}
+	}
+
+	@Override
+	public void onError(final Throwable error) {
+		// Client is gone, nothing more to do.
+		asyncContext.complete();
+	}
+}
@@ -0,0 +1,87 @@
+package pl.com.salsoft.exercise1.rest;
+
+import java.util.List;
+
+import org.eclipse.jetty.http.HttpStatus;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.inject.Inject;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.cluster.ClusterClient;
+import pl.com.salsoft.exercise1.cluster.ClusterNode;
+import pl.com.salsoft.exercise1.cluster.ClusterService;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.service.JsonService;
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+/**
+ * REST controller serving the /cluster resources: membership management
+ * and handoff of orders between nodes.
+ */
+public class ClusterController extends AbstractController {
+	private static final String NODES_RESOURCE = "/cluster/nodes";
+	private static final String HANDOFF_RESOURCE = "/cluster/handoff";
+
+	private final ClusterService clusterService;
+	private final ClusterClient clusterClient;
+	private final JsonService jsonService;
+
+	/**
+	 * @param clusterService Service managing cluster membership. Cannot be null.
+	 * @param clusterClient Client for communication with other cluster nodes. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param accessLog Log of requests and request errors. Cannot be null.
+	 */
+	@Inject
+	public ClusterController(@NonNull final ClusterService clusterService,
+			@NonNull final ClusterClient clusterClient, @NonNull final JsonService jsonService,
+			@NonNull final AccessLog accessLog) {
+		super(jsonService, accessLog);
+		this.clusterService = clusterService;
+		this.clusterClient = clusterClient;
+		this.jsonService = jsonService;
+	}
+
+	/**
+	 * Sets up all REST request mappings.
+	 * Should be called at the application start.
+	 */
+	public void initMapping() {
+		Spark.get(NODES_RESOURCE, handle(this::getNodes));
+		Spark.put(NODES_RESOURCE, handle(this::putNodes));
+		Spark.post(HANDOFF_RESOURCE, handle(this::postHandoff));
+	}
+
+	/**
+	 * Implements GET method from REST, lists cluster members.
+	 */
+	private Object getNodes(final Request request, final Response response) {
+		response.status(HttpStatus.OK_200);
+		return clusterService.getNodes();
+	}
+
+	/**
+	 * Implements PUT method from REST, replaces cluster members. Unless the request came from other node,
+	 * all previous and new members are informed as well, so it's enough to call any single node.
+	 */
+	private Object putNodes(final Request request, final Response response) {
+		final List<ClusterNode> nodes = jsonService.map(request.body(), new TypeReference<List<ClusterNode>>() {});
+		clusterService.updateMembership(nodes, !clusterClient.isForwarded(request));
+		response.status(HttpStatus.OK_200);
+		return clusterService.getNodes();
+	}
+
+	/**
+	 * Implements POST method from REST, accepts orders handed over by other node.
+	 */
+	private Object postHandoff(final Request request, final Response response) {
+		final List<TransferOrder> orders = jsonService.map(request.body(), new TypeReference<List<TransferOrder>>() {});
+		clusterService.acceptHandoff(orders);
+		response.status(HttpStatus.NO_CONTENT_204);
+		return null;
+	}
+}
@@ -0,0 +1,51 @@
+package pl.com.salsoft.exercise1.rest;
+
+import org.eclipse.jetty.http.HttpStatus;
+
+import com.google.inject.Inject;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.tracing.SlowRequestLog;
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+/**
+ * REST controller serving the /debug resources, with diagnostics of this instance.
+ */
+public class DebugController extends AbstractController {
+	private static final String SLOW_REQUESTS_RESOURCE = "/debug/slow";
+
+	private final SlowRequestLog slowRequestLog;
+
+	/**
+	 * @param slowRequestLog Buffer of recent slow requests. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param accessLog Log of requests and request errors. Cannot be null.
+	 */
+	@Inject
+	public DebugController(@NonNull final SlowRequestLog slowRequestLog, @NonNull final JsonService jsonService,
+			@NonNull final AccessLog accessLog) {
+		super(jsonService, accessLog);
+		this.slowRequestLog = slowRequestLog;
+	}
+
+	/**
+	 * Sets up all REST request mappings.
+	 * Should be called at the application start.
+	 */
+	public void initMapping() {
+		Spark.get(SLOW_REQUESTS_RESOURCE, handle(this::getSlowRequests));
+	}
+
+	/**
+	 * Lists recent requests over the slow request threshold, the most recent first,
+	 * with time spent in each processing phase.
+	 */
+	private Object getSlowRequests(final Request request, final Response response) {
+		response.status(HttpStatus.OK_200);
+		return slowRequestLog.getRequests();
+	}
+}
@@ -0,0 +1,261 @@
+package pl.com.salsoft.exercise1.rest;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import com.google.inject.Inject;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.cluster.ClusterMembership;
+import pl.com.salsoft.exercise1.lifecycle.LifecycleService;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.replication.ReplicationNode;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.SavedOrder;
+import pl.com.salsoft.exercise1.service.TransferService;
+import pl.com.salsoft.exercise1.tracing.RequestTrace;
+import pl.com.salsoft.exercise1.tracing.RequestTrace.Phase;
+
+/**
+ * Jetty handler serving common requests for orders of the default tenant without Spark: listing all orders,
+ * and GET, POST, PUT, PATCH and DELETE of single orders, responding the same way as {@link TransferOrderController}.
+ * It's installed in front of Spark with the {@link ServerSettings.Engine#JETTY} engine.
+ *
+ * Requests are matched by plain string comparison instead of Spark's route matching and filters,
+ * request bodies are parsed straight from bytes and responses are serialized straight to bytes,
+ * without intermediate Strings. Every other request is passed to Spark, which serves it as usual:
+ * requests with query parameters or a tenant, requests in cluster mode, requests while the application
+ * is draining, and writes to be redirected to the replication leader.
+ */
+public class JettyTransferHandler extends HandlerWrapper {
+	private static final String APPLICATION_JSON = "application/json";
+	private static final String MERGE_PATCH_TYPE = "application/merge-patch+json";
+	private static final String SERVER_TIMING = "Server-Timing";
+	private static final String TENANT_HEADER = "X-Tenant";
+	private static final String RESOURCE_ROOT = "/transfer";
+	private static final String RESOURCE_PREFIX = RESOURCE_ROOT + "/";
+	// Routes as reported to the access log by Spark.
+	private static final String ROUTE_BY_ID = RESOURCE_PREFIX + ":id";
+	private static final Set<String> ROOT_METHODS = Set.of("GET", "POST");
+	private static final Set<String> BY_ID_METHODS = Set.of("GET", "PUT", "PATCH", "DELETE");
+	// Longer IDs may not fit in a long, they're left to Spark.
+	private static final int MAX_ID_DIGITS = 18;
+	private static final byte[] EMPTY = new byte[0];
+
+	private final ServerSettings settings;
+	private final AppServerFactory serverFactory;
+	private final TransferService transferService;
+	private final JsonService jsonService;
+	private final AccessLog accessLog;
+	private final ClusterMembership clusterMembership;
+	private final ReplicationNode replicationNode;
+	private final LifecycleService lifecycleService;
+
+	/**
+	 * @param settings Server settings, selecting the engine. Cannot be null.
+	 * @param serverFactory Factory of the server to install the handler in. Cannot be null.
+	 * @param transferService Service managing orders of the default tenant. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param accessLog Log of request errors. Cannot be null.
+	 * @param clusterMembership Membership of this instance in the cluster. Cannot be null.
+	 * @param replicationNode Replication role of this instance. Cannot be null.
+	 * @param lifecycleService Service telling whether the application is draining. Cannot be null.
+	 */
+	@Inject
+	public JettyTransferHandler(@NonNull final ServerSettings settings, @NonNull final AppServerFactory serverFactory,
+			@NonNull final TransferService transferService, @NonNull final JsonService jsonService,
+			@NonNull final AccessLog accessLog, @NonNull final ClusterMembership clusterMembership,
+			@NonNull final ReplicationNode replicationNode, @NonNull final LifecycleService lifecycleService) {
+		this.settings = settings;
+		this.serverFactory = serverFactory;
+		this.transferService = transferService;
+		this.jsonService = jsonService;
+		this.accessLog = accessLog;
+		this.clusterMembership = clusterMembership;
+		this.replicationNode = replicationNode;
+		this.lifecycleService = lifecycleService;
+	}
+
+	/**
+	 * Installs the handler in front of Spark, if the {@link ServerSettings.Engine#JETTY} engine is selected.
+	 * Does nothing otherwise. Should be called at the application start, before the server is started.
+	 */
+	public void install() {
+		if (settings.getEngine() == ServerSettings.Engine.JETTY) {
+			serverFactory.addHandler(this);
+		}
+	}
+
+	@Override
+	public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+			final HttpServletResponse response) throws IOException, ServletException {
+		final String route = routeOf(target, request.getMethod());
+		if (route == null || !isServedHere(request)) {
+			super.handle(target, baseRequest, request, response);
+			return;
+		}
+		baseRequest.setHandled(true);
+		request.setAttribute(AccessLog.ROUTE_ATTRIBUTE, route);
+		final RequestTrace trace = RequestTrace.begin(Phase.READ);
+		request.setAttribute(RequestTrace.ATTRIBUTE, trace);
+		final Long id = ROUTE_BY_ID.equals(route) ? Long.valueOf(target.substring(RESOURCE_PREFIX.length())) : null;
+		final CompletableFuture<Object> result = start(id, request, response);
+		if (result.isDone()) {
+			write(response, respond(request, response, trace, result));
+			return;
+		}
+
+		final AsyncContext asyncContext = request.startAsync();
+		// Operations complete on their own, so the request waits for them however long they take.
+		asyncContext.setTimeout(0L);
+		trace.suspend();
+		result.whenComplete((body, error) -> AsyncResponseWriter.start(asyncContext, () -> {
+			trace.resume();
+			final byte[] content = respond(request, response, trace, result);
+			response.setContentLength(content.length);
+			return content;
+		}));
+	}
+
+	/**
+	 * @return Route of the request, as Spark would report it, or null if it's not served by this handler.
+	 */
+	private static String routeOf(final String target, final String method) {
+		if (RESOURCE_ROOT.equals(target)) {
+			return ROOT_METHODS.contains(method) ? RESOURCE_ROOT : null;
+		}
+		if (target.startsWith(RESOURCE_PREFIX) && BY_ID_METHODS.contains(method)
+				&& isId(target, RESOURCE_PREFIX.length())) {
+			return ROUTE_BY_ID;
+		}
+		return null;
+	}
+
+	private static boolean isId(final String target, final int start) {
+		final int length = target.length() - start;
+		if (length < 1 || length > MAX_ID_DIGITS) {
+			return false;
+		}
+		for (int i = start; i < target.length(); i++) {
+			if (target.charAt(i) < '0' || target.charAt(i) > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the request is served from orders of this node as they are, without any of the rules
+	 * applied by Spark filters and {@link TransferOrderController}.
+	 */
+	private boolean isServedHere(final HttpServletRequest request) {
+		return request.getQueryString() == null
+				&& request.getHeader(TENANT_HEADER) == null
+				&& !clusterMembership.isEnabled()
+				&& !lifecycleService.isDraining()
+				&& ("GET".equals(request.getMethod()) || replicationNode.getWriteRedirectUrl().isEmpty());
+	}
+
+	/**
+	 * Reads the request body and starts the operation.
+	 * @param id ID of the order, or null for the requests without ID.
+	 * @return Result of the operation, failed if it has thrown an exception.
+	 */
+	private CompletableFuture<Object> start(final Long id, final HttpServletRequest request,
+			final HttpServletResponse response) {
+		try {
+			// Body is read up front, so reading is not mixed with processing.
+			final byte[] body = request.getInputStream().readAllBytes();
+			RequestTrace.enter(Phase.SERVICE);
+			response.setContentType(APPLICATION_JSON);
+			switch (request.getMethod()) {
+				case "GET":
+					return id == null ? getAll(response) : getSingle(id, response);
+				case "POST":
+					return transferService.newTransferAsync(readOrder(body)).thenApply(created -> {
+						response.setStatus(HttpStatus.CREATED_201);
+						return created;
+					});
+				case "PUT":
+					return transferService.updateTransferAsync(id, readOrder(body)).thenApply(saved -> saved(response, saved));
+				case "PATCH":
+					final String contentType = request.getContentType();
+					final boolean mergePatch = contentType != null && contentType.startsWith(MERGE_PATCH_TYPE);
+					return transferService.patchTransferAsync(id, body, mergePatch).thenApply(saved -> saved(response, saved));
+				case "DELETE":
+					return transferService.deleteTransferAsync(id).thenApply(deleted -> {
+						response.setStatus(deleted ? HttpStatus.NO_CONTENT_204 : HttpStatus.NOT_FOUND_404);
+						return null;
+					});
+				default:
+					throw new IllegalStateException(String.format("Unsupported method: %s", request.getMethod()));
+			}
+		} catch (final Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private CompletableFuture<Object> getAll(final HttpServletResponse response) {
+		return transferService.getTransfersAsync().thenApply(orders -> {
+			response.setStatus(HttpStatus.OK_200);
+			return orders;
+		});
+	}
+
+	private CompletableFuture<Object> getSingle(final Long id, final HttpServletResponse response) {
+		return transferService.getTransferAsync(id).thenApply(order -> {
+			response.setStatus(order.isPresent() ? HttpStatus.OK_200 : HttpStatus.NOT_FOUND_404);
+			return order.orElse(null);
+		});
+	}
+
+	/**
+	 * Serializes result of the completed operation, or responds with 500 if it failed, and ends the request trace.
+	 * @return Response body.
+	 */
+	private byte[] respond(final HttpServletRequest request, final HttpServletResponse response,
+			final RequestTrace trace, final CompletableFuture<Object> result) {
+		try {
+			final Object body = result.join();
+			return body != null ? jsonService.mapToBytes(body) : EMPTY;
+		} catch (final Exception e) {
+			final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+			accessLog.error(request.getMethod(), request.getRequestURL().toString(), cause);
+			response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR_500);
+			return EMPTY;
+		} finally {
+			trace.endHandling();
+			response.setHeader(SERVER_TIMING, trace.toServerTiming());
+		}
+	}
+
+	private static void write(final HttpServletResponse response, final byte[] content) throws IOException {
+		response.setContentLength(content.length);
+		response.getOutputStream().write(content);
+	}
+
+	private @NonNull TransferOrder readOrder(final byte[] body) {
+		final TransferOrder order = jsonService.map(body, TransferOrder.class);
+		if (order == null) {
+			throw new IllegalArgumentException("Order is null.");
+		}
+		return order;
+	}
+
+	private static Object saved(final HttpServletResponse response, final SavedOrder saved) {
+		response.setStatus(saved.isCreated() ? HttpStatus.CREATED_201 : HttpStatus.OK_200);
+		return saved.getOrder();
+	}
+}
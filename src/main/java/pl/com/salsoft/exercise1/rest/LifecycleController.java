@@ -0,0 +1,70 @@
+package pl.com.salsoft.exercise1.rest;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.eclipse.jetty.http.HttpStatus;
+
+import com.google.inject.Inject;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.lifecycle.LifecycleService;
+import pl.com.salsoft.exercise1.service.JsonService;
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+/**
+ * REST controller serving the /lifecycle resources. While the application is shutting down,
+ * it also rejects all new requests with 503 Service Unavailable, so clients retry them elsewhere.
+ */
+public class LifecycleController extends AbstractController {
+	private static final String CONNECTION = "Connection";
+	private static final String CLOSE = "close";
+
+	private final LifecycleService lifecycleService;
+
+	/**
+	 * @param lifecycleService Service managing application lifecycle. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param accessLog Log of requests and request errors. Cannot be null.
+	 */
+	@Inject
+	public LifecycleController(@NonNull final LifecycleService lifecycleService, @NonNull final JsonService jsonService,
+			@NonNull final AccessLog accessLog) {
+		super(jsonService, accessLog);
+		this.lifecycleService = lifecycleService;
+	}
+
+	/**
+	 * Sets up all REST request mappings.
+	 * Should be called at the application start, before other controllers, so the requests
+	 * are rejected before any other filter.
+	 */
+	public void initMapping() {
+		Spark.before(this::rejectWhenDraining);
+		Spark.post(LifecycleService.HANDOFF_RESOURCE, handle(this::handOff));
+	}
+
+	/**
+	 * Hands the store over to the successor process, which must run on the same host.
+	 * The application exits after the answer is sent.
+	 */
+	private Object handOff(final Request request, final Response response) throws UnknownHostException {
+		if (!InetAddress.getByName(request.ip()).isLoopbackAddress()) {
+			response.status(HttpStatus.FORBIDDEN_403);
+			return null;
+		}
+		response.status(HttpStatus.OK_200);
+		return lifecycleService.handOff();
+	}
+
+	private void rejectWhenDraining(final Request request, final Response response) {
+		if (lifecycleService.isDraining()) {
+			// Kept-alive connections are closed, so clients reconnect to the successor.
+			response.header(CONNECTION, CLOSE);
+			Spark.halt(HttpStatus.SERVICE_UNAVAILABLE_503);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package pl.com.salsoft.exercise1.rest;
+
+import java.util.Set;
+
+import org.eclipse.jetty.http.HttpStatus;
+
+import com.google.inject.Inject;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.replication.ReplicationNode;
+import pl.com.salsoft.exercise1.service.JsonService;
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+/**
+ * REST controller serving the /replication resource (replication state of this instance).
+ * It also redirects writes to the /transfer resource to the leader, if this instance is a follower.
+ */
+public class ReplicationController extends AbstractController {
+	private static final String RESOURCE_ROOT = "/replication";
+	private static final String GUARDED_ROOT = "/transfer";
+	private static final String GUARDED_SUBRESOURCES = "/transfer/*";
+	private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+	private final ReplicationNode replicationNode;
+
+	/**
+	 * @param replicationNode Replication role of this instance. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param accessLog Log of requests and request errors. Cannot be null.
+	 */
+	@Inject
+	public ReplicationController(@NonNull final ReplicationNode replicationNode, @NonNull final JsonService jsonService,
+			@NonNull final AccessLog accessLog) {
+		super(jsonService, accessLog);
+		this.replicationNode = replicationNode;
+	}
+
+	/**
+	 * Sets up all REST request mappings.
+	 * Should be called at the application start.
+	 */
+	public void initMapping() {
+		Spark.get(RESOURCE_ROOT, handle(this::get));
+		Spark.before(GUARDED_ROOT, this::redirectWrites);
+		Spark.before(GUARDED_SUBRESOURCES, this::redirectWrites);
+	}
+
+	/**
+	 * Implements GET method from REST.
+	 */
+	private Object get(final Request request, final Response response) {
+		response.status(HttpStatus.OK_200);
+		return replicationNode.getStatus();
+	}
+
+	/**
+	 * Redirects request to the leader, unless it's read-only or this instance accepts writes.
+	 * 307 is used, so clients repeat the request with the same method and body.
+	 */
+	private void redirectWrites(final Request request, final Response response) {
+		if (READ_METHODS.contains(request.requestMethod())) {
+			return;
+		}
+
+		replicationNode.getWriteRedirectUrl().ifPresent(leaderUrl -> {
+			final String query = request.queryString();
+			response.header("Location", leaderUrl + request.pathInfo() + (query == null ? "" : "?" + query));
+			Spark.halt(HttpStatus.TEMPORARY_REDIRECT_307);
+		});
+	}
+}
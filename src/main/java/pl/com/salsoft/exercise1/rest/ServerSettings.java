@@ -0,0 +1,65 @@
+package pl.com.salsoft.exercise1.rest;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Connection settings of the embedded server, applied by {@link AppServerFactory}.
+ */
+@Builder
+@Getter
+public final class ServerSettings {
+	public static final int DEFAULT_MAX_CONNECTIONS = 0;
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30_000L;
+	public static final int DEFAULT_REQUEST_HEADER_SIZE = 8192;
+	public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 256;
+	public static final int DEFAULT_HEADER_TABLE_SIZE = 4096;
+
+	/**
+	 * Engine serving the /transfer resource.
+	 */
+	public enum Engine {
+		/**
+		 * All requests are routed by Spark.
+		 */
+		SPARK,
+		/**
+		 * Common requests for orders are served by a plain Jetty handler, in front of Spark,
+		 * see {@link JettyTransferHandler}. Other requests are still routed by Spark.
+		 */
+		JETTY
+	}
+
+	/**
+	 * Engine serving the /transfer resource.
+	 */
+	@Builder.Default
+	private final Engine engine = Engine.SPARK;
+
+	/**
+	 * Whether cleartext HTTP/2 (h2c) is accepted next to HTTP/1.1, both with prior knowledge
+	 * and with the HTTP/1.1 upgrade.
+	 */
+	private final boolean http2Enabled;
+	/**
+	 * Maximum number of open connections, further connections are not accepted until some are closed.
+	 * 0 for no limit.
+	 */
+	private final int maxConnections;
+	/**
+	 * Time an idle connection (i.e. kept alive between requests) stays open.
+	 */
+	private final long idleTimeoutMillis;
+	/**
+	 * Maximum size of HTTP/1.1 request headers, in bytes.
+	 */
+	private final int requestHeaderSize;
+	/**
+	 * Maximum number of concurrent HTTP/2 streams (requests) on a single connection.
+	 */
+	private final int maxConcurrentStreams;
+	/**
+	 * Size of the HPACK dynamic table the client may use to compress HTTP/2 request headers, in bytes.
+	 */
+	private final int headerTableSize;
+}
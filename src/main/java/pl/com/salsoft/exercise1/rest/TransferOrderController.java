@@ -1,16 +1,46 @@
 package pl.com.salsoft.exercise1.rest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.function.BiFunction;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.eclipse.jetty.http.HttpStatus;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.inject.Inject;
 
 import lombok.NonNull;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.cluster.ClusterClient;
+import pl.com.salsoft.exercise1.cluster.ClusterMembership;
+import pl.com.salsoft.exercise1.cluster.ClusterNode;
+import pl.com.salsoft.exercise1.index.AccountPattern;
 import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.BulkFormat;
+import pl.com.salsoft.exercise1.service.BulkService;
 import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.OrderFilter;
+import pl.com.salsoft.exercise1.service.OrderProjection;
+import pl.com.salsoft.exercise1.service.OrderSort;
+import pl.com.salsoft.exercise1.service.SavedOrder;
+import pl.com.salsoft.exercise1.service.SearchService;
+import pl.com.salsoft.exercise1.service.TimeQuery;
 import pl.com.salsoft.exercise1.service.TransferService;
+import pl.com.salsoft.exercise1.tenant.Tenant;
+import pl.com.salsoft.exercise1.tenant.TenantRegistry;
 import spark.Request;
 import spark.Response;
 import spark.Spark;
@@ -21,62 +51,193 @@ import spark.Spark;
  * It support most of the actions possible. Missing actions are variations
  * of PUT/PATCH/DELETE, where no ID is specified, that is when these actions
  * are supposed to be executed on whole collection.
+ *
+ * In cluster mode, requests for orders owned by other nodes are forwarded to the owner,
+ * and listing gathers orders from all nodes. Search and listing with query parameters
+ * (including filter and fields) are served from orders of the node only.
+ *
+ * Lists of orders can be narrowed to some of their fields with ?fields=id,status, see {@link OrderProjection}.
+ *
+ * Requests of tenants, identified by the X-Tenant header or the /tenants/{tenant} path prefix, are served
+ * from stores of the tenants, within their quotas, see {@link TenantRegistry}. Search, export and import are
+ * served for the default tenant only, and requests of tenants are never forwarded within the cluster.
+ *
+ * Operations on single orders and listing of all orders complete asynchronously, so with a blocking
+ * repository request threads are released while they wait for it, see {@link TransferService}.
  */
 public class TransferOrderController extends AbstractController {
 	private static final String SUPPORTED_ACTIONS = "GET,POST,PUT,DELETE,PATCH,OPTIONS,HEAD";
+	private static final String APPLICATION_JSON = "application/json";
+	private static final String MERGE_PATCH_TYPE = "application/merge-patch+json";
+	private static final String SUPPORTED_PATCH_TYPES = MERGE_PATCH_TYPE + "," + APPLICATION_JSON;
 	private static final String ID = ":id";
 	private static final String RESOURCE_ROOT = "/transfer";
 	private static final String RESOURCE_BY_ID = String.format("%s/%s", RESOURCE_ROOT, ID);
+	private static final String RESOURCE_SEARCH = String.format("%s/search", RESOURCE_ROOT);
+	private static final String RESOURCE_EXPORT = String.format("%s/export", RESOURCE_ROOT);
+	private static final String RESOURCE_IMPORT = String.format("%s/import", RESOURCE_ROOT);
+	private static final String RESOURCE_BATCH = String.format("%s/batch", RESOURCE_ROOT);
+	private static final TypeReference<List<TransferOrder>> ORDER_LIST = new TypeReference<List<TransferOrder>>() {};
+	private static final String TENANT = ":tenant";
+	private static final String TENANT_HEADER = "X-Tenant";
+	private static final String TENANT_ATTRIBUTE = TransferOrderController.class.getName() + ".tenant";
+	private static final String TENANT_RESOURCE_ROOT = String.format("/tenants/%s%s", TENANT, RESOURCE_ROOT);
+	private static final String TENANT_RESOURCE_BY_ID = String.format("%s/%s", TENANT_RESOURCE_ROOT, ID);
+	private static final String RETRY_AFTER = "Retry-After";
+	private static final String RETRY_AFTER_SECONDS = "1";
+	private static final String FORMAT_PARAM = "format";
+	private static final String ACCOUNT_PARAM = "account";
+	private static final String LIMIT_PARAM = "limit";
+	private static final String STATUS_PARAM = "status";
+	private static final String MIN_AMOUNT_PARAM = "minAmount";
+	private static final String MAX_AMOUNT_PARAM = "maxAmount";
+	private static final String SORT_PARAM = "sort";
+	private static final String SORT_AMOUNT_ASCENDING = "amount:asc";
+	private static final String SORT_AMOUNT_DESCENDING = "amount:desc";
+	private static final String FILTER_PARAM = "filter";
+	private static final String FIELDS_PARAM = "fields";
+	private static final String CREATED_AFTER_PARAM = "createdAfter";
+	private static final String CREATED_BEFORE_PARAM = "createdBefore";
+	private static final String UPDATED_AFTER_PARAM = "updatedAfter";
+	private static final String UPDATED_BEFORE_PARAM = "updatedBefore";
+	private static final List<String> TIME_PARAMS = List.of(CREATED_AFTER_PARAM, CREATED_BEFORE_PARAM,
+			UPDATED_AFTER_PARAM, UPDATED_BEFORE_PARAM);
+	private static final List<String> QUERY_PARAMS = List.of(STATUS_PARAM, MIN_AMOUNT_PARAM, MAX_AMOUNT_PARAM,
+			SORT_PARAM, LIMIT_PARAM, CREATED_AFTER_PARAM, CREATED_BEFORE_PARAM, UPDATED_AFTER_PARAM, UPDATED_BEFORE_PARAM);
+	private static final List<String> CONDITION_PARAMS = List.of(STATUS_PARAM, MIN_AMOUNT_PARAM, MAX_AMOUNT_PARAM,
+			CREATED_AFTER_PARAM, CREATED_BEFORE_PARAM, UPDATED_AFTER_PARAM, UPDATED_BEFORE_PARAM);
+	private static final int DEFAULT_LIMIT = 100;
+	private static final int MAX_LIMIT = 1000;
 
-	@Inject
-	private TransferService transferService;
+	private final TransferService transferService;
+	private final SearchService searchService;
+	private final BulkService bulkService;
+	private final JsonService jsonService;
+	private final ClusterMembership clusterMembership;
+	private final ClusterClient clusterClient;
+	private final TenantRegistry tenantRegistry;
 
+	/**
+	 * @param transferService Service managing transfer orders. Cannot be null.
+	 * @param searchService Service searching transfer orders. Cannot be null.
+	 * @param bulkService Service exporting and importing all orders. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param clusterMembership Current cluster members. Cannot be null.
+	 * @param clusterClient Client forwarding requests to other cluster nodes. Cannot be null.
+	 * @param tenantRegistry Tenants other than the default one. Cannot be null.
+	 * @param accessLog Log of requests and request errors. Cannot be null.
+	 */
 	@Inject
-	private JsonService jsonService;
+	public TransferOrderController(@NonNull final TransferService transferService, @NonNull final SearchService searchService,
+			@NonNull final BulkService bulkService, @NonNull final JsonService jsonService,
+			@NonNull final ClusterMembership clusterMembership, @NonNull final ClusterClient clusterClient,
+			@NonNull final TenantRegistry tenantRegistry, @NonNull final AccessLog accessLog) {
+		super(jsonService, accessLog);
+		this.transferService = transferService;
+		this.searchService = searchService;
+		this.bulkService = bulkService;
+		this.jsonService = jsonService;
+		this.clusterMembership = clusterMembership;
+		this.clusterClient = clusterClient;
+		this.tenantRegistry = tenantRegistry;
+	}
 
 	/**
 	 * Sets up all REST request mappings.
 	 * Should be called at the application start.
 	 */
 	public void initMapping() {
-		Spark.get(RESOURCE_ROOT, handle(this::getAll));
-		Spark.get(RESOURCE_BY_ID, handle(this::getSingle));
-		Spark.post(RESOURCE_ROOT, handle(this::post));
-		Spark.put(RESOURCE_BY_ID, handle(this::put));
-		Spark.delete(RESOURCE_BY_ID, handle(this::delete));
-		Spark.patch(RESOURCE_BY_ID, handle(this::patch));
+		Spark.get(RESOURCE_ROOT, handleAsync(tenanted(this::getAll, true)));
+		// Before the mapping by ID, so "search" and "export" are not taken for an ID.
+		Spark.get(RESOURCE_SEARCH, handleAsync(tenanted(completed(this::search), false)));
+		Spark.get(RESOURCE_EXPORT, handleAsync(tenanted(completed(this::export), false)));
+		Spark.get(RESOURCE_BY_ID, handleAsync(tenanted(routedById(this::getSingle), true)));
+		Spark.post(RESOURCE_ROOT, handleAsync(tenanted(this::post, true)));
+		Spark.post(RESOURCE_IMPORT, handleAsync(tenanted(completed(this::importOrders), false)));
+		Spark.post(RESOURCE_BATCH, handleAsync(tenanted(this::postBatch, false)));
+		Spark.put(RESOURCE_BY_ID, handleAsync(tenanted(routedById(this::put), true)));
+		Spark.delete(RESOURCE_BY_ID, handleAsync(tenanted(routedById(this::delete), true)));
+		Spark.patch(RESOURCE_BY_ID, handleAsync(tenanted(routedById(this::patch), true)));
 		Spark.options(RESOURCE_ROOT, handle(this::options));
 		Spark.head(RESOURCE_ROOT, handle(this::head));
+		if (tenantRegistry.isEnabled()) {
+			Spark.get(TENANT_RESOURCE_ROOT, handleAsync(tenanted(this::getAll, true)));
+			Spark.get(TENANT_RESOURCE_BY_ID, handleAsync(tenanted(this::getSingle, true)));
+			Spark.post(TENANT_RESOURCE_ROOT, handleAsync(tenanted(this::post, true)));
+			Spark.put(TENANT_RESOURCE_BY_ID, handleAsync(tenanted(this::put, true)));
+			Spark.delete(TENANT_RESOURCE_BY_ID, handleAsync(tenanted(this::delete, true)));
+			Spark.patch(TENANT_RESOURCE_BY_ID, handleAsync(tenanted(this::patch, true)));
+		}
 	}
 
 	/**
 	 * Implements DELETE method from REST.
 	 */
-	private Object delete(final Request request, final Response response) {
-		final boolean deleted = transferService.deleteTransfer(readId(request));
-		response.status(deleted ? HttpStatus.NO_CONTENT_204 : HttpStatus.NOT_FOUND_404);
-		return null;
+	private CompletableFuture<Object> delete(final Request request, final Response response) {
+		return transferServiceOf(request).deleteTransferAsync(readId(request)).thenApply(deleted -> {
+			response.status(deleted ? HttpStatus.NO_CONTENT_204 : HttpStatus.NOT_FOUND_404);
+			return null;
+		});
 	}
 
 	/**
 	 * Implements GET method from REST, variation without ID.
+	 * With filter expression, or sort expression other than by amount, orders are found by the expressions,
+	 * see {@link #find(Request, Response, OrderProjection)}. With any other query parameter, orders are filtered
+	 * and sorted by amount or time, see {@link #getRange(Request, Response, OrderProjection)}.
 	 */
-	private Object getAll(final Request request, final Response response) {
-		response.status(HttpStatus.OK_200);
-		return transferService.getTransfers();
+	private CompletableFuture<Object> getAll(final Request request, final Response response) {
+		final OrderProjection projection;
+		try {
+			projection = OrderProjection.parse(request.queryParams(FIELDS_PARAM));
+		} catch (final IllegalArgumentException e) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return CompletableFuture.completedFuture(null);
+		}
+		final String sort = request.queryParams(SORT_PARAM);
+		if (request.queryParams(FILTER_PARAM) != null
+				|| sort != null && !SORT_AMOUNT_ASCENDING.equals(sort) && !SORT_AMOUNT_DESCENDING.equals(sort)) {
+			return find(request, response, projection);
+		}
+		if (QUERY_PARAMS.stream().anyMatch(request.queryParams()::contains)) {
+			return CompletableFuture.completedFuture(getRange(request, response, projection));
+		}
+		if (projection != OrderProjection.ALL) {
+			return transferServiceOf(request).getTransfersAsync().thenApply(orders -> {
+				response.status(HttpStatus.OK_200);
+				return projection.of(orders);
+			});
+		}
+		if (isRoutable(request)) {
+			final List<ClusterNode> remoteNodes = clusterMembership.getNodes().stream()
+					.filter(node -> !node.getId().equals(clusterMembership.getSelfId()))
+					.collect(Collectors.toList());
+			return CompletableFuture.completedFuture(clusterClient.scatterGather(remoteNodes, transferService.getTransfers(), response));
+		}
+		return transferServiceOf(request).getTransfersAsync().thenApply(orders -> {
+			response.status(HttpStatus.OK_200);
+			return orders;
+		});
 	}
 
 	/**
 	 * Implements GET method from REST, variation with order ID provided in the path.
 	 */
-	private Object getSingle(final Request request, final Response response) {
-		final var order = transferService.getTransfer(readId(request));
-		if (order.isPresent()) {
-			response.status(HttpStatus.OK_200);
-			return order.orElseThrow();
-		}
-		response.status(HttpStatus.NOT_FOUND_404);
-		return null;
+	private CompletableFuture<Object> getSingle(final Request request, final Response response) {
+		return transferServiceOf(request).getTransferAsync(readId(request)).thenApply(order -> {
+			if (order.isPresent()) {
+				response.status(HttpStatus.OK_200);
+				return order.orElseThrow();
+			}
+
+			// Order might be still in transit from its previous owner, if membership has just changed.
+			final var previousOwner = isRoutable(request) ? clusterMembership.previousRemoteOwnerOf(readId(request)) : Optional.<ClusterNode>empty();
+			if (previousOwner.isPresent()) {
+				return clusterClient.forward(previousOwner.get(), request, response);
+			}
+			response.status(HttpStatus.NOT_FOUND_404);
+			return null;
+		});
 	}
 
 	/**
@@ -92,30 +253,378 @@ public class TransferOrderController extends AbstractController {
 	 */
 	private Object options(final Request request, final Response response) {
 		response.header("Allow", SUPPORTED_ACTIONS);
+		response.header("Accept-Patch", SUPPORTED_PATCH_TYPES);
 		response.status(HttpStatus.OK_200);
 		return null;
 	}
 
 	/**
-	 * Implements PATCH method from REST.
+	 * Implements PATCH method from REST. With application/merge-patch+json content type the body is
+	 * a JSON Merge Patch (RFC 7396), so null removes the field. Otherwise null fields are skipped.
 	 */
-	private Object patch(final Request request, final Response response) {
-		return update(request, response, transferService::updateTransferPartially);
+	private CompletableFuture<Object> patch(final Request request, final Response response) {
+		final var contentType = request.contentType();
+		final boolean mergePatch = contentType != null && contentType.startsWith(MERGE_PATCH_TYPE);
+		if (isOverQuota(request, readId(request))) {
+			response.status(HttpStatus.INSUFFICIENT_STORAGE_507);
+			return CompletableFuture.completedFuture(null);
+		}
+		return transferServiceOf(request).patchTransferAsync(readId(request), request.bodyAsBytes(), mergePatch)
+				.thenApply(saved -> saved(response, saved));
 	}
 
 	/**
 	 * Implements POST method from REST.
 	 */
-	private Object post(final Request request, final Response response) {
-		response.status(HttpStatus.CREATED_201);
-		return transferService.newTransfer(readOrder(request));
+	private CompletableFuture<Object> post(final Request request, final Response response) {
+		final TransferOrder order = readOrder(request);
+		if (isRoutable(request)) {
+			final Optional<ClusterNode> owner = order.getId() != null
+					? clusterMembership.remoteOwnerOf(order.getId())
+					: anyMemberIfNotMember();
+			if (owner.isPresent()) {
+				return CompletableFuture.completedFuture(clusterClient.forward(owner.get(), request, response));
+			}
+		}
+		if (isOverQuota(request, null)) {
+			response.status(HttpStatus.INSUFFICIENT_STORAGE_507);
+			return CompletableFuture.completedFuture(null);
+		}
+		return transferServiceOf(request).newTransferAsync(order).thenApply(created -> {
+			response.status(HttpStatus.CREATED_201);
+			return created;
+		});
+	}
+
+	/**
+	 * Implements creation of many orders in a single request: POST /transfer/batch with a JSON array of orders.
+	 * Responds with the array of created orders, in the order of the request, see {@link TransferService#newTransfers}.
+	 * In cluster mode orders are created on the node serving the request, with IDs it owns. Orders with explicit
+	 * IDs are rejected with 400 there, as owners of their IDs may differ, and a batch is created on a single node.
+	 */
+	private CompletableFuture<Object> postBatch(final Request request, final Response response) {
+		final List<TransferOrder> orders = jsonService.map(request.body(), ORDER_LIST);
+		if (orders == null || orders.contains(null)) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return CompletableFuture.completedFuture(null);
+		}
+		if (isRoutable(request)) {
+			if (orders.stream().anyMatch(order -> order.getId() != null)) {
+				response.status(HttpStatus.BAD_REQUEST_400);
+				return CompletableFuture.completedFuture(null);
+			}
+			final Optional<ClusterNode> owner = anyMemberIfNotMember();
+			if (owner.isPresent()) {
+				return CompletableFuture.completedFuture(clusterClient.forward(owner.get(), request, response));
+			}
+		}
+		return transferService.newTransfersAsync(orders).thenApply(created -> {
+			response.status(HttpStatus.CREATED_201);
+			return created;
+		});
+	}
+
+	/**
+	 * Implements GET method from REST, variation without ID, with expressions: ?filter=&sort=&limit=,
+	 * see {@link OrderFilter} and {@link OrderSort}. Both are optional, orders are sorted by ID by default.
+	 * Expressions are compiled once, and evaluated by the repository while it scans orders.
+	 * Other conditions can't be combined with them, they're given in the filter instead.
+	 */
+	private CompletableFuture<Object> find(final Request request, final Response response, final OrderProjection projection) {
+		final Integer limit = readLimit(request.queryParams(LIMIT_PARAM));
+		if (limit == null || CONDITION_PARAMS.stream().anyMatch(request.queryParams()::contains)) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return CompletableFuture.completedFuture(null);
+		}
+		final CompletableFuture<List<TransferOrder>> found;
+		try {
+			found = transferServiceOf(request).findTransfersAsync(request.queryParams(FILTER_PARAM),
+					request.queryParams(SORT_PARAM), limit);
+		} catch (final IllegalArgumentException e) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return CompletableFuture.completedFuture(null);
+		}
+		return found.thenApply(orders -> {
+			response.status(HttpStatus.OK_200);
+			return projection.of(orders);
+		});
+	}
+
+	/**
+	 * Implements GET method from REST, variation without ID, with query parameters:
+	 * ?status=&minAmount=&maxAmount=&sort=amount:asc|amount:desc&limit=. All of them are optional,
+	 * orders are sorted by amount (ascending by default) and orders without amount are skipped.
+	 * With any of time parameters (ISO-8601 instants, exclusive): createdAfter=&createdBefore=&updatedAfter=&updatedBefore=,
+	 * orders are found by creation time (if its bounds are given) or modification time, oldest first (roughly,
+	 * see {@link SearchService#searchByTime}), and other parameters, except sort, are conditions.
+	 * Found orders are streamed as they are found.
+	 */
+	private Object getRange(final Request request, final Response response, final OrderProjection projection) {
+		if (request.attribute(TENANT_ATTRIBUTE) != null) {
+			response.status(HttpStatus.NOT_IMPLEMENTED_501);
+			return null;
+		}
+		final TimeQuery query;
+		try {
+			query = TimeQuery.builder()
+					.status(readOptional(request.queryParams(STATUS_PARAM), TransferStatus::valueOf))
+					.minAmount(readOptional(request.queryParams(MIN_AMOUNT_PARAM), BigDecimal::new))
+					.maxAmount(readOptional(request.queryParams(MAX_AMOUNT_PARAM), BigDecimal::new))
+					.createdAfter(readOptional(request.queryParams(CREATED_AFTER_PARAM), Instant::parse))
+					.createdBefore(readOptional(request.queryParams(CREATED_BEFORE_PARAM), Instant::parse))
+					.updatedAfter(readOptional(request.queryParams(UPDATED_AFTER_PARAM), Instant::parse))
+					.updatedBefore(readOptional(request.queryParams(UPDATED_BEFORE_PARAM), Instant::parse))
+					.build();
+		} catch (final IllegalArgumentException | DateTimeException e) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return null;
+		}
+		final boolean byTime = TIME_PARAMS.stream().anyMatch(request.queryParams()::contains);
+		final String sort = request.queryParamOrDefault(SORT_PARAM, SORT_AMOUNT_ASCENDING);
+		final Integer limit = readLimit(request.queryParams(LIMIT_PARAM));
+		if (limit == null || !(SORT_AMOUNT_ASCENDING.equals(sort) || SORT_AMOUNT_DESCENDING.equals(sort))
+				|| byTime && request.queryParams(SORT_PARAM) != null) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return null;
+		}
+
+		response.status(HttpStatus.OK_200);
+		try (JsonGenerator generator = jsonService.createGenerator(response.raw().getOutputStream())) {
+			generator.writeStartArray();
+			if (byTime) {
+				searchService.searchByTime(query, limit, writer(generator, projection));
+			} else {
+				searchService.searchByAmount(query.getStatus(), query.getMinAmount(), query.getMaxAmount(),
+						SORT_AMOUNT_DESCENDING.equals(sort), limit, writer(generator, projection));
+			}
+			generator.writeEndArray();
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not write orders.", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Implements search by account number: ?account=pattern&limit=N&fields=, see {@link AccountPattern} for patterns.
+	 * Found orders are streamed as they are found, followed by the flag telling whether all matching orders
+	 * were found: {"orders": [...], "complete": true}.
+	 */
+	private Object search(final Request request, final Response response) {
+		final String account = request.queryParams(ACCOUNT_PARAM);
+		final Integer limit = readLimit(request.queryParams(LIMIT_PARAM));
+		final OrderProjection projection;
+		try {
+			projection = OrderProjection.parse(request.queryParams(FIELDS_PARAM));
+		} catch (final IllegalArgumentException e) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return null;
+		}
+		if (account == null || account.isEmpty() || limit == null) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return null;
+		}
+
+		response.status(HttpStatus.OK_200);
+		try (JsonGenerator generator = jsonService.createGenerator(response.raw().getOutputStream())) {
+			generator.writeStartObject();
+			generator.writeArrayFieldStart("orders");
+			final boolean complete = searchService.searchByAccount(AccountPattern.parse(account), limit, writer(generator, projection));
+			generator.writeEndArray();
+			generator.writeBooleanField("complete", complete);
+			generator.writeEndObject();
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not write search results.", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Implements export of all orders of this node: ?format=ndjson|csv (NDJSON by default), see {@link BulkService}.
+	 * Orders are streamed as they are read.
+	 */
+	private Object export(final Request request, final Response response) {
+		final Optional<BulkFormat> format = BulkFormat.of(request.queryParamOrDefault(FORMAT_PARAM, BulkFormat.NDJSON.getName()));
+		if (format.isEmpty()) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return null;
+		}
+
+		response.status(HttpStatus.OK_200);
+		response.type(format.get().getContentType());
+		try {
+			bulkService.export(response.raw().getOutputStream(), format.get());
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not export orders.", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Implements import of orders to this node, in the format given by Content-Type: application/x-ndjson
+	 * (default) or text/csv, see {@link BulkService}. Responds with the number of imported orders: {"imported": N}.
+	 */
+	private Object importOrders(final Request request, final Response response) throws IOException {
+		final String contentType = request.contentType();
+		final Optional<BulkFormat> format = contentType == null || contentType.startsWith(APPLICATION_JSON)
+				? Optional.of(BulkFormat.NDJSON)
+				: BulkFormat.ofContentType(contentType);
+		if (format.isEmpty()) {
+			response.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE_415);
+			return null;
+		}
+
+		final long imported;
+		try {
+			// Body is already read by the request handling, large files should be imported offline.
+			imported = bulkService.importStream(new ByteArrayInputStream(request.bodyAsBytes()), format.get());
+		} catch (final IllegalArgumentException e) {
+			response.status(HttpStatus.BAD_REQUEST_400);
+			return null;
+		}
+		response.status(HttpStatus.OK_200);
+		return Map.of("imported", imported);
 	}
 
 	/**
 	 * Implements PUT method from REST.
 	 */
-	private Object put(final Request request, final Response response) {
-		return update(request, response, transferService::updateTransfer);
+	private CompletableFuture<Object> put(final Request request, final Response response) {
+		if (isOverQuota(request, readId(request))) {
+			response.status(HttpStatus.INSUFFICIENT_STORAGE_507);
+			return CompletableFuture.completedFuture(null);
+		}
+		return transferServiceOf(request).updateTransferAsync(readId(request), readOrder(request))
+				.thenApply(saved -> saved(response, saved));
+	}
+
+	/**
+	 * Node removed from the cluster can't generate IDs, as it owns none of them.
+	 */
+	private Optional<ClusterNode> anyMemberIfNotMember() {
+		if (clusterMembership.isMember()) {
+			return Optional.empty();
+		}
+		final List<ClusterNode> nodes = clusterMembership.getNodes();
+		return Optional.of(nodes.get(ThreadLocalRandom.current().nextInt(nodes.size())));
+	}
+
+	/**
+	 * @return true if the request should be routed within the cluster, or false if it should be served locally.
+	 */
+	private boolean isRoutable(final Request request) {
+		return clusterMembership.isEnabled() && !clusterClient.isForwarded(request)
+				&& request.attribute(TENANT_ATTRIBUTE) == null;
+	}
+
+	/**
+	 * Wraps handler, so requests of tenants are served from their stores, if they are within quotas of the tenant.
+	 * Requests over the rate limit are rejected with 429, and requests over the limit of concurrent requests
+	 * with 503, both without waiting, so they never hold request threads other tenants could use.
+	 * Request slot of the tenant is taken until the handler completes.
+	 * @param supported false if the handler serves only the default tenant, so requests of others get 501.
+	 */
+	private AsyncRoute tenanted(final AsyncRoute handler, final boolean supported) {
+		return (final Request request, final Response response) -> {
+			final String name = Optional.ofNullable(request.params(TENANT)).orElseGet(() -> request.headers(TENANT_HEADER));
+			if (name == null) {
+				return handler.handle(request, response);
+			}
+			final Optional<Tenant> tenant = tenantRegistry.get(name);
+			if (tenant.isEmpty()) {
+				response.status(HttpStatus.NOT_FOUND_404);
+				return CompletableFuture.completedFuture(null);
+			}
+			if (!supported) {
+				response.status(HttpStatus.NOT_IMPLEMENTED_501);
+				return CompletableFuture.completedFuture(null);
+			}
+			if (!tenant.get().tryAcquireRate()) {
+				response.header(RETRY_AFTER, RETRY_AFTER_SECONDS);
+				response.status(HttpStatus.TOO_MANY_REQUESTS_429);
+				return CompletableFuture.completedFuture(null);
+			}
+			if (!tenant.get().tryEnter()) {
+				response.header(RETRY_AFTER, RETRY_AFTER_SECONDS);
+				response.status(HttpStatus.SERVICE_UNAVAILABLE_503);
+				return CompletableFuture.completedFuture(null);
+			}
+			request.attribute(TENANT_ATTRIBUTE, tenant.get());
+			final CompletableFuture<Object> result;
+			try {
+				result = handler.handle(request, response);
+			} catch (final Exception e) {
+				tenant.get().exit();
+				throw e;
+			}
+			return result.whenComplete((body, error) -> tenant.get().exit());
+		};
+	}
+
+	/**
+	 * @return Service managing orders of the tenant of the request, or of the default tenant.
+	 */
+	private TransferService transferServiceOf(final Request request) {
+		final Tenant tenant = request.attribute(TENANT_ATTRIBUTE);
+		return tenant != null ? tenant.getTransferService() : transferService;
+	}
+
+	/**
+	 * @param id ID of the order to store, or null for a new one.
+	 * @return true if the request would create an order, but its tenant reached the limit of orders.
+	 */
+	private boolean isOverQuota(final Request request, final Long id) {
+		final Tenant tenant = request.attribute(TENANT_ATTRIBUTE);
+		return tenant != null && tenant.isFull() && (id == null || !tenant.getTransferService().doesTransferExist(id));
+	}
+
+	/**
+	 * Wraps handler of the request for single order, so the request is forwarded to the owner of the order,
+	 * if it's not this node.
+	 */
+	private AsyncRoute routedById(final AsyncRoute handler) {
+		return (final Request request, final Response response) -> {
+			final Optional<ClusterNode> owner = isRoutable(request) ? clusterMembership.remoteOwnerOf(readId(request)) : Optional.empty();
+			return owner.isPresent()
+					? CompletableFuture.completedFuture(clusterClient.forward(owner.get(), request, response))
+					: handler.handle(request, response);
+		};
+	}
+
+	/**
+	 * @return Limit of orders found, capped at {@value #MAX_LIMIT}, or null if it's not a positive number.
+	 */
+	private Integer readLimit(final String value) {
+		if (value == null) {
+			return DEFAULT_LIMIT;
+		}
+		try {
+			final int limit = Integer.parseInt(value);
+			return limit > 0 ? Math.min(limit, MAX_LIMIT) : null;
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return Parsed value, or null if the value is null.
+	 * @throws IllegalArgumentException If the value could not be parsed.
+	 * @throws DateTimeException If the time could not be parsed.
+	 */
+	private <T> T readOptional(final String value, final Function<String, T> parser) {
+		return value == null ? null : parser.apply(value);
+	}
+
+	/**
+	 * @return Consumer writing projections of orders with the generator.
+	 */
+	private Consumer<TransferOrder> writer(final JsonGenerator generator, final OrderProjection projection) {
+		return order -> {
+			try {
+				projection.write(generator, order);
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
 	}
 
 	private @NonNull Long readId(final Request request) {
@@ -126,11 +635,8 @@ public class TransferOrderController extends AbstractController {
 		return Optional.ofNullable(jsonService.map(request.body(), TransferOrder.class)).orElseThrow();
 	}
 
-	private Object update(final Request request, final Response response, final BiFunction<Long, TransferOrder, TransferOrder> updateFunction) {
-		final var requestedId = readId(request);
-		final var existed = transferService.doesTransferExist(requestedId);
-		final var order = updateFunction.apply(readId(request), readOrder(request));
-		response.status(existed ? HttpStatus.OK_200 : HttpStatus.CREATED_201);
-		return order;
+	private Object saved(final Response response, final SavedOrder saved) {
+		response.status(saved.isCreated() ? HttpStatus.CREATED_201 : HttpStatus.OK_200);
+		return saved.getOrder();
 	}
 }
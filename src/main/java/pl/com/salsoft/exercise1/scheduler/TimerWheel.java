@@ -0,0 +1,192 @@
+package pl.com.salsoft.exercise1.scheduler;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timer wheel (Varghese &amp; Lauck) of IDs by deadline.
+ *
+ * Time is split into ticks. The lowest level has a slot for each of the next {@value #SLOTS} ticks, and every
+ * higher level has slots {@value #SLOTS} times as long, so 8 levels cover any deadline. An entry is put into
+ * the level of the highest digit (base {@value #SLOTS}) in which its tick differs from the current tick. When
+ * the current tick enters the span of a higher level slot, its entries are cascaded to lower levels, so each
+ * entry is moved at most once per level. Adding and expiring an entry takes constant time, whatever the number
+ * of entries, unlike a priority queue, and runs of ticks with nothing to expire or cascade are skipped.
+ * Slots hold IDs and ticks in primitive arrays, about 16 bytes per entry. Deadlines are rounded up to a tick.
+ *
+ * Entries are never removed before their deadline; the owner should check them when they expire.
+ * It's not thread-safe, it should be owned by a single thread.
+ */
+final class TimerWheel {
+	private static final int SLOT_BITS = 8;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = Long.SIZE / SLOT_BITS;
+
+	private final long tickMillis;
+	private final Slot[][] levels = new Slot[LEVELS][SLOTS];
+	// Entries with deadline before the next tick to expire.
+	private Slot overdue;
+	// Next tick to expire.
+	private long currentTick;
+	private int size;
+
+	/**
+	 * @param tickMillis Length of a tick, the precision of deadlines. Must be positive.
+	 * @param nowMillis Current time (epoch milliseconds).
+	 */
+	TimerWheel(final long tickMillis, final long nowMillis) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException(String.format("Tick length must be positive: %d", tickMillis));
+		}
+		this.tickMillis = tickMillis;
+		this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+	}
+
+	/**
+	 * Adds an entry. Entries with a deadline in the past expire at the next {@link #advance(long, LongConsumer)}.
+	 * @param id ID to expire.
+	 * @param deadlineMillis Deadline (epoch milliseconds).
+	 */
+	void add(final long id, final long deadlineMillis) {
+		// Rounded up, so entries never expire before their deadline.
+		final long tick = Math.floorDiv(deadlineMillis, tickMillis) + (Math.floorMod(deadlineMillis, tickMillis) == 0 ? 0 : 1);
+		if (tick < currentTick) {
+			if (overdue == null) {
+				overdue = new Slot();
+			}
+			overdue.add(id, tick);
+		} else {
+			place(id, tick);
+		}
+		size++;
+	}
+
+	/**
+	 * Expires all entries with deadline up to given time, in order of their ticks.
+	 * @param nowMillis Current time (epoch milliseconds).
+	 * @param consumer Receives IDs of expired entries.
+	 * @return Number of expired entries.
+	 */
+	int advance(final long nowMillis, final LongConsumer consumer) {
+		final long targetTick = Math.floorDiv(nowMillis, tickMillis);
+		int expired = 0;
+		if (overdue != null) {
+			expired += expire(overdue, consumer);
+			overdue = null;
+		}
+		while (currentTick <= targetTick) {
+			// Ticks with nothing to expire or cascade are skipped.
+			final long nextTick = nextBusyTick();
+			if (nextTick > targetTick) {
+				currentTick = targetTick + 1;
+				break;
+			}
+			currentTick = nextTick;
+			cascade();
+			final int index = (int) currentTick & SLOT_MASK;
+			final Slot due = levels[0][index];
+			if (due != null) {
+				levels[0][index] = null;
+				expired += expire(due, consumer);
+			}
+			currentTick++;
+		}
+		return expired;
+	}
+
+	private int expire(final Slot slot, final LongConsumer consumer) {
+		for (int i = 0; i < slot.size; i++) {
+			consumer.accept(slot.ids[i]);
+		}
+		size -= slot.size;
+		return slot.size;
+	}
+
+	/**
+	 * @return Number of entries not expired yet.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Moves entries of higher level slots starting at the current tick to lower levels, highest level first,
+	 * so entries cascade through several levels within the same tick.
+	 */
+	private void cascade() {
+		for (int level = LEVELS - 1; level > 0; level--) {
+			final int shift = level * SLOT_BITS;
+			if ((currentTick & ((1L << shift) - 1)) != 0) {
+				continue;
+			}
+			final int index = (int) (currentTick >>> shift) & SLOT_MASK;
+			final Slot slot = levels[level][index];
+			if (slot != null) {
+				levels[level][index] = null;
+				for (int i = 0; i < slot.size; i++) {
+					place(slot.ids[i], slot.ticks[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the first tick, starting at the current one, at which a non-empty slot expires or cascades.
+	 * Slots of every level past the current tick are in order, so the first non-empty one of the lowest level
+	 * is the answer, and next levels only matter once the current block of a level is empty.
+	 * @return The tick, or {@link Long#MAX_VALUE} if the wheel is empty.
+	 */
+	private long nextBusyTick() {
+		if (size == 0) {
+			return Long.MAX_VALUE;
+		}
+		long tick = currentTick;
+		for (int level = 0; level < LEVELS; level++) {
+			final int shift = level * SLOT_BITS;
+			for (int index = (int) (tick >>> shift) & SLOT_MASK; index < SLOTS; index++) {
+				if (levels[level][index] != null) {
+					return (tick & ~((long) SLOT_MASK << shift)) | ((long) index << shift);
+				}
+			}
+			if (level == LEVELS - 1) {
+				break;
+			}
+			// First tick at which the level above cascades: the current one, if it starts a block of that level,
+			// or the start of the next block otherwise.
+			final long blockMask = (1L << (shift + SLOT_BITS)) - 1;
+			tick = (tick + blockMask) & ~blockMask;
+		}
+		return Long.MAX_VALUE;
+	}
+
+	private void place(final long id, final long tick) {
+		final long difference = tick ^ currentTick;
+		final int level = difference == 0 ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(difference)) / SLOT_BITS;
+		final int index = (int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK;
+		Slot slot = levels[level][index];
+		if (slot == null) {
+			slot = new Slot();
+			levels[level][index] = slot;
+		}
+		slot.add(id, tick);
+	}
+
+	private static final class Slot {
+		private static final int INITIAL_CAPACITY = 4;
+
+		private long[] ids = new long[INITIAL_CAPACITY];
+		private long[] ticks = new long[INITIAL_CAPACITY];
+		private int size;
+
+		private void add(final long id, final long tick) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				ticks = Arrays.copyOf(ticks, size * 2);
+			}
+			ids[size] = id;
+			ticks[size] = tick;
+			size++;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package pl.com.salsoft.exercise1.scheduler;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.OrderMutationListener;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Promotes {@link TransferStatus#SCHEDULED} orders to {@link TransferStatus#PLANNED} once their execution time comes.
+ *
+ * Scheduled orders are tracked as a mutation listener of the repository, which only queues them, as it's called
+ * within modifications. A background task moves queued orders to a {@link TimerWheel} every tick, expires due ones
+ * and promotes them in batches. Every promotion is a conditional update, done only if the order is still scheduled
+ * and due, so orders deleted, rescheduled or promoted otherwise in the meantime are left alone, and the wheel
+ * doesn't need to remove anything. A rescheduled order is tracked again with its new execution time.
+ *
+ * The schedule is not stored on its own: it's rebuilt from the stored orders when the scheduler is attached to the
+ * repository, so it survives a restart whenever the orders do. Orders due while the application was down are
+ * promoted at the first tick.
+ */
+public class TransferScheduler implements OrderMutationListener {
+	public static final long DEFAULT_TICK_MILLIS = 100L;
+	public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private final TransferOrderDao transferOrderDao;
+	private final Clock clock;
+	private final long tickMillis;
+	private final long[] batch;
+	private final boolean enabled;
+	private final Queue<Schedule> queued = new ConcurrentLinkedQueue<>();
+	private final TimerWheel wheel;
+	private int batchLength;
+
+	/**
+	 * @param transferOrderDao Storage of transfer orders. Cannot be null.
+	 * @param clock Clock execution times are compared with. Cannot be null.
+	 * @param tickMillis Time (in milliseconds) between runs of the background task, and precision of execution times.
+	 * Must be positive.
+	 * @param batchSize Maximum number of orders promoted at once. Must be positive.
+	 * @param enabled false to ignore scheduled orders, i.e. on read-only replicas, where promotions come from the leader.
+	 */
+	public TransferScheduler(@NonNull final TransferOrderDao transferOrderDao, @NonNull final Clock clock,
+			final long tickMillis, final int batchSize, final boolean enabled) {
+		if (tickMillis <= 0 || batchSize <= 0) {
+			throw new IllegalArgumentException("Scheduler tick and batch size must be positive.");
+		}
+		this.transferOrderDao = transferOrderDao;
+		this.clock = clock;
+		this.tickMillis = tickMillis;
+		this.batch = new long[batchSize];
+		this.enabled = enabled;
+		this.wheel = new TimerWheel(tickMillis, clock.millis());
+	}
+
+	@Override
+	public void onPersist(final TransferOrder previous, final TransferOrder order) {
+		// Orders modified without a change of their schedule are tracked already.
+		if (previous == null || previous.getStatus() != TransferStatus.SCHEDULED
+				|| !Objects.equals(previous.getExecuteAt(), order.getExecuteAt())) {
+			schedule(order);
+		}
+	}
+
+	@Override
+	public void onDelete(final TransferOrder previous) {
+		// Left in the wheel, it won't be found when it expires.
+	}
+
+	/**
+	 * Tracks the order, if it's scheduled.
+	 * @param order Stored order. Cannot be null.
+	 */
+	public void schedule(@NonNull final TransferOrder order) {
+		if (enabled && order.getStatus() == TransferStatus.SCHEDULED) {
+			// Scheduled order without execution time is due right away.
+			queued.add(new Schedule(order.getId(),
+					order.getExecuteAt() != null ? order.getExecuteAt().toEpochMilli() : Long.MIN_VALUE));
+		}
+	}
+
+	/**
+	 * Starts the background task promoting due orders, unless the scheduler is disabled.
+	 */
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "transfer-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::promoteQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Promotes all scheduled orders due by now. It's called periodically in the background,
+	 * calling it directly is only needed in tests.
+	 * @return Number of orders promoted.
+	 */
+	public synchronized int promoteDue() {
+		for (Schedule schedule = queued.poll(); schedule != null; schedule = queued.poll()) {
+			wheel.add(schedule.id, schedule.executeAt);
+		}
+		final long now = clock.millis();
+		final int[] promoted = new int[1];
+		wheel.advance(now, id -> {
+			batch[batchLength++] = id;
+			if (batchLength == batch.length) {
+				promoted[0] += promoteBatch(now);
+			}
+		});
+		return promoted[0] + promoteBatch(now);
+	}
+
+	/**
+	 * @return Number of tracked orders, including ones deleted or rescheduled since they were tracked.
+	 */
+	public synchronized int getTracked() {
+		return wheel.size() + queued.size();
+	}
+
+	private int promoteBatch(final long now) {
+		final Instant time = Instant.ofEpochMilli(now);
+		int promoted = 0;
+		for (int i = 0; i < batchLength; i++) {
+			if (transferOrderDao.updateIf(batch[i], order -> isDue(order, now), order -> order.toBuilder()
+					.status(TransferStatus.PLANNED)
+					.updatedAt(time)
+					.build())) {
+				promoted++;
+			}
+		}
+		batchLength = 0;
+		return promoted;
+	}
+
+	private static boolean isDue(final TransferOrder order, final long now) {
+		return order.getStatus() == TransferStatus.SCHEDULED
+				&& (order.getExecuteAt() == null || order.getExecuteAt().toEpochMilli() <= now);
+	}
+
+	private void promoteQuietly() {
+		try {
+			final int promoted = promoteDue();
+			if (promoted > 0) {
+				log.debug("Promoted {} scheduled orders", promoted);
+			}
+		} catch (final RuntimeException e) {
+			log.error("Promoting scheduled orders failed, will retry: {}", e.getMessage());
+		}
+	}
+
+	private static final class Schedule {
+		private final long id;
+		private final long executeAt;
+
+		private Schedule(final long id, final long executeAt) {
+			this.id = id;
+			this.executeAt = executeAt;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import lombok.Getter;
+
+/**
+ * Line-based formats of bulk export and import, see {@link BulkService}.
+ */
+public enum BulkFormat {
+	/**
+	 * Newline delimited JSON: one order per line, in the same form as returned by the REST API.
+	 */
+	NDJSON("ndjson", "application/x-ndjson"),
+	/**
+	 * Comma separated values with a header line, see {@link OrderCsv}.
+	 */
+	CSV("csv", "text/csv");
+
+	@Getter
+	private final String name;
+	@Getter
+	private final String contentType;
+
+	BulkFormat(final String name, final String contentType) {
+		this.name = name;
+		this.contentType = contentType;
+	}
+
+	/**
+	 * @param name Name of the format (case insensitive), i.e. "csv", or null.
+	 * @return Format of given name, or empty Optional if there's no such format.
+	 */
+	public static Optional<BulkFormat> of(final String name) {
+		return Arrays.stream(values())
+				.filter(format -> format.name.equalsIgnoreCase(name))
+				.findFirst();
+	}
+
+	/**
+	 * @param contentType Content type (with optional parameters, i.e. "text/csv; charset=UTF-8"), or null.
+	 * @return Format of given content type, or empty Optional if there's no such format.
+	 */
+	public static Optional<BulkFormat> ofContentType(final String contentType) {
+		if (contentType == null) {
+			return Optional.empty();
+		}
+		final int parameters = contentType.indexOf(';');
+		final String type = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim();
+		return Arrays.stream(values())
+				.filter(format -> format.contentType.equalsIgnoreCase(type))
+				.findFirst();
+	}
+}
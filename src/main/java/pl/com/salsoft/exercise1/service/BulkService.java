@@ -0,0 +1,332 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Bulk export and import of all orders, in NDJSON or CSV format (see {@link BulkFormat}), for reconciliation
+ * and recovery, where going through the REST API order by order is too slow.
+ *
+ * Export streams orders as they are read from the repository, so it takes constant memory.
+ *
+ * Import parses lines in parallel, in a fork-join pool, and saves every chunk of parsed orders with
+ * {@link TransferOrderDao#persistAll}. Orders keep their IDs and timestamps, existing orders with the same IDs
+ * are replaced, and the ID sequence is advanced past imported IDs. A file is split into chunks of about
+ * {@value #CHUNK_BYTES} bytes at line breaks, and each chunk is memory-mapped and parsed on its own.
+ * A stream is read sequentially in batches of {@value #BATCH_LINES} lines, with a bounded number of batches
+ * being parsed at once. Import is not atomic: if a line is invalid, orders of other chunks may be saved already.
+ * Importing the same data again is safe though, as IDs are kept.
+ */
+public class BulkService {
+	public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+	private static final int CHUNK_BYTES = 4 << 20;
+	private static final int BATCH_LINES = 10_000;
+	private static final int SCAN_BUFFER_BYTES = 8192;
+
+	private final TransferOrderDao transferOrderDao;
+	private final JsonService jsonService;
+	private final ForkJoinPool pool;
+
+	/**
+	 * @param transferOrderDao Storage of transfer orders. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param parallelism Number of threads parsing and saving imported orders. Must be positive.
+	 */
+	public BulkService(@NonNull final TransferOrderDao transferOrderDao, @NonNull final JsonService jsonService,
+			final int parallelism) {
+		this.transferOrderDao = transferOrderDao;
+		this.jsonService = jsonService;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Writes all orders to the stream, one per line. CSV starts with the {@link OrderCsv#HEADER} line.
+	 * The stream is flushed, but not closed.
+	 * @param output Stream to write to. Cannot be null.
+	 * @param format Format of the orders. Cannot be null.
+	 * @return Number of orders written.
+	 * @throws UncheckedIOException If the orders could not be written.
+	 */
+	public long export(@NonNull final OutputStream output, @NonNull final BulkFormat format) {
+		final AtomicLong exported = new AtomicLong();
+		try {
+			if (format == BulkFormat.CSV) {
+				final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+				writer.write(OrderCsv.HEADER);
+				writer.write('\n');
+				transferOrderDao.forEach(order -> {
+					write(writer, OrderCsv.format(order));
+					exported.incrementAndGet();
+				});
+				writer.flush();
+			} else {
+				try (JsonGenerator generator = jsonService.createGenerator(output)) {
+					// Lines are separated explicitly, instead of the default space between root values.
+					generator.setRootValueSeparator(null);
+					transferOrderDao.forEach(order -> {
+						writeLine(generator, order);
+						exported.incrementAndGet();
+					});
+				}
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not export orders.", e);
+		}
+		return exported.get();
+	}
+
+	/**
+	 * Imports orders from a file, parsing chunks of the file in parallel.
+	 * @param file File with one order per line. Cannot be null. Empty lines and CSV header lines are skipped.
+	 * @param format Format of the orders. Cannot be null.
+	 * @return Number of orders imported.
+	 * @throws IOException If the file could not be read.
+	 * @throws InvalidLineException If any line is not a valid order, or an order has no ID.
+	 */
+	public long importFile(@NonNull final Path file, @NonNull final BulkFormat format) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final List<Long> bounds = chunkBounds(channel);
+			if (bounds.size() < 2) {
+				return 0;
+			}
+			return pool.invoke(new ImportChunks(channel, bounds, 0, bounds.size() - 1, format));
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Imports orders from a stream, parsing batches of lines in parallel while next ones are read.
+	 * @param input Stream with one order per line. Cannot be null. Empty lines and CSV header lines are skipped.
+	 * The stream is not closed.
+	 * @param format Format of the orders. Cannot be null.
+	 * @return Number of orders imported.
+	 * @throws IOException If the stream could not be read.
+	 * @throws InvalidLineException If any line is not a valid order, or an order has no ID.
+	 */
+	public long importStream(@NonNull final InputStream input, @NonNull final BulkFormat format) throws IOException {
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		// Bounded, so memory use doesn't depend on the size of the input.
+		final Deque<ForkJoinTask<Long>> inFlight = new ArrayDeque<>();
+		long imported = 0;
+		long lineNumber = 0;
+		List<String> batch = new ArrayList<>(BATCH_LINES);
+		String line;
+		while ((line = reader.readLine()) != null) {
+			batch.add(line);
+			lineNumber++;
+			if (batch.size() == BATCH_LINES) {
+				inFlight.add(submit(batch, lineNumber - batch.size() + 1, format));
+				batch = new ArrayList<>(BATCH_LINES);
+				if (inFlight.size() > 2 * pool.getParallelism()) {
+					imported += inFlight.removeFirst().join();
+				}
+			}
+		}
+		inFlight.add(submit(batch, lineNumber - batch.size() + 1, format));
+		while (!inFlight.isEmpty()) {
+			imported += inFlight.removeFirst().join();
+		}
+		return imported;
+	}
+
+	private ForkJoinTask<Long> submit(final List<String> lines, final long firstLine, final BulkFormat format) {
+		return pool.submit(() -> load(lines, format, index -> String.format("line %d", firstLine + index)));
+	}
+
+	/**
+	 * Parses lines and saves parsed orders.
+	 * @param location Describes location of the line with given index, for error messages.
+	 * @return Number of orders saved.
+	 */
+	private long load(final List<String> lines, final BulkFormat format, final IntFunction<String> location) {
+		final List<TransferOrder> orders = new ArrayList<>(lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			final String line = lines.get(i);
+			if (line.isBlank() || format == BulkFormat.CSV && OrderCsv.isHeader(line)) {
+				continue;
+			}
+			try {
+				final TransferOrder order = format == BulkFormat.CSV
+						? OrderCsv.parse(line)
+						: jsonService.map(line, TransferOrder.class);
+				if (order.getId() == null) {
+					throw new IllegalArgumentException("Order has no ID");
+				}
+				orders.add(order);
+			} catch (final IllegalArgumentException e) {
+				throw new InvalidLineException(String.format("Invalid order at %s: %s", location.apply(i),
+						e.getMessage()), e);
+			}
+		}
+		transferOrderDao.persistAll(orders);
+		return orders.size();
+	}
+
+	/**
+	 * @return Offsets of chunks of the file: every chunk starts at the beginning of a line
+	 * and ends at the end of a line, the last one at the end of the file.
+	 */
+	private static List<Long> chunkBounds(final FileChannel channel) throws IOException {
+		final long size = channel.size();
+		final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+		final List<Long> bounds = new ArrayList<>();
+		long position = 0;
+		bounds.add(position);
+		while (position < size) {
+			position = position + CHUNK_BYTES >= size ? size : nextLineStart(channel, position + CHUNK_BYTES, buffer);
+			bounds.add(position);
+		}
+		return bounds;
+	}
+
+	private static long nextLineStart(final FileChannel channel, long position, final ByteBuffer buffer)
+			throws IOException {
+		while (true) {
+			buffer.clear();
+			final int read = channel.read(buffer, position);
+			if (read < 0) {
+				return channel.size();
+			}
+			for (int i = 0; i < read; i++) {
+				// Safe in UTF-8, where bytes of multibyte characters are never ASCII.
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+	}
+
+	private static List<String> lines(final CharBuffer chars) {
+		final List<String> lines = new ArrayList<>();
+		int start = 0;
+		for (int i = 0; i < chars.length(); i++) {
+			if (chars.charAt(i) == '\n') {
+				lines.add(line(chars, start, i));
+				start = i + 1;
+			}
+		}
+		if (start < chars.length()) {
+			lines.add(line(chars, start, chars.length()));
+		}
+		return lines;
+	}
+
+	private static String line(final CharBuffer chars, final int start, final int end) {
+		final int trimmedEnd = end > start && chars.charAt(end - 1) == '\r' ? end - 1 : end;
+		return chars.subSequence(start, trimmedEnd).toString();
+	}
+
+	private static void write(final Writer writer, final String line) {
+		try {
+			writer.write(line);
+			writer.write('\n');
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeLine(final JsonGenerator generator, final TransferOrder order) {
+		try {
+			generator.writeObject(order);
+			generator.writeRaw('\n');
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Invalid line of imported data. Has no constructor taking just the cause, so the fork-join pool rethrows
+	 * it as it is, instead of wrapping it in a new exception of the same type.
+	 */
+	public static class InvalidLineException extends IllegalArgumentException {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * @param message Description of the problem, with location of the line.
+		 * @param cause Parsing error.
+		 */
+		public InvalidLineException(final String message, final Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	/**
+	 * Imports chunks of a file, splitting the range of chunks in halves until a single chunk is left.
+	 */
+	private final class ImportChunks extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient FileChannel channel;
+		private final List<Long> bounds;
+		private final int from;
+		private final int to;
+		private final BulkFormat format;
+
+		/**
+		 * Imports chunks from (inclusive) to (exclusive), as indexes of their starts in the bounds.
+		 */
+		private ImportChunks(final FileChannel channel, final List<Long> bounds, final int from, final int to,
+				final BulkFormat format) {
+			this.channel = channel;
+			this.bounds = bounds;
+			this.from = from;
+			this.to = to;
+			this.format = format;
+		}
+
+		@Override
+		protected Long compute() {
+			if (to - from == 1) {
+				return importChunk();
+			}
+			final int middle = (from + to) >>> 1;
+			final ImportChunks left = new ImportChunks(channel, bounds, from, middle, format);
+			final ImportChunks right = new ImportChunks(channel, bounds, middle, to, format);
+			invokeAll(left, right);
+			return left.join() + right.join();
+		}
+
+		private long importChunk() {
+			final long start = bounds.get(from);
+			final CharBuffer chars;
+			try {
+				chars = StandardCharsets.UTF_8.decode(channel.map(FileChannel.MapMode.READ_ONLY, start,
+						bounds.get(to) - start));
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return load(lines(chars), format, index -> String.format("line %d of the chunk at byte %d", index + 1, start));
+		}
+	}
+}
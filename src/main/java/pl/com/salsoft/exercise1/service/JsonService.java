@@ -1,11 +1,22 @@
 package pl.com.salsoft.exercise1.service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import lombok.NonNull;
+import pl.com.salsoft.exercise1.tracing.JsonEvent;
+import pl.com.salsoft.exercise1.tracing.RequestTrace;
+import pl.com.salsoft.exercise1.tracing.RequestTrace.Phase;
 
 /**
  * A wrapper around Jackson's ObjectMapper, so the API is a bit simpler.
@@ -17,9 +28,14 @@ import lombok.NonNull;
  *
  * This is desired behavior for purpose of this application. In other applications having checked exception
  * maybe more useful, as serialization/deserialization problems could be handled early, but not in this case.
+ *
+ * Time spent in mapping is recorded as a phase of the request being handled, see {@link RequestTrace}.
  */
 public class JsonService {
-	private final ObjectMapper mapper = new ObjectMapper();
+	// Timestamps are written in ISO-8601 format, i.e. 2026-10-19T10:15:30.123Z.
+	private final ObjectMapper mapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
 	/**
 	 * Serializes given object to JSON representation.
@@ -28,10 +44,38 @@ public class JsonService {
 	 * @throws IllegalArgumentException if given object could not be serialized to String.
 	 */
 	public @NonNull String map(final Object object) {
+		final JsonEvent event = JsonEvent.start(true);
+		final Phase previous = RequestTrace.enter(Phase.SERIALIZE);
+		String json = null;
+		try {
+			json = mapper.writeValueAsString(object);
+			return json;
+		} catch (final JsonProcessingException e) {
+			throw new IllegalArgumentException("Could not serialize input object to JSON.", e);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit(object != null ? object.getClass() : null, json != null ? json.length() : 0L);
+		}
+	}
+
+	/**
+	 * Serializes given object to JSON representation encoded in UTF-8, without building a String first.
+	 * @param object Object to serialize.
+	 * @return JSON representation of the object. Never null.
+	 * @throws IllegalArgumentException if given object could not be serialized.
+	 */
+	public @NonNull byte[] mapToBytes(final Object object) {
+		final JsonEvent event = JsonEvent.start(true);
+		final Phase previous = RequestTrace.enter(Phase.SERIALIZE);
+		byte[] json = null;
 		try {
-			return mapper.writeValueAsString(object);
+			json = mapper.writeValueAsBytes(object);
+			return json;
 		} catch (final JsonProcessingException e) {
 			throw new IllegalArgumentException("Could not serialize input object to JSON.", e);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit(object != null ? object.getClass() : null, json != null ? json.length : 0L);
 		}
 	}
 
@@ -43,10 +87,102 @@ public class JsonService {
 	 * @throws IllegalArgumentException if given JSON could not be deserialized to object of given class.
 	 */
 	public <T> @NonNull T map(@NonNull final String json, final Class<T> cls) {
+		final JsonEvent event = JsonEvent.start(false);
+		final Phase previous = RequestTrace.enter(Phase.DESERIALIZE);
 		try {
 			return mapper.readValue(json, cls);
 		} catch (final IOException e) {
 			throw new IllegalArgumentException("Could not deserialize input JSON object.", e);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit(cls, json.length());
+		}
+	}
+
+	/**
+	 * Deserializes JSON encoded in UTF-8 to object of given class, without decoding it to a String first.
+	 * @param json JSON bytes representing object to be deserialized. Cannot be null.
+	 * @param cls Target class to deserialize into. The class has to provide setters or @JsonConstructor.
+	 * @return Deserialized object, or null if the JSON is null.
+	 * @throws IllegalArgumentException if given JSON could not be deserialized to object of given class.
+	 */
+	public <T> T map(@NonNull final byte[] json, final Class<T> cls) {
+		final JsonEvent event = JsonEvent.start(false);
+		final Phase previous = RequestTrace.enter(Phase.DESERIALIZE);
+		try {
+			return mapper.readValue(json, cls);
+		} catch (final IOException e) {
+			throw new IllegalArgumentException("Could not deserialize input JSON object.", e);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit(cls, json.length);
+		}
+	}
+
+	/**
+	 * Deserializes JSON to object of given generic type, such as a list of objects.
+	 * @param json JSON string representing object to be deserialized.
+	 * @param type Target type to deserialize into.
+	 * @return Deserialized object. Never null.
+	 * @throws IllegalArgumentException if given JSON could not be deserialized to object of given type.
+	 */
+	public <T> @NonNull T map(@NonNull final String json, final TypeReference<T> type) {
+		final JsonEvent event = JsonEvent.start(false);
+		final Phase previous = RequestTrace.enter(Phase.DESERIALIZE);
+		try {
+			return mapper.readValue(json, type);
+		} catch (final IOException e) {
+			throw new IllegalArgumentException("Could not deserialize input JSON object.", e);
+		} finally {
+			RequestTrace.exit(previous);
+			event.commit(type.getType(), json.length());
+		}
+	}
+
+	/**
+	 * Creates streaming JSON writer, for output too big to be built as a String.
+	 * Objects written with JsonGenerator#writeObject are serialized the same way as with {@link #map(Object)}.
+	 * Closing the generator doesn't close the output stream.
+	 * @param output Stream to write JSON to. Cannot be null.
+	 * @return Generator writing to the stream.
+	 * @throws UncheckedIOException if generator could not be created.
+	 */
+	public @NonNull JsonGenerator createGenerator(@NonNull final OutputStream output) {
+		try {
+			return mapper.getFactory()
+					.createGenerator(output)
+					.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not create JSON generator.", e);
+		}
+	}
+
+	/**
+	 * Creates streaming JSON reader, for input too big to be read as a String.
+	 * Closing the parser closes the input stream.
+	 * @param input Stream to read JSON from. Cannot be null.
+	 * @return Parser reading from the stream.
+	 * @throws UncheckedIOException if parser could not be created.
+	 */
+	public @NonNull JsonParser createParser(@NonNull final InputStream input) {
+		try {
+			return mapper.getFactory().createParser(input);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not create JSON parser.", e);
+		}
+	}
+
+	/**
+	 * Creates streaming JSON reader over given bytes, so the input doesn't have to be decoded to a String first.
+	 * @param input JSON to read. Cannot be null.
+	 * @return Parser reading the bytes.
+	 * @throws UncheckedIOException if parser could not be created.
+	 */
+	public @NonNull JsonParser createParser(@NonNull final byte[] input) {
+		try {
+			return mapper.getFactory().createParser(input);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not create JSON parser.", e);
 		}
 	}
 }
@@ -0,0 +1,138 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * CSV form of transfer orders, one order per line, with columns as in {@link #HEADER}.
+ *
+ * Missing values are empty fields. Fields containing a comma, a quote or a line break are quoted (RFC 4180).
+ * {@link #parse(String)} takes a whole record, so a quoted line break is parsed back, but bulk import reads
+ * the input line by line and rejects such an order as an unterminated field. Amounts are written in plain notation and timestamps
+ * in ISO-8601 format, so the values are the same as in JSON. Lines without the last column (executeAt),
+ * as exported before orders could be scheduled, are accepted as well.
+ */
+public final class OrderCsv {
+	/**
+	 * Header line, naming the columns.
+	 */
+	public static final String HEADER = "id,sourceAccount,targetAccount,amount,status,createdAt,updatedAt,executeAt";
+
+	private static final int COLUMNS = 8;
+	private static final String HEADER_START = "id,";
+
+	private OrderCsv() {
+	}
+
+	/**
+	 * @param order Order to format. Cannot be null.
+	 * @return CSV line of the order, without terminating line break. Quoted fields may contain line breaks.
+	 */
+	public static String format(@NonNull final TransferOrder order) {
+		final StringBuilder line = new StringBuilder(96);
+		append(line, order.getId()).append(',');
+		appendQuoted(line, order.getSourceAccount()).append(',');
+		appendQuoted(line, order.getTargetAccount()).append(',');
+		append(line, order.getAmount() == null ? null : order.getAmount().toPlainString()).append(',');
+		append(line, order.getStatus()).append(',');
+		append(line, order.getCreatedAt()).append(',');
+		append(line, order.getUpdatedAt()).append(',');
+		append(line, order.getExecuteAt());
+		return line.toString();
+	}
+
+	/**
+	 * @param line CSV line, without line break. Cannot be null.
+	 * @return true if it's a header line, of the current or of a previous set of columns.
+	 */
+	public static boolean isHeader(@NonNull final String line) {
+		// Order line starts with a number or an empty ID.
+		return line.startsWith(HEADER_START);
+	}
+
+	/**
+	 * @param line CSV line of an order, without terminating line break. Cannot be null.
+	 * @return Parsed order.
+	 * @throws IllegalArgumentException If the line is not a valid order.
+	 */
+	public static TransferOrder parse(@NonNull final String line) {
+		final List<String> fields = split(line);
+		if (fields.size() != COLUMNS && fields.size() != COLUMNS - 1) {
+			throw new IllegalArgumentException(String.format("Expected %d fields, but found %d", COLUMNS, fields.size()));
+		}
+		try {
+			return TransferOrder.builder()
+					.id(fields.get(0) == null ? null : Long.valueOf(fields.get(0)))
+					.sourceAccount(fields.get(1))
+					.targetAccount(fields.get(2))
+					.amount(fields.get(3) == null ? null : new BigDecimal(fields.get(3)))
+					.status(fields.get(4) == null ? null : TransferStatus.valueOf(fields.get(4)))
+					.createdAt(fields.get(5) == null ? null : Instant.parse(fields.get(5)))
+					.updatedAt(fields.get(6) == null ? null : Instant.parse(fields.get(6)))
+					.executeAt(fields.size() < COLUMNS || fields.get(7) == null ? null : Instant.parse(fields.get(7)))
+					.build();
+		} catch (final RuntimeException e) {
+			// Number and time parsing errors, values out of the supported range
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	private static StringBuilder append(final StringBuilder line, final Object value) {
+		return value == null ? line : line.append(value);
+	}
+
+	private static StringBuilder appendQuoted(final StringBuilder line, final String value) {
+		if (value == null) {
+			return line;
+		}
+		// Empty value is quoted, so it's not taken for a missing one.
+		if (!value.isEmpty() && value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+				&& value.indexOf('\r') < 0) {
+			return line.append(value);
+		}
+		return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+	}
+
+	/**
+	 * @return Fields of the line, with empty unquoted ones as null.
+	 */
+	private static List<String> split(final String line) {
+		final List<String> fields = new ArrayList<>(COLUMNS);
+		final StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		boolean wasQuoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == ',') {
+				fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+				field.setLength(0);
+				wasQuoted = false;
+			} else if (c == '"' && field.length() == 0) {
+				quoted = true;
+				wasQuoted = true;
+			} else {
+				field.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("Unterminated quoted field");
+		}
+		fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+		return fields;
+	}
+}
@@ -0,0 +1,108 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Field of an order, as named in its JSON form, for projections, filters and sorting of order lists.
+ * Values are written the same way as Jackson writes them for the whole order.
+ */
+public enum OrderField {
+	ID("id", TransferOrder::getId, Long::valueOf),
+	SOURCE_ACCOUNT("sourceAccount", TransferOrder::getSourceAccount, Function.identity()),
+	TARGET_ACCOUNT("targetAccount", TransferOrder::getTargetAccount, Function.identity()),
+	AMOUNT("amount", TransferOrder::getAmount, BigDecimal::new),
+	STATUS("status", TransferOrder::getStatus, TransferStatus::valueOf),
+	CREATED_AT("createdAt", TransferOrder::getCreatedAt, Instant::parse),
+	UPDATED_AT("updatedAt", TransferOrder::getUpdatedAt, Instant::parse),
+	EXECUTE_AT("executeAt", TransferOrder::getExecuteAt, Instant::parse);
+
+	// Cached, as values() returns a new copy every time.
+	private static final OrderField[] FIELDS = values();
+
+	private final String fieldName;
+	private final Function<TransferOrder, ? extends Comparable<?>> getter;
+	private final Function<String, ? extends Comparable<?>> parser;
+
+	OrderField(final String fieldName, final Function<TransferOrder, ? extends Comparable<?>> getter,
+			final Function<String, ? extends Comparable<?>> parser) {
+		this.fieldName = fieldName;
+		this.getter = getter;
+		this.parser = parser;
+	}
+
+	/**
+	 * @param fieldName Name of the field in JSON form of the order, i.e. "sourceAccount". Cannot be null.
+	 * @return The field, or empty Optional if there's no such field.
+	 */
+	public static Optional<OrderField> of(@NonNull final String fieldName) {
+		for (final OrderField field : FIELDS) {
+			if (field.fieldName.equals(fieldName)) {
+				return Optional.of(field);
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * @return Name of the field in JSON form of the order.
+	 */
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	/**
+	 * @param order Order. Cannot be null.
+	 * @return Value of the field of the order, or null if it's not set.
+	 */
+	@SuppressWarnings("unchecked")
+	public Comparable<Object> get(@NonNull final TransferOrder order) {
+		return (Comparable<Object>) getter.apply(order);
+	}
+
+	/**
+	 * @param value Value of the field, as written in JSON form (without quotes). Cannot be null.
+	 * @return Parsed value, comparable with values of the field.
+	 * @throws IllegalArgumentException If the value is not a valid value of the field.
+	 */
+	@SuppressWarnings("unchecked")
+	public Comparable<Object> parse(@NonNull final String value) {
+		try {
+			return (Comparable<Object>) parser.apply(value);
+		} catch (final IllegalArgumentException | DateTimeException e) {
+			throw new IllegalArgumentException(String.format("Invalid %s: %s", fieldName, value), e);
+		}
+	}
+
+	/**
+	 * Writes value of the field of the order, without the field name.
+	 * @param generator Generator to write with. Cannot be null.
+	 * @param order Order. Cannot be null.
+	 * @throws IOException If the value could not be written.
+	 */
+	public void write(@NonNull final JsonGenerator generator, @NonNull final TransferOrder order) throws IOException {
+		final Object value = getter.apply(order);
+		if (value == null) {
+			generator.writeNull();
+		} else if (value instanceof Long) {
+			generator.writeNumber((Long) value);
+		} else if (value instanceof BigDecimal) {
+			generator.writeNumber((BigDecimal) value);
+		} else if (value instanceof TransferStatus) {
+			generator.writeString(((TransferStatus) value).name());
+		} else {
+			// Account numbers, and timestamps in ISO-8601 format, like Jackson writes them.
+			generator.writeString(value.toString());
+		}
+	}
+}
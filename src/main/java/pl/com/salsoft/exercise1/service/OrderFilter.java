@@ -0,0 +1,200 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Compiles filter expressions over order fields into predicates, i.e. "status eq PLANNED and amount gt 1000".
+ *
+ * Conditions are "field operator value", with operators eq, ne, gt, ge, lt and le. Values are written as in JSON
+ * form of the order, optionally in single quotes (with '' for a quote), and null matches orders without the field:
+ * only eq and ne accept it, other operators never match an order without the field. Status can only be compared
+ * with eq and ne. Conditions are combined with not, and, or (in the order of precedence) and parentheses.
+ * Keywords are case-insensitive, field names are not.
+ *
+ * An expression is parsed once and compiled into a tree of lambdas, with its values already parsed and
+ * its fields and operators already resolved, so testing an order is only a few calls and comparisons.
+ */
+public final class OrderFilter {
+	private static final String NULL = "null";
+
+	private final List<String> tokens;
+	private int position;
+
+	private OrderFilter(final List<String> tokens) {
+		this.tokens = tokens;
+	}
+
+	/**
+	 * @param expression Filter expression. Cannot be null.
+	 * @return Predicate matching orders the expression is true for.
+	 * @throws IllegalArgumentException If the expression is not valid.
+	 */
+	public static Predicate<TransferOrder> compile(@NonNull final String expression) {
+		final OrderFilter filter = new OrderFilter(tokenize(expression));
+		final Predicate<TransferOrder> predicate = filter.parseOr();
+		if (filter.position < filter.tokens.size()) {
+			throw new IllegalArgumentException(String.format("Unexpected '%s' in filter: %s", filter.tokens.get(filter.position), expression));
+		}
+		return predicate;
+	}
+
+	private Predicate<TransferOrder> parseOr() {
+		Predicate<TransferOrder> predicate = parseAnd();
+		while (acceptKeyword("or")) {
+			predicate = predicate.or(parseAnd());
+		}
+		return predicate;
+	}
+
+	private Predicate<TransferOrder> parseAnd() {
+		Predicate<TransferOrder> predicate = parseNot();
+		while (acceptKeyword("and")) {
+			predicate = predicate.and(parseNot());
+		}
+		return predicate;
+	}
+
+	private Predicate<TransferOrder> parseNot() {
+		if (acceptKeyword("not")) {
+			return parseNot().negate();
+		}
+		if (accept("(")) {
+			final Predicate<TransferOrder> predicate = parseOr();
+			if (!accept(")")) {
+				throw new IllegalArgumentException("Missing ')' in filter.");
+			}
+			return predicate;
+		}
+		return parseCondition();
+	}
+
+	private Predicate<TransferOrder> parseCondition() {
+		final String fieldName = next("field");
+		final OrderField field = OrderField.of(fieldName)
+				.orElseThrow(() -> new IllegalArgumentException(String.format("Unknown field: %s", fieldName)));
+		final String operator = next("operator").toLowerCase(Locale.ROOT);
+		final String literal = next("value");
+		final boolean equality = "eq".equals(operator) || "ne".equals(operator);
+		if (NULL.equals(literal)) {
+			if (!equality) {
+				throw new IllegalArgumentException(String.format("Only eq and ne can compare with null: %s", operator));
+			}
+			final Predicate<TransferOrder> isNull = order -> field.get(order) == null;
+			return "eq".equals(operator) ? isNull : isNull.negate();
+		}
+		if (!equality && field == OrderField.STATUS) {
+			throw new IllegalArgumentException(String.format("Status can only be compared with eq and ne: %s", operator));
+		}
+		final Comparable<Object> bound = field.parse(unquote(literal));
+		final IntPredicate comparison = comparison(operator);
+		if ("ne".equals(operator)) {
+			// Order without the field is not equal to any value.
+			return order -> {
+				final Comparable<Object> value = field.get(order);
+				return value == null || value.compareTo(bound) != 0;
+			};
+		}
+		return order -> {
+			final Comparable<Object> value = field.get(order);
+			return value != null && comparison.test(value.compareTo(bound));
+		};
+	}
+
+	private static IntPredicate comparison(final String operator) {
+		switch (operator) {
+			case "eq":
+				return result -> result == 0;
+			case "ne":
+				return result -> result != 0;
+			case "gt":
+				return result -> result > 0;
+			case "ge":
+				return result -> result >= 0;
+			case "lt":
+				return result -> result < 0;
+			case "le":
+				return result -> result <= 0;
+			default:
+				throw new IllegalArgumentException(String.format("Unknown operator: %s", operator));
+		}
+	}
+
+	private boolean accept(final String token) {
+		if (position < tokens.size() && tokens.get(position).equals(token)) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private boolean acceptKeyword(final String keyword) {
+		if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private String next(final String expected) {
+		if (position >= tokens.size()) {
+			throw new IllegalArgumentException(String.format("Missing %s in filter.", expected));
+		}
+		return tokens.get(position++);
+	}
+
+	/**
+	 * Splits the expression into words, parentheses and quoted values (kept with their quotes,
+	 * so a quoted 'null' or 'and' is a value).
+	 */
+	private static List<String> tokenize(final String expression) {
+		final List<String> tokens = new ArrayList<>();
+		int i = 0;
+		while (i < expression.length()) {
+			final char c = expression.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '(' || c == ')') {
+				tokens.add(String.valueOf(c));
+				i++;
+			} else if (c == '\'') {
+				final StringBuilder token = new StringBuilder("'");
+				i++;
+				while (true) {
+					if (i >= expression.length()) {
+						throw new IllegalArgumentException("Unterminated quote in filter.");
+					}
+					if (expression.charAt(i) == '\'') {
+						if (i + 1 < expression.length() && expression.charAt(i + 1) == '\'') {
+							token.append('\'');
+							i += 2;
+							continue;
+						}
+						i++;
+						break;
+					}
+					token.append(expression.charAt(i++));
+				}
+				tokens.add(token.toString());
+			} else {
+				final int start = i;
+				while (i < expression.length() && !Character.isWhitespace(expression.charAt(i))
+						&& expression.charAt(i) != '(' && expression.charAt(i) != ')') {
+					i++;
+				}
+				tokens.add(expression.substring(start, i));
+			}
+		}
+		return tokens;
+	}
+
+	private static String unquote(final String literal) {
+		return literal.startsWith("'") ? literal.substring(1) : literal;
+	}
+}
@@ -0,0 +1,262 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferOrder.TransferOrderBuilder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Applies JSON patch document onto an order, reading it as a token stream, so no intermediate
+ * order object is created for the patch.
+ *
+ * In JSON Merge Patch (RFC 7396) mode, null removes the field and absent field is left unchanged.
+ * In the legacy mode, used for plain application/json PATCH, null is treated as absent.
+ * Since order has no nested objects, the patch must be a flat object with known order fields only.
+ * The "id" field is ignored, as order ID is always taken from the request path, and so are
+ * the "createdAt" and "updatedAt" fields, as timestamps are assigned by the server.
+ */
+public final class OrderMergePatch {
+	private static final String ID = "id";
+	private static final String SOURCE_ACCOUNT = "sourceAccount";
+	private static final String TARGET_ACCOUNT = "targetAccount";
+	private static final String AMOUNT = "amount";
+	private static final String STATUS = "status";
+	private static final String CREATED_AT = "createdAt";
+	private static final String UPDATED_AT = "updatedAt";
+	private static final String EXECUTE_AT = "executeAt";
+	// Cached, as values() returns a new copy every time.
+	private static final TransferStatus[] STATUSES = TransferStatus.values();
+
+	private OrderMergePatch() {
+	}
+
+	/**
+	 * @param parser Parser positioned before the patch document. Cannot be null.
+	 * @param target Order to patch, or null to create a new order from the patch.
+	 * @param id ID of the patched order. Cannot be null.
+	 * @param nullRemoves true for JSON Merge Patch semantics of null, false to ignore null values.
+	 * @return Patched order, with given ID.
+	 * @throws IllegalArgumentException If the patch is not a valid patch of an order.
+	 */
+	public static @NonNull TransferOrder apply(@NonNull final JsonParser parser, final TransferOrder target,
+			@NonNull final Long id, final boolean nullRemoves) {
+		final TransferOrderBuilder builder = target != null ? target.toBuilder() : TransferOrder.builder();
+		builder.id(id);
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IllegalArgumentException("Patch must be a JSON object.");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = parser.getCurrentName();
+				final JsonToken value = parser.nextToken();
+				if (value == JsonToken.VALUE_NULL) {
+					if (nullRemoves) {
+						clear(builder, field);
+					}
+				} else {
+					set(builder, field, parser, value);
+				}
+			}
+			if (parser.nextToken() != null) {
+				throw new IllegalArgumentException("Unexpected content after the patch.");
+			}
+		} catch (final IOException e) {
+			throw new IllegalArgumentException("Could not parse patch JSON.", e);
+		}
+		return builder.build();
+	}
+
+	private static void clear(final TransferOrderBuilder builder, final String field) {
+		switch (field) {
+			case ID:
+			case CREATED_AT:
+			case UPDATED_AT:
+				break;
+			case SOURCE_ACCOUNT:
+				builder.sourceAccount(null);
+				break;
+			case TARGET_ACCOUNT:
+				builder.targetAccount(null);
+				break;
+			case AMOUNT:
+				builder.amount(null);
+				break;
+			case STATUS:
+				builder.status(null);
+				break;
+			case EXECUTE_AT:
+				builder.executeAt(null);
+				break;
+			default:
+				throw unknownField(field);
+		}
+	}
+
+	private static void set(final TransferOrderBuilder builder, final String field, final JsonParser parser,
+			final JsonToken value) throws IOException {
+		switch (field) {
+			case ID:
+			case CREATED_AT:
+			case UPDATED_AT:
+				if (value.isStructStart()) {
+					throw invalidValue(field);
+				}
+				break;
+			case SOURCE_ACCOUNT:
+				builder.sourceAccount(readText(parser, field, value));
+				break;
+			case TARGET_ACCOUNT:
+				builder.targetAccount(readText(parser, field, value));
+				break;
+			case AMOUNT:
+				readAmount(builder, parser, field, value);
+				break;
+			case STATUS:
+				builder.status(readStatus(parser, field, value));
+				break;
+			case EXECUTE_AT:
+				builder.executeAt(readTime(parser, field, value));
+				break;
+			default:
+				throw unknownField(field);
+		}
+	}
+
+	private static String readText(final JsonParser parser, final String field, final JsonToken value) throws IOException {
+		if (!value.isScalarValue()) {
+			throw invalidValue(field);
+		}
+		// Numbers are accepted as account numbers, same as by the JSON deserializer.
+		return parser.getText();
+	}
+
+	private static void readAmount(final TransferOrderBuilder builder, final JsonParser parser, final String field,
+			final JsonToken value) throws IOException {
+		switch (value) {
+			case VALUE_NUMBER_INT:
+				if (parser.getNumberType() == JsonParser.NumberType.INT || parser.getNumberType() == JsonParser.NumberType.LONG) {
+					builder.amount(parser.getLongValue(), 0);
+				} else {
+					builder.amount(parser.getDecimalValue());
+				}
+				break;
+			case VALUE_NUMBER_FLOAT:
+				// Plain decimals are read directly as minor units, anything else goes through BigDecimal.
+				if (!readPlainDecimal(builder, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())) {
+					builder.amount(parser.getDecimalValue());
+				}
+				break;
+			case VALUE_STRING:
+				try {
+					builder.amount(new BigDecimal(parser.getText()));
+				} catch (final NumberFormatException e) {
+					throw invalidValue(field);
+				}
+				break;
+			default:
+				throw invalidValue(field);
+		}
+	}
+
+	/**
+	 * Reads number in format -123.45 as unscaled long and scale, without creating any objects.
+	 * @return true if the number was read, or false if it has exponent, too many digits or is malformed.
+	 */
+	private static boolean readPlainDecimal(final TransferOrderBuilder builder, final char[] text, final int offset,
+			final int length) {
+		final int end = offset + length;
+		int position = offset;
+		final boolean negative = position < end && text[position] == '-';
+		if (negative) {
+			position++;
+		}
+
+		long unscaled = 0;
+		int scale = -1;
+		int digits = 0;
+		for (; position < end; position++) {
+			final char character = text[position];
+			if (character == '.' && scale < 0) {
+				scale = 0;
+			} else if (character >= '0' && character <= '9') {
+				// 18 digits always fit in long
+				if (++digits > 18) {
+					return false;
+				}
+				unscaled = unscaled * 10 + (character - '0');
+				if (scale >= 0) {
+					scale++;
+				}
+			} else {
+				return false;
+			}
+		}
+		if (digits == 0 || scale > TransferOrder.MAX_AMOUNT_SCALE) {
+			return false;
+		}
+		builder.amount(negative ? -unscaled : unscaled, Math.max(scale, 0));
+		return true;
+	}
+
+	private static TransferStatus readStatus(final JsonParser parser, final String field, final JsonToken value) throws IOException {
+		if (value != JsonToken.VALUE_STRING) {
+			throw invalidValue(field);
+		}
+		// Compared in place, so no String is created for the value.
+		final char[] text = parser.getTextCharacters();
+		final int offset = parser.getTextOffset();
+		final int length = parser.getTextLength();
+		for (final TransferStatus status : STATUSES) {
+			if (matches(status.name(), text, offset, length)) {
+				return status;
+			}
+		}
+		throw invalidValue(field);
+	}
+
+	/**
+	 * Reads ISO-8601 instant, or whole epoch seconds, same as the JSON deserializer does.
+	 */
+	private static Instant readTime(final JsonParser parser, final String field, final JsonToken value) throws IOException {
+		switch (value) {
+			case VALUE_STRING:
+				try {
+					return Instant.parse(parser.getText());
+				} catch (final DateTimeParseException e) {
+					throw invalidValue(field);
+				}
+			case VALUE_NUMBER_INT:
+				return Instant.ofEpochSecond(parser.getLongValue());
+			default:
+				throw invalidValue(field);
+		}
+	}
+
+	private static boolean matches(final String expected, final char[] text, final int offset, final int length) {
+		if (expected.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (expected.charAt(i) != text[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static IllegalArgumentException unknownField(final String field) {
+		return new IllegalArgumentException(String.format("Unknown field: %s", field));
+	}
+
+	private static IllegalArgumentException invalidValue(final String field) {
+		return new IllegalArgumentException(String.format("Invalid value of field: %s", field));
+	}
+}
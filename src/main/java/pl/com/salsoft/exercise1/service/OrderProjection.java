@@ -0,0 +1,95 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Sparse fieldset of orders: fields written for every order of a list, i.e. "id,status".
+ *
+ * Fields are written straight from the order to the generator, in the order they were given,
+ * so no intermediate object (map or partial order) is built for an order.
+ */
+public final class OrderProjection {
+	/**
+	 * Projection of all fields, written by Jackson as usual.
+	 */
+	public static final OrderProjection ALL = new OrderProjection(null);
+
+	private final OrderField[] fields;
+
+	private OrderProjection(final OrderField[] fields) {
+		this.fields = fields;
+	}
+
+	/**
+	 * @param fields Comma separated names of fields, i.e. "id,status", or null for all fields.
+	 * @return The projection.
+	 * @throws IllegalArgumentException If any of the fields is unknown, or none is given.
+	 */
+	public static OrderProjection parse(final String fields) {
+		if (fields == null) {
+			return ALL;
+		}
+		final Set<OrderField> parsed = new LinkedHashSet<>();
+		for (final String name : fields.split(",")) {
+			parsed.add(OrderField.of(name.trim())
+					.orElseThrow(() -> new IllegalArgumentException(String.format("Unknown field: %s", name))));
+		}
+		return new OrderProjection(parsed.toArray(new OrderField[0]));
+	}
+
+	/**
+	 * Writes projection of the order.
+	 * @param generator Generator to write with. Cannot be null.
+	 * @param order Order to write. Cannot be null.
+	 * @throws IOException If the order could not be written.
+	 */
+	public void write(@NonNull final JsonGenerator generator, @NonNull final TransferOrder order) throws IOException {
+		if (fields == null) {
+			generator.writeObject(order);
+			return;
+		}
+		generator.writeStartObject();
+		for (final OrderField field : fields) {
+			generator.writeFieldName(field.getFieldName());
+			field.write(generator, order);
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * @param orders Orders. Cannot be null.
+	 * @return Object serialized by {@link JsonService} as array of projections of the orders, when it's serialized.
+	 */
+	public Object of(@NonNull final Collection<TransferOrder> orders) {
+		if (fields == null) {
+			return orders;
+		}
+		return new JsonSerializable.Base() {
+			@Override
+			public void serialize(final JsonGenerator generator, final SerializerProvider serializers) throws IOException {
+				generator.writeStartArray();
+				for (final TransferOrder order : orders) {
+					write(generator, order);
+				}
+				generator.writeEndArray();
+			}
+
+			@Override
+			public void serializeWithType(final JsonGenerator generator, final SerializerProvider serializers,
+					final TypeSerializer typeSerializer) throws IOException {
+				serialize(generator, serializers);
+			}
+		};
+	}
+}
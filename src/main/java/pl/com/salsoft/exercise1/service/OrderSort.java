@@ -0,0 +1,40 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.util.Comparator;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Compiles sort expressions into comparators of orders, i.e. "-amount,id".
+ *
+ * An expression is a comma-separated list of fields, each one optionally preceded with "-" for descending
+ * or "+" for ascending order (the default). Orders without a field come last, whatever the direction.
+ * Orders equal by all the fields are sorted by ID, so the order is always total.
+ */
+public final class OrderSort {
+	private OrderSort() {
+	}
+
+	/**
+	 * @param expression Sort expression. Cannot be null.
+	 * @return Comparator sorting orders as the expression says.
+	 * @throws IllegalArgumentException If the expression is not valid.
+	 */
+	public static Comparator<TransferOrder> compile(@NonNull final String expression) {
+		Comparator<TransferOrder> comparator = null;
+		for (final String part : expression.split(",", -1)) {
+			final String trimmed = part.trim();
+			final boolean descending = trimmed.startsWith("-");
+			final String fieldName = descending || trimmed.startsWith("+") ? trimmed.substring(1) : trimmed;
+			final OrderField field = OrderField.of(fieldName)
+					.orElseThrow(() -> new IllegalArgumentException(String.format("Unknown field: %s", fieldName)));
+			final Comparator<Comparable<Object>> values = descending
+					? Comparator.<Comparable<Object>>reverseOrder()
+					: Comparator.<Comparable<Object>>naturalOrder();
+			final Comparator<TransferOrder> next = Comparator.comparing(field::get, Comparator.nullsLast(values));
+			comparator = comparator == null ? next : comparator.thenComparing(next);
+		}
+		return comparator.thenComparing(OrderField.ID::get, Comparator.nullsLast(Comparator.naturalOrder()));
+	}
+}
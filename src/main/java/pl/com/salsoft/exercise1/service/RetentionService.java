@@ -0,0 +1,115 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.index.TimeIndex;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Removes finished and rejected orders not modified for longer than the maximum age.
+ *
+ * Expired orders are found in the oldest buckets of the {@link TimeIndex}, so a run doesn't scan the
+ * repository. Each order is removed only if it's still terminal and old at the time of removal, so an order
+ * modified concurrently is kept. Emptied buckets are removed from the index at the end of a run.
+ */
+public class RetentionService {
+	public static final long DEFAULT_INTERVAL_MILLIS = 60_000L;
+
+	private static final List<TransferStatus> TERMINAL_STATUSES = List.of(TransferStatus.FINISHED, TransferStatus.REJECTED);
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private final TransferOrderDao transferOrderDao;
+	private final TimeIndex timeIndex;
+	private final Clock clock;
+	private final long maxAgeMillis;
+	private final long intervalMillis;
+
+	/**
+	 * @param transferOrderDao Storage of transfer orders. Cannot be null.
+	 * @param timeIndex Index of orders by modification time. Cannot be null.
+	 * @param clock Clock the age of orders is measured with. Cannot be null.
+	 * @param maxAgeMillis Time (in milliseconds) since the last modification after which a terminal order
+	 * is removed. 0 disables removing orders.
+	 * @param intervalMillis Time (in milliseconds) between runs of the background task. Must be positive.
+	 */
+	public RetentionService(@NonNull final TransferOrderDao transferOrderDao, @NonNull final TimeIndex timeIndex,
+			@NonNull final Clock clock, final long maxAgeMillis, final long intervalMillis) {
+		if (maxAgeMillis < 0 || intervalMillis <= 0) {
+			throw new IllegalArgumentException("Maximum age can't be negative and retention interval must be positive.");
+		}
+		this.transferOrderDao = transferOrderDao;
+		this.timeIndex = timeIndex;
+		this.clock = clock;
+		this.maxAgeMillis = maxAgeMillis;
+		this.intervalMillis = intervalMillis;
+	}
+
+	/**
+	 * Starts the background task removing expired orders, unless removing orders is disabled.
+	 */
+	public void start() {
+		if (maxAgeMillis == 0) {
+			return;
+		}
+		final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "order-retention");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::expireQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Removes terminal orders not modified for longer than the maximum age. Does nothing if removing
+	 * orders is disabled.
+	 * @return Number of orders removed.
+	 */
+	public int expire() {
+		if (maxAgeMillis == 0) {
+			return 0;
+		}
+		final Instant cutoff = clock.instant().minusMillis(maxAgeMillis);
+		int expired = 0;
+		for (final TransferStatus status : TERMINAL_STATUSES) {
+			// Collected first, so the index is not modified while being walked.
+			final List<Long> ids = new ArrayList<>();
+			timeIndex.updated(status, null, cutoff, ids::add);
+			for (final Long id : ids) {
+				if (transferOrderDao.deleteIf(id, order -> isExpired(order, cutoff))) {
+					expired++;
+				}
+			}
+		}
+		timeIndex.prune();
+		return expired;
+	}
+
+	private boolean isExpired(final TransferOrder order, final Instant cutoff) {
+		return TERMINAL_STATUSES.contains(order.getStatus())
+				&& order.getUpdatedAt() != null
+				&& order.getUpdatedAt().isBefore(cutoff);
+	}
+
+	private void expireQuietly() {
+		try {
+			final int expired = expire();
+			if (expired > 0) {
+				log.info("Removed {} expired orders", expired);
+			}
+		} catch (final RuntimeException e) {
+			log.error("Removing expired orders failed, will retry: {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package pl.com.salsoft.exercise1.service;
+
+import lombok.Getter;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Order stored by an update of {@link TransferService}, which creates the order if it doesn't exist.
+ * Whether it was created is decided inside of the atomic update, so it's consistent with the stored order
+ * even if other requests modify the same ID at the same time.
+ */
+@Getter
+public final class SavedOrder {
+	private final TransferOrder order;
+	/**
+	 * true if there was no order with the ID before the update.
+	 */
+	private final boolean created;
+
+	public SavedOrder(final TransferOrder order, final boolean created) {
+		this.order = order;
+		this.created = created;
+	}
+}
@@ -0,0 +1,145 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+import com.google.inject.Inject;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.index.AccountIndex;
+import pl.com.salsoft.exercise1.index.AccountPattern;
+import pl.com.salsoft.exercise1.index.AmountIndex;
+import pl.com.salsoft.exercise1.index.TimeIndex;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Service searching transfer orders with indexes, so a search doesn't scan the whole repository.
+ */
+public class SearchService {
+	/**
+	 * Maximum number of account numbers looked at by a single search.
+	 */
+	public static final int MAX_SCANNED_ACCOUNTS = 100_000;
+
+	private final TransferOrderDao transferOrderDao;
+	private final AccountIndex accountIndex;
+	private final AmountIndex amountIndex;
+	private final TimeIndex timeIndex;
+
+	/**
+	 * @param transferOrderDao Storage of transfer orders. Cannot be null.
+	 * @param accountIndex Index of orders by account number. Cannot be null.
+	 * @param amountIndex Index of orders by amount. Cannot be null.
+	 * @param timeIndex Index of orders by creation and modification time. Cannot be null.
+	 */
+	@Inject
+	public SearchService(@NonNull final TransferOrderDao transferOrderDao, @NonNull final AccountIndex accountIndex,
+			@NonNull final AmountIndex amountIndex, @NonNull final TimeIndex timeIndex) {
+		this.transferOrderDao = transferOrderDao;
+		this.accountIndex = accountIndex;
+		this.amountIndex = amountIndex;
+		this.timeIndex = timeIndex;
+	}
+
+	/**
+	 * Finds orders with source or target account matching given pattern, ordered by the account number.
+	 * Every order is found once, even if both its accounts match.
+	 * @param pattern Account number pattern, see {@link AccountPattern}. Cannot be null.
+	 * @param limit Maximum number of orders found.
+	 * @param consumer Receives found orders, as soon as they are found. Cannot be null.
+	 * @return true if all matching orders were found, or false if the search was stopped by the limit
+	 * or by the maximum number of accounts scanned ({@value #MAX_SCANNED_ACCOUNTS}).
+	 */
+	public boolean searchByAccount(@NonNull final AccountPattern pattern, final int limit,
+			@NonNull final Consumer<TransferOrder> consumer) {
+		final Set<Long> found = new HashSet<>();
+		final boolean complete = accountIndex.search(pattern, MAX_SCANNED_ACCOUNTS, id -> {
+			if (found.size() == limit) {
+				return false;
+			}
+			// Index can be a bit behind or ahead of the repository, so the order is checked again.
+			final Optional<TransferOrder> order = transferOrderDao.get(id);
+			if (order.isPresent() && matches(pattern, order.get()) && found.add(id)) {
+				consumer.accept(order.get());
+			}
+			return true;
+		});
+		return complete && found.size() < limit;
+	}
+
+	/**
+	 * Finds orders with amount in given range, sorted by amount (and then by ID), i.e. the largest orders
+	 * with given status. Orders without amount are never found.
+	 * @param status Only orders with this status are found, or orders with any status if null.
+	 * @param minAmount Minimum amount (inclusive), or null for no minimum.
+	 * @param maxAmount Maximum amount (inclusive), or null for no maximum.
+	 * @param descending true to find the largest amounts first.
+	 * @param limit Maximum number of orders found.
+	 * @param consumer Receives found orders, as soon as they are found. Cannot be null.
+	 */
+	public void searchByAmount(final TransferStatus status, final BigDecimal minAmount, final BigDecimal maxAmount,
+			final boolean descending, final int limit, @NonNull final Consumer<TransferOrder> consumer) {
+		final AtomicInteger found = new AtomicInteger();
+		amountIndex.range(status, minAmount, maxAmount, descending, id -> {
+			if (found.get() == limit) {
+				return false;
+			}
+			// Index can be a bit behind or ahead of the repository, so the order is checked again.
+			final Optional<TransferOrder> order = transferOrderDao.get(id);
+			if (order.isPresent() && matches(status, minAmount, maxAmount, order.get())) {
+				found.incrementAndGet();
+				consumer.accept(order.get());
+			}
+			return true;
+		});
+	}
+
+	/**
+	 * Finds orders created, or last modified, in given time range, roughly sorted by that time (up to
+	 * {@value TimeIndex#DEFAULT_BUCKET_MILLIS} ms). Orders without the timestamp are never found.
+	 * @param query Time range and other conditions. Cannot be null.
+	 * @param limit Maximum number of orders found.
+	 * @param consumer Receives found orders, as soon as they are found. Cannot be null.
+	 */
+	public void searchByTime(@NonNull final TimeQuery query, final int limit,
+			@NonNull final Consumer<TransferOrder> consumer) {
+		final AtomicInteger found = new AtomicInteger();
+		final LongPredicate visitor = id -> {
+			if (found.get() == limit) {
+				return false;
+			}
+			// Index can be a bit behind or ahead of the repository, so the order is checked again.
+			final Optional<TransferOrder> order = transferOrderDao.get(id);
+			if (order.isPresent() && query.matches(order.get())) {
+				found.incrementAndGet();
+				consumer.accept(order.get());
+			}
+			return true;
+		};
+		if (query.isByCreation()) {
+			timeIndex.created(query.getCreatedAfter(), query.getCreatedBefore(), visitor);
+		} else {
+			timeIndex.updated(query.getStatus(), query.getUpdatedAfter(), query.getUpdatedBefore(), visitor);
+		}
+	}
+
+	private boolean matches(final TransferStatus status, final BigDecimal minAmount, final BigDecimal maxAmount,
+			final TransferOrder order) {
+		final BigDecimal amount = order.getAmount();
+		return amount != null
+				&& (status == null || status == order.getStatus())
+				&& (minAmount == null || amount.compareTo(minAmount) >= 0)
+				&& (maxAmount == null || amount.compareTo(maxAmount) <= 0);
+	}
+
+	private boolean matches(final AccountPattern pattern, final TransferOrder order) {
+		return pattern.matches(order.getSourceAccount()) || pattern.matches(order.getTargetAccount());
+	}
+}
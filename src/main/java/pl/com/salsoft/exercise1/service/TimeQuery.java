@@ -0,0 +1,53 @@
+package pl.com.salsoft.exercise1.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Getter;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Conditions of {@link SearchService#searchByTime}. Time bounds are exclusive, amount bounds are inclusive,
+ * and null means no condition. A query with bounds of the creation time is run over the creation time
+ * (other time bounds are then only checked), otherwise over the last modification time.
+ */
+@Builder
+@Getter
+public final class TimeQuery {
+	private final Instant createdAfter;
+	private final Instant createdBefore;
+	private final Instant updatedAfter;
+	private final Instant updatedBefore;
+	private final TransferStatus status;
+	private final BigDecimal minAmount;
+	private final BigDecimal maxAmount;
+
+	/**
+	 * @return true if the query is run over the creation time.
+	 */
+	public boolean isByCreation() {
+		return createdAfter != null || createdBefore != null;
+	}
+
+	/**
+	 * @param order Order to check. Cannot be null.
+	 * @return true if the order meets all conditions.
+	 */
+	public boolean matches(final TransferOrder order) {
+		final BigDecimal amount = order.getAmount();
+		return (status == null || status == order.getStatus())
+				&& isBetween(order.getCreatedAt(), createdAfter, createdBefore)
+				&& isBetween(order.getUpdatedAt(), updatedAfter, updatedBefore)
+				&& (minAmount == null || amount != null && amount.compareTo(minAmount) >= 0)
+				&& (maxAmount == null || amount != null && amount.compareTo(maxAmount) <= 0);
+	}
+
+	private static boolean isBetween(final Instant time, final Instant after, final Instant before) {
+		if (after == null && before == null) {
+			return true;
+		}
+		return time != null && (after == null || time.isAfter(after)) && (before == null || time.isBefore(before));
+	}
+}
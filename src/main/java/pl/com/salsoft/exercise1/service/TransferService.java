@@ -1,20 +1,92 @@
 package pl.com.salsoft.exercise1.service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.google.inject.Inject;
 
 import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.AsyncTransferOrderDao;
 import pl.com.salsoft.exercise1.dao.TransferOrderDao;
 import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.tracing.OrderUpdateEvent;
+import pl.com.salsoft.exercise1.tracing.RequestTrace;
+import pl.com.salsoft.exercise1.tracing.RequestTrace.Phase;
+import pl.com.salsoft.exercise1.velocity.VelocityLimiter;
 
 /**
  * Service managing transfer orders. It serves typical CRUD operations.
+ *
+ * Orders are stamped with creation and last update time here, whatever timestamps were given
+ * by the client. Creation time is kept, when an existing order is replaced or patched.
+ * Planned orders with execution time in the future are stored as {@link TransferStatus#SCHEDULED},
+ * and become planned again when the time comes.
+ *
+ * Every modification is a single atomic operation of the repository, so concurrent requests
+ * for the same ID never lose each other's changes, and results reflect the order actually stored.
+ *
+ * Every operation has an asynchronous variant, returning {@link CompletableFuture}. With a blocking repository
+ * it runs on threads of the {@link AsyncTransferOrderDao}, so the caller doesn't wait for I/O.
+ *
+ * Every modification is recorded as an {@link OrderUpdateEvent} of JDK Flight Recorder, with the status transition.
  */
 public class TransferService {
+	private final TransferOrderDao transferOrderDao;
+	private final AsyncTransferOrderDao asyncTransferOrderDao;
+	private final JsonService jsonService;
+	private final Clock clock;
+	private final VelocityLimiter velocityLimiter;
+
+	/**
+	 * Creates service without velocity limits.
+	 * @param transferOrderDao Storage of transfer orders. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param clock Source of order timestamps. Cannot be null.
+	 */
+	public TransferService(@NonNull final TransferOrderDao transferOrderDao, @NonNull final JsonService jsonService,
+			@NonNull final Clock clock) {
+		this(transferOrderDao, jsonService, clock, VelocityLimiter.unlimited());
+	}
+
+	/**
+	 * Creates service running asynchronous operations on the calling thread.
+	 * @param transferOrderDao Storage of transfer orders. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param clock Source of order timestamps. Cannot be null.
+	 * @param velocityLimiter Limits of orders created per source account. Cannot be null.
+	 */
+	public TransferService(@NonNull final TransferOrderDao transferOrderDao, @NonNull final JsonService jsonService,
+			@NonNull final Clock clock, @NonNull final VelocityLimiter velocityLimiter) {
+		this(AsyncTransferOrderDao.direct(transferOrderDao), jsonService, clock, velocityLimiter);
+	}
+
+	/**
+	 * @param asyncTransferOrderDao Storage of transfer orders, with its executor of asynchronous operations. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param clock Source of order timestamps. Cannot be null.
+	 * @param velocityLimiter Limits of orders created per source account. Cannot be null.
+	 */
 	@Inject
-	private TransferOrderDao transferOrderDao;
+	public TransferService(@NonNull final AsyncTransferOrderDao asyncTransferOrderDao, @NonNull final JsonService jsonService,
+			@NonNull final Clock clock, @NonNull final VelocityLimiter velocityLimiter) {
+		this.transferOrderDao = asyncTransferOrderDao.getDelegate();
+		this.asyncTransferOrderDao = asyncTransferOrderDao;
+		this.jsonService = jsonService;
+		this.clock = clock;
+		this.velocityLimiter = velocityLimiter;
+	}
 
 	/**
 	 * Deletes transfer order with given ID from the repository.
@@ -22,12 +94,17 @@ public class TransferService {
 	 * @return true if order existed and was deleted, false otherwise.
 	 */
 	public boolean deleteTransfer(@NonNull final Long id) {
-		if (!transferOrderDao.contains(id)) {
-			return false;
+		final OrderUpdateEvent event = OrderUpdateEvent.start("delete");
+		final TransferStatus[] previousStatus = new TransferStatus[1];
+		// Only one of concurrent deletes of the same order reports it as deleted.
+		final boolean deleted = transferOrderDao.deleteIf(id, order -> {
+			previousStatus[0] = order.getStatus();
+			return true;
+		});
+		if (deleted) {
+			event.commit(id, previousStatus[0], null, false);
 		}
-
-		transferOrderDao.delete(id);
-		return true;
+		return deleted;
 	}
 
 	/**
@@ -56,23 +133,103 @@ public class TransferService {
 		return transferOrderDao.getAll();
 	}
 
+	/**
+	 * Finds first transfer orders matching given filter, in given order. Expressions are compiled once,
+	 * and evaluated by the repository while it scans orders, see {@link TransferOrderDao#find}.
+	 * @param filter Filter expression, see {@link OrderFilter}, or null to match all orders.
+	 * @param sort Sort expression, see {@link OrderSort}, or null to sort by ID.
+	 * @param limit Maximum number of orders to return. Must be positive.
+	 * @return Matching orders, sorted.
+	 * @throws IllegalArgumentException If any of the expressions is not valid.
+	 */
+	public List<TransferOrder> findTransfers(final String filter, final String sort, final int limit) {
+		return transferOrderDao.find(filterOf(filter), sortOf(sort), limit);
+	}
+
 	/**
 	 * Creates new transfer order from the order object provided.
 	 * If ID of order provided is null, then next available ID is automatically generated.
 	 * If ID of order provided is already used by different order instance,
 	 * then next available ID is automatically generated.
+	 * If the order exceeds a velocity limit of its source account, then it's created as {@link TransferStatus#REJECTED}.
+	 * If the order is planned for execution in the future, then it's created as {@link TransferStatus#SCHEDULED}.
 	 *
 	 * @param order Order to create. Cannot be null.
 	 * @return Created order.
 	 */
-	public TransferOrder newTransfer(@NonNull TransferOrder order) {
-		if (order.getId() == null || transferOrderDao.contains(order.getId())) {
-			order = order.toBuilder()
-						.id(transferOrderDao.generateId())
-						.build();
+	public TransferOrder newTransfer(@NonNull final TransferOrder order) {
+		final OrderUpdateEvent event = OrderUpdateEvent.start("create");
+		final TransferOrder created = store(prepare(order));
+		event.commit(created.getId(), null, created.getStatus(), true);
+		return created;
+	}
+
+	/**
+	 * Creates new transfer orders the same way as {@link #newTransfer(TransferOrder)}, all or none of them.
+	 * All orders are prepared before any of them is stored, and if storing one of them fails, orders of the batch
+	 * stored before it are deleted again, unless modified meanwhile, and orders not kept don't count against velocity
+	 * limits anymore. So a failed batch can be retried without creating duplicates, although other clients may see
+	 * its orders for a moment.
+	 * @param orders Orders to create. Cannot be null, nor contain nulls.
+	 * @return Created orders, in the same order.
+	 */
+	public List<TransferOrder> newTransfers(@NonNull final List<TransferOrder> orders) {
+		final List<TransferOrder> prepared = new ArrayList<>(orders.size());
+		final List<TransferOrder> created = new ArrayList<>(orders.size());
+		try {
+			for (final TransferOrder order : orders) {
+				prepared.add(prepare(order));
+			}
+			for (final TransferOrder order : prepared) {
+				final OrderUpdateEvent event = OrderUpdateEvent.start("create");
+				final TransferOrder stored = store(order);
+				event.commit(stored.getId(), null, stored.getStatus(), true);
+				created.add(stored);
+			}
+		} catch (final RuntimeException e) {
+			for (int i = 0; i < prepared.size(); i++) {
+				// Order modified meanwhile is kept, so it still counts against velocity limits.
+				if (i >= created.size() || rollBack(created.get(i), e)) {
+					releaseVelocity(prepared.get(i));
+				}
+			}
+			throw e;
+		}
+		return created;
+	}
+
+	/**
+	 * Deletes the order of a failed batch, unless it was modified meanwhile.
+	 * @return true if the order was deleted.
+	 */
+	private boolean rollBack(final TransferOrder stored, final RuntimeException failure) {
+		try {
+			return transferOrderDao.deleteIf(stored.getId(), stored::equals);
+		} catch (final RuntimeException e) {
+			failure.addSuppressed(e);
+			return false;
 		}
-		transferOrderDao.persist(order);
-		return order;
+	}
+
+	/**
+	 * Assigns ID (if missing) and timestamps to the order being created, and sets its status.
+	 */
+	private TransferOrder prepare(final TransferOrder order) {
+		return checkVelocity(schedule(stamp(order.getId() == null ? withGeneratedId(order) : order, null)));
+	}
+
+	/**
+	 * Stores the order being created, under a generated ID if its ID is taken.
+	 * @return Stored order.
+	 */
+	private TransferOrder store(final TransferOrder order) {
+		TransferOrder created = order;
+		// Checked and stored atomically, so an order created at the same time with the same ID
+		// (given explicitly, or generated before it was taken) is not overwritten.
+		while (!transferOrderDao.persistIfAbsent(created)) {
+			created = withGeneratedId(created);
+		}
+		return created;
 	}
 
 	/**
@@ -81,14 +238,13 @@ public class TransferService {
 	 * ID member of the order is ignored and will be overwritten with the existingOrderId.
 	 * @param existingOrderId ID of existing resource.
 	 * @param order New order value to set for given ID.
-	 * @return Updated order (different instance than the input order object).
+	 * @return Updated order (different instance than the input order object), and whether it was created.
 	 */
-	public TransferOrder updateTransfer(@NonNull final Long existingOrderId, @NonNull TransferOrder order) {
+	public SavedOrder updateTransfer(@NonNull final Long existingOrderId, @NonNull final TransferOrder order) {
 		// ID cannot be set from payload, it should always reflect requested ID
-		order = order.toBuilder().id(existingOrderId).build();
+		final TransferOrder replacement = order.toBuilder().id(existingOrderId).build();
 
-		transferOrderDao.persist(order);
-		return order;
+		return save("replace", existingOrderId, existingOrder -> stamp(replacement, existingOrder));
 	}
 
 	/**
@@ -99,18 +255,202 @@ public class TransferService {
 	 * @param existingOrderId ID of existing resource.
 	 * @param order New order values to set for given ID. If any member of the order object is null,
 	 * it will be skipped. Only non-null members are copied to an existing order.
-	 * @return Updated order (different instance than the input order object).
+	 * @return Updated order (different instance than the input order object), and whether it was created.
 	 */
-	public TransferOrder updateTransferPartially(@NonNull final Long existingOrderId, @NonNull final TransferOrder order) {
-		final TransferOrder mergedOrder = transferOrderDao.get(existingOrderId)
+	public SavedOrder updateTransferPartially(@NonNull final Long existingOrderId, @NonNull final TransferOrder order) {
+		return save("partialUpdate", existingOrderId, existingOrder -> stamp(existingOrder != null
 				// merge payload with existing order
-				.map(existingOrder -> existingOrder.mergeNonNull(order))
+				? existingOrder.mergeNonNull(order)
 				// or create new one from provided order
-				.orElse(order.toBuilder()
+				: order.toBuilder()
 						.id(existingOrderId) // ID cannot be set from payload, it should always reflect requested ID
-						.build());
+						.build(),
+				existingOrder));
+	}
+
+	/**
+	 * Applies patch document onto existing order with given ID, or creates new order from the patch
+	 * if it doesn't exist. The patch is parsed and applied inside of the atomic update of the order,
+	 * see {@link OrderMergePatch} for supported patch documents.
+	 * @param existingOrderId ID of the order to patch. Cannot be null.
+	 * @param patch Patch document (JSON). Cannot be null.
+	 * @param mergePatch true for JSON Merge Patch (RFC 7396) semantics, where null removes the field,
+	 * false for the same semantics as {@link #updateTransferPartially(Long, TransferOrder)}.
+	 * @return Patched order, and whether it was created.
+	 * @throws IllegalArgumentException If the patch is not a valid patch of an order. Order is left unchanged then.
+	 */
+	public SavedOrder patchTransfer(@NonNull final Long existingOrderId, @NonNull final byte[] patch, final boolean mergePatch) {
+		return save("patch", existingOrderId, existingOrder -> {
+			final Phase previous = RequestTrace.enter(Phase.DESERIALIZE);
+			// Closing the parser returns its buffers for reuse by next requests.
+			try (JsonParser parser = jsonService.createParser(patch)) {
+				return stamp(OrderMergePatch.apply(parser, existingOrder, existingOrderId, mergePatch), existingOrder);
+			} catch (final IOException e) {
+				throw new UncheckedIOException("Could not close JSON parser.", e);
+			} finally {
+				RequestTrace.exit(previous);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous variant of {@link #deleteTransfer(Long)}.
+	 */
+	public CompletableFuture<Boolean> deleteTransferAsync(@NonNull final Long id) {
+		return asyncTransferOrderDao.supply(() -> deleteTransfer(id));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #doesTransferExist(Long)}.
+	 */
+	public CompletableFuture<Boolean> doesTransferExistAsync(@NonNull final Long id) {
+		return asyncTransferOrderDao.supply(() -> doesTransferExist(id));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #getTransfer(Long)}.
+	 */
+	public CompletableFuture<Optional<TransferOrder>> getTransferAsync(@NonNull final Long id) {
+		return asyncTransferOrderDao.supply(() -> getTransfer(id));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #getTransfers()}.
+	 */
+	public CompletableFuture<Set<TransferOrder>> getTransfersAsync() {
+		return asyncTransferOrderDao.supply(this::getTransfers);
+	}
+
+	/**
+	 * Asynchronous variant of {@link #findTransfers(String, String, int)}. Expressions are compiled
+	 * by the calling thread, so invalid ones are thrown rather than failing the future.
+	 */
+	public CompletableFuture<List<TransferOrder>> findTransfersAsync(final String filter, final String sort, final int limit) {
+		return asyncTransferOrderDao.find(filterOf(filter), sortOf(sort), limit);
+	}
+
+	/**
+	 * Asynchronous variant of {@link #newTransfer(TransferOrder)}. Generating the ID and storing the order
+	 * are run together, so they're handed off once.
+	 */
+	public CompletableFuture<TransferOrder> newTransferAsync(@NonNull final TransferOrder order) {
+		return asyncTransferOrderDao.supply(() -> newTransfer(order));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #newTransfers(List)}. The whole batch is handed off once.
+	 */
+	public CompletableFuture<List<TransferOrder>> newTransfersAsync(@NonNull final List<TransferOrder> orders) {
+		return asyncTransferOrderDao.supply(() -> newTransfers(orders));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #updateTransfer(Long, TransferOrder)}.
+	 */
+	public CompletableFuture<SavedOrder> updateTransferAsync(@NonNull final Long existingOrderId, @NonNull final TransferOrder order) {
+		return asyncTransferOrderDao.supply(() -> updateTransfer(existingOrderId, order));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #updateTransferPartially(Long, TransferOrder)}.
+	 */
+	public CompletableFuture<SavedOrder> updateTransferPartiallyAsync(@NonNull final Long existingOrderId,
+			@NonNull final TransferOrder order) {
+		return asyncTransferOrderDao.supply(() -> updateTransferPartially(existingOrderId, order));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #patchTransfer(Long, byte[], boolean)}. Invalid patch completes
+	 * the result with {@link IllegalArgumentException}.
+	 */
+	public CompletableFuture<SavedOrder> patchTransferAsync(@NonNull final Long existingOrderId, @NonNull final byte[] patch,
+			final boolean mergePatch) {
+		return asyncTransferOrderDao.supply(() -> patchTransfer(existingOrderId, patch, mergePatch));
+	}
+
+	/**
+	 * Updates the order atomically, noting whether it existed before, and its status transition.
+	 * @param operation Name of the operation, as recorded in {@link OrderUpdateEvent}.
+	 */
+	private SavedOrder save(final String operation, final Long id, final UnaryOperator<TransferOrder> updater) {
+		final OrderUpdateEvent event = OrderUpdateEvent.start(operation);
+		final boolean[] created = new boolean[1];
+		final TransferStatus[] previousStatus = new TransferStatus[1];
+		final TransferOrder order = transferOrderDao.update(id, existingOrder -> {
+			created[0] = existingOrder == null;
+			previousStatus[0] = existingOrder != null ? existingOrder.getStatus() : null;
+			return schedule(updater.apply(existingOrder));
+		});
+		event.commit(id, previousStatus[0], order.getStatus(), created[0]);
+		return new SavedOrder(order, created[0]);
+	}
+
+	/**
+	 * Counts the new order against velocity limits of its source account, or rejects it if it exceeds them.
+	 * Orders without source account and orders already rejected are not counted.
+	 */
+	private TransferOrder checkVelocity(final TransferOrder order) {
+		if (order.getSourceAccount() == null || order.getStatus() == TransferStatus.REJECTED
+				|| velocityLimiter.tryAcquire(order.getSourceAccount(), order.getAmount(), order.getCreatedAt().toEpochMilli())) {
+			return order;
+		}
+		return order.toBuilder()
+				.status(TransferStatus.REJECTED)
+				.build();
+	}
+
+	/**
+	 * Takes back the order counted by {@link #checkVelocity(TransferOrder)}, as it was not created in the end.
+	 * Only orders of an account not rejected there were counted.
+	 */
+	private void releaseVelocity(final TransferOrder order) {
+		if (order.getSourceAccount() != null && order.getStatus() != TransferStatus.REJECTED) {
+			velocityLimiter.release(order.getSourceAccount(), order.getAmount(), order.getCreatedAt().toEpochMilli());
+		}
+	}
+
+	/**
+	 * Marks planned order as scheduled, if its execution time is still to come. Order without status is planned.
+	 */
+	private TransferOrder schedule(final TransferOrder order) {
+		if (order.getExecuteAt() == null || !order.getExecuteAt().isAfter(order.getUpdatedAt())
+				|| order.getStatus() != null && order.getStatus() != TransferStatus.PLANNED) {
+			return order;
+		}
+		return order.toBuilder()
+				.status(TransferStatus.SCHEDULED)
+				.build();
+	}
+
+	private TransferOrder withGeneratedId(final TransferOrder order) {
+		return order.toBuilder()
+				.id(transferOrderDao.generateId())
+				.build();
+	}
+
+	/**
+	 * Sets timestamps of the order being stored: creation time of the order it replaces (if any),
+	 * and current time as the last update time.
+	 * @param order Order to be stored.
+	 * @param existingOrder Order replaced by it, or null if it's a new order.
+	 * @return Order with timestamps set.
+	 */
+	private TransferOrder stamp(final TransferOrder order, final TransferOrder existingOrder) {
+		final Instant now = clock.instant();
+		final Instant createdAt = existingOrder != null && existingOrder.getCreatedAt() != null
+				? existingOrder.getCreatedAt()
+				: now;
+		return order.toBuilder()
+				.createdAt(createdAt)
+				.updatedAt(now)
+				.build();
+	}
+
+	private static Predicate<TransferOrder> filterOf(final String filter) {
+		return filter == null ? order -> true : OrderFilter.compile(filter);
+	}
 
-		transferOrderDao.persist(mergedOrder);
-		return mergedOrder;
+	private static Comparator<TransferOrder> sortOf(final String sort) {
+		return OrderSort.compile(sort == null ? OrderField.ID.getFieldName() : sort);
 	}
 }
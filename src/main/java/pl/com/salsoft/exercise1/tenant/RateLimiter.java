@@ -0,0 +1,50 @@
+package pl.com.salsoft.exercise1.tenant;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits rate of requests with the generic cell rate algorithm, equivalent to a token bucket.
+ *
+ * Instead of counting tokens, it keeps the theoretical arrival time of the next request: every admitted
+ * request moves it by the interval between requests at the sustained rate, and a request is admitted
+ * if that doesn't move it more than the burst ahead of now. It's a single atomic value, so checks take no lock.
+ */
+final class RateLimiter {
+	private final long intervalNanos;
+	private final long toleranceNanos;
+	private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * @param requestsPerSecond Sustained rate. 0 for no limit.
+	 * @param burst Number of requests admitted at once. At least 1.
+	 */
+	RateLimiter(final long requestsPerSecond, final int burst) {
+		if (requestsPerSecond < 0 || requestsPerSecond > 0 && burst < 1) {
+			throw new IllegalArgumentException(String.format("Invalid rate limit: %d per second, burst %d",
+					requestsPerSecond, burst));
+		}
+		this.intervalNanos = requestsPerSecond == 0 ? 0L : Math.max(1L, TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+		this.toleranceNanos = intervalNanos * burst;
+	}
+
+	/**
+	 * @param nowNanos Current time, as in {@link System#nanoTime()}.
+	 * @return true if the request is admitted, false if it exceeds the limit.
+	 */
+	boolean tryAcquire(final long nowNanos) {
+		if (intervalNanos == 0) {
+			return true;
+		}
+		long arrival;
+		long next;
+		do {
+			arrival = theoreticalArrival.get();
+			next = Math.max(arrival, nowNanos) + intervalNanos;
+			if (next - nowNanos > toleranceNanos) {
+				return false;
+			}
+		} while (!theoreticalArrival.compareAndSet(arrival, next));
+		return true;
+	}
+}
@@ -0,0 +1,132 @@
+package pl.com.salsoft.exercise1.tenant;
+
+import java.time.Clock;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.OrderMutationListener;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.scheduler.TransferScheduler;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.TransferService;
+import pl.com.salsoft.exercise1.velocity.VelocityLimiter;
+
+/**
+ * Business unit with its own store of orders, ID sequence, scheduler of orders, velocity limits and quotas.
+ *
+ * Quotas are checked before a request is processed, so requests racing at the limit of orders
+ * may exceed it by their number.
+ */
+public final class Tenant {
+	private final String name;
+	private final TenantSettings settings;
+	private final TransferOrderDao transferOrderDao;
+	private final TransferService transferService;
+	private final TransferScheduler transferScheduler;
+	private final RateLimiter rateLimiter;
+	private final Semaphore requestSlots;
+	private final AtomicLong orders = new AtomicLong();
+
+	/**
+	 * @param name Name of the tenant. Cannot be null.
+	 * @param settings Quotas. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param clock Source of order timestamps. Cannot be null.
+	 * @param velocityLimiter Limits of orders created per source account of the tenant. Cannot be null.
+	 * @param schedulers Creates the scheduler of orders in given store. Cannot be null.
+	 */
+	Tenant(@NonNull final String name, @NonNull final TenantSettings settings, @NonNull final JsonService jsonService,
+			@NonNull final Clock clock, @NonNull final VelocityLimiter velocityLimiter,
+			@NonNull final Function<TransferOrderDao, TransferScheduler> schedulers) {
+		this.name = name;
+		this.settings = settings;
+		this.transferOrderDao = new InMemoryTransferOrderDao();
+		this.transferService = new TransferService(transferOrderDao, jsonService, clock, velocityLimiter);
+		// Store is empty yet, so there are no orders to schedule besides the ones persisted later.
+		this.transferScheduler = schedulers.apply(transferOrderDao);
+		transferOrderDao.addMutationListener(transferScheduler);
+		this.rateLimiter = new RateLimiter(settings.getRequestsPerSecond(), settings.getBurst());
+		this.requestSlots = settings.getMaxConcurrentRequests() > 0 ? new Semaphore(settings.getMaxConcurrentRequests()) : null;
+		transferOrderDao.addMutationListener(new OrderMutationListener() {
+			@Override
+			public void onPersist(final TransferOrder previous, final TransferOrder order) {
+				if (previous == null) {
+					orders.incrementAndGet();
+				}
+			}
+
+			@Override
+			public void onDelete(final TransferOrder previous) {
+				orders.decrementAndGet();
+			}
+		});
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return Service managing orders of the tenant.
+	 */
+	public TransferService getTransferService() {
+		return transferService;
+	}
+
+	/**
+	 * @return Store of orders of the tenant, for saving and loading it as a whole.
+	 */
+	public TransferOrderDao getTransferOrderDao() {
+		return transferOrderDao;
+	}
+
+	/**
+	 * @return Scheduler promoting due orders of the tenant.
+	 */
+	public TransferScheduler getTransferScheduler() {
+		return transferScheduler;
+	}
+
+	/**
+	 * @return Number of orders stored by the tenant.
+	 */
+	public long getOrderCount() {
+		return orders.get();
+	}
+
+	/**
+	 * @return true if the tenant reached its limit of orders, so it can't create more.
+	 */
+	public boolean isFull() {
+		return settings.getMaxOrders() > 0 && orders.get() >= settings.getMaxOrders();
+	}
+
+	/**
+	 * Counts the request against the rate limit of the tenant.
+	 * @return false if the request exceeds the rate limit and should be rejected.
+	 */
+	public boolean tryAcquireRate() {
+		return rateLimiter.tryAcquire(System.nanoTime());
+	}
+
+	/**
+	 * Takes one of request slots of the tenant. Never waits, so requests over the limit don't hold request threads.
+	 * @return false if all slots are taken and the request should be rejected. Otherwise {@link #exit()} must follow.
+	 */
+	public boolean tryEnter() {
+		return requestSlots == null || requestSlots.tryAcquire();
+	}
+
+	/**
+	 * Returns the request slot taken by {@link #tryEnter()}.
+	 */
+	public void exit() {
+		if (requestSlots != null) {
+			requestSlots.release();
+		}
+	}
+}
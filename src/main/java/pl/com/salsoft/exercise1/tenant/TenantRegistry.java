@@ -0,0 +1,95 @@
+package pl.com.salsoft.exercise1.tenant;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.scheduler.TransferScheduler;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.velocity.VelocityLimiter;
+
+/**
+ * Tenants of the application, other than the default one, which uses the main store and all its features.
+ *
+ * Stores of tenants are kept in memory, separately from the main store and from each other, so scans
+ * of one tenant's orders never visit orders of others. They serve CRUD operations only, but orders are
+ * scheduled and velocity limited as in the main store. Stores are saved and loaded with the main one,
+ * see {@link pl.com.salsoft.exercise1.lifecycle.LifecycleService}.
+ */
+public class TenantRegistry {
+	private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+
+	private final Map<String, Tenant> tenants;
+
+	/**
+	 * Creates tenants without velocity limits, with schedulers of default settings.
+	 * @param names Names of tenants. Cannot be null. Empty for the default tenant only.
+	 * @param settings Quotas of every tenant. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param clock Source of order timestamps. Cannot be null.
+	 */
+	public TenantRegistry(@NonNull final Collection<String> names, @NonNull final TenantSettings settings,
+			@NonNull final JsonService jsonService, @NonNull final Clock clock) {
+		this(names, settings, jsonService, clock, VelocityLimiter::unlimited, transferOrderDao -> new TransferScheduler(
+				transferOrderDao, clock, TransferScheduler.DEFAULT_TICK_MILLIS, TransferScheduler.DEFAULT_BATCH_SIZE, true));
+	}
+
+	/**
+	 * @param names Names of tenants. Cannot be null. Empty for the default tenant only.
+	 * @param settings Quotas of every tenant. Cannot be null.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param clock Source of order timestamps. Cannot be null.
+	 * @param velocityLimiters Creates velocity limits of a tenant, every tenant gets its own. Cannot be null.
+	 * @param schedulers Creates the scheduler of orders in the store of a tenant. Cannot be null.
+	 */
+	public TenantRegistry(@NonNull final Collection<String> names, @NonNull final TenantSettings settings,
+			@NonNull final JsonService jsonService, @NonNull final Clock clock,
+			@NonNull final Supplier<VelocityLimiter> velocityLimiters,
+			@NonNull final Function<TransferOrderDao, TransferScheduler> schedulers) {
+		for (final String name : names) {
+			if (!NAME_PATTERN.matcher(name).matches()) {
+				throw new IllegalArgumentException(String.format("Invalid tenant name: %s", name));
+			}
+		}
+		this.tenants = names.stream()
+				.distinct()
+				.collect(Collectors.toUnmodifiableMap(Function.identity(), name -> new Tenant(name, settings, jsonService, clock,
+						velocityLimiters.get(), schedulers)));
+	}
+
+	/**
+	 * Starts schedulers of all tenants.
+	 */
+	public void start() {
+		tenants.values().forEach(tenant -> tenant.getTransferScheduler().start());
+	}
+
+	/**
+	 * @param name Name of the tenant. Cannot be null.
+	 * @return The tenant, or empty Optional if there's no such tenant.
+	 */
+	public Optional<Tenant> get(@NonNull final String name) {
+		return Optional.ofNullable(tenants.get(name));
+	}
+
+	/**
+	 * @return All tenants besides the default one.
+	 */
+	public Collection<Tenant> getAll() {
+		return tenants.values();
+	}
+
+	/**
+	 * @return true if there are any tenants besides the default one.
+	 */
+	public boolean isEnabled() {
+		return !tenants.isEmpty();
+	}
+}
@@ -0,0 +1,34 @@
+package pl.com.salsoft.exercise1.tenant;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Quotas of every tenant, applied by {@link Tenant}. 0 for no limit.
+ */
+@Builder
+@Getter
+public final class TenantSettings {
+	public static final long DEFAULT_MAX_ORDERS = 1_000_000L;
+	public static final long DEFAULT_REQUESTS_PER_SECOND = 1_000L;
+	public static final int DEFAULT_BURST = 100;
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 16;
+
+	/**
+	 * Maximum number of orders stored by the tenant, which bounds memory it takes.
+	 */
+	private final long maxOrders;
+	/**
+	 * Sustained rate of requests of the tenant.
+	 */
+	private final long requestsPerSecond;
+	/**
+	 * Number of requests the tenant may send at once above the sustained rate.
+	 */
+	private final int burst;
+	/**
+	 * Maximum number of requests of the tenant processed at the same time, so request threads of the server
+	 * are shared by tenants.
+	 */
+	private final int maxConcurrentRequests;
+}
@@ -0,0 +1,45 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event of an operation of the order repository, see {@link pl.com.salsoft.exercise1.dao.TracedTransferOrderDao}.
+ */
+@Name("pl.com.salsoft.exercise1.Dao")
+@Label("Repository Operation")
+@Category({"Exercise1", "Repository"})
+@Description("Operation of the transfer order repository")
+@StackTrace(false)
+@Threshold("1 ms")
+public class DaoEvent extends jdk.jfr.Event {
+	/**
+	 * Value of {@link #orderId} of operations not about a single order.
+	 */
+	public static final long NO_ORDER = -1L;
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Order ID")
+	@Description("ID of the order, or -1 for operations on many orders")
+	long orderId;
+
+	/**
+	 * Creates the event and starts timing it.
+	 * @param operation Name of the operation, i.e. "update".
+	 * @param orderId ID of the order, or {@link #NO_ORDER}.
+	 * @return The event, to commit when the operation ends.
+	 */
+	public static DaoEvent start(final String operation, final long orderId) {
+		final DaoEvent event = new DaoEvent();
+		event.begin();
+		event.operation = operation;
+		event.orderId = orderId;
+		return event;
+	}
+}
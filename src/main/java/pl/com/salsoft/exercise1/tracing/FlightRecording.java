@@ -0,0 +1,97 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.NonNull;
+
+/**
+ * JDK Flight Recorder recording of the application events ({@link RequestEvent}, {@link DaoEvent},
+ * {@link JsonEvent} and {@link OrderUpdateEvent}) together with the JDK's default events,
+ * written to a file when the application exits.
+ *
+ * Events of the application are always emitted, but they cost next to nothing until a recording enables them,
+ * either this one or any other (started with -XX:StartFlightRecording, jcmd or JMC). Events shorter than
+ * the threshold of their type are not committed. Their fields known up front, such as the operation, are set
+ * anyway, but ones that take work to compute, such as the class of a generic JSON type, are filled in only
+ * for events to be committed.
+ */
+public class FlightRecording {
+	public static final long DEFAULT_REQUEST_THRESHOLD_MILLIS = 10L;
+	public static final long DEFAULT_DAO_THRESHOLD_MILLIS = 1L;
+	public static final long DEFAULT_JSON_THRESHOLD_MILLIS = 1L;
+	public static final long DEFAULT_UPDATE_THRESHOLD_MILLIS = 0L;
+
+	private final Path file;
+	private final Duration requestThreshold;
+	private final Duration daoThreshold;
+	private final Duration jsonThreshold;
+	private final Duration updateThreshold;
+	private Recording recording;
+
+	/**
+	 * @param file Path of the recording file. Cannot be null.
+	 * @param requestThresholdMillis Minimum duration of a recorded request. Cannot be negative.
+	 * @param daoThresholdMillis Minimum duration of a recorded repository operation. Cannot be negative.
+	 * @param jsonThresholdMillis Minimum duration of a recorded JSON mapping. Cannot be negative.
+	 * @param updateThresholdMillis Minimum duration of a recorded order update. Cannot be negative.
+	 */
+	public FlightRecording(@NonNull final Path file, final long requestThresholdMillis, final long daoThresholdMillis,
+			final long jsonThresholdMillis, final long updateThresholdMillis) {
+		if (requestThresholdMillis < 0 || daoThresholdMillis < 0 || jsonThresholdMillis < 0 || updateThresholdMillis < 0) {
+			throw new IllegalArgumentException("Flight recording thresholds cannot be negative.");
+		}
+		this.file = file;
+		this.requestThreshold = Duration.ofMillis(requestThresholdMillis);
+		this.daoThreshold = Duration.ofMillis(daoThresholdMillis);
+		this.jsonThreshold = Duration.ofMillis(jsonThresholdMillis);
+		this.updateThreshold = Duration.ofMillis(updateThresholdMillis);
+	}
+
+	private FlightRecording() {
+		this.file = null;
+		this.requestThreshold = null;
+		this.daoThreshold = null;
+		this.jsonThreshold = null;
+		this.updateThreshold = null;
+	}
+
+	/**
+	 * Creates recording which is never started. Events can be still recorded by recordings started outside
+	 * of the application.
+	 * @return New recording.
+	 */
+	public static FlightRecording disabled() {
+		return new FlightRecording();
+	}
+
+	/**
+	 * Starts the recording. Should be called at the application start. Does nothing if the recording is disabled.
+	 */
+	public synchronized void start() {
+		if (file == null || recording != null) {
+			return;
+		}
+		try {
+			recording = new Recording(Configuration.getConfiguration("default"));
+			recording.setName("exercise1");
+			recording.enable(RequestEvent.class).withThreshold(requestThreshold);
+			recording.enable(DaoEvent.class).withThreshold(daoThreshold);
+			recording.enable(JsonEvent.class).withThreshold(jsonThreshold);
+			recording.enable(OrderUpdateEvent.class).withThreshold(updateThreshold);
+			recording.setToDisk(true);
+			recording.setDestination(file);
+			recording.setDumpOnExit(true);
+			recording.start();
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Could not start flight recording.", e);
+		} catch (final ParseException e) {
+			throw new IllegalStateException("Could not read default flight recorder configuration.", e);
+		}
+	}
+}
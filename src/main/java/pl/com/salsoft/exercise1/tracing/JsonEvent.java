@@ -0,0 +1,73 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event of mapping an object to or from JSON, see {@link pl.com.salsoft.exercise1.service.JsonService}.
+ */
+@Name("pl.com.salsoft.exercise1.Json")
+@Label("JSON Mapping")
+@Category({"Exercise1", "JSON"})
+@Description("Serialization or deserialization of an object")
+@StackTrace(false)
+@Threshold("1 ms")
+public class JsonEvent extends jdk.jfr.Event {
+	@Label("Serialization")
+	@Description("true for serialization, false for deserialization")
+	boolean serialization;
+
+	@Label("Type")
+	@Description("Class of the object, or of its target for deserialization")
+	Class<?> type;
+
+	@Label("Payload Size")
+	@Description("Length of the JSON in characters, or bytes for byte arrays")
+	@DataAmount
+	long size;
+
+	/**
+	 * Creates the event and starts timing it.
+	 * @param serialization true for serialization, false for deserialization.
+	 * @return The event, to commit with {@link #commit(Type, long)} when mapping ends.
+	 */
+	public static JsonEvent start(final boolean serialization) {
+		final JsonEvent event = new JsonEvent();
+		event.begin();
+		event.serialization = serialization;
+		return event;
+	}
+
+	/**
+	 * Commits the event, if it's enabled and over the threshold.
+	 * @param type Class of the object, or its generic type, resolved to its class only if the event is committed.
+	 * @param size Size of the JSON, or 0 if it's not known.
+	 */
+	public void commit(final Type type, final long size) {
+		end();
+		if (shouldCommit()) {
+			this.type = rawClass(type);
+			this.size = size;
+			commit();
+		}
+	}
+
+	private static Class<?> rawClass(final Type type) {
+		if (type instanceof Class) {
+			return (Class<?>) type;
+		}
+		if (type instanceof ParameterizedType) {
+			return rawClass(((ParameterizedType) type).getRawType());
+		}
+		// Type variables, wildcards and generic arrays aren't mapped by the application.
+		return Object.class;
+	}
+}
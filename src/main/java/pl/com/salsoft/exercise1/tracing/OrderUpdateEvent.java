@@ -0,0 +1,65 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event of a modification of an order by {@link pl.com.salsoft.exercise1.service.TransferService},
+ * with the status transition. Every modification is recorded when the event is enabled, however fast.
+ */
+@Name("pl.com.salsoft.exercise1.OrderUpdate")
+@Label("Order Update")
+@Category({"Exercise1", "Service"})
+@Description("Creation, replacement, patch or deletion of a transfer order")
+@StackTrace(false)
+public class OrderUpdateEvent extends jdk.jfr.Event {
+	@Label("Operation")
+	String operation;
+
+	@Label("Order ID")
+	long orderId;
+
+	@Label("Previous Status")
+	@Description("Status before the update, or null if there was no order or no status")
+	String previousStatus;
+
+	@Label("Status")
+	@Description("Status after the update, or null if the order was deleted or has no status")
+	String status;
+
+	@Label("Created")
+	boolean created;
+
+	/**
+	 * Creates the event and starts timing it.
+	 * @param operation Name of the operation, i.e. "patch".
+	 * @return The event, to commit with {@link #commit(long, Enum, Enum, boolean)} when the update ends.
+	 */
+	public static OrderUpdateEvent start(final String operation) {
+		final OrderUpdateEvent event = new OrderUpdateEvent();
+		event.begin();
+		event.operation = operation;
+		return event;
+	}
+
+	/**
+	 * Commits the event, if it's enabled and over the threshold.
+	 * @param orderId ID of the order.
+	 * @param previousStatus Status before the update, or null.
+	 * @param status Status after the update, or null.
+	 * @param created true if the order was created.
+	 */
+	public void commit(final long orderId, final Enum<?> previousStatus, final Enum<?> status, final boolean created) {
+		end();
+		if (shouldCommit()) {
+			this.orderId = orderId;
+			this.previousStatus = previousStatus != null ? previousStatus.name() : null;
+			this.status = status != null ? status.name() : null;
+			this.created = created;
+			commit();
+		}
+	}
+}
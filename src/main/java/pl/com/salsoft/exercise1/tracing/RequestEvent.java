@@ -0,0 +1,39 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event of an HTTP request, from parsed headers until the response is complete,
+ * see {@link RequestEventListener}.
+ */
+@Name("pl.com.salsoft.exercise1.Request")
+@Label("HTTP Request")
+@Category({"Exercise1", "REST"})
+@Description("HTTP request served by the application")
+@StackTrace(false)
+@Threshold("10 ms")
+public class RequestEvent extends jdk.jfr.Event {
+	@Label("Method")
+	String method;
+
+	@Label("Route")
+	@Description("Matched route, i.e. /transfer/:id, or the URI if no route matched")
+	String route;
+
+	@Label("Status")
+	int status;
+
+	@Label("Request Size")
+	@DataAmount
+	long requestBytes;
+
+	@Label("Response Size")
+	@DataAmount
+	long responseBytes;
+}
@@ -0,0 +1,43 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.Request;
+
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+
+/**
+ * Jetty listener emitting a {@link RequestEvent} for every request, whichever engine serves it.
+ * Nothing is allocated for requests while the event is not enabled in any recording.
+ */
+public class RequestEventListener implements HttpChannel.Listener {
+	private static final String ATTRIBUTE = RequestEvent.class.getName();
+
+	@Override
+	public void onRequestBegin(final Request request) {
+		final RequestEvent event = new RequestEvent();
+		if (!event.isEnabled()) {
+			return;
+		}
+		event.begin();
+		request.setAttribute(ATTRIBUTE, event);
+	}
+
+	@Override
+	public void onComplete(final Request request) {
+		final Object attribute = request.getAttribute(ATTRIBUTE);
+		if (!(attribute instanceof RequestEvent)) {
+			return;
+		}
+		final RequestEvent event = (RequestEvent) attribute;
+		event.end();
+		if (event.shouldCommit()) {
+			final Object route = request.getAttribute(AccessLog.ROUTE_ATTRIBUTE);
+			event.method = request.getMethod();
+			event.route = route != null ? route.toString() : request.getRequestURI();
+			event.status = request.getResponse().getStatus();
+			event.requestBytes = Math.max(request.getContentLengthLong(), 0L);
+			event.responseBytes = request.getHttpChannel().getBytesWritten();
+			event.commit();
+		}
+	}
+}
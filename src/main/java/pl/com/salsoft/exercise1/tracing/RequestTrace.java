@@ -0,0 +1,219 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Time spent by a single request in each of the processing {@link Phase}s.
+ *
+ * Phases are measured exclusively: when a phase is entered inside of another one (i.e. deserialization
+ * of a patch inside of the DAO update), the outer phase is paused until the inner one is exited,
+ * so the phases add up to the total handling time. The trace of the request being handled is bound
+ * to the handling thread, so the code of any layer can mark its phase with {@link #enter(Phase)}
+ * and {@link #exit(Phase)}, without passing the trace around. Outside of requests, marking a phase
+ * costs just a thread-local lookup.
+ */
+public final class RequestTrace {
+	/**
+	 * Request processing phase.
+	 */
+	public enum Phase {
+		/**
+		 * Reading the request body.
+		 */
+		READ,
+		/**
+		 * Deserializing the request body.
+		 */
+		DESERIALIZE,
+		/**
+		 * Controller and service code, except for the other phases.
+		 */
+		SERVICE,
+		/**
+		 * Order repository access.
+		 */
+		DAO,
+		/**
+		 * Waiting for asynchronous operations, with no request thread held.
+		 */
+		WAIT,
+		/**
+		 * Serializing the response body.
+		 */
+		SERIALIZE,
+		/**
+		 * Writing the response, measured from the end of handling until the response is completed.
+		 */
+		WRITE;
+
+		private final String metricName = name().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Request attribute with the trace of the request, for listeners notified after handling.
+	 */
+	public static final String ATTRIBUTE = RequestTrace.class.getName();
+
+	private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+	private static final Phase[] PHASES = Phase.values();
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	private final long[] nanos = new long[PHASES.length];
+	private final long startNanos;
+	private Phase current;
+	private long since;
+	private long handledNanos;
+	private long completedNanos;
+
+	private RequestTrace(final Phase initialPhase) {
+		this.startNanos = System.nanoTime();
+		this.current = initialPhase;
+		this.since = startNanos;
+	}
+
+	/**
+	 * Starts trace of a request and binds it to the current thread.
+	 * @param initialPhase Phase the request is in. Cannot be null.
+	 * @return The trace.
+	 */
+	public static RequestTrace begin(final Phase initialPhase) {
+		final RequestTrace trace = new RequestTrace(initialPhase);
+		CURRENT.set(trace);
+		return trace;
+	}
+
+	/**
+	 * Enters given phase of the request handled by the current thread, if any.
+	 * @param phase Phase to enter. Cannot be null.
+	 * @return Phase to pass to {@link #exit(Phase)}, or null if there's no request being traced.
+	 */
+	public static Phase enter(final Phase phase) {
+		final RequestTrace trace = CURRENT.get();
+		return trace != null ? trace.switchTo(phase) : null;
+	}
+
+	/**
+	 * Exits current phase of the request handled by the current thread.
+	 * @param previous Value returned by the matching {@link #enter(Phase)}.
+	 */
+	public static void exit(final Phase previous) {
+		if (previous == null) {
+			return;
+		}
+		final RequestTrace trace = CURRENT.get();
+		if (trace != null) {
+			trace.switchTo(previous);
+		}
+	}
+
+	/**
+	 * Suspends handling of the request, while it waits for an asynchronous operation, and unbinds the trace
+	 * from the current thread. Time until {@link #resume()} is recorded as the {@link Phase#WAIT} phase.
+	 */
+	public void suspend() {
+		switchTo(Phase.WAIT);
+		CURRENT.remove();
+	}
+
+	/**
+	 * Resumes handling of the request suspended by {@link #suspend()}, in the {@link Phase#SERVICE} phase,
+	 * and binds the trace to the current thread.
+	 */
+	public void resume() {
+		CURRENT.set(this);
+		switchTo(Phase.SERVICE);
+	}
+
+	/**
+	 * Ends handling of the request and unbinds the trace from the current thread.
+	 * Only the {@link Phase#WRITE} phase can be recorded afterwards, with {@link #complete()}.
+	 */
+	public void endHandling() {
+		handledNanos = System.nanoTime();
+		nanos[current.ordinal()] += handledNanos - since;
+		CURRENT.remove();
+	}
+
+	/**
+	 * Records completion of the response, so the {@link Phase#WRITE} phase is known.
+	 */
+	public void complete() {
+		if (handledNanos == 0L || completedNanos != 0L) {
+			return;
+		}
+		completedNanos = System.nanoTime();
+		nanos[Phase.WRITE.ordinal()] += completedNanos - handledNanos;
+	}
+
+	/**
+	 * @return Time from the start of the trace until completion, or until end of handling if not completed.
+	 */
+	public long getTotalNanos() {
+		final long end = completedNanos != 0L ? completedNanos : handledNanos;
+		return end - startNanos;
+	}
+
+	/**
+	 * @param phase Phase. Cannot be null.
+	 * @return Time spent in the phase so far.
+	 */
+	public long getNanos(final Phase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	/**
+	 * @return Non-empty phases with their duration in milliseconds, in the order of the phases.
+	 */
+	public Map<String, Double> getPhaseMillis() {
+		final Map<String, Double> phases = new LinkedHashMap<>();
+		for (final Phase phase : PHASES) {
+			if (nanos[phase.ordinal()] > 0) {
+				phases.put(phase.metricName, nanos[phase.ordinal()] / NANOS_PER_MILLI);
+			}
+		}
+		return phases;
+	}
+
+	/**
+	 * @return Value of the Server-Timing header (i.e. "read;dur=0.012, service;dur=0.250, total;dur=0.262"),
+	 * with the phases measured until now.
+	 */
+	public String toServerTiming() {
+		final StringBuilder header = new StringBuilder(128);
+		for (final Phase phase : PHASES) {
+			if (nanos[phase.ordinal()] > 0) {
+				appendMetric(header, phase.metricName, nanos[phase.ordinal()]);
+			}
+		}
+		appendMetric(header, "total", getTotalNanos());
+		return header.toString();
+	}
+
+	private Phase switchTo(final Phase phase) {
+		final long now = System.nanoTime();
+		nanos[current.ordinal()] += now - since;
+		since = now;
+		final Phase previous = current;
+		current = phase;
+		return previous;
+	}
+
+	private static void appendMetric(final StringBuilder header, final String name, final long nanos) {
+		if (header.length() > 0) {
+			header.append(", ");
+		}
+		// Milliseconds with microsecond precision, without going through String.format
+		final long micros = nanos / 1000;
+		header.append(name).append(";dur=").append(micros / 1000).append('.');
+		final long fraction = micros % 1000;
+		if (fraction < 100) {
+			header.append('0');
+		}
+		if (fraction < 10) {
+			header.append('0');
+		}
+		header.append(fraction);
+	}
+}
@@ -0,0 +1,27 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Request, which took longer than the threshold, with its breakdown into phases,
+ * as reported by the /debug/slow resource.
+ */
+@Builder
+@Getter
+public final class SlowRequest {
+	/**
+	 * Completion time, as ISO-8601 instant.
+	 */
+	private final String time;
+	private final String method;
+	private final String uri;
+	private final int status;
+	private final double totalMillis;
+	/**
+	 * Duration of every non-empty phase in milliseconds, see {@link RequestTrace.Phase}.
+	 */
+	private final Map<String, Double> phaseMillis;
+}
@@ -0,0 +1,43 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import java.time.Instant;
+
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.Request;
+
+import lombok.NonNull;
+
+/**
+ * Jetty listener completing request traces with the time of writing the response,
+ * and capturing slow requests in the {@link SlowRequestLog}.
+ */
+public class SlowRequestListener implements HttpChannel.Listener {
+	private final SlowRequestLog slowRequestLog;
+
+	/**
+	 * @param slowRequestLog Buffer of slow requests. Cannot be null.
+	 */
+	public SlowRequestListener(@NonNull final SlowRequestLog slowRequestLog) {
+		this.slowRequestLog = slowRequestLog;
+	}
+
+	@Override
+	public void onComplete(final Request request) {
+		final Object attribute = request.getAttribute(RequestTrace.ATTRIBUTE);
+		if (!(attribute instanceof RequestTrace)) {
+			return;
+		}
+		final RequestTrace trace = (RequestTrace) attribute;
+		trace.complete();
+		if (slowRequestLog.isSlow(trace.getTotalNanos())) {
+			slowRequestLog.add(SlowRequest.builder()
+					.time(Instant.now().toString())
+					.method(request.getMethod())
+					.uri(request.getRequestURI())
+					.status(request.getResponse().getStatus())
+					.totalMillis(trace.getTotalNanos() / 1_000_000.0)
+					.phaseMillis(trace.getPhaseMillis())
+					.build());
+		}
+	}
+}
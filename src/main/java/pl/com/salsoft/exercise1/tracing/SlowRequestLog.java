@@ -0,0 +1,59 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded buffer of the most recent slow requests. When it's full, the oldest request is evicted.
+ * Only requests over the threshold get here, so it's simply synchronized.
+ */
+public class SlowRequestLog {
+	public static final long DEFAULT_THRESHOLD_MILLIS = 100L;
+	public static final int DEFAULT_CAPACITY = 100;
+
+	private final long thresholdNanos;
+	private final int capacity;
+	private final Deque<SlowRequest> requests;
+
+	/**
+	 * @param thresholdMillis Minimum duration of a request to be captured. Cannot be negative.
+	 * @param capacity Maximum number of captured requests kept. Must be positive.
+	 */
+	public SlowRequestLog(final long thresholdMillis, final int capacity) {
+		if (thresholdMillis < 0 || capacity <= 0) {
+			throw new IllegalArgumentException("Slow request threshold cannot be negative and capacity must be positive.");
+		}
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.capacity = capacity;
+		this.requests = new ArrayDeque<>(capacity);
+	}
+
+	/**
+	 * @param totalNanos Duration of a request.
+	 * @return true if the request is slow and should be captured.
+	 */
+	public boolean isSlow(final long totalNanos) {
+		return totalNanos >= thresholdNanos;
+	}
+
+	/**
+	 * Captures slow request, evicting the oldest one if the buffer is full.
+	 * @param request Request to capture. Cannot be null.
+	 */
+	public synchronized void add(final SlowRequest request) {
+		if (requests.size() == capacity) {
+			requests.removeLast();
+		}
+		requests.addFirst(request);
+	}
+
+	/**
+	 * @return Captured requests, the most recent first.
+	 */
+	public synchronized List<SlowRequest> getRequests() {
+		return new ArrayList<>(requests);
+	}
+}
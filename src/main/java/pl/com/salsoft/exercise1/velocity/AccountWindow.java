@@ -0,0 +1,125 @@
+package pl.com.salsoft.exercise1.velocity;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sliding window of orders of a single account: ring of time buckets, each holding number and total amount
+ * of orders within it. A slot is reused for a newer bucket by replacing it (compare-and-set), so buckets
+ * expire without any cleanup, and only buckets with orders take memory.
+ */
+final class AccountWindow {
+	private static final long RETIRED = Long.MIN_VALUE;
+
+	private final AtomicReferenceArray<Bucket> slots;
+	private final AtomicLong lastEpoch;
+
+	/**
+	 * @param buckets Number of buckets of the window.
+	 * @param epoch Current bucket number (time divided by the bucket length).
+	 */
+	AccountWindow(final int buckets, final long epoch) {
+		this.slots = new AtomicReferenceArray<>(buckets);
+		this.lastEpoch = new AtomicLong(epoch);
+	}
+
+	/**
+	 * Notes activity of the account in given bucket.
+	 * @return false if the window was already retired and can't be used anymore.
+	 */
+	boolean touch(final long epoch) {
+		long last;
+		do {
+			last = lastEpoch.get();
+			if (last == RETIRED) {
+				return false;
+			}
+			if (last >= epoch) {
+				return true;
+			}
+		} while (!lastEpoch.compareAndSet(last, epoch));
+		return true;
+	}
+
+	/**
+	 * Retires the window if the account had no orders within the window length before given bucket,
+	 * so it holds nothing that could count against a limit.
+	 * @return true if the window was retired.
+	 */
+	boolean retireIfIdle(final long epoch) {
+		final long last = lastEpoch.get();
+		return last != RETIRED && last <= epoch - slots.length() && lastEpoch.compareAndSet(last, RETIRED);
+	}
+
+	/**
+	 * Adds an order to given bucket, unless the window would exceed one of the limits then.
+	 * The order is added first and taken back if a limit turns out to be exceeded, so concurrent orders
+	 * never exceed the limits together (although both of them may be rejected at the edge of a limit).
+	 * @param epoch Bucket of the order.
+	 * @param amount Amount of the order (in limiter units).
+	 * @param maxOrders Maximum number of orders within the window, 0 for no limit.
+	 * @param maxAmount Maximum total amount of orders within the window, 0 for no limit.
+	 * @return true if the order was added, false if it would exceed a limit.
+	 */
+	boolean tryAdd(final long epoch, final long amount, final long maxOrders, final long maxAmount) {
+		final Bucket bucket = bucket(epoch);
+		bucket.count.incrementAndGet();
+		bucket.amount.addAndGet(amount);
+
+		long count = 0;
+		long total = 0;
+		for (int i = 0; i < slots.length(); i++) {
+			final Bucket slot = slots.get(i);
+			if (slot != null && slot.epoch > epoch - slots.length()) {
+				count += slot.count.get();
+				total += slot.amount.get();
+			}
+		}
+		if ((maxOrders > 0 && count > maxOrders) || (maxAmount > 0 && total > maxAmount)) {
+			bucket.count.decrementAndGet();
+			bucket.amount.addAndGet(-amount);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Takes back an order added to given bucket, if the bucket is still in the window.
+	 * @param epoch Bucket of the order.
+	 * @param amount Amount of the order (in limiter units).
+	 */
+	void remove(final long epoch, final long amount) {
+		final Bucket bucket = slots.get((int) Math.floorMod(epoch, (long) slots.length()));
+		// Slot reused for a newer bucket means the order has left the window already.
+		if (bucket != null && bucket.epoch == epoch) {
+			bucket.count.decrementAndGet();
+			bucket.amount.addAndGet(-amount);
+		}
+	}
+
+	private Bucket bucket(final long epoch) {
+		final int slot = (int) Math.floorMod(epoch, (long) slots.length());
+		while (true) {
+			final Bucket bucket = slots.get(slot);
+			// A slot already reused for a newer bucket means the clock of this thread is behind,
+			// the order is counted in the newer bucket then.
+			if (bucket != null && bucket.epoch >= epoch) {
+				return bucket;
+			}
+			final Bucket newBucket = new Bucket(epoch);
+			if (slots.compareAndSet(slot, bucket, newBucket)) {
+				return newBucket;
+			}
+		}
+	}
+
+	private static final class Bucket {
+		private final long epoch;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong amount = new AtomicLong();
+
+		private Bucket(final long epoch) {
+			this.epoch = epoch;
+		}
+	}
+}
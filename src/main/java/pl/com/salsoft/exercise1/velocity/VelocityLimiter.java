@@ -0,0 +1,171 @@
+package pl.com.salsoft.exercise1.velocity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.NonNull;
+
+/**
+ * Per-account velocity limits: maximum number and total amount of orders of a source account
+ * within a rolling time window.
+ *
+ * Every account has its own sliding window, split into a fixed number of time buckets kept in a ring, so
+ * checking and counting an order costs the same however many orders the account has, without any lock.
+ * The window slides by the length of a bucket. Amounts are summed in hundredths, rounded up.
+ *
+ * Windows of accounts without orders for the whole window length are evicted by sweeps started at most
+ * once per window length, so memory is bounded by the number of accounts active recently. A sweep is spread
+ * over the following orders, each of them checking at most {@link #SWEEP_BATCH} windows, so no single
+ * order pays for all the accounts.
+ */
+public class VelocityLimiter {
+	public static final long DEFAULT_WINDOW_MILLIS = 3_600_000L;
+	public static final int DEFAULT_BUCKETS = 60;
+
+	static final int SWEEP_BATCH = 64;
+
+	private static final int AMOUNT_SCALE = 2;
+
+	private final long bucketMillis;
+	private final int buckets;
+	private final long maxOrders;
+	private final long maxAmount;
+	private final Map<String, AccountWindow> windows = new ConcurrentHashMap<>();
+	private final AtomicBoolean sweeping = new AtomicBoolean();
+	// Epoch at which the next sweep starts, or Long.MIN_VALUE while a sweep is in progress.
+	private volatile long nextSweepEpoch;
+	// Windows left to check by the sweep in progress, accessed only by the thread holding the sweeping flag.
+	private Iterator<Map.Entry<String, AccountWindow>> sweep;
+
+	/**
+	 * @param windowMillis Length of the rolling window. Must be positive.
+	 * @param buckets Number of buckets the window is split into. Must be positive and not bigger than the window length.
+	 * @param maxOrders Maximum number of orders of an account within the window. 0 for no limit.
+	 * @param maxAmount Maximum total amount of orders of an account within the window. 0 for no limit. Cannot be null.
+	 */
+	public VelocityLimiter(final long windowMillis, final int buckets, final long maxOrders,
+			@NonNull final BigDecimal maxAmount) {
+		if (windowMillis <= 0 || buckets <= 0 || buckets > windowMillis) {
+			throw new IllegalArgumentException(String.format("Invalid window of %d ms in %d buckets.", windowMillis, buckets));
+		}
+		if (maxOrders < 0 || maxAmount.signum() < 0) {
+			throw new IllegalArgumentException("Velocity limits can't be negative.");
+		}
+		this.bucketMillis = windowMillis / buckets;
+		this.buckets = buckets;
+		this.maxOrders = maxOrders;
+		this.maxAmount = toUnits(maxAmount);
+	}
+
+	/**
+	 * @return Limiter accepting all orders.
+	 */
+	public static VelocityLimiter unlimited() {
+		return new VelocityLimiter(DEFAULT_WINDOW_MILLIS, DEFAULT_BUCKETS, 0L, BigDecimal.ZERO);
+	}
+
+	/**
+	 * @return true if any limit is set.
+	 */
+	public boolean isEnabled() {
+		return maxOrders > 0 || maxAmount > 0;
+	}
+
+	/**
+	 * Counts an order of the account, if it doesn't exceed any limit. Rejected orders are not counted.
+	 * @param account Source account of the order. Cannot be null.
+	 * @param amount Amount of the order. Null is counted as 0.
+	 * @param timeMillis Time of the order (epoch milliseconds).
+	 * @return true if the order is within the limits, false if it exceeds any of them.
+	 */
+	public boolean tryAcquire(@NonNull final String account, final BigDecimal amount, final long timeMillis) {
+		if (!isEnabled()) {
+			return true;
+		}
+		final long units = maxAmount > 0 && amount != null ? toUnits(amount) : 0L;
+		// Order exceeding the limit on its own is not counted at all, so sums of amounts stay in range.
+		if (maxAmount > 0 && units > maxAmount) {
+			return false;
+		}
+		final long epoch = Math.floorDiv(timeMillis, bucketMillis);
+		evictIdle(epoch);
+		while (true) {
+			final AccountWindow window = windows.computeIfAbsent(account, key -> new AccountWindow(buckets, epoch));
+			// Retired window was just evicted, the next lookup creates a new one.
+			if (window.touch(epoch)) {
+				return window.tryAdd(epoch, units, maxOrders, maxAmount);
+			}
+		}
+	}
+
+	/**
+	 * Takes back an order counted by {@link #tryAcquire(String, BigDecimal, long)}, which was not created
+	 * in the end, so it doesn't count against the limits anymore. Must be given the same arguments.
+	 * Nothing is taken back once the bucket of the order has left the window.
+	 * @param account Source account of the order. Cannot be null.
+	 * @param amount Amount of the order. Null is counted as 0.
+	 * @param timeMillis Time of the order (epoch milliseconds).
+	 */
+	public void release(@NonNull final String account, final BigDecimal amount, final long timeMillis) {
+		if (!isEnabled()) {
+			return;
+		}
+		final AccountWindow window = windows.get(account);
+		if (window != null) {
+			window.remove(Math.floorDiv(timeMillis, bucketMillis), maxAmount > 0 && amount != null ? toUnits(amount) : 0L);
+		}
+	}
+
+	/**
+	 * @return Number of accounts with a window kept in memory.
+	 */
+	public int getTrackedAccounts() {
+		return windows.size();
+	}
+
+	/**
+	 * Checks the next windows of the sweep in progress, or starts a new one if it's due.
+	 * Does nothing if another thread is sweeping at the moment.
+	 */
+	private void evictIdle(final long epoch) {
+		if (epoch < nextSweepEpoch || !sweeping.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			if (sweep == null) {
+				if (epoch < nextSweepEpoch) {
+					return;
+				}
+				sweep = windows.entrySet().iterator();
+				nextSweepEpoch = Long.MIN_VALUE;
+			}
+			for (int i = 0; i < SWEEP_BATCH && sweep.hasNext(); i++) {
+				final Map.Entry<String, AccountWindow> entry = sweep.next();
+				if (entry.getValue().retireIfIdle(epoch)) {
+					windows.remove(entry.getKey(), entry.getValue());
+				}
+			}
+			if (!sweep.hasNext()) {
+				sweep = null;
+				nextSweepEpoch = epoch + buckets;
+			}
+		} finally {
+			sweeping.set(false);
+		}
+	}
+
+	/**
+	 * @return Amount in hundredths, rounded up (at most Long.MAX_VALUE). Negative amounts are counted as 0.
+	 */
+	private static long toUnits(final BigDecimal amount) {
+		if (amount.signum() <= 0) {
+			return 0L;
+		}
+		final BigDecimal units = amount.movePointRight(AMOUNT_SCALE).setScale(0, RoundingMode.CEILING);
+		return units.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0 ? Long.MAX_VALUE : units.longValueExact();
+	}
+}
@@ -0,0 +1,201 @@
+package pl.com.salsoft.exercise1.webhook;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.dao.OrderMutationListener;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.service.JsonService;
+
+/**
+ * Notifies webhook endpoints about changes of order status.
+ *
+ * As a mutation listener of the repository it only puts the changed order into a bounded queue of every endpoint,
+ * where it replaces earlier changes of the same order still waiting, so the write path never waits for delivery.
+ * A single background thread sends queued orders to every endpoint in batches, as a JSON array of orders
+ * in their latest state, with non-blocking HTTP requests. Each endpoint has at most one request in flight,
+ * and its own retries, so a slow or failing endpoint never holds back the others.
+ *
+ * A failed batch is retried with exponential backoff, and dropped after {@link WebhookSettings#getMaxAttempts()}
+ * attempts. After {@link WebhookSettings#getFailureThreshold()} failures in a row the circuit of the endpoint opens:
+ * it gets a single trial request every {@link WebhookSettings#getOpenMillis()}, until one succeeds.
+ * Delivery is at most once per change: changes waiting at shutdown, dropped when the queue is full
+ * or when retries ran out are lost, and counted.
+ */
+public class WebhookDispatcher implements OrderMutationListener {
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String APPLICATION_JSON = "application/json";
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private final List<WebhookEndpoint> endpoints;
+	private final JsonService jsonService;
+	private final WebhookSettings settings;
+	private final HttpClient httpClient;
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * @param urls URLs orders are POSTed to. Cannot be null. Empty to disable webhooks.
+	 * @param jsonService Service (de)serializing JSON. Cannot be null.
+	 * @param settings Delivery settings. Cannot be null.
+	 */
+	public WebhookDispatcher(@NonNull final List<URI> urls, @NonNull final JsonService jsonService,
+			@NonNull final WebhookSettings settings) {
+		if (settings.getQueueCapacity() <= 0 || settings.getBatchSize() <= 0 || settings.getMaxAttempts() <= 0
+				|| settings.getFailureThreshold() <= 0 || settings.getIntervalMillis() <= 0) {
+			throw new IllegalArgumentException("Webhook queue capacity, batch size, attempts, threshold and interval "
+					+ "must be positive.");
+		}
+		this.endpoints = urls.stream()
+				.map(url -> new WebhookEndpoint(url, settings.getQueueCapacity()))
+				.collect(Collectors.toUnmodifiableList());
+		this.jsonService = jsonService;
+		this.settings = settings;
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "webhook-dispatcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.httpClient = HttpClient.newBuilder()
+				.version(Version.HTTP_1_1)
+				.connectTimeout(CONNECT_TIMEOUT)
+				.build();
+	}
+
+	/**
+	 * @return true if there's any endpoint to notify.
+	 */
+	public boolean isEnabled() {
+		return !endpoints.isEmpty();
+	}
+
+	@Override
+	public void onPersist(final TransferOrder previous, final TransferOrder order) {
+		if (previous == null || previous.getStatus() != order.getStatus()) {
+			for (final WebhookEndpoint endpoint : endpoints) {
+				endpoint.offer(order);
+			}
+		}
+	}
+
+	@Override
+	public void onDelete(final TransferOrder previous) {
+		// Deleting an order doesn't change its status.
+	}
+
+	/**
+	 * Starts following modifications of the repository and background delivery, unless there are no endpoints.
+	 * Call it after the repository is loaded (from a snapshot or a predecessor), so orders already stored are not
+	 * notified again on every restart. Changes passed to the dispatcher before are queued (up to the capacity).
+	 * @param transferOrderDao Repository to follow. Cannot be null.
+	 */
+	public void start(@NonNull final TransferOrderDao transferOrderDao) {
+		if (isEnabled()) {
+			transferOrderDao.addMutationListener(this);
+			executor.scheduleWithFixedDelay(this::dispatchQuietly, settings.getIntervalMillis(),
+					settings.getIntervalMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stops background delivery. Requests in flight are abandoned, changes still waiting are lost.
+	 */
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @return Total number of orders delivered to all endpoints.
+	 */
+	public long getDeliveredCount() {
+		return endpoints.stream().mapToLong(WebhookEndpoint::getDelivered).sum();
+	}
+
+	/**
+	 * @return Total number of changes dropped, because queues were full or retries ran out.
+	 */
+	public long getDroppedCount() {
+		return endpoints.stream().mapToLong(WebhookEndpoint::getDropped).sum();
+	}
+
+	/**
+	 * @return Number of orders waiting for delivery to all endpoints, not counting batches in flight or retried.
+	 */
+	public int getQueuedCount() {
+		return endpoints.stream().mapToInt(WebhookEndpoint::getQueued).sum();
+	}
+
+	private void dispatchQuietly() {
+		final long now = System.currentTimeMillis();
+		for (final WebhookEndpoint endpoint : endpoints) {
+			try {
+				dispatch(endpoint, now);
+			} catch (final RuntimeException e) {
+				log.error("Webhook delivery to {} failed, will retry: {}", endpoint.getUrl(), e.getMessage());
+			}
+		}
+	}
+
+	private void dispatch(final WebhookEndpoint endpoint, final long now) {
+		if (!endpoint.isReady(now)) {
+			return;
+		}
+		final List<TransferOrder> batch = endpoint.nextBatch(settings.getBatchSize());
+		if (batch.isEmpty()) {
+			return;
+		}
+		final HttpRequest request = HttpRequest.newBuilder()
+				.uri(endpoint.getUrl())
+				.timeout(Duration.ofMillis(settings.getRequestTimeoutMillis()))
+				.header(CONTENT_TYPE, APPLICATION_JSON)
+				.POST(BodyPublishers.ofString(jsonService.map(batch)))
+				.build();
+		endpoint.attempt();
+		// Responses are handled by the dispatcher thread too, so delivery state needs no locks.
+		httpClient.sendAsync(request, BodyHandlers.discarding())
+				.whenCompleteAsync((response, error) -> complete(endpoint, response, error), executor);
+	}
+
+	private void complete(final WebhookEndpoint endpoint, final HttpResponse<Void> response, final Throwable error) {
+		final long now = System.currentTimeMillis();
+		if (error == null && response.statusCode() / 100 == 2) {
+			if (endpoint.isOpen(settings)) {
+				log.info("Webhook endpoint {} is back, circuit closed", endpoint.getUrl());
+			}
+			endpoint.succeed();
+			// More may be waiting already, no need to wait for the next interval.
+			dispatch(endpoint, now);
+			return;
+		}
+		final String reason = error != null ? error.toString() : "status " + response.statusCode();
+		final int attempts = endpoint.getAttempts();
+		final int batchSize = endpoint.getBatchSize();
+		final boolean wasOpen = endpoint.isOpen(settings);
+		if (endpoint.fail(now, settings)) {
+			log.warn("Webhook delivery to {} failed {} times ({}), dropped {} orders", endpoint.getUrl(), attempts,
+					reason, batchSize);
+		} else {
+			log.debug("Webhook delivery to {} failed ({}), will retry", endpoint.getUrl(), reason);
+		}
+		if (!wasOpen && endpoint.isOpen(settings)) {
+			log.warn("Webhook endpoint {} failed {} times in a row, circuit open for {} ms", endpoint.getUrl(),
+					endpoint.getConsecutiveFailures(), settings.getOpenMillis());
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package pl.com.salsoft.exercise1.webhook;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Receiver of webhooks: its queue of changed orders and state of delivery to it.
+ *
+ * The queue is filled by writers and drained by the dispatcher thread. Everything else is accessed
+ * only by the dispatcher thread.
+ */
+final class WebhookEndpoint {
+	private final URI url;
+	private final int queueCapacity;
+	// Latest state of every changed order, in order of their first change since the last delivery.
+	private final Map<Long, TransferOrder> queue = new LinkedHashMap<>();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder delivered = new LongAdder();
+
+	private List<TransferOrder> batch;
+	private int attempts;
+	private int consecutiveFailures;
+	private long nextAttemptMillis;
+	private boolean inFlight;
+
+	WebhookEndpoint(final URI url, final int queueCapacity) {
+		this.url = url;
+		this.queueCapacity = queueCapacity;
+	}
+
+	URI getUrl() {
+		return url;
+	}
+
+	/**
+	 * Queues the order for delivery, replacing its earlier change still waiting. Never blocks for longer
+	 * than other writers and the dispatcher take to update the queue.
+	 * @return false if the queue is full and the change was dropped.
+	 */
+	boolean offer(final TransferOrder order) {
+		synchronized (queue) {
+			if (queue.size() >= queueCapacity && !queue.containsKey(order.getId())) {
+				dropped.increment();
+				return false;
+			}
+			queue.put(order.getId(), order);
+			return true;
+		}
+	}
+
+	/**
+	 * @return Batch to deliver: the one failed before, or the next orders from the queue. Empty if there's nothing.
+	 */
+	List<TransferOrder> nextBatch(final int batchSize) {
+		if (batch == null) {
+			final List<TransferOrder> orders = new ArrayList<>();
+			synchronized (queue) {
+				final Iterator<TransferOrder> iterator = queue.values().iterator();
+				while (iterator.hasNext() && orders.size() < batchSize) {
+					orders.add(iterator.next());
+					iterator.remove();
+				}
+			}
+			if (orders.isEmpty()) {
+				return orders;
+			}
+			batch = orders;
+			attempts = 0;
+		}
+		return batch;
+	}
+
+	boolean isReady(final long nowMillis) {
+		return !inFlight && nowMillis >= nextAttemptMillis;
+	}
+
+	void attempt() {
+		inFlight = true;
+		attempts++;
+	}
+
+	void succeed() {
+		delivered.add(batch.size());
+		batch = null;
+		inFlight = false;
+		consecutiveFailures = 0;
+		nextAttemptMillis = 0L;
+	}
+
+	/**
+	 * Records failed attempt and sets time of the next one.
+	 * @return true if the batch was given up after the last attempt.
+	 */
+	boolean fail(final long nowMillis, final WebhookSettings settings) {
+		inFlight = false;
+		consecutiveFailures++;
+		final boolean givenUp = attempts >= settings.getMaxAttempts();
+		if (givenUp) {
+			dropped.add(batch.size());
+			batch = null;
+		}
+		if (isOpen(settings)) {
+			nextAttemptMillis = nowMillis + settings.getOpenMillis();
+		} else {
+			final int doublings = Math.min(consecutiveFailures - 1, 30);
+			nextAttemptMillis = nowMillis + Math.min(settings.getMaxBackoffMillis(),
+					settings.getInitialBackoffMillis() << doublings);
+		}
+		return givenUp;
+	}
+
+	/**
+	 * @return true if the circuit is open: requests failed too many times in a row, so they're sent
+	 * only once in a while, to check whether the endpoint is back.
+	 */
+	boolean isOpen(final WebhookSettings settings) {
+		return consecutiveFailures >= settings.getFailureThreshold();
+	}
+
+	int getBatchSize() {
+		return batch != null ? batch.size() : 0;
+	}
+
+	int getAttempts() {
+		return attempts;
+	}
+
+	int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	int getQueued() {
+		synchronized (queue) {
+			return queue.size();
+		}
+	}
+
+	long getDropped() {
+		return dropped.sum();
+	}
+
+	long getDelivered() {
+		return delivered.sum();
+	}
+}
@@ -0,0 +1,60 @@
+package pl.com.salsoft.exercise1.webhook;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Delivery settings of webhooks, common to all endpoints, applied by {@link WebhookDispatcher}.
+ */
+@Builder
+@Getter
+public final class WebhookSettings {
+	public static final long DEFAULT_INTERVAL_MILLIS = 100L;
+	public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	public static final int DEFAULT_MAX_ATTEMPTS = 5;
+	public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 500L;
+	public static final long DEFAULT_MAX_BACKOFF_MILLIS = 30_000L;
+	public static final int DEFAULT_FAILURE_THRESHOLD = 10;
+	public static final long DEFAULT_OPEN_MILLIS = 60_000L;
+	public static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = 10_000L;
+
+	/**
+	 * Time between checks of endpoints for changes to deliver, and the longest time a change waits
+	 * to be batched with others.
+	 */
+	private final long intervalMillis;
+	/**
+	 * Maximum number of orders with changes waiting for delivery to a single endpoint. Changes of other orders
+	 * are dropped when it's reached, changes of orders already waiting replace them.
+	 */
+	private final int queueCapacity;
+	/**
+	 * Maximum number of orders delivered in a single request.
+	 */
+	private final int batchSize;
+	/**
+	 * Number of attempts to deliver a batch, after which it's dropped.
+	 */
+	private final int maxAttempts;
+	/**
+	 * Time before the first retry, doubled after every next failure, up to {@link #maxBackoffMillis}.
+	 */
+	private final long initialBackoffMillis;
+	/**
+	 * Maximum time between retries.
+	 */
+	private final long maxBackoffMillis;
+	/**
+	 * Number of consecutive failed requests to an endpoint, after which its circuit opens.
+	 */
+	private final int failureThreshold;
+	/**
+	 * Time an open circuit waits before a single trial request.
+	 */
+	private final long openMillis;
+	/**
+	 * Time to wait for the response of an endpoint.
+	 */
+	private final long requestTimeoutMillis;
+}
@@ -0,0 +1,61 @@
+package pl.com.salsoft.exercise1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.inject.Binding;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+
+import pl.com.salsoft.exercise1.rest.TransferOrderController;
+import pl.com.salsoft.exercise1.service.TransferService;
+
+public class ExplicitWiringTest {
+	@Test
+	public void testProvidesAllGuiceComponents() {
+		// Given
+		final AppConfig config = AppConfig.load();
+		final Injector injector = Guice.createInjector(new AppModule(config));
+
+		// When
+		final ExplicitWiring wiring = new ExplicitWiring(config);
+
+		// Then
+		for (final Map.Entry<Key<?>, Binding<?>> binding : injector.getBindings().entrySet()) {
+			final Class<?> type = binding.getKey().getTypeLiteral().getRawType();
+			if (type.getPackageName().startsWith(App.class.getPackageName())) {
+				assertEquals(type.getName(), injector.getInstance(type).getClass(), wiring.getInstance(type).getClass());
+			}
+		}
+	}
+
+	@Test
+	public void testSingletons() {
+		// Given
+		final ExplicitWiring wiring = new ExplicitWiring(AppConfig.load());
+
+		// When
+		final var first = wiring.getInstance(TransferService.class);
+		final var second = wiring.getInstance(TransferService.class);
+
+		// Then
+		assertSame(first, second);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownComponent() {
+		// Given
+		final ExplicitWiring wiring = new ExplicitWiring(AppConfig.load());
+
+		// When
+		wiring.getInstance(TransferOrderController.class.getSuperclass());
+
+		// Then
+		// Exception thrown
+	}
+}
@@ -0,0 +1,123 @@
+package pl.com.salsoft.exercise1.accesslog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AccessLogTest {
+	private static final String ROUTE = "/transfer/:id";
+
+	private Path directory;
+	private Path file;
+
+	@Before
+	public void beforeTest() throws IOException {
+		directory = Files.createTempDirectory("access-log-test");
+		file = directory.resolve("access.log");
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		try (var files = Files.list(directory)) {
+			for (final Path path : (Iterable<Path>) files::iterator) {
+				Files.delete(path);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void testWritesRecords() throws IOException {
+		// Given
+		final AccessLog accessLog = new AccessLog(file, 1024 * 1024, 1, 16, 4);
+		accessLog.start();
+
+		// When
+		accessLog.record("GET", ROUTE, 200, TimeUnit.MICROSECONDS.toNanos(150), 97);
+		accessLog.record("POST", null, 404, TimeUnit.MICROSECONDS.toNanos(20), 0);
+		accessLog.stop();
+
+		// Then
+		final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		assertEquals(2, lines.size());
+		assertTrue(lines.get(0), lines.get(0).endsWith(" GET /transfer/:id 200 150us 97B"));
+		assertTrue(lines.get(1), lines.get(1).endsWith(" POST - 404 20us 0B"));
+		assertEquals(0, accessLog.getDroppedCount());
+	}
+
+	@Test
+	public void testDropsRecordsWhenFull() throws IOException {
+		// Given
+		final AccessLog accessLog = new AccessLog(file, 1024 * 1024, 1, 8, 4);
+
+		// When
+		for (int i = 0; i < 13; i++) {
+			accessLog.record("GET", ROUTE, 200, 0, 0);
+		}
+		accessLog.stop();
+
+		// Then
+		final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		assertEquals(5, accessLog.getDroppedCount());
+		assertEquals(9, lines.size());
+		assertTrue(lines.get(8), lines.get(8).endsWith(" # dropped 5 records"));
+	}
+
+	@Test
+	public void testRotatesFile() throws IOException {
+		// Given
+		final AccessLog accessLog = new AccessLog(file, 100, 2, 64, 1);
+
+		// When
+		for (int i = 0; i < 20; i++) {
+			accessLog.record("GET", ROUTE, 200, 0, i);
+		}
+		accessLog.stop();
+
+		// Then
+		assertTrue(Files.exists(file));
+		assertTrue(Files.exists(directory.resolve("access.log.1")));
+		assertTrue(Files.exists(directory.resolve("access.log.2")));
+		assertFalse(Files.exists(directory.resolve("access.log.3")));
+		final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		assertTrue(lines.get(lines.size() - 1), lines.get(lines.size() - 1).endsWith(" 19B"));
+	}
+
+	@Test
+	public void testErrorsOnlyDiscardsAccessRecords() {
+		// Given
+		final AccessLog accessLog = AccessLog.errorsOnly(1);
+
+		// When
+		accessLog.record("GET", ROUTE, 200, 0, 0);
+		accessLog.error("GET", "/transfer/1", new IllegalStateException("Failed"));
+		accessLog.error("GET", "/transfer/2", new IllegalStateException("Failed"));
+		accessLog.stop();
+
+		// Then
+		assertEquals(1, accessLog.getDroppedCount());
+	}
+
+	@Test
+	public void testDescribesCauses() {
+		// Given
+		final var error = new RuntimeException("Outer", new IllegalArgumentException("Middle", new IOException("Inner")));
+
+		// When
+		final String causes = AccessLog.describeCauses(error);
+
+		// Then
+		assertEquals("java.lang.IllegalArgumentException: Middle <- java.io.IOException: Inner", causes);
+	}
+}
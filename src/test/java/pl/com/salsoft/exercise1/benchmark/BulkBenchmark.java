@@ -0,0 +1,88 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.BulkFormat;
+import pl.com.salsoft.exercise1.service.BulkService;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.OrderCsv;
+
+/**
+ * Measures throughput of bulk import from a file and bulk export, in orders per second, for both formats.
+ * The number of orders is given as the argument, 10 million by default.
+ * It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.BulkBenchmark
+ */
+public class BulkBenchmark {
+	private static final int DEFAULT_ORDERS = 10_000_000;
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+
+	public static void main(final String[] args) throws Exception {
+		final int orders = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ORDERS;
+		final JsonService jsonService = new JsonService();
+		System.out.printf("%-8s %-8s %15s%n", "format", "phase", "orders/s");
+		for (final BulkFormat format : BulkFormat.values()) {
+			final Path file = Files.createTempFile("bulk-benchmark", "." + format.getName());
+			try {
+				generate(file, format, orders, jsonService);
+
+				final InMemoryTransferOrderDao dao = new InMemoryTransferOrderDao();
+				final BulkService bulkService = new BulkService(dao, jsonService, BulkService.DEFAULT_PARALLELISM);
+				long start = System.nanoTime();
+				final long imported = bulkService.importFile(file, format);
+				print(format, "import", imported, start);
+
+				start = System.nanoTime();
+				final long exported;
+				try (OutputStream output = Files.newOutputStream(file)) {
+					exported = bulkService.export(output, format);
+				}
+				print(format, "export", exported, start);
+			} finally {
+				Files.delete(file);
+			}
+		}
+		System.exit(0);
+	}
+
+	private static void generate(final Path file, final BulkFormat format, final int orders,
+			final JsonService jsonService) throws Exception {
+		try (Writer writer = Files.newBufferedWriter(file)) {
+			if (format == BulkFormat.CSV) {
+				writer.write(OrderCsv.HEADER);
+				writer.write('\n');
+			}
+			for (long id = 0; id < orders; id++) {
+				final TransferOrder order = buildOrder(id);
+				writer.write(format == BulkFormat.CSV ? OrderCsv.format(order) : jsonService.map(order));
+				writer.write('\n');
+			}
+		}
+	}
+
+	private static void print(final BulkFormat format, final String phase, final long orders, final long start) {
+		final long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		System.out.printf("%-8s %-8s %15d%n", format.getName(), phase, orders * 1000L / millis);
+	}
+
+	private static TransferOrder buildOrder(final long id) {
+		return TransferOrder.builder()
+				.id(id)
+				.sourceAccount(String.format("PL%024d", id))
+				.targetAccount(String.format("PL%024d", id * 31))
+				.amount(BigDecimal.valueOf(id % 100_000, 2))
+				.status(TransferStatus.values()[(int) (id % TransferStatus.values().length)])
+				.createdAt(NOW.plusMillis(id))
+				.updatedAt(NOW.plusMillis(id))
+				.build();
+	}
+}
@@ -0,0 +1,132 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import pl.com.salsoft.exercise1.AppConfig;
+import pl.com.salsoft.exercise1.ExplicitWiring;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.client.ClientMetrics;
+import pl.com.salsoft.exercise1.client.ClientMetrics.Operation;
+import pl.com.salsoft.exercise1.client.ClientSettings;
+import pl.com.salsoft.exercise1.client.TransferClient;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.rest.AppServerFactory;
+import pl.com.salsoft.exercise1.rest.TransferOrderController;
+import spark.Spark;
+
+/**
+ * Reports orders created per second by {@value #THREADS} threads, each creating orders one by one with
+ * {@link TransferClient}: sending every order in its own request, and batching concurrent orders,
+ * over HTTP/1.1 keep-alive connections and over a single h2c connection. Orders are of random accounts,
+ * so they don't contend for velocity limits of a single account.
+ * It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.ClientBenchmark
+ */
+public class ClientBenchmark {
+	private static final int THREADS = 64;
+	private static final long WARMUP_MILLIS = 5_000L;
+	private static final long MEASURE_MILLIS = 10_000L;
+
+	/**
+	 * Creates a single order.
+	 */
+	private interface Creator {
+		void create() throws Exception;
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final int port = findFreePort();
+		start(port);
+		final String baseUrl = String.format("http://localhost:%d", port);
+
+		System.out.printf("%-26s %10s %10s %10s%n", "client", "orders/s", "p50 us", "p99 us");
+		for (final boolean http2 : new boolean[] {false, true}) {
+			for (final int batches : new int[] {THREADS, 1}) {
+				final TransferClient client = new TransferClient(ClientSettings.builder()
+						.baseUrl(baseUrl)
+						.http2(http2)
+						.maxInFlight(THREADS)
+						.maxBatchesInFlight(batches)
+						.build());
+				run(String.format("%s, %s", http2 ? "h2c" : "HTTP/1.1", batches == THREADS ? "not batched" : "batched"),
+						client, () -> client.create(TransferOrder.builder()
+								.sourceAccount(String.valueOf(ThreadLocalRandom.current().nextInt(1_000_000)))
+								.targetAccount("2")
+								.amount(BigDecimal.ONE)
+								.build()));
+			}
+		}
+		System.exit(0);
+	}
+
+	private static void start(final int port) throws IOException {
+		final Properties properties = new Properties();
+		try (InputStream input = ClientBenchmark.class.getClassLoader().getResourceAsStream("config.properties")) {
+			properties.load(input);
+		}
+		properties.setProperty("accesslog.enabled", "false");
+		properties.setProperty("shutdown.snapshotFile", "");
+		final ExplicitWiring wiring = new ExplicitWiring(new AppConfig(properties));
+		Spark.port(port);
+		wiring.getInstance(AccessLog.class).start();
+		wiring.getInstance(AppServerFactory.class).install();
+		wiring.getInstance(TransferOrderController.class).initMapping();
+		Spark.awaitInitialization();
+	}
+
+	private static void run(final String name, final TransferClient client, final Creator creator) throws Exception {
+		workload(creator, WARMUP_MILLIS);
+		final long created = workload(creator, MEASURE_MILLIS);
+		// Metrics include the warmup.
+		final ClientMetrics metrics = client.getMetrics();
+		System.out.printf("%-26s %10d %10d %10d   (%.1f orders per request)%n", name, created * 1000L / MEASURE_MILLIS,
+				metrics.getPercentileMicros(Operation.CREATE, 0.5), metrics.getPercentileMicros(Operation.CREATE, 0.99),
+				(double) metrics.getCount(Operation.CREATE) / Math.max(1L, metrics.getCount(Operation.BATCH)));
+	}
+
+	/**
+	 * Creates orders from all threads for given time.
+	 * @return Number of orders created.
+	 */
+	private static long workload(final Creator creator, final long millis) throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		final AtomicLong created = new AtomicLong();
+		final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+		final List<Future<?>> threads = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			threads.add(executor.submit(() -> {
+				while (System.nanoTime() < end) {
+					creator.create();
+					created.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		try {
+			for (final Future<?> thread : threads) {
+				thread.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return created.get();
+	}
+
+	private static int findFreePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
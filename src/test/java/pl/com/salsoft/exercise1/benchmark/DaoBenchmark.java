@@ -0,0 +1,101 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.JdbcTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Compares throughput of the storage backends for read-heavy, write-heavy and mixed workloads.
+ * It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.DaoBenchmark
+ */
+public class DaoBenchmark {
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+	private static final int ORDERS = 100_000;
+	private static final long WARMUP_MILLIS = 3_000L;
+	private static final long MEASURE_MILLIS = 10_000L;
+	private static final int[] READ_PERCENTAGES = {90, 50, 10};
+
+	public static void main(final String[] args) throws Exception {
+		final Path dataDir = Files.createTempDirectory("dao-benchmark");
+		System.out.printf("%-8s %-6s %15s%n", "backend", "reads", "ops/s");
+		for (final int readPercentage : READ_PERCENTAGES) {
+			run("memory", readPercentage, InMemoryTransferOrderDao::new);
+			run("h2", readPercentage, () -> new JdbcTransferOrderDao(
+					String.format("jdbc:h2:%s/orders-%d", dataDir, readPercentage),
+					JdbcTransferOrderDao.DEFAULT_BATCH_SIZE,
+					JdbcTransferOrderDao.DEFAULT_FLUSH_INTERVAL_MILLIS,
+					JdbcTransferOrderDao.DEFAULT_CACHE_SIZE));
+		}
+	}
+
+	private static void run(final String backend, final int readPercentage, final Supplier<TransferOrderDao> daoFactory)
+			throws Exception {
+		final TransferOrderDao dao = daoFactory.get();
+		for (long id = 0; id < ORDERS; id++) {
+			dao.persist(buildOrder(id));
+		}
+
+		workload(dao, readPercentage, WARMUP_MILLIS);
+		final long operations = workload(dao, readPercentage, MEASURE_MILLIS);
+		System.out.printf("%-8s %5d%% %15d%n", backend, readPercentage, operations * 1000L / MEASURE_MILLIS);
+
+		if (dao instanceof AutoCloseable) {
+			((AutoCloseable) dao).close();
+		}
+	}
+
+	private static long workload(final TransferOrderDao dao, final int readPercentage, final long durationMillis)
+			throws Exception {
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		final List<Future<Long>> results = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(() -> {
+				final ThreadLocalRandom random = ThreadLocalRandom.current();
+				long operations = 0;
+				while (System.nanoTime() < deadline) {
+					final long id = random.nextLong(ORDERS);
+					if (random.nextInt(100) < readPercentage) {
+						dao.get(id);
+					} else {
+						dao.persist(buildOrder(id));
+					}
+					operations++;
+				}
+				return operations;
+			}));
+		}
+
+		long operations = 0;
+		for (final Future<Long> result : results) {
+			operations += result.get();
+		}
+		executor.shutdown();
+		return operations;
+	}
+
+	private static TransferOrder buildOrder(final long id) {
+		return TransferOrder.builder()
+				.id(id)
+				.amount(BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(1_000_000L), 2))
+				.sourceAccount(Long.toString(id % 1000))
+				.targetAccount(Long.toString(id % 777))
+				.status(TransferStatus.PLANNED)
+				.build();
+	}
+}
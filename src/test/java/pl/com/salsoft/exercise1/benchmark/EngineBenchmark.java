@@ -0,0 +1,156 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import pl.com.salsoft.exercise1.AppConfig;
+import pl.com.salsoft.exercise1.ExplicitWiring;
+import pl.com.salsoft.exercise1.accesslog.AccessLog;
+import pl.com.salsoft.exercise1.rest.AppServerFactory;
+import pl.com.salsoft.exercise1.rest.JettyTransferHandler;
+import pl.com.salsoft.exercise1.rest.LifecycleController;
+import pl.com.salsoft.exercise1.rest.ReplicationController;
+import pl.com.salsoft.exercise1.rest.TransferOrderController;
+import spark.Spark;
+
+/**
+ * Compares the Spark and Jetty engines (see server.engine) head to head: requests per second and latency
+ * percentiles of GET /transfer/{id} and POST /transfer over HTTP/1.1, with the same concurrency.
+ * Both servers are started in this JVM, one after another. It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.EngineBenchmark
+ */
+public class EngineBenchmark {
+	private static final int ORDERS = 10_000;
+	private static final int CONCURRENCY = 64;
+	private static final long WARMUP_MILLIS = 5_000L;
+	private static final long MEASURE_MILLIS = 10_000L;
+	private static final int MAX_SAMPLES = 10_000_000;
+	private static final String ORDER = "{\"sourceAccount\": \"1\", \"targetAccount\": \"2\", \"amount\": 1.00}";
+
+	public static void main(final String[] args) throws Exception {
+		System.out.printf("%-7s %-10s %12s %10s %10s %10s%n", "engine", "request", "requests/s", "p50 us", "p99 us", "p99.9 us");
+		for (final String engine : new String[] {"spark", "jetty"}) {
+			run(engine);
+		}
+		System.exit(0);
+	}
+
+	private static void run(final String engine) throws Exception {
+		final int port = findFreePort();
+		start(engine, port);
+		final String baseUrl = String.format("http://localhost:%d/transfer", port);
+		final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		final HttpClient client = HttpClient.newBuilder().version(Version.HTTP_1_1).executor(executor).build();
+		for (int i = 0; i < ORDERS; i++) {
+			client.send(post(baseUrl), BodyHandlers.discarding());
+		}
+
+		final Supplier<HttpRequest> get = () -> HttpRequest.newBuilder(
+				URI.create(baseUrl + "/" + ThreadLocalRandom.current().nextInt(ORDERS))).build();
+		final Supplier<HttpRequest> post = () -> post(baseUrl);
+		workload(client, get, WARMUP_MILLIS, null);
+		report(engine, "GET", workload(client, get, MEASURE_MILLIS, new long[MAX_SAMPLES]));
+		workload(client, post, WARMUP_MILLIS, null);
+		report(engine, "POST", workload(client, post, MEASURE_MILLIS, new long[MAX_SAMPLES]));
+
+		executor.shutdownNow();
+		Spark.stop();
+		Spark.awaitStop();
+	}
+
+	private static void start(final String engine, final int port) throws IOException {
+		final Properties properties = new Properties();
+		try (InputStream input = EngineBenchmark.class.getClassLoader().getResourceAsStream("config.properties")) {
+			properties.load(input);
+		}
+		properties.setProperty("server.engine", engine);
+		properties.setProperty("accesslog.enabled", "false");
+		properties.setProperty("shutdown.snapshotFile", "");
+		final ExplicitWiring wiring = new ExplicitWiring(new AppConfig(properties));
+		Spark.port(port);
+		wiring.getInstance(AccessLog.class).start();
+		wiring.getInstance(AppServerFactory.class).install();
+		wiring.getInstance(LifecycleController.class).initMapping();
+		wiring.getInstance(TransferOrderController.class).initMapping();
+		wiring.getInstance(JettyTransferHandler.class).install();
+		wiring.getInstance(ReplicationController.class).initMapping();
+		Spark.awaitInitialization();
+	}
+
+	private static HttpRequest post(final String baseUrl) {
+		return HttpRequest.newBuilder(URI.create(baseUrl)).POST(BodyPublishers.ofString(ORDER)).build();
+	}
+
+	/**
+	 * Keeps {@value #CONCURRENCY} requests in progress for given time.
+	 * @param latencies Receives latencies of successful requests, in nanoseconds, or null if they're not needed.
+	 * @return Latencies of successfully completed requests, sorted.
+	 */
+	private static long[] workload(final HttpClient client, final Supplier<HttpRequest> requests, final long millis,
+			final long[] latencies) throws InterruptedException {
+		final Semaphore inProgress = new Semaphore(CONCURRENCY);
+		final AtomicInteger completed = new AtomicInteger();
+		final AtomicLong failed = new AtomicLong();
+		final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+		while (System.nanoTime() < end) {
+			inProgress.acquire();
+			final long sent = System.nanoTime();
+			client.sendAsync(requests.get(), BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+				if (error == null && response.statusCode() / 100 == 2) {
+					final int sample = completed.getAndIncrement();
+					if (latencies != null && sample < latencies.length) {
+						latencies[sample] = System.nanoTime() - sent;
+					}
+				} else {
+					failed.incrementAndGet();
+				}
+				inProgress.release();
+			});
+		}
+		inProgress.acquire(CONCURRENCY);
+		if (failed.get() > 0) {
+			System.out.printf("%d requests failed%n", failed.get());
+		}
+		if (latencies == null) {
+			return new long[0];
+		}
+		final long[] result = Arrays.copyOf(latencies, Math.min(completed.get(), latencies.length));
+		Arrays.sort(result);
+		return result;
+	}
+
+	private static void report(final String engine, final String request, final long[] latencies) {
+		System.out.printf("%-7s %-10s %12d %10d %10d %10d%n", engine, request, latencies.length * 1000L / MEASURE_MILLIS,
+				percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999));
+	}
+
+	private static long percentile(final long[] sorted, final double fraction) {
+		if (sorted.length == 0) {
+			return 0L;
+		}
+		return TimeUnit.NANOSECONDS.toMicros(sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))]);
+	}
+
+	private static int findFreePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
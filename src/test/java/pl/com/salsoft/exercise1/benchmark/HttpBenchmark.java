@@ -0,0 +1,107 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import pl.com.salsoft.exercise1.App;
+import spark.Spark;
+
+/**
+ * Compares throughput of small GET /transfer/{id} requests sent over HTTP/1.1 (a connection per concurrent request)
+ * and over cleartext HTTP/2 (all requests multiplexed on one connection), at increasing concurrency.
+ * The application is started in this JVM. It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.HttpBenchmark
+ */
+public class HttpBenchmark {
+	private static final int ORDERS = 10_000;
+	private static final long WARMUP_MILLIS = 3_000L;
+	private static final long MEASURE_MILLIS = 10_000L;
+	// Not more than server.http2.maxConcurrentStreams, so the HTTP/2 client never runs out of streams.
+	private static final int[] CONCURRENCY = {16, 64, 256};
+	private static final String ORDER = "{\"sourceAccount\": \"1\", \"targetAccount\": \"2\", \"amount\": 1.00}";
+
+	public static void main(final String[] args) throws Exception {
+		final int port = findFreePort();
+		System.setProperty("port", Integer.toString(port));
+		System.setProperty("wiring", "explicit");
+		System.setProperty("accesslog.enabled", "false");
+		System.setProperty("shutdown.snapshotFile", "");
+		App.main(new String[0]);
+		Spark.awaitInitialization();
+
+		final String baseUrl = String.format("http://localhost:%d/transfer", port);
+		final HttpClient setupClient = HttpClient.newBuilder().version(Version.HTTP_1_1).build();
+		for (int i = 0; i < ORDERS; i++) {
+			setupClient.send(HttpRequest.newBuilder(URI.create(baseUrl)).POST(BodyPublishers.ofString(ORDER)).build(),
+					BodyHandlers.discarding());
+		}
+
+		System.out.printf("%-10s %11s %15s%n", "protocol", "concurrency", "requests/s");
+		for (final int concurrency : CONCURRENCY) {
+			run("HTTP/1.1", Version.HTTP_1_1, baseUrl, concurrency);
+			run("h2c", Version.HTTP_2, baseUrl, concurrency);
+		}
+		System.exit(0);
+	}
+
+	private static void run(final String protocol, final Version version, final String baseUrl, final int concurrency)
+			throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		final HttpClient client = HttpClient.newBuilder().version(version).executor(executor).build();
+		// First request upgrades the connection to h2c, the rest are multiplexed on it.
+		client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/0")).build(), BodyHandlers.discarding());
+
+		workload(client, baseUrl, concurrency, WARMUP_MILLIS);
+		final long requests = workload(client, baseUrl, concurrency, MEASURE_MILLIS);
+		System.out.printf("%-10s %11d %15d%n", protocol, concurrency, requests * 1000L / MEASURE_MILLIS);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Keeps given number of requests in progress for given time.
+	 * @return Number of successfully completed requests.
+	 */
+	private static long workload(final HttpClient client, final String baseUrl, final int concurrency, final long millis)
+			throws InterruptedException {
+		final Semaphore inProgress = new Semaphore(concurrency);
+		final AtomicLong completed = new AtomicLong();
+		final AtomicLong failed = new AtomicLong();
+		final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+		while (System.nanoTime() < end) {
+			inProgress.acquire();
+			final long id = ThreadLocalRandom.current().nextLong(ORDERS);
+			client.sendAsync(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).build(), BodyHandlers.ofByteArray())
+					.whenComplete((response, error) -> {
+						if (error == null && response.statusCode() == 200) {
+							completed.incrementAndGet();
+						} else {
+							failed.incrementAndGet();
+						}
+						inProgress.release();
+					});
+		}
+		inProgress.acquire(concurrency);
+		if (failed.get() > 0) {
+			System.out.printf("%d requests failed%n", failed.get());
+		}
+		return completed.get();
+	}
+
+	private static int findFreePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+/**
+ * Reports heap memory taken by a single transfer order, for the compact representation and for
+ * the previous one (BigDecimal amount and own copies of account numbers), kept here for comparison.
+ * Account numbers are created anew for every order, as they would be by JSON deserialization.
+ * It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.OrderMemoryBenchmark
+ */
+public class OrderMemoryBenchmark {
+	private static final int ORDERS = 1_000_000;
+	private static final int ACCOUNTS = 5_000;
+
+	/**
+	 * Layout of TransferOrder before the compact representation.
+	 */
+	private static final class PreviousTransferOrder {
+		private final Long id;
+		private final String sourceAccount;
+		private final String targetAccount;
+		private final BigDecimal amount;
+		private final TransferStatus status;
+
+		private PreviousTransferOrder(final Long id, final String sourceAccount, final String targetAccount,
+				final BigDecimal amount, final TransferStatus status) {
+			this.id = id;
+			this.sourceAccount = sourceAccount;
+			this.targetAccount = targetAccount;
+			this.amount = amount;
+			this.status = status;
+		}
+	}
+
+	public static void main(final String[] args) {
+		System.out.printf("%-10s %15s%n", "model", "bytes/order");
+		run("previous", id -> new PreviousTransferOrder(id, account(), account(), amount(), TransferStatus.PLANNED));
+		run("compact", id -> new TransferOrder(id, account(), account(), amount(), TransferStatus.PLANNED));
+	}
+
+	private static void run(final String model, final LongFunction<Object> orderFactory) {
+		final long before = usedHeap();
+		final Object[] orders = new Object[ORDERS];
+		for (int i = 0; i < ORDERS; i++) {
+			// IDs above Long cache range, as in the real store
+			orders[i] = orderFactory.apply(1_000_000L + i);
+		}
+		final long after = usedHeap();
+		// Array of references is not a part of an order
+		final long arrayBytes = (long) ORDERS * referenceSize();
+		System.out.printf("%-10s %15d%n", model, (after - before - arrayBytes) / ORDERS);
+		if (orders.length != ORDERS) {
+			throw new IllegalStateException();
+		}
+	}
+
+	private static String account() {
+		return Long.toString(10_000_000_000L + ThreadLocalRandom.current().nextInt(ACCOUNTS));
+	}
+
+	private static BigDecimal amount() {
+		return BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(10_000_000L), 2);
+	}
+
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			try {
+				Thread.sleep(100L);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static int referenceSize() {
+		final String model = System.getProperty("sun.arch.data.model", "64");
+		return "32".equals(model) || Runtime.getRuntime().maxMemory() < 32L * 1024 * 1024 * 1024 ? 4 : 8;
+	}
+}
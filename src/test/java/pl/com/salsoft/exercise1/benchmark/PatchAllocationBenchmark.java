@@ -0,0 +1,72 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.SavedOrder;
+import pl.com.salsoft.exercise1.service.TransferService;
+
+/**
+ * Reports bytes allocated per PATCH of a stored order: deserializing the body to an order and merging it
+ * (previous way), versus applying the body as a token stream inside of the atomic update.
+ * Only the service layer is measured, HTTP handling allocates the same in both cases.
+ * It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.PatchAllocationBenchmark
+ */
+public class PatchAllocationBenchmark {
+	private static final int ORDERS = 1_000;
+	private static final int WARMUP_PATCHES = 1_000_000;
+	private static final int MEASURED_PATCHES = 1_000_000;
+	private static final byte[] PATCH = "{\"targetAccount\": \"98765\", \"amount\": 250.75, \"status\": \"PROCESSING\"}"
+			.getBytes(StandardCharsets.UTF_8);
+
+	private interface PatchMethod {
+		SavedOrder patch(long id, byte[] body);
+	}
+
+	public static void main(final String[] args) {
+		final JsonService jsonService = new JsonService();
+		final TransferService transferService = new TransferService(new InMemoryTransferOrderDao(), jsonService,
+				Clock.systemUTC());
+		for (long id = 0; id < ORDERS; id++) {
+			transferService.newTransfer(TransferOrder.builder()
+					.id(id)
+					.sourceAccount("12345")
+					.targetAccount("67890")
+					.amount(BigDecimal.TEN)
+					.status(TransferStatus.PLANNED)
+					.build());
+		}
+
+		System.out.printf("%-14s %15s%n", "method", "bytes/patch");
+		run("deserialize", (id, body) -> transferService.updateTransferPartially(id,
+				jsonService.map(new String(body, StandardCharsets.UTF_8), TransferOrder.class)));
+		run("stream", (id, body) -> transferService.patchTransfer(id, body, false));
+		run("merge-patch", (id, body) -> transferService.patchTransfer(id, body, true));
+	}
+
+	private static void run(final String method, final PatchMethod patchMethod) {
+		patch(patchMethod, WARMUP_PATCHES);
+		final long before = allocatedBytes();
+		patch(patchMethod, MEASURED_PATCHES);
+		final long allocated = allocatedBytes() - before;
+		System.out.printf("%-14s %15d%n", method, allocated / MEASURED_PATCHES);
+	}
+
+	private static void patch(final PatchMethod patchMethod, final int count) {
+		for (int i = 0; i < count; i++) {
+			patchMethod.patch(i % ORDERS, PATCH);
+		}
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -0,0 +1,61 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.OrderProjection;
+
+/**
+ * Reports size of a serialized list of orders, and time of serializing it, for all fields and for id and status only.
+ * It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.ProjectionBenchmark
+ */
+public class ProjectionBenchmark {
+	private static final int ORDERS = 1_000;
+	private static final int WARMUP_ROUNDS = 2_000;
+	private static final int MEASURED_ROUNDS = 5_000;
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+
+	public static void main(final String[] args) {
+		final JsonService jsonService = new JsonService();
+		final List<TransferOrder> orders = IntStream.range(0, ORDERS)
+				.mapToObj(ProjectionBenchmark::buildOrder)
+				.collect(Collectors.toList());
+
+		System.out.printf("%-12s %12s %10s%n", "fields", "bytes/order", "ns/order");
+		run(jsonService, orders, "all", OrderProjection.ALL);
+		run(jsonService, orders, "id,status", OrderProjection.parse("id,status"));
+	}
+
+	private static void run(final JsonService jsonService, final List<TransferOrder> orders, final String name,
+			final OrderProjection projection) {
+		int bytes = 0;
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			bytes = jsonService.map(projection.of(orders)).length();
+		}
+		final long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			bytes = jsonService.map(projection.of(orders)).length();
+		}
+		final long nanos = System.nanoTime() - start;
+		System.out.printf("%-12s %12d %10d%n", name, bytes / ORDERS, nanos / MEASURED_ROUNDS / ORDERS);
+	}
+
+	private static TransferOrder buildOrder(final int id) {
+		return TransferOrder.builder()
+				.id((long) id)
+				.sourceAccount(String.valueOf(10_000_000 + id))
+				.targetAccount("67890")
+				.amount(BigDecimal.valueOf(id, 2))
+				.status(TransferStatus.PLANNED)
+				.createdAt(NOW)
+				.updatedAt(NOW)
+				.build();
+	}
+}
@@ -0,0 +1,97 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ThreadLocalRandom;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.scheduler.TransferScheduler;
+
+/**
+ * Reports time of tracking a scheduled order, time of promoting it when due, and heap taken by the schedule,
+ * for orders scheduled randomly within a day. Time is simulated, so the day passes in default ticks.
+ * It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.SchedulerBenchmark
+ */
+public class SchedulerBenchmark {
+	private static final int ORDERS = 2_000_000;
+	private static final long DAY_MILLIS = 86_400_000L;
+	private static final long T0 = 1_561_982_400_000L;
+
+	public static void main(final String[] args) {
+		final SimulatedClock clock = new SimulatedClock();
+		final InMemoryTransferOrderDao dao = new InMemoryTransferOrderDao();
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (long id = 0; id < ORDERS; id++) {
+			dao.persist(TransferOrder.builder()
+					.id(id)
+					.status(TransferStatus.SCHEDULED)
+					.executeAt(Instant.ofEpochMilli(T0 + random.nextLong(DAY_MILLIS)))
+					.build());
+		}
+
+		final long heapBefore = usedHeap();
+		final TransferScheduler scheduler = new TransferScheduler(dao, clock, TransferScheduler.DEFAULT_TICK_MILLIS,
+				TransferScheduler.DEFAULT_BATCH_SIZE, true);
+		long start = System.nanoTime();
+		dao.getAll().forEach(scheduler::schedule);
+		// Queued orders are moved to the wheel at the first tick.
+		scheduler.promoteDue();
+		final long scheduleNanos = System.nanoTime() - start;
+		final long heap = usedHeap() - heapBefore;
+
+		start = System.nanoTime();
+		int promoted = 0;
+		for (long now = T0; now <= T0 + DAY_MILLIS; now += TransferScheduler.DEFAULT_TICK_MILLIS) {
+			clock.millis = now;
+			promoted += scheduler.promoteDue();
+		}
+		final long promoteNanos = System.nanoTime() - start;
+
+		System.out.printf("%-22s %10s%n", "operation", "ns/order");
+		System.out.printf("%-22s %10d%n", "schedule", scheduleNanos / ORDERS);
+		System.out.printf("%-22s %10d%n", "promote", promoteNanos / promoted);
+		System.out.printf("%-22s %10d%n", "schedule bytes/order", heap / ORDERS);
+		System.out.printf("promoted %d of %d orders in %d ticks%n", promoted, ORDERS,
+				DAY_MILLIS / TransferScheduler.DEFAULT_TICK_MILLIS);
+		if (scheduler.getTracked() != 0) {
+			throw new IllegalStateException("Not all orders promoted");
+		}
+	}
+
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static final class SimulatedClock extends Clock {
+		private volatile long millis = T0;
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(final ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long millis() {
+			return millis;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time from process start until the first 200 OK response, for every startup mode that was built:
+ * Guice wiring, explicit wiring, explicit wiring with AppCDS archive and native executable.
+ * It's not a unit test, build the application first (mvn package, optionally with -Pappcds or -Pnative)
+ * and run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.StartupBenchmark
+ */
+public class StartupBenchmark {
+	private static final Path TARGET = Paths.get("target");
+	private static final Path JAR = TARGET.resolve("exercise1-1.0.0-jar-with-dependencies.jar");
+	private static final Path CDS_ARCHIVE = TARGET.resolve("exercise1.jsa");
+	private static final Path NATIVE_EXECUTABLE = TARGET.resolve("exercise1");
+	private static final String JAVA = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+	private static final int RUNS = 10;
+	private static final long TIMEOUT_MILLIS = 30_000L;
+
+	private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+
+	public static void main(final String[] args) throws Exception {
+		if (!Files.exists(JAR)) {
+			throw new IllegalStateException(String.format("%s not found, run mvn package first.", JAR));
+		}
+
+		System.out.printf("%-16s %8s %8s %8s%n", "mode", "min ms", "median", "max ms");
+		run("guice", JAVA, "-Dwiring=guice", "-jar", JAR.toString());
+		run("explicit", JAVA, "-Dwiring=explicit", "-jar", JAR.toString());
+		if (Files.exists(CDS_ARCHIVE)) {
+			// Archive is valid only with the same class path, as given at dump time.
+			run("explicit+appcds", TARGET, JAVA, "-Xshare:on", "-XX:SharedArchiveFile=" + CDS_ARCHIVE.getFileName(),
+					"-Dwiring=explicit", "-jar", JAR.getFileName().toString());
+		}
+		if (Files.isExecutable(NATIVE_EXECUTABLE)) {
+			run("native", NATIVE_EXECUTABLE.toAbsolutePath().toString());
+		}
+	}
+
+	private static void run(final String mode, final String... command) throws Exception {
+		run(mode, Paths.get("."), command);
+	}
+
+	private static void run(final String mode, final Path workingDirectory, final String... command) throws Exception {
+		final List<Long> timesMillis = new ArrayList<>();
+		for (int i = 0; i < RUNS; i++) {
+			timesMillis.add(measure(workingDirectory, command));
+		}
+		Collections.sort(timesMillis);
+		System.out.printf("%-16s %8d %8d %8d%n", mode, timesMillis.get(0), timesMillis.get(RUNS / 2), timesMillis.get(RUNS - 1));
+	}
+
+	private static long measure(final Path workingDirectory, final String... command) throws Exception {
+		final int port = findFreePort();
+		final List<String> arguments = new ArrayList<>(Arrays.asList(command));
+		// Port override goes right after the executable, so it's a JVM option, or a native image runtime option.
+		arguments.add(1, "-Dport=" + port);
+
+		final HttpRequest request = HttpRequest.newBuilder(URI.create(String.format("http://localhost:%d/transfer", port))).build();
+		final long start = System.nanoTime();
+		final Process process = new ProcessBuilder(arguments)
+				.directory(workingDirectory.toFile())
+				.redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.start();
+		try {
+			while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS)) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException("Application exited with " + process.exitValue());
+				}
+				try {
+					if (HTTP_CLIENT.send(request, BodyHandlers.discarding()).statusCode() == 200) {
+						return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					}
+				} catch (final ConnectException e) {
+					// Not listening yet
+				}
+				Thread.sleep(1L);
+			}
+			throw new IllegalStateException("Application did not respond in time.");
+		} finally {
+			process.destroy();
+			process.waitFor();
+		}
+	}
+
+	private static int findFreePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
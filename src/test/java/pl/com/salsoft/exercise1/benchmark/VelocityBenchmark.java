@@ -0,0 +1,72 @@
+package pl.com.salsoft.exercise1.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.TransferService;
+import pl.com.salsoft.exercise1.velocity.VelocityLimiter;
+
+/**
+ * Reports time of a velocity check alone, and of creating an order with and without velocity limits,
+ * for orders spread over many source accounts. Orders are 1 ms apart, so buckets of the windows roll over.
+ * It's not a unit test, run it manually:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.com.salsoft.exercise1.benchmark.VelocityBenchmark
+ */
+public class VelocityBenchmark {
+	private static final int ACCOUNTS = 100_000;
+	private static final int WARMUP_ORDERS = 1_000_000;
+	private static final int MEASURED_ORDERS = 2_000_000;
+	private static final long T0 = 1_561_982_400_000L;
+
+	public static void main(final String[] args) {
+		System.out.printf("%-22s %10s%n", "operation", "ns/order");
+
+		final VelocityLimiter limiter = limiter();
+		checks(limiter, 0, WARMUP_ORDERS);
+		final long start = System.nanoTime();
+		checks(limiter, WARMUP_ORDERS, MEASURED_ORDERS);
+		System.out.printf("%-22s %10d%n", "check", (System.nanoTime() - start) / MEASURED_ORDERS);
+
+		run("newTransfer", VelocityLimiter.unlimited());
+		run("newTransfer, limited", limiter());
+	}
+
+	private static VelocityLimiter limiter() {
+		return new VelocityLimiter(VelocityLimiter.DEFAULT_WINDOW_MILLIS, VelocityLimiter.DEFAULT_BUCKETS, 1_000L,
+				BigDecimal.valueOf(1_000_000));
+	}
+
+	private static void checks(final VelocityLimiter limiter, final int from, final int count) {
+		for (int i = from; i < from + count; i++) {
+			limiter.tryAcquire(account(i), BigDecimal.TEN, T0 + i);
+		}
+	}
+
+	private static void run(final String name, final VelocityLimiter limiter) {
+		final TransferService transferService = new TransferService(new InMemoryTransferOrderDao(), new JsonService(),
+				Clock.systemUTC(), limiter);
+		create(transferService, 0, WARMUP_ORDERS);
+		final long start = System.nanoTime();
+		create(transferService, WARMUP_ORDERS, MEASURED_ORDERS);
+		System.out.printf("%-22s %10d%n", name, (System.nanoTime() - start) / MEASURED_ORDERS);
+	}
+
+	private static void create(final TransferService transferService, final int from, final int count) {
+		for (int i = from; i < from + count; i++) {
+			transferService.newTransfer(TransferOrder.builder()
+					.sourceAccount(account(i))
+					.targetAccount("67890")
+					.amount(BigDecimal.TEN)
+					.status(TransferStatus.PLANNED)
+					.build());
+		}
+	}
+
+	private static String account(final int i) {
+		return String.valueOf(10_000_000 + i % ACCOUNTS);
+	}
+}
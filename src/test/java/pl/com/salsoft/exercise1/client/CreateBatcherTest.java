@@ -0,0 +1,102 @@
+package pl.com.salsoft.exercise1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+public class CreateBatcherTest {
+	private final List<List<TransferOrder>> batches = new ArrayList<>();
+	private final List<CompletableFuture<List<TransferOrder>>> results = new ArrayList<>();
+
+	@Test
+	public void testLoneOrderSentRightAway() {
+		// Given
+		final CreateBatcher batcher = new CreateBatcher(10, 1, this::send);
+
+		// When
+		final CompletableFuture<TransferOrder> created = batcher.create(buildOrder(1));
+
+		// Then
+		assertEquals(List.of(List.of(buildOrder(1))), batches);
+		complete(0);
+		assertEquals(buildOrder(1).toBuilder().id(0L).build(), created.join());
+	}
+
+	@Test
+	public void testOrdersBatchedWhileBatchInFlight() {
+		// Given
+		final CreateBatcher batcher = new CreateBatcher(2, 1, this::send);
+		final List<CompletableFuture<TransferOrder>> created = new ArrayList<>();
+
+		// When
+		for (int i = 0; i < 4; i++) {
+			created.add(batcher.create(buildOrder(i)));
+		}
+		final int sentBeforeCompletion = batches.size();
+		complete(0);
+		complete(1);
+		complete(2);
+
+		// Then
+		assertEquals(1, sentBeforeCompletion);
+		assertEquals(List.of(List.of(buildOrder(0)), List.of(buildOrder(1), buildOrder(2)), List.of(buildOrder(3))),
+				batches);
+		assertEquals(List.of(0L, 1L, 2L, 3L), created.stream()
+				.map(order -> order.join().getId())
+				.collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testFailedBatchFailsItsOrders() {
+		// Given
+		final CreateBatcher batcher = new CreateBatcher(10, 1, this::send);
+		final CompletableFuture<TransferOrder> first = batcher.create(buildOrder(0));
+		final CompletableFuture<TransferOrder> second = batcher.create(buildOrder(1));
+
+		// When
+		results.get(0).completeExceptionally(new TransferClientException("Failed", 500));
+		complete(1);
+
+		// Then
+		assertTrue(first.isCompletedExceptionally());
+		assertFalse(second.isCompletedExceptionally());
+		assertEquals(Long.valueOf(1L), second.join().getId());
+	}
+
+	private CompletableFuture<List<TransferOrder>> send(final List<TransferOrder> orders) {
+		final CompletableFuture<List<TransferOrder>> result = new CompletableFuture<>();
+		batches.add(orders);
+		results.add(result);
+		return result;
+	}
+
+	/**
+	 * Completes given batch with orders numbered by their position in all batches.
+	 */
+	private void complete(final int batch) {
+		long id = batches.subList(0, batch).stream().mapToLong(List::size).sum();
+		final List<TransferOrder> created = new ArrayList<>();
+		for (final TransferOrder order : batches.get(batch)) {
+			created.add(order.toBuilder().id(id++).build());
+		}
+		results.get(batch).complete(created);
+	}
+
+	private static TransferOrder buildOrder(final int number) {
+		return TransferOrder.builder()
+				.sourceAccount(String.valueOf(number))
+				.targetAccount("456")
+				.amount(BigDecimal.TEN)
+				.build();
+	}
+}
@@ -0,0 +1,195 @@
+package pl.com.salsoft.exercise1.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+
+import pl.com.salsoft.exercise1.AppModule;
+import pl.com.salsoft.exercise1.client.ClientMetrics.Operation;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.rest.AppServerFactory;
+import pl.com.salsoft.exercise1.rest.TransferOrderController;
+import spark.Spark;
+
+public class TransferClientTest {
+	private static final int FREE_PORT = findFreePort();
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+
+	private static int findFreePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@After
+	public void afterTest() {
+		Spark.stop();
+		Spark.awaitStop();
+	}
+
+	@Before
+	public void beforeTest() {
+		Spark.port(FREE_PORT);
+		final Injector injector = Guice.createInjector(Modules.override(new AppModule())
+				.with(binder -> binder.bind(Clock.class).toInstance(Clock.fixed(NOW, ZoneOffset.UTC))));
+		injector.getInstance(AppServerFactory.class).install();
+		injector.getInstance(TransferOrderController.class).initMapping();
+		Spark.awaitInitialization();
+	}
+
+	@Test
+	public void testCrud() {
+		// Given
+		final TransferClient client = newClient(false, 1);
+
+		// When
+		final TransferOrder created = client.create(buildOrder("1"));
+		final TransferOrder replaced = client.replace(created.getId(), buildOrder("2"));
+		final TransferOrder patched = client.patch(created.getId(), "{\"status\": \"FINISHED\"}");
+		final TransferOrder unset = client.patch(created.getId(), "{\"targetAccount\": null}");
+		final Optional<TransferOrder> found = client.get(created.getId());
+		final List<TransferOrder> all = client.list();
+		final boolean deleted = client.delete(created.getId());
+		final boolean deletedAgain = client.delete(created.getId());
+		final Optional<TransferOrder> missing = client.get(created.getId());
+
+		// Then
+		assertEquals(buildOrder("1").toBuilder().id(created.getId()).createdAt(NOW).updatedAt(NOW).build(), created);
+		assertEquals("2", replaced.getSourceAccount());
+		assertEquals(TransferStatus.FINISHED, patched.getStatus());
+		assertEquals(patched.toBuilder().targetAccount(null).build(), unset);
+		assertEquals(Optional.of(unset), found);
+		assertEquals(List.of(unset), all);
+		assertTrue(deleted);
+		assertFalse(deletedAgain);
+		assertEquals(Optional.empty(), missing);
+		assertEquals(2L, client.getMetrics().getCount(Operation.DELETE));
+		assertEquals(0L, client.getMetrics().getErrors(Operation.DELETE));
+		assertTrue(client.getMetrics().getPercentileMicros(Operation.GET, 0.99) > 0L);
+	}
+
+	@Test
+	public void testConcurrentCreatesBatched() {
+		// Given
+		final int orders = 500;
+		final TransferClient client = newClient(true, 2);
+
+		// When
+		final List<CompletableFuture<TransferOrder>> futures = new ArrayList<>();
+		for (int i = 0; i < orders; i++) {
+			futures.add(client.createAsync(buildOrder(String.valueOf(i))));
+		}
+		final List<TransferOrder> created = futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+		// Then
+		final Set<Long> ids = created.stream().map(TransferOrder::getId).collect(Collectors.toSet());
+		assertEquals(orders, ids.size());
+		for (int i = 0; i < orders; i++) {
+			assertEquals(String.valueOf(i), created.get(i).getSourceAccount());
+			assertEquals(Optional.of(created.get(i)), client.get(created.get(i).getId()));
+		}
+		assertEquals(orders, client.getMetrics().getCount(Operation.CREATE));
+		assertTrue(client.getMetrics().getCount(Operation.BATCH) < orders);
+	}
+
+	@Test
+	public void testStreamAndFind() {
+		// Given
+		final TransferClient client = newClient(true, 2);
+		final List<TransferOrder> created = client.createAll(List.of(buildOrder("1"), buildOrder("2"), buildOrder("3")));
+
+		// When
+		final List<TransferOrder> streamed;
+		try (Stream<TransferOrder> stream = client.stream()) {
+			streamed = stream.sorted((a, b) -> a.getId().compareTo(b.getId())).collect(Collectors.toList());
+		}
+		final List<TransferOrder> found = client.find("sourceAccount ne 2", "-id", 10);
+
+		// Then
+		assertEquals(created, streamed);
+		assertEquals(List.of(created.get(2), created.get(0)), found);
+		assertEquals(1L, client.getMetrics().getCount(Operation.STREAM));
+	}
+
+	@Test
+	public void testRequestQueuedBehindStream() {
+		// Given
+		final TransferClient client = newClient(true, 1, 1);
+		final CompletableFuture<TransferOrder> created;
+		final boolean sentWhileStreaming;
+
+		// When
+		try (Stream<TransferOrder> stream = client.stream()) {
+			created = client.createAsync(buildOrder("1"));
+			sentWhileStreaming = created.isDone();
+		}
+
+		// Then
+		assertFalse(sentWhileStreaming);
+		assertEquals("1", created.join().getSourceAccount());
+	}
+
+	@Test
+	public void testErrorStatus() {
+		// Given
+		final TransferClient client = newClient(false, 1);
+
+		// When
+		try {
+			client.find("amount gt", null, 10);
+			fail("Invalid filter accepted.");
+		} catch (final TransferClientException e) {
+			// Then
+			assertEquals(400, e.getStatus());
+			assertEquals(1L, client.getMetrics().getErrors(Operation.LIST));
+		}
+	}
+
+	private static TransferClient newClient(final boolean http2, final int maxBatchesInFlight) {
+		return newClient(http2, ClientSettings.DEFAULT_MAX_IN_FLIGHT, maxBatchesInFlight);
+	}
+
+	private static TransferClient newClient(final boolean http2, final int maxInFlight, final int maxBatchesInFlight) {
+		return new TransferClient(ClientSettings.builder()
+				.baseUrl(String.format("http://localhost:%d", FREE_PORT))
+				.http2(http2)
+				.maxInFlight(maxInFlight)
+				.maxBatchesInFlight(maxBatchesInFlight)
+				.build());
+	}
+
+	private static TransferOrder buildOrder(final String sourceAccount) {
+		return TransferOrder.builder()
+				.sourceAccount(sourceAccount)
+				.targetAccount("456")
+				.amount(BigDecimal.TEN)
+				.status(TransferStatus.PLANNED)
+				.build();
+	}
+}
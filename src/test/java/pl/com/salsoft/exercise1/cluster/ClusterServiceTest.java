@@ -0,0 +1,98 @@
+package pl.com.salsoft.exercise1.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClusterServiceTest {
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+	private static final ClusterNode NODE_1 = new ClusterNode("node1", "http://localhost:8000");
+	private static final ClusterNode NODE_2 = new ClusterNode("node2", "http://localhost:8001");
+
+	private final ClusterMembership clusterMembership = new ClusterMembership(NODE_1.getId(), List.of(NODE_1, NODE_2), 16);
+	private final TransferOrderDao transferOrderDao = new InMemoryTransferOrderDao();
+
+	@Mock
+	private ClusterClient clusterClient;
+
+	@Test
+	public void testOrderModifiedWhileHandedOverSentAgain() {
+		// Given
+		final ClusterService clusterService = new ClusterService(clusterMembership, clusterClient, transferOrderDao);
+		final TransferOrder order = buildOrder(ownedByOtherNode(), NOW);
+		final TransferOrder modified = order.toBuilder().status(TransferStatus.FINISHED).updatedAt(NOW.plusSeconds(1)).build();
+		transferOrderDao.persist(order);
+		// Modified by a request still served here, after the new owner got the order
+		doAnswer(invocation -> {
+			transferOrderDao.updateIf(order.getId(), order::equals, present -> modified);
+			return null;
+		}).when(clusterClient).handOff(eq(NODE_2), eq(List.of(order)));
+
+		// When
+		clusterService.updateMembership(List.of(NODE_1, NODE_2), false);
+
+		// Then
+		verify(clusterClient, timeout(5_000L)).handOff(eq(NODE_2), eq(List.of(modified)));
+		verify(clusterClient, timeout(5_000L).times(2)).handOff(eq(NODE_2), any(Collection.class));
+		assertFalse(transferOrderDao.contains(order.getId()));
+	}
+
+	@Test
+	public void testHandoffKeepsLaterVersion() {
+		// Given
+		final ClusterService clusterService = new ClusterService(clusterMembership, clusterClient, transferOrderDao);
+		final TransferOrder olderPresent = buildOrder(1L, NOW.minusSeconds(1)).toBuilder().status(TransferStatus.FINISHED).build();
+		final TransferOrder newerPresent = buildOrder(2L, NOW.plusSeconds(1)).toBuilder().status(TransferStatus.FINISHED).build();
+		transferOrderDao.persist(olderPresent);
+		transferOrderDao.persist(newerPresent);
+
+		// When
+		clusterService.acceptHandoff(List.of(buildOrder(1L, NOW), buildOrder(2L, NOW), buildOrder(3L, NOW)));
+
+		// Then
+		assertEquals(Optional.of(buildOrder(1L, NOW)), transferOrderDao.get(1L));
+		assertEquals(Optional.of(newerPresent), transferOrderDao.get(2L));
+		assertEquals(Optional.of(buildOrder(3L, NOW)), transferOrderDao.get(3L));
+	}
+
+	private long ownedByOtherNode() {
+		long id = 1L;
+		while (clusterMembership.isOwner(id)) {
+			id++;
+		}
+		return id;
+	}
+
+	private static TransferOrder buildOrder(final long orderId, final Instant updatedAt) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(BigDecimal.TEN)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.status(TransferStatus.PENDIG_RECEPTION)
+				.createdAt(NOW)
+				.updatedAt(updatedAt)
+				.build();
+	}
+}
@@ -0,0 +1,95 @@
+package pl.com.salsoft.exercise1.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ConsistentHashRingTest {
+	private static final int VIRTUAL_NODES = 128;
+	private static final int ID_COUNT = 100_000;
+
+	private static final ClusterNode NODE1 = new ClusterNode("node1", "http://localhost:8000");
+	private static final ClusterNode NODE2 = new ClusterNode("node2", "http://localhost:8001");
+	private static final ClusterNode NODE3 = new ClusterNode("node3", "http://localhost:8002");
+	private static final ClusterNode NODE4 = new ClusterNode("node4", "http://localhost:8003");
+
+	@Test
+	public void testSameRingRegardlessOfOrder() {
+		// Given
+		final var ring1 = new ConsistentHashRing(List.of(NODE1, NODE2, NODE3), VIRTUAL_NODES);
+		final var ring2 = new ConsistentHashRing(List.of(NODE3, NODE1, NODE2), VIRTUAL_NODES);
+
+		// When
+		// Then
+		for (long id = 0; id < ID_COUNT; id++) {
+			assertEquals(ring1.ownerOf(id), ring2.ownerOf(id));
+		}
+	}
+
+	@Test
+	public void testEvenDistribution() {
+		// Given
+		final var ring = new ConsistentHashRing(List.of(NODE1, NODE2, NODE3), VIRTUAL_NODES);
+
+		// When
+		final Map<ClusterNode, Integer> counts = new HashMap<>();
+		for (long id = 0; id < ID_COUNT; id++) {
+			counts.merge(ring.ownerOf(id), 1, Integer::sum);
+		}
+
+		// Then
+		assertEquals(3, counts.size());
+		for (final int count : counts.values()) {
+			assertTrue("Unbalanced: " + counts, count > ID_COUNT / 3 * 0.75 && count < ID_COUNT / 3 * 1.25);
+		}
+	}
+
+	@Test
+	public void testAddedNodeTakesOnlyItsShare() {
+		// Given
+		final var before = new ConsistentHashRing(List.of(NODE1, NODE2, NODE3), VIRTUAL_NODES);
+		final var after = new ConsistentHashRing(List.of(NODE1, NODE2, NODE3, NODE4), VIRTUAL_NODES);
+
+		// When
+		int moved = 0;
+		for (long id = 0; id < ID_COUNT; id++) {
+			final ClusterNode newOwner = after.ownerOf(id);
+			if (!newOwner.equals(before.ownerOf(id))) {
+				assertEquals(NODE4, newOwner);
+				moved++;
+			}
+		}
+
+		// Then
+		assertTrue("Moved: " + moved, moved > ID_COUNT / 4 * 0.75 && moved < ID_COUNT / 4 * 1.25);
+	}
+
+	@Test
+	public void testSingleNodeOwnsAll() {
+		// Given
+		final var ring = new ConsistentHashRing(List.of(NODE1), VIRTUAL_NODES);
+
+		// When
+		// Then
+		assertEquals(NODE1, ring.ownerOf(Long.MIN_VALUE));
+		assertEquals(NODE1, ring.ownerOf(0L));
+		assertEquals(NODE1, ring.ownerOf(Long.MAX_VALUE));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyRing() {
+		// Given
+		// Nothing
+
+		// When
+		new ConsistentHashRing(List.of(), VIRTUAL_NODES);
+
+		// Then
+		// Exception thrown
+	}
+}
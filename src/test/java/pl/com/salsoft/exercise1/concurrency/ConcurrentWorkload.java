@@ -0,0 +1,131 @@
+package pl.com.salsoft.exercise1.concurrency;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.SavedOrder;
+
+/**
+ * Randomized concurrent CRUD workload: threads start at once and apply random operations to a few order IDs,
+ * so that operations on the same ID overlap. Every written order has a unique amount, so the checker can tell
+ * which write a read observed. The history of all operations is recorded for {@link LinearizabilityChecker}.
+ */
+public final class ConcurrentWorkload {
+	private final int threads;
+	private final int operationsPerThread;
+	private final int keys;
+	private final long seed;
+
+	/**
+	 * @param threads Number of threads applying operations at the same time.
+	 * @param operationsPerThread Number of operations of every thread.
+	 * @param keys Number of order IDs (0 to keys - 1) the operations are applied to. None of them may exist.
+	 * @param seed Seed of random operations, so a failing history can be repeated (up to the interleaving).
+	 */
+	public ConcurrentWorkload(final int threads, final int operationsPerThread, final int keys, final long seed) {
+		this.threads = threads;
+		this.operationsPerThread = operationsPerThread;
+		this.keys = keys;
+		this.seed = seed;
+	}
+
+	/**
+	 * Runs the workload. Beforehand, an order with ID keys is created and deleted, so generated IDs
+	 * are out of the workload IDs, and creations with taken IDs don't affect the history of other IDs.
+	 * @param client Client applying the operations.
+	 * @return Recorded history.
+	 * @throws Exception If any operation failed, the first failure.
+	 * @throws IllegalStateException If two creations were given the same generated ID.
+	 */
+	public List<Operation> run(final OrderClient client) throws Exception {
+		client.put(keys, TransferOrder.builder().id((long) keys).build());
+		client.delete(keys);
+
+		final ConcurrentLinkedQueue<Operation> history = new ConcurrentLinkedQueue<>();
+		final CyclicBarrier start = new CyclicBarrier(threads);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < threads; thread++) {
+				final int threadIndex = thread;
+				futures.add(executor.submit(() -> {
+					start.await();
+					final Random random = new Random(seed + threadIndex);
+					for (int i = 0; i < operationsPerThread; i++) {
+						history.add(apply(client, threadIndex, threadIndex * operationsPerThread + i, random));
+					}
+					return null;
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		final List<Operation> operations = new ArrayList<>(history);
+		checkGeneratedIds(operations);
+		return operations;
+	}
+
+	private Operation apply(final OrderClient client, final int thread, final long sequence, final Random random)
+			throws Exception {
+		final Operation.Type type = Operation.Type.values()[random.nextInt(Operation.Type.values().length)];
+		final long key = random.nextInt(keys);
+		final TransferOrder input = type == Operation.Type.PATCH
+				? TransferOrder.builder().id(key).amount(BigDecimal.valueOf(sequence)).build()
+				: TransferOrder.builder()
+						.id(key)
+						.sourceAccount(String.valueOf(thread))
+						.targetAccount(String.valueOf(key))
+						.amount(BigDecimal.valueOf(sequence))
+						.status(TransferStatus.values()[random.nextInt(TransferStatus.values().length)])
+						.build();
+
+		final long invoked = System.nanoTime();
+		switch (type) {
+		case CREATE: {
+			final TransferOrder created = client.create(input);
+			return new Operation(thread, type, key, input, created, created.getId() == key, invoked, System.nanoTime());
+		}
+		case GET: {
+			final TransferOrder order = client.get(key);
+			return new Operation(thread, type, key, null, order, order != null, invoked, System.nanoTime());
+		}
+		case PUT: {
+			final SavedOrder saved = client.put(key, input);
+			return new Operation(thread, type, key, input, saved.getOrder(), saved.isCreated(), invoked, System.nanoTime());
+		}
+		case PATCH: {
+			final SavedOrder saved = client.patch(key, input);
+			return new Operation(thread, type, key, input, saved.getOrder(), saved.isCreated(), invoked, System.nanoTime());
+		}
+		default: {
+			final boolean deleted = client.delete(key);
+			return new Operation(thread, type, key, null, null, deleted, invoked, System.nanoTime());
+		}
+		}
+	}
+
+	private void checkGeneratedIds(final List<Operation> operations) {
+		final Set<Long> generated = new HashSet<>();
+		for (final Operation operation : operations) {
+			if (operation.getType() == Operation.Type.CREATE && !operation.isFlag()
+					&& (operation.getOutput().getId() < keys || !generated.add(operation.getOutput().getId()))) {
+				throw new IllegalStateException("Generated ID given twice or taken from the workload: " + operation);
+			}
+		}
+	}
+}
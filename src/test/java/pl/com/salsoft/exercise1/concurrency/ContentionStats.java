@@ -0,0 +1,82 @@
+package pl.com.salsoft.exercise1.concurrency;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+
+/**
+ * Contention statistics of a concurrent history: latency of every operation type, and how often
+ * operations on the same order ID were in progress at the same time.
+ */
+@Getter
+public final class ContentionStats {
+	private final int operations;
+	/**
+	 * Number of operations in progress at the same time as another operation on the same ID.
+	 */
+	private final int contended;
+	/**
+	 * Maximum number of operations on the same ID in progress at the same time.
+	 */
+	private final int maxConcurrent;
+	private final Map<Operation.Type, long[]> latencies = new EnumMap<>(Operation.Type.class);
+
+	public ContentionStats(final List<Operation> history) {
+		operations = history.size();
+		int contendedCount = 0;
+		int maxConcurrentCount = history.isEmpty() ? 0 : 1;
+		final Map<Long, List<Operation>> byKey = history.stream().collect(Collectors.groupingBy(Operation::getKey));
+		for (final List<Operation> keyOperations : byKey.values()) {
+			for (final Operation operation : keyOperations) {
+				final long overlapping = keyOperations.stream()
+						.filter(other -> other != operation && other.overlaps(operation))
+						.count();
+				// Operations in progress when this one was invoked, including itself.
+				final long concurrent = keyOperations.stream()
+						.filter(other -> other.getInvokedNanos() <= operation.getInvokedNanos()
+								&& other.getReturnedNanos() > operation.getInvokedNanos())
+						.count();
+				contendedCount += overlapping > 0 ? 1 : 0;
+				maxConcurrentCount = (int) Math.max(maxConcurrentCount, concurrent);
+			}
+		}
+		contended = contendedCount;
+		maxConcurrent = maxConcurrentCount;
+		history.stream()
+				.collect(Collectors.groupingBy(Operation::getType))
+				.forEach((type, operations) -> latencies.put(type, operations.stream()
+						.mapToLong(operation -> operation.getReturnedNanos() - operation.getInvokedNanos())
+						.sorted()
+						.toArray()));
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder text = new StringBuilder(String.format(
+				"%d operations, %d (%.1f%%) contended on the same ID, at most %d at once%n",
+				operations, contended, operations == 0 ? 0.0 : 100.0 * contended / operations, maxConcurrent));
+		text.append(String.format("%-8s %8s %10s %10s %10s%n", "type", "count", "p50 us", "p99 us", "max us"));
+		latencies.entrySet().stream()
+				.sorted(Comparator.comparing(Map.Entry::getKey))
+				.forEach(entry -> {
+					final long[] sorted = entry.getValue();
+					text.append(String.format("%-8s %8d %10d %10d %10d%n", entry.getKey(), sorted.length,
+							micros(percentile(sorted, 50)), micros(percentile(sorted, 99)),
+							micros(sorted[sorted.length - 1])));
+				});
+		return text.toString();
+	}
+
+	private static long percentile(final long[] sorted, final int percentile) {
+		return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+	}
+
+	private static long micros(final long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,84 @@
+package pl.com.salsoft.exercise1.concurrency;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Checks whether a concurrent history is linearizable: whether there is a sequential order of its operations,
+ * consistent with their real-time order (an operation that returned before another one was invoked comes first),
+ * in which every operation returns what it returned in the history, according to {@link OrderModel}.
+ *
+ * Orders of different IDs are independent, and linearizability is compositional, so the history of every ID
+ * is checked on its own. It's the Wing &amp; Gong search with memoization of visited states (Lowe):
+ * depth-first search over operations that may take effect next, backtracking when an operation's result
+ * doesn't match the model, and skipping sets of linearized operations already seen with the same state.
+ */
+public final class LinearizabilityChecker {
+	private LinearizabilityChecker() {
+	}
+
+	/**
+	 * @param history Operations of the history. Orders of all keys must not exist when the history starts.
+	 * @return Descriptions of violations, one for every order ID whose history is not linearizable.
+	 * Empty if the whole history is linearizable.
+	 */
+	public static List<String> check(final List<Operation> history) {
+		final Map<Long, List<Operation>> byKey = history.stream()
+				.collect(Collectors.groupingBy(Operation::getKey, TreeMap::new, Collectors.toList()));
+		final List<String> violations = new ArrayList<>();
+		byKey.forEach((key, operations) -> {
+			operations.sort(Comparator.comparingLong(Operation::getInvokedNanos));
+			if (!new Search(operations).linearizable(new BitSet(operations.size()), null)) {
+				violations.add(String.format("Order %d: no linearization of %d operations:%n%s", key, operations.size(),
+						operations.stream().map(Operation::toString).collect(Collectors.joining(System.lineSeparator()))));
+			}
+		});
+		return violations;
+	}
+
+	private static final class Search {
+		private final List<Operation> operations;
+		private final Set<Map.Entry<BitSet, Optional<TransferOrder>>> visited = new HashSet<>();
+
+		private Search(final List<Operation> operations) {
+			this.operations = operations;
+		}
+
+		private boolean linearizable(final BitSet linearized, final TransferOrder state) {
+			final int first = linearized.nextClearBit(0);
+			if (first >= operations.size()) {
+				return true;
+			}
+			// Operation can take effect next only if no pending operation returned before it was invoked.
+			// Operations are sorted by invocation, so candidates end at the first one invoked after that.
+			long earliestReturn = Long.MAX_VALUE;
+			for (int i = first; i < operations.size(); i = linearized.nextClearBit(i + 1)) {
+				earliestReturn = Math.min(earliestReturn, operations.get(i).getReturnedNanos());
+			}
+			for (int i = first; i < operations.size() && operations.get(i).getInvokedNanos() <= earliestReturn;
+					i = linearized.nextClearBit(i + 1)) {
+				final Optional<TransferOrder> next = OrderModel.apply(state, operations.get(i));
+				if (next == null) {
+					continue;
+				}
+				final BitSet nextLinearized = (BitSet) linearized.clone();
+				nextLinearized.set(i);
+				if (visited.add(Map.entry(nextLinearized, next))
+						&& linearizable(nextLinearized, next.orElse(null))) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
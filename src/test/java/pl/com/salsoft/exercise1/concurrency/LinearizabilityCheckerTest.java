@@ -0,0 +1,121 @@
+package pl.com.salsoft.exercise1.concurrency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.concurrency.Operation.Type;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+public class LinearizabilityCheckerTest {
+	@Test
+	public void testSequentialHistory() {
+		// Given
+		final List<Operation> history = List.of(
+				new Operation(0, Type.CREATE, 1L, order(1), order(1), true, 0, 10),
+				new Operation(0, Type.PATCH, 1L, order(2), order(2), false, 20, 30),
+				new Operation(0, Type.GET, 1L, null, order(2), true, 40, 50),
+				new Operation(0, Type.DELETE, 1L, null, null, true, 60, 70),
+				new Operation(0, Type.GET, 1L, null, null, false, 80, 90));
+
+		// When
+		final List<String> violations = LinearizabilityChecker.check(history);
+
+		// Then
+		assertTrue(violations.isEmpty());
+	}
+
+	@Test
+	public void testOverlappingOperationsReordered() {
+		// Given
+		// The read returned before the creation it observed returned, but they overlap.
+		final List<Operation> history = List.of(
+				new Operation(0, Type.CREATE, 1L, order(1), order(1), true, 0, 100),
+				new Operation(1, Type.GET, 1L, null, order(1), true, 10, 50),
+				new Operation(2, Type.GET, 1L, null, null, false, 5, 20));
+
+		// When
+		final List<String> violations = LinearizabilityChecker.check(history);
+
+		// Then
+		assertTrue(violations.isEmpty());
+	}
+
+	@Test
+	public void testStaleRead() {
+		// Given
+		final List<Operation> history = List.of(
+				new Operation(0, Type.PUT, 1L, order(1), order(1), true, 0, 10),
+				new Operation(0, Type.PUT, 1L, order(2), order(2), false, 20, 30),
+				new Operation(1, Type.GET, 1L, null, order(1), true, 40, 50));
+
+		// When
+		final List<String> violations = LinearizabilityChecker.check(history);
+
+		// Then
+		assertEquals(1, violations.size());
+	}
+
+	@Test
+	public void testCheckThenActCreate() {
+		// Given
+		// Both creations used the requested ID, so one of them overwrote the other.
+		final List<Operation> history = List.of(
+				new Operation(0, Type.CREATE, 1L, order(1), order(1), true, 0, 100),
+				new Operation(1, Type.CREATE, 1L, order(2), order(2), true, 0, 100),
+				new Operation(2, Type.GET, 2L, null, null, false, 0, 100));
+
+		// When
+		final List<String> violations = LinearizabilityChecker.check(history);
+
+		// Then
+		assertEquals(1, violations.size());
+		assertTrue(violations.get(0).startsWith("Order 1:"));
+	}
+
+	@Test
+	public void testDoubleDelete() {
+		// Given
+		final List<Operation> history = List.of(
+				new Operation(0, Type.PUT, 1L, order(1), order(1), true, 0, 10),
+				new Operation(1, Type.DELETE, 1L, null, null, true, 20, 100),
+				new Operation(2, Type.DELETE, 1L, null, null, true, 20, 100));
+
+		// When
+		final List<String> violations = LinearizabilityChecker.check(history);
+
+		// Then
+		assertEquals(1, violations.size());
+	}
+
+	@Test
+	public void testLostPatch() {
+		// Given
+		// Concurrent patches of different fields, the read sees only one of them.
+		final TransferOrder amountPatch = TransferOrder.builder().id(1L).amount(BigDecimal.TEN).build();
+		final TransferOrder accountPatch = TransferOrder.builder().id(1L).sourceAccount("123").build();
+		final List<Operation> history = List.of(
+				new Operation(0, Type.PUT, 1L, order(1), order(1), true, 0, 10),
+				new Operation(1, Type.PATCH, 1L, amountPatch, order(1).mergeNonNull(amountPatch), false, 20, 100),
+				new Operation(2, Type.PATCH, 1L, accountPatch, order(1).mergeNonNull(accountPatch), false, 20, 100),
+				new Operation(0, Type.GET, 1L, null, order(1).mergeNonNull(accountPatch), true, 110, 120));
+
+		// When
+		final List<String> violations = LinearizabilityChecker.check(history);
+
+		// Then
+		assertEquals(1, violations.size());
+	}
+
+	private TransferOrder order(final long amount) {
+		return TransferOrder.builder()
+				.id(1L)
+				.sourceAccount("000")
+				.amount(BigDecimal.valueOf(amount))
+				.build();
+	}
+}
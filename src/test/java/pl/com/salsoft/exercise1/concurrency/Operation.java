@@ -0,0 +1,73 @@
+package pl.com.salsoft.exercise1.concurrency;
+
+import lombok.Getter;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Completed operation of a concurrent history: what was requested for which order ID, what it returned,
+ * and when it was invoked and returned. Orders are held without timestamps, which the server sets.
+ */
+@Getter
+public final class Operation {
+	public enum Type {
+		/**
+		 * Creation of an order with the key as ID. Output is the stored order, flag tells whether
+		 * the requested ID was used (false if it was taken and the order was created with a generated ID).
+		 */
+		CREATE,
+		/**
+		 * Read of the order. Output is the order, or null if it didn't exist.
+		 */
+		GET,
+		/**
+		 * Replacement of the order. Output is the stored order, flag tells whether it was created.
+		 */
+		PUT,
+		/**
+		 * Update of non-null fields of the order. Output is the stored order, flag tells whether it was created.
+		 */
+		PATCH,
+		/**
+		 * Deletion of the order. Flag tells whether it existed.
+		 */
+		DELETE
+	}
+
+	private final int thread;
+	private final Type type;
+	private final long key;
+	private final TransferOrder input;
+	private final TransferOrder output;
+	private final boolean flag;
+	private final long invokedNanos;
+	private final long returnedNanos;
+
+	public Operation(final int thread, final Type type, final long key, final TransferOrder input,
+			final TransferOrder output, final boolean flag, final long invokedNanos, final long returnedNanos) {
+		this.thread = thread;
+		this.type = type;
+		this.key = key;
+		this.input = withoutTimestamps(input);
+		this.output = withoutTimestamps(output);
+		this.flag = flag;
+		this.invokedNanos = invokedNanos;
+		this.returnedNanos = returnedNanos;
+	}
+
+	/**
+	 * @return true if this operation was in progress at the same time as the other one.
+	 */
+	public boolean overlaps(final Operation other) {
+		return invokedNanos < other.returnedNanos && other.invokedNanos < returnedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[%d..%d] thread %d %s %d %s -> %s %s", invokedNanos, returnedNanos, thread, type, key,
+				input, output, flag);
+	}
+
+	private static TransferOrder withoutTimestamps(final TransferOrder order) {
+		return order == null ? null : order.toBuilder().createdAt(null).updatedAt(null).build();
+	}
+}
@@ -0,0 +1,31 @@
+package pl.com.salsoft.exercise1.concurrency;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.service.SavedOrder;
+
+/**
+ * Operations of a concurrent workload, implemented on top of the service or the REST API.
+ */
+public interface OrderClient {
+	/**
+	 * @return Created order, with the given ID or a generated one if the given one was taken.
+	 */
+	TransferOrder create(TransferOrder order) throws Exception;
+
+	/**
+	 * @return Order with given ID, or null if there is none.
+	 */
+	TransferOrder get(long id) throws Exception;
+
+	SavedOrder put(long id, TransferOrder order) throws Exception;
+
+	/**
+	 * Sets non-null fields of the order.
+	 */
+	SavedOrder patch(long id, TransferOrder order) throws Exception;
+
+	/**
+	 * @return true if the order existed.
+	 */
+	boolean delete(long id) throws Exception;
+}
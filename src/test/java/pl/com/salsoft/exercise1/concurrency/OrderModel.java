@@ -0,0 +1,47 @@
+package pl.com.salsoft.exercise1.concurrency;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+/**
+ * Sequential specification of operations on a single order ID: the state is the stored order, or null.
+ */
+final class OrderModel {
+	private OrderModel() {
+	}
+
+	/**
+	 * @param state Order stored before the operation, or null.
+	 * @param operation Operation applied to the state.
+	 * @return Order stored after the operation (empty if it's deleted), or null if the operation
+	 * could not return what it returned, if applied to given state.
+	 */
+	static Optional<TransferOrder> apply(final TransferOrder state, final Operation operation) {
+		final TransferOrder input = operation.getInput();
+		switch (operation.getType()) {
+		case CREATE:
+			if (state != null) {
+				// Created with a generated ID, this one is not affected.
+				return operation.isFlag() ? null : Optional.of(state);
+			}
+			return operation.isFlag() && input.equals(operation.getOutput()) ? Optional.of(input) : null;
+		case GET:
+			return Objects.equals(state, operation.getOutput()) ? Optional.ofNullable(state) : null;
+		case PUT:
+			return saved(state, input, operation);
+		case PATCH:
+			return saved(state, state == null ? input : state.mergeNonNull(input), operation);
+		case DELETE:
+			return operation.isFlag() == (state != null) ? Optional.empty() : null;
+		default:
+			throw new IllegalArgumentException("Unknown operation: " + operation.getType());
+		}
+	}
+
+	private static Optional<TransferOrder> saved(final TransferOrder state, final TransferOrder next,
+			final Operation operation) {
+		return operation.isFlag() == (state == null) && next.equals(operation.getOutput()) ? Optional.of(next) : null;
+	}
+}
@@ -0,0 +1,113 @@
+package pl.com.salsoft.exercise1.concurrency;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.JdbcTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.TieredTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.SavedOrder;
+import pl.com.salsoft.exercise1.service.TransferService;
+
+public class TransferServiceLinearizabilityTest {
+	private static final Logger log = LoggerFactory.getLogger(TransferServiceLinearizabilityTest.class);
+	private static final int THREADS = 8;
+	private static final int OPERATIONS_PER_THREAD = 2_000;
+	private static final int KEYS = 16;
+
+	private final JsonService jsonService = new JsonService();
+	private TransferOrderDao dao;
+
+	@After
+	public void afterTest() {
+		dao.close();
+	}
+
+	@Test
+	public void testInMemory() throws Exception {
+		// Given
+		dao = new InMemoryTransferOrderDao();
+
+		// When
+		final List<Operation> history = new ConcurrentWorkload(THREADS, OPERATIONS_PER_THREAD, KEYS, 1L).run(client());
+
+		// Then
+		assertLinearizable("memory", history);
+	}
+
+	@Test
+	public void testJdbc() throws Exception {
+		// Given
+		// Small batches and cache, so writes are flushed and orders evicted while the workload runs.
+		dao = new JdbcTransferOrderDao(String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", UUID.randomUUID()), 4, 10L, 4);
+
+		// When
+		final List<Operation> history = new ConcurrentWorkload(THREADS, OPERATIONS_PER_THREAD / 4, KEYS, 2L).run(client());
+
+		// Then
+		assertLinearizable("h2", history);
+	}
+
+	@Test
+	public void testTiered() throws Exception {
+		// Given
+		// Finished and rejected orders are moved to cold segments while the workload runs.
+		final Path directory = Files.createTempDirectory("linearizability");
+		dao = new TieredTransferOrderDao(directory, 0L, 1L, 4);
+
+		// When
+		final List<Operation> history = new ConcurrentWorkload(THREADS, OPERATIONS_PER_THREAD, KEYS, 3L).run(client());
+
+		// Then
+		assertLinearizable("tiered", history);
+	}
+
+	private void assertLinearizable(final String backend, final List<Operation> history) {
+		log.info("{}: {}", backend, new ContentionStats(history));
+		assertEquals(List.of(), LinearizabilityChecker.check(history));
+	}
+
+	private OrderClient client() {
+		final TransferService transferService = new TransferService(dao, jsonService, Clock.systemUTC());
+		return new OrderClient() {
+			@Override
+			public TransferOrder create(final TransferOrder order) {
+				return transferService.newTransfer(order);
+			}
+
+			@Override
+			public TransferOrder get(final long id) {
+				return transferService.getTransfer(id).orElse(null);
+			}
+
+			@Override
+			public SavedOrder put(final long id, final TransferOrder order) {
+				return transferService.updateTransfer(id, order);
+			}
+
+			@Override
+			public SavedOrder patch(final long id, final TransferOrder order) {
+				return transferService.patchTransfer(id, jsonService.map(order).getBytes(StandardCharsets.UTF_8), false);
+			}
+
+			@Override
+			public boolean delete(final long id) {
+				return transferService.deleteTransfer(id);
+			}
+		};
+	}
+}
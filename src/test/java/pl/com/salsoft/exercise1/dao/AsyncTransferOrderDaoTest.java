@@ -0,0 +1,101 @@
+package pl.com.salsoft.exercise1.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+public class AsyncTransferOrderDaoTest {
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	@After
+	public void afterTest() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testNonBlockingRunsOnCallingThread() {
+		// Given
+		final AsyncTransferOrderDao dao = new AsyncTransferOrderDao(new InMemoryTransferOrderDao(), executor);
+
+		// When
+		final CompletableFuture<Boolean> persisted = dao.persistIfAbsent(order(1L));
+		final CompletableFuture<Thread> thread = dao.supply(Thread::currentThread);
+
+		// Then
+		assertTrue(persisted.isDone());
+		assertTrue(persisted.join());
+		assertEquals(Thread.currentThread(), thread.join());
+	}
+
+	@Test
+	public void testBlockingRunsOnExecutor() throws Exception {
+		// Given
+		final AsyncTransferOrderDao dao = new AsyncTransferOrderDao(new BlockingDao(), executor);
+
+		// When
+		dao.persist(order(1L)).get(5, TimeUnit.SECONDS);
+		final Optional<TransferOrder> order = dao.get(1L).get(5, TimeUnit.SECONDS);
+		final Thread thread = dao.supply(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+		// Then
+		assertEquals(Optional.of(order(1L)), order);
+		assertNotEquals(Thread.currentThread(), thread);
+	}
+
+	@Test
+	public void testFailureCompletesExceptionally() {
+		// Given
+		final AsyncTransferOrderDao dao = new AsyncTransferOrderDao(new InMemoryTransferOrderDao(), executor);
+
+		// When
+		final CompletableFuture<TransferOrder> result = dao.update(1L, existing -> {
+			throw new IllegalArgumentException("Invalid");
+		});
+
+		// Then
+		assertTrue(result.isCompletedExceptionally());
+		assertTrue(result.handle((order, error) -> error).join() instanceof IllegalArgumentException);
+		assertEquals(Optional.empty(), dao.get(1L).join());
+	}
+
+	@Test
+	public void testRejectedCompletesExceptionally() {
+		// Given
+		final AsyncTransferOrderDao dao = new AsyncTransferOrderDao(new BlockingDao(), executor);
+		executor.shutdown();
+
+		// When
+		final CompletableFuture<Long> result = dao.generateId();
+
+		// Then
+		assertTrue(result.isCompletedExceptionally());
+	}
+
+	private static TransferOrder order(final Long id) {
+		return TransferOrder.builder()
+				.id(id)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.amount(BigDecimal.TEN)
+				.build();
+	}
+
+	private static final class BlockingDao extends InMemoryTransferOrderDao {
+		@Override
+		public boolean isBlocking() {
+			return true;
+		}
+	}
+}
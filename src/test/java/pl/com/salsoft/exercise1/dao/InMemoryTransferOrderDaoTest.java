@@ -0,0 +1,483 @@
+package pl.com.salsoft.exercise1.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+public class InMemoryTransferOrderDaoTest {
+	private InMemoryTransferOrderDao dao;
+
+	@Before
+	public void beforeTest() {
+		dao = new InMemoryTransferOrderDao();
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testContainsError() {
+		// Given
+		// Nothing
+
+		// When
+		dao.contains(null);
+
+		// Then
+		// Exception is thrown
+	}
+
+	@Test
+	public void testContainsNegative() {
+		// Given
+		final long orderId = 1L;
+		dao.persist(buildOrder(orderId));
+
+		// When
+		final boolean result = dao.contains(orderId + 1);
+
+		// Then
+		assertFalse(result);
+	}
+
+	@Test
+	public void testContainsPositive() {
+		// Given
+		final long orderId = 1L;
+		dao.persist(buildOrder(orderId));
+
+		// When
+		final boolean result = dao.contains(orderId);
+
+		// Then
+		assertTrue(result);
+	}
+
+	@Test
+	public void testDelete() {
+		// Given
+		final long orderId = 1L;
+		dao.persist(buildOrder(orderId));
+
+		// When
+		dao.delete(orderId);
+
+		// Then
+		assertFalse(dao.contains(orderId));
+	}
+
+	@Test
+	public void testDeleteIfNegative() {
+		// Given
+		final long orderId = 1L;
+		dao.persist(buildOrder(orderId));
+
+		// When
+		final boolean result = dao.deleteIf(orderId, order -> order.getStatus() != null);
+
+		// Then
+		assertFalse(result);
+		assertTrue(dao.contains(orderId));
+	}
+
+	@Test
+	public void testDeleteIfPositive() {
+		// Given
+		final long orderId = 1L;
+		dao.persist(buildOrder(orderId));
+
+		// When
+		final boolean result = dao.deleteIf(orderId, order -> order.getStatus() == null);
+
+		// Then
+		assertTrue(result);
+		assertFalse(dao.contains(orderId));
+		assertFalse(dao.deleteIf(orderId, order -> true));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testDeleteError() {
+		// Given
+		// Nothing
+
+		// When
+		dao.delete(null);
+
+		// Then
+		// Exception is thrown
+	}
+
+	@Test
+	public void testDeleteMultipleNoError() {
+		// Given
+		final long orderId = 1L;
+		dao.persist(buildOrder(orderId));
+
+		// When
+		dao.delete(orderId);
+		dao.delete(orderId);
+		dao.delete(orderId + 1);
+
+		// Then
+		assertFalse(dao.contains(orderId));
+	}
+
+	@Test
+	public void testGenerateIdAfterCustomPersist() {
+		// Given
+		final long orderId = 5L;
+		dao.persist(buildOrder(orderId));
+
+		// When
+		final long result = dao.generateId();
+
+		// Then
+		assertEquals(orderId + 1, result);
+	}
+
+	@Test
+	public void testGenerateIdAfterPersistOfNextId() {
+		// Given
+		dao.persist(buildOrder(0L));
+
+		// When
+		final long result = dao.generateId();
+
+		// Then
+		assertEquals(1L, result);
+	}
+
+	@Test
+	public void testGenerateIdFirstUse() {
+		// Given
+		// Nothing
+
+		// When
+		final long result = dao.generateId();
+
+		// Then
+		assertEquals(0L, result);
+	}
+
+	@Test
+	public void testGenerateIdNthUse() {
+		// Given
+		dao.generateId();
+		dao.generateId();
+
+		// When
+		final long result = dao.generateId();
+
+		// Then
+		assertEquals(2L, result);
+	}
+
+	@Test
+	public void testGenerateIdWithFilter() {
+		// Given
+		dao.setIdFilter(id -> id % 3 == 0);
+		dao.generateId();
+
+		// When
+		final long result = dao.generateId();
+
+		// Then
+		assertEquals(3L, result);
+	}
+
+	@Test
+	public void testGetAll() {
+		// Given
+		final Set<TransferOrder> orders = IntStream.range(0, 10)
+			.boxed()
+			.map(orderId -> buildOrder(orderId))
+			.collect(Collectors.toSet());
+
+		orders.forEach(order -> dao.persist(order));
+
+		// When
+		final var allOrders = dao.getAll();
+
+		// Then
+		assertEquals(orders, allOrders);
+	}
+
+	@Test
+	public void testGetAllEmpty() {
+		// Given
+		// Nothing
+
+		// When
+		final var allOrders = dao.getAll();
+
+		// Then
+		assertTrue(allOrders.isEmpty());
+	}
+
+	@Test
+	public void testFind() {
+		// Given
+		IntStream.range(0, 2_000).forEach(orderId -> dao.persist(buildOrder(orderId)));
+
+		// When
+		final List<TransferOrder> result = dao.find(order -> order.getId() % 3 == 0,
+				Comparator.comparing(TransferOrder::getId).reversed(), 4);
+
+		// Then
+		assertEquals(List.of(1998L, 1995L, 1992L, 1989L), result.stream().map(TransferOrder::getId).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testFindFewerThanLimit() {
+		// Given
+		IntStream.range(0, 10).forEach(orderId -> dao.persist(buildOrder(orderId)));
+
+		// When
+		final List<TransferOrder> result = dao.find(order -> order.getId() > 6, Comparator.comparing(TransferOrder::getId), 100);
+
+		// Then
+		assertEquals(List.of(7L, 8L, 9L), result.stream().map(TransferOrder::getId).collect(Collectors.toList()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFindInvalidLimit() {
+		// Given
+		// Nothing
+
+		// When
+		dao.find(order -> true, Comparator.comparing(TransferOrder::getId), 0);
+
+		// Then
+		// Exception is thrown
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testGetError() {
+		// Given
+		// Nothing
+
+		// When
+		dao.get(null);
+
+		// Then
+		// Exception is thrown
+	}
+
+	@Test
+	public void testGetMultiple() {
+		// Given
+		final var orderId1 = 1L;
+		final var order1 = buildOrder(orderId1);
+		dao.persist(order1);
+
+		final var orderId2 = Long.MAX_VALUE;
+		final var order2 = buildOrder(orderId2);
+		dao.persist(order2);
+
+		// When
+		dao.get(orderId1);
+		dao.get(orderId2);
+		final var result2 = dao.get(orderId2);
+
+		// Then
+		assertEquals(order2, result2.orElseThrow());
+	}
+
+	@Test
+	public void testGetNegative() {
+		// Given
+		final var orderId = 1L;
+		final var order = buildOrder(orderId);
+		dao.persist(order);
+
+		// When
+		final var foundOrder = dao.get(orderId + 1);
+
+		// Then
+		assertFalse(foundOrder.isPresent());
+	}
+
+	@Test
+	public void testGetPositive() {
+		// Given
+		final var orderId = 1L;
+		final var order = buildOrder(orderId);
+		dao.persist(order);
+
+		// When
+		final var foundOrder = dao.get(orderId);
+
+		// Then
+		assertEquals(order, foundOrder.orElseThrow());
+	}
+
+	@Test
+	public void testPersistBigId() {
+		// Given
+		final var order = buildOrder(Long.MAX_VALUE);
+
+		// When
+		dao.persist(order);
+
+		// Then
+		// No exception thrown
+	}
+
+	@Test
+	public void testPersistBigNegativeId() {
+		// Given
+		final var order = buildOrder(Long.MIN_VALUE);
+
+		// When
+		dao.persist(order);
+
+		// Then
+		// No exception thrown
+	}
+
+	@Test
+	public void testPersistNoError() {
+		// Given
+		final var order = buildOrder(1L);
+
+		// When
+		dao.persist(order);
+
+		// Then
+		// No exception thrown
+	}
+
+	@Test
+	public void testPersistIfAbsentNegative() {
+		// Given
+		final var order = buildOrder(1L);
+		final var otherOrder = order.toBuilder().sourceAccount("123").build();
+		dao.persist(order);
+
+		// When
+		final boolean result = dao.persistIfAbsent(otherOrder);
+
+		// Then
+		assertFalse(result);
+		assertEquals(order, dao.get(1L).orElseThrow());
+	}
+
+	@Test
+	public void testPersistIfAbsentPositive() {
+		// Given
+		final var order = buildOrder(1L);
+
+		// When
+		final boolean result = dao.persistIfAbsent(order);
+
+		// Then
+		assertTrue(result);
+		assertEquals(order, dao.get(1L).orElseThrow());
+		assertEquals(2L, dao.generateId());
+	}
+
+	@Test
+	public void testPersistAll() {
+		// Given
+		dao.persist(buildOrder(2L));
+		final var replaced = buildOrder(2L).toBuilder().sourceAccount("123").build();
+
+		// When
+		dao.persistAll(Set.of(buildOrder(7L), replaced, buildOrder(3L)));
+
+		// Then
+		assertEquals(Set.of(2L, 3L, 7L), dao.getAll().stream().map(TransferOrder::getId).collect(Collectors.toSet()));
+		assertEquals(replaced, dao.get(2L).orElseThrow());
+		assertEquals(8L, dao.generateId());
+	}
+
+	@Test
+	public void testUpdateExisting() {
+		// Given
+		dao.persist(buildOrder(1L));
+		final var expected = buildOrder(1L).toBuilder().sourceAccount("123").build();
+
+		// When
+		final var result = dao.update(1L, existing -> existing.toBuilder().sourceAccount("123").build());
+
+		// Then
+		assertEquals(expected, result);
+		assertEquals(expected, dao.get(1L).orElseThrow());
+	}
+
+	@Test
+	public void testUpdateMissing() {
+		// Given
+		// Nothing
+
+		// When
+		final var result = dao.update(1L, existing -> existing == null ? buildOrder(1L) : null);
+
+		// Then
+		assertEquals(buildOrder(1L), result);
+		assertEquals(2L, dao.generateId());
+	}
+
+	@Test
+	public void testUpdateFailure() {
+		// Given
+		dao.persist(buildOrder(1L));
+
+		// When
+		try {
+			dao.update(1L, existing -> {
+				throw new IllegalArgumentException();
+			});
+		} catch (final IllegalArgumentException e) {
+			// Expected
+		}
+
+		// Then
+		assertEquals(buildOrder(1L), dao.get(1L).orElseThrow());
+	}
+
+	@Test
+	public void testUpdateIfPositive() {
+		// Given
+		dao.persist(buildOrder(1L));
+		final var expected = buildOrder(1L).toBuilder().sourceAccount("123").build();
+
+		// When
+		final boolean result = dao.updateIf(1L, existing -> existing.getSourceAccount() == null,
+				existing -> existing.toBuilder().sourceAccount("123").build());
+
+		// Then
+		assertTrue(result);
+		assertEquals(expected, dao.get(1L).orElseThrow());
+	}
+
+	@Test
+	public void testUpdateIfNegative() {
+		// Given
+		dao.persist(buildOrder(1L));
+
+		// When
+		final boolean unmatched = dao.updateIf(1L, existing -> existing.getSourceAccount() != null,
+				existing -> existing.toBuilder().sourceAccount("123").build());
+		final boolean missing = dao.updateIf(2L, existing -> true, existing -> buildOrder(2L));
+
+		// Then
+		assertFalse(unmatched);
+		assertFalse(missing);
+		assertEquals(buildOrder(1L), dao.get(1L).orElseThrow());
+		assertFalse(dao.contains(2L));
+	}
+
+	private TransferOrder buildOrder(final long orderId) {
+		return TransferOrder.builder().id(orderId).build();
+	}
+
+}
@@ -0,0 +1,303 @@
+package pl.com.salsoft.exercise1.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class JdbcTransferOrderDaoTest {
+	private static final int BATCH_SIZE = 4;
+	private static final long FLUSH_INTERVAL = 10_000L;
+	private static final int CACHE_SIZE = 64;
+
+	private String jdbcUrl;
+	private JdbcTransferOrderDao dao;
+
+	@After
+	public void afterTest() {
+		dao.close();
+	}
+
+	@Before
+	public void beforeTest() {
+		jdbcUrl = String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", UUID.randomUUID());
+		dao = new JdbcTransferOrderDao(jdbcUrl, BATCH_SIZE, FLUSH_INTERVAL, CACHE_SIZE);
+	}
+
+	@Test
+	public void testDeleteFlushed() {
+		// Given
+		final long orderId = 1L;
+		dao.persist(buildOrder(orderId));
+		dao.flush();
+
+		// When
+		dao.delete(orderId);
+		dao.flush();
+
+		// Then
+		assertFalse(dao.contains(orderId));
+	}
+
+	@Test
+	public void testDeletePending() {
+		// Given
+		final long orderId = 1L;
+		dao.persist(buildOrder(orderId));
+
+		// When
+		dao.delete(orderId);
+
+		// Then
+		assertFalse(dao.contains(orderId));
+	}
+
+	@Test
+	public void testDeleteIfFlushed() {
+		// Given
+		final long orderId = 1L;
+		dao.persist(buildOrder(orderId));
+		dao.flush();
+
+		// When
+		final boolean kept = dao.deleteIf(orderId, order -> order.getStatus() == TransferStatus.FINISHED);
+		final boolean deleted = dao.deleteIf(orderId, order -> order.getStatus() == TransferStatus.PLANNED);
+		dao.flush();
+
+		// Then
+		assertFalse(kept);
+		assertTrue(deleted);
+		assertFalse(dao.contains(orderId));
+	}
+
+	@Test
+	public void testGenerateIdAfterReopen() {
+		// Given
+		final long orderId = 5L;
+		dao.persist(buildOrder(orderId));
+		dao.close();
+
+		// When
+		dao = new JdbcTransferOrderDao(jdbcUrl, BATCH_SIZE, FLUSH_INTERVAL, CACHE_SIZE);
+		final long result = dao.generateId();
+
+		// Then
+		assertEquals(orderId + 1, result);
+	}
+
+	@Test
+	public void testGenerateIdFirstUse() {
+		// Given
+		// Nothing
+
+		// When
+		final long result = dao.generateId();
+
+		// Then
+		assertEquals(0L, result);
+	}
+
+	@Test
+	public void testGetAll() {
+		// Given
+		final Set<TransferOrder> orders = IntStream.range(0, 10)
+			.boxed()
+			.map(orderId -> buildOrder(orderId))
+			.collect(Collectors.toSet());
+
+		orders.forEach(order -> dao.persist(order));
+
+		// When
+		final var allOrders = dao.getAll();
+
+		// Then
+		assertEquals(orders, allOrders);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testGetError() {
+		// Given
+		// Nothing
+
+		// When
+		dao.get(null);
+
+		// Then
+		// Exception is thrown
+	}
+
+	@Test
+	public void testGetFlushed() {
+		// Given
+		final var orderId = 1L;
+		final var order = buildOrder(orderId);
+		dao.persist(order);
+		dao.flush();
+
+		// When
+		final var foundOrder = dao.get(orderId);
+		final var cachedOrder = dao.get(orderId);
+
+		// Then
+		assertEquals(order, foundOrder.orElseThrow());
+		assertEquals(order, cachedOrder.orElseThrow());
+	}
+
+	@Test
+	public void testGetNegative() {
+		// Given
+		dao.persist(buildOrder(1L));
+		dao.flush();
+
+		// When
+		final var foundOrder = dao.get(2L);
+
+		// Then
+		assertFalse(foundOrder.isPresent());
+	}
+
+	@Test
+	public void testGetPending() {
+		// Given
+		final var orderId = 1L;
+		final var order = buildOrder(orderId);
+
+		// When
+		dao.persist(order);
+
+		// Then
+		assertEquals(order, dao.get(orderId).orElseThrow());
+	}
+
+	@Test
+	public void testPersistOverwritesCached() {
+		// Given
+		final var orderId = 1L;
+		dao.persist(buildOrder(orderId));
+		dao.flush();
+		dao.get(orderId);
+		final var updatedOrder = buildOrder(orderId).toBuilder().status(TransferStatus.REJECTED).build();
+
+		// When
+		dao.persist(updatedOrder);
+		dao.flush();
+
+		// Then
+		assertEquals(updatedOrder, dao.get(orderId).orElseThrow());
+	}
+
+	@Test
+	public void testPersistSurvivesReopen() {
+		// Given
+		final var orderId = 1L;
+		final var order = buildOrder(orderId);
+		dao.persist(order);
+		dao.close();
+
+		// When
+		dao = new JdbcTransferOrderDao(jdbcUrl, BATCH_SIZE, FLUSH_INTERVAL, CACHE_SIZE);
+
+		// Then
+		assertTrue(dao.contains(orderId));
+		assertEquals(order, dao.get(orderId).orElseThrow());
+	}
+
+	@Test
+	public void testTimestampsSurviveReopen() {
+		// Given
+		final var order = buildOrder(1L).toBuilder()
+				.createdAt(Instant.parse("2019-07-01T12:00:00.123Z"))
+				.updatedAt(Instant.parse("2019-07-02T08:00:00Z"))
+				.executeAt(Instant.parse("2019-07-03T00:00:00Z"))
+				.build();
+		dao.persist(order);
+		dao.close();
+
+		// When
+		dao = new JdbcTransferOrderDao(jdbcUrl, BATCH_SIZE, FLUSH_INTERVAL, CACHE_SIZE);
+
+		// Then
+		assertEquals(order, dao.get(1L).orElseThrow());
+	}
+
+	@Test
+	public void testUpdateFlushed() {
+		// Given
+		final var orderId = 1L;
+		dao.persist(buildOrder(orderId));
+		dao.flush();
+		dao.get(orderId);
+
+		// When
+		final var result = dao.update(orderId, existing -> existing.toBuilder().status(TransferStatus.FINISHED).build());
+		dao.flush();
+
+		// Then
+		final var expected = buildOrder(orderId).toBuilder().status(TransferStatus.FINISHED).build();
+		assertEquals(expected, result);
+		assertEquals(expected, dao.get(orderId).orElseThrow());
+	}
+
+	@Test
+	public void testUpdateConcurrentWithFlushes() throws InterruptedException {
+		// Given
+		final var orderId = 1L;
+		final int updates = 2_000;
+		dao.persist(buildOrder(orderId));
+		dao.flush();
+		final var done = new AtomicBoolean();
+		// Pending writes keep being flushed while the order is updated
+		final Thread flusher = new Thread(() -> {
+			while (!done.get()) {
+				dao.flush();
+			}
+		});
+		flusher.start();
+
+		// When
+		IntStream.range(0, updates).parallel().forEach(i -> dao.update(orderId,
+				existing -> existing.toBuilder().amount(existing.getAmount().add(BigDecimal.ONE)).build()));
+		done.set(true);
+		flusher.join();
+
+		// Then
+		assertEquals(new BigDecimal("12.34").add(BigDecimal.valueOf(updates)), dao.get(orderId).orElseThrow().getAmount());
+	}
+
+	@Test
+	public void testUpdateMissing() {
+		// Given
+		final var orderId = 1L;
+
+		// When
+		final var result = dao.update(orderId, existing -> existing == null ? buildOrder(orderId) : null);
+
+		// Then
+		assertEquals(buildOrder(orderId), result);
+		assertEquals(buildOrder(orderId), dao.get(orderId).orElseThrow());
+	}
+
+	private TransferOrder buildOrder(final long orderId) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(new BigDecimal("12.34"))
+				.sourceAccount("123")
+				.targetAccount("456")
+				.status(TransferStatus.PLANNED)
+				.build();
+	}
+}
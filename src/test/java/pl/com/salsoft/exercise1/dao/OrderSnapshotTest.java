@@ -0,0 +1,81 @@
+package pl.com.salsoft.exercise1.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class OrderSnapshotTest {
+	private Path directory;
+	private Path file;
+
+	@Before
+	public void beforeTest() throws IOException {
+		directory = Files.createTempDirectory("order-snapshot-test");
+		file = directory.resolve("orders.snapshot");
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		Files.deleteIfExists(file);
+		Files.delete(directory);
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		// Given
+		final List<TransferOrder> orders = List.of(
+				TransferOrder.builder().id(1L).sourceAccount("12345").targetAccount("67890")
+						.amount(new BigDecimal("123.45")).status(TransferStatus.SCHEDULED)
+						.executeAt(Instant.parse("2019-07-01T12:00:00Z")).build(),
+				TransferOrder.builder().id(2L).build());
+		final Set<TransferOrder> read = new HashSet<>();
+
+		// When
+		OrderSnapshot.write(file, orders);
+		final int count = OrderSnapshot.read(file, read::add);
+
+		// Then
+		assertEquals(2, count);
+		assertEquals(Set.copyOf(orders), read);
+	}
+
+	@Test
+	public void testWriteReplacesPreviousSnapshot() throws IOException {
+		// Given
+		OrderSnapshot.write(file, List.of(TransferOrder.builder().id(1L).build(), TransferOrder.builder().id(2L).build()));
+		final Set<TransferOrder> read = new HashSet<>();
+
+		// When
+		OrderSnapshot.write(file, List.of(TransferOrder.builder().id(3L).build()));
+		OrderSnapshot.read(file, read::add);
+
+		// Then
+		assertEquals(Set.of(TransferOrder.builder().id(3L).build()), read);
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadInvalidFile() throws IOException {
+		// Given
+		Files.write(file, new byte[] {1, 2, 3});
+
+		// When
+		OrderSnapshot.read(file, order -> { });
+
+		// Then
+		// Exception thrown
+	}
+}
@@ -0,0 +1,205 @@
+package pl.com.salsoft.exercise1.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class TieredTransferOrderDaoTest {
+	private static final long INTERVAL = 3_600_000L;
+	private static final int SEGMENT_SIZE = 1000;
+
+	private Path directory;
+	private TieredTransferOrderDao dao;
+
+	@Before
+	public void beforeTest() throws IOException {
+		directory = Files.createTempDirectory("tiered-dao-test");
+		dao = new TieredTransferOrderDao(directory, 0L, INTERVAL, SEGMENT_SIZE);
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		dao.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (final Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Test
+	public void testTierOutMovesOnlyTerminalOrders() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.FINISHED));
+		dao.persist(buildOrder(2L, TransferStatus.PROCESSING));
+		dao.persist(buildOrder(3L, TransferStatus.REJECTED));
+
+		// When
+		final int moved = dao.tierOut();
+
+		// Then
+		assertEquals(2, moved);
+		assertEquals(Set.of(buildOrder(2L, TransferStatus.PROCESSING)), dao.getMemoryResident());
+		assertEquals(Optional.of(buildOrder(1L, TransferStatus.FINISHED)), dao.get(1L));
+		assertEquals(Optional.of(buildOrder(3L, TransferStatus.REJECTED)), dao.get(3L));
+		assertTrue(dao.contains(3L));
+	}
+
+	@Test
+	public void testTierOutKeepsYoungOrders() throws IOException {
+		// Given
+		dao.close();
+		dao = new TieredTransferOrderDao(directory, INTERVAL, INTERVAL, SEGMENT_SIZE);
+		dao.persist(buildOrder(1L, TransferStatus.FINISHED));
+
+		// When
+		final int moved = dao.tierOut();
+
+		// Then
+		assertEquals(0, moved);
+		assertEquals(1, dao.getMemoryResident().size());
+	}
+
+	@Test
+	public void testGetAllMergesTiers() {
+		// Given
+		final Set<TransferOrder> orders = LongStream.range(0, 500)
+				.mapToObj(id -> buildOrder(id, id % 3 == 0 ? TransferStatus.PLANNED : TransferStatus.FINISHED))
+				.collect(Collectors.toSet());
+		orders.forEach(dao::persist);
+		dao.tierOut();
+
+		// When
+		final Set<TransferOrder> result = dao.getAll();
+
+		// Then
+		assertEquals(orders.size(), result.size());
+		assertEquals(orders, new HashSet<>(result));
+	}
+
+	@Test
+	public void testGetAllListsTiersAsOfCall() {
+		// Given
+		final TransferOrder order = buildOrder(1L, TransferStatus.FINISHED);
+		dao.persist(order);
+		dao.persist(buildOrder(2L, TransferStatus.FINISHED));
+		dao.tierOut();
+
+		// When
+		final Set<TransferOrder> result = dao.getAll();
+		dao.update(1L, stored -> stored.toBuilder().status(TransferStatus.PROCESSING).build());
+		dao.delete(2L);
+
+		// Then
+		assertEquals(2, result.size());
+		assertEquals(Set.of(order, buildOrder(2L, TransferStatus.FINISHED)), new HashSet<>(result));
+	}
+
+	@Test
+	public void testUpdateBringsOrderBack() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.FINISHED));
+		dao.tierOut();
+
+		// When
+		final TransferOrder updated = dao.update(1L, order -> order.toBuilder().status(TransferStatus.PROCESSING).build());
+
+		// Then
+		assertEquals(Set.of(updated), dao.getMemoryResident());
+		assertEquals(Optional.of(updated), dao.get(1L));
+		assertEquals(Set.of(updated), dao.getAll());
+	}
+
+	@Test
+	public void testDeleteColdOrder() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.FINISHED));
+		dao.persist(buildOrder(2L, TransferStatus.FINISHED));
+		dao.tierOut();
+
+		// When
+		dao.delete(1L);
+
+		// Then
+		assertFalse(dao.contains(1L));
+		assertEquals(Set.of(buildOrder(2L, TransferStatus.FINISHED)), dao.getAll());
+	}
+
+	@Test
+	public void testDeleteIfColdOrder() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.FINISHED));
+		dao.persist(buildOrder(2L, TransferStatus.REJECTED));
+		dao.tierOut();
+
+		// When
+		final boolean deleted = dao.deleteIf(1L, order -> order.getStatus() == TransferStatus.FINISHED);
+		final boolean kept = dao.deleteIf(2L, order -> order.getStatus() == TransferStatus.FINISHED);
+
+		// Then
+		assertTrue(deleted);
+		assertFalse(kept);
+		assertEquals(Set.of(buildOrder(2L, TransferStatus.REJECTED)), dao.getAll());
+	}
+
+	@Test
+	public void testPersistIfAbsentColdOrder() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.FINISHED));
+		dao.tierOut();
+
+		// When
+		final boolean result = dao.persistIfAbsent(buildOrder(1L, TransferStatus.PLANNED));
+
+		// Then
+		assertFalse(result);
+		assertEquals(Optional.of(buildOrder(1L, TransferStatus.FINISHED)), dao.get(1L));
+	}
+
+	@Test
+	public void testSegmentsSurviveReopen() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.FINISHED));
+		dao.persist(buildOrder(2L, TransferStatus.REJECTED));
+		dao.tierOut();
+		dao.delete(2L);
+		dao.close();
+
+		// When
+		dao = new TieredTransferOrderDao(directory, 0L, INTERVAL, SEGMENT_SIZE);
+
+		// Then
+		assertEquals(Set.of(buildOrder(1L, TransferStatus.FINISHED)), dao.getAll());
+		assertFalse(dao.contains(2L));
+		assertEquals(3L, dao.generateId());
+	}
+
+	private TransferOrder buildOrder(final long id, final TransferStatus status) {
+		return TransferOrder.builder()
+				.id(id)
+				.sourceAccount("src" + id % 7)
+				.targetAccount("dst" + id % 11)
+				.amount(BigDecimal.valueOf(id, 2))
+				.status(status)
+				.build();
+	}
+}
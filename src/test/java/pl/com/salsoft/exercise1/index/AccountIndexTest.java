@@ -0,0 +1,156 @@
+package pl.com.salsoft.exercise1.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class AccountIndexTest {
+	private static final int THREADS = 8;
+	private static final int ORDERS = 10_000;
+
+	private AccountIndex index;
+
+	@Before
+	public void beforeTest() {
+		index = new AccountIndex();
+	}
+
+	@Test
+	public void testPrefixSearchInAccountOrder() {
+		// Given
+		index.onPersist(null, buildOrder(1L, "1234", "9999"));
+		index.onPersist(null, buildOrder(2L, "12", "9999"));
+		index.onPersist(null, buildOrder(3L, "9999", "123"));
+		index.onPersist(null, buildOrder(4L, "1300", "9999"));
+
+		// When
+		final List<Long> ids = search("12*");
+
+		// Then
+		assertEquals(List.of(2L, 3L, 1L), ids);
+		assertEquals(5, index.getAccountCount());
+	}
+
+	@Test
+	public void testExactSearch() {
+		// Given
+		index.onPersist(null, buildOrder(1L, "1234", "12"));
+		index.onPersist(null, buildOrder(2L, "123", "5"));
+
+		// When
+		final List<Long> ids = search("123");
+
+		// Then
+		assertEquals(List.of(2L), ids);
+		assertEquals(List.of(), search("1"));
+		assertEquals(List.of(), search("12345"));
+	}
+
+	@Test
+	public void testWildcardInTheMiddle() {
+		// Given
+		index.onPersist(null, buildOrder(1L, "10009", "x"));
+		index.onPersist(null, buildOrder(2L, "10008", "x"));
+		index.onPersist(null, buildOrder(3L, "20009", "x"));
+
+		// When
+		final List<Long> ids = search("1*9");
+
+		// Then
+		assertEquals(List.of(1L), ids);
+	}
+
+	@Test
+	public void testUpdateAndDelete() {
+		// Given
+		final TransferOrder original = buildOrder(1L, "111", "222");
+		final TransferOrder updated = buildOrder(1L, "111", "333");
+		index.onPersist(null, original);
+
+		// When
+		index.onPersist(original, updated);
+		final List<Long> afterUpdate = search("*");
+		index.onDelete(updated);
+
+		// Then
+		assertEquals(List.of(1L, 1L), afterUpdate);
+		assertEquals(List.of(), search("*"));
+		assertEquals(List.of(), search("222"));
+	}
+
+	@Test
+	public void testSearchStopsAtMaxAccounts() {
+		// Given
+		for (long id = 0; id < 10; id++) {
+			index.onPersist(null, buildOrder(id, "acc" + id, null));
+		}
+		final List<Long> ids = new ArrayList<>();
+
+		// When
+		final boolean complete = index.search(AccountPattern.parse("acc*"), 3, ids::add);
+
+		// Then
+		assertFalse(complete);
+		assertEquals(List.of(0L, 1L, 2L), ids);
+		assertTrue(index.search(AccountPattern.parse("acc*"), 10, id -> true));
+	}
+
+	@Test
+	public void testConcurrentInsertAndSearch() throws Exception {
+		// Given
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		final List<Future<?>> futures = new ArrayList<>();
+
+		// When
+		for (int thread = 0; thread < THREADS; thread++) {
+			final int first = thread;
+			futures.add(executor.submit(() -> {
+				for (int id = first; id < ORDERS; id += THREADS) {
+					index.onPersist(null, buildOrder((long) id, Integer.toString(id), null));
+					search("1*");
+				}
+			}));
+		}
+		for (final Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		// Then
+		assertEquals(ORDERS, index.getAccountCount());
+		assertEquals(ORDERS, search("*").size());
+		assertEquals(1111, search("1*").size());
+		for (int id = 0; id < ORDERS; id += 97) {
+			assertEquals(List.of((long) id), search(Integer.toString(id)));
+		}
+	}
+
+	private List<Long> search(final String pattern) {
+		final List<Long> ids = new ArrayList<>();
+		index.search(AccountPattern.parse(pattern), Integer.MAX_VALUE, ids::add);
+		return ids;
+	}
+
+	private TransferOrder buildOrder(final Long id, final String sourceAccount, final String targetAccount) {
+		return TransferOrder.builder()
+				.id(id)
+				.sourceAccount(sourceAccount)
+				.targetAccount(targetAccount)
+				.amount(BigDecimal.ONE)
+				.status(TransferStatus.PLANNED)
+				.build();
+	}
+}
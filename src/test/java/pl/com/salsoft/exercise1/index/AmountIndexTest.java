@@ -0,0 +1,97 @@
+package pl.com.salsoft.exercise1.index;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class AmountIndexTest {
+	private AmountIndex index;
+
+	@Before
+	public void beforeTest() {
+		index = new AmountIndex();
+		index.onPersist(null, buildOrder(1L, "10.00", TransferStatus.PLANNED));
+		index.onPersist(null, buildOrder(2L, "5", TransferStatus.FINISHED));
+		index.onPersist(null, buildOrder(3L, "20.5", TransferStatus.PLANNED));
+		index.onPersist(null, buildOrder(4L, "10", TransferStatus.FINISHED));
+		index.onPersist(null, buildOrder(5L, null, TransferStatus.PLANNED));
+	}
+
+	@Test
+	public void testRange() {
+		// Given
+		// Orders indexed before the test
+
+		// When
+		final List<Long> ids = range(null, "5.00", "10", false);
+
+		// Then
+		assertEquals(List.of(2L, 1L, 4L), ids);
+	}
+
+	@Test
+	public void testLargestWithStatus() {
+		// Given
+		// Orders indexed before the test
+
+		// When
+		final List<Long> ids = range(TransferStatus.PLANNED, null, null, true);
+
+		// Then
+		assertEquals(List.of(3L, 1L), ids);
+	}
+
+	@Test
+	public void testUpdateAndDelete() {
+		// Given
+		final TransferOrder original = buildOrder(1L, "10.00", TransferStatus.PLANNED);
+		final TransferOrder updated = buildOrder(1L, "1", TransferStatus.FINISHED);
+
+		// When
+		index.onPersist(original, updated);
+		index.onDelete(buildOrder(3L, "20.5", TransferStatus.PLANNED));
+
+		// Then
+		assertEquals(List.of(1L, 2L, 4L), range(null, null, null, false));
+		assertEquals(List.of(), range(TransferStatus.PLANNED, null, null, false));
+		assertEquals(List.of(4L, 2L, 1L), range(TransferStatus.FINISHED, null, null, true));
+	}
+
+	@Test
+	public void testVisitorStops() {
+		// Given
+		final List<Long> ids = new ArrayList<>();
+
+		// When
+		index.range(null, null, null, true, id -> ids.add(id) && ids.size() < 2);
+
+		// Then
+		assertEquals(List.of(3L, 4L), ids);
+	}
+
+	private List<Long> range(final TransferStatus status, final String minAmount, final String maxAmount,
+			final boolean descending) {
+		final List<Long> ids = new ArrayList<>();
+		index.range(status, minAmount == null ? null : new BigDecimal(minAmount),
+				maxAmount == null ? null : new BigDecimal(maxAmount), descending, ids::add);
+		return ids;
+	}
+
+	private TransferOrder buildOrder(final Long id, final String amount, final TransferStatus status) {
+		return TransferOrder.builder()
+				.id(id)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.amount(amount == null ? null : new BigDecimal(amount))
+				.status(status)
+				.build();
+	}
+}
@@ -0,0 +1,108 @@
+package pl.com.salsoft.exercise1.index;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class TimeIndexTest {
+	private static final long BUCKET_MILLIS = 1_000L;
+	private static final Instant T0 = Instant.parse("2019-07-01T12:00:00Z");
+
+	private TimeIndex index;
+
+	@Before
+	public void beforeTest() {
+		index = new TimeIndex(BUCKET_MILLIS);
+		index.onPersist(null, buildOrder(1L, 0, 10_000, TransferStatus.FINISHED));
+		index.onPersist(null, buildOrder(2L, 2_000, 2_000, TransferStatus.PLANNED));
+		index.onPersist(null, buildOrder(3L, 5_000, 6_000, TransferStatus.FINISHED));
+		index.onPersist(null, TransferOrder.builder().id(4L).build());
+	}
+
+	@Test
+	public void testCreatedInRange() {
+		// Given
+		// Orders indexed before the test
+
+		// When
+		final List<Long> ids = created(T0.plusMillis(1_500), T0.plusMillis(5_000));
+
+		// Then
+		assertEquals(List.of(2L, 3L), ids);
+	}
+
+	@Test
+	public void testUpdatedWithStatus() {
+		// Given
+		// Orders indexed before the test
+
+		// When
+		final List<Long> ids = updated(TransferStatus.FINISHED, null, T0.plusMillis(9_000));
+
+		// Then
+		assertEquals(List.of(3L), ids);
+	}
+
+	@Test
+	public void testUpdateAndDelete() {
+		// Given
+		final TransferOrder original = buildOrder(2L, 2_000, 2_000, TransferStatus.PLANNED);
+		final TransferOrder updated = buildOrder(2L, 2_000, 7_000, TransferStatus.FINISHED);
+
+		// When
+		index.onPersist(original, updated);
+		index.onDelete(buildOrder(1L, 0, 10_000, TransferStatus.FINISHED));
+
+		// Then
+		assertEquals(List.of(2L, 3L), created(null, null));
+		assertEquals(List.of(), updated(TransferStatus.PLANNED, null, null));
+		assertEquals(List.of(3L, 2L), updated(TransferStatus.FINISHED, null, null));
+	}
+
+	@Test
+	public void testPrune() {
+		// Given
+		index.onDelete(buildOrder(1L, 0, 10_000, TransferStatus.FINISHED));
+		index.onDelete(buildOrder(3L, 5_000, 6_000, TransferStatus.FINISHED));
+
+		// When
+		final int pruned = index.prune();
+
+		// Then
+		// created and updated buckets of both orders, and updated buckets per status
+		assertEquals(6, pruned);
+		assertEquals(List.of(2L), updated(null, null, null));
+	}
+
+	private List<Long> created(final Instant from, final Instant to) {
+		final List<Long> ids = new ArrayList<>();
+		index.created(from, to, ids::add);
+		return ids;
+	}
+
+	private List<Long> updated(final TransferStatus status, final Instant from, final Instant to) {
+		final List<Long> ids = new ArrayList<>();
+		index.updated(status, from, to, ids::add);
+		return ids;
+	}
+
+	private TransferOrder buildOrder(final Long id, final long createdMillis, final long updatedMillis,
+			final TransferStatus status) {
+		return TransferOrder.builder()
+				.id(id)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.status(status)
+				.createdAt(T0.plusMillis(createdMillis))
+				.updatedAt(T0.plusMillis(updatedMillis))
+				.build();
+	}
+}
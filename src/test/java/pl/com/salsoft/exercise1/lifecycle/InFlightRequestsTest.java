@@ -0,0 +1,46 @@
+package pl.com.salsoft.exercise1.lifecycle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+public class InFlightRequestsTest {
+	@Test
+	public void testAwaitsCompletion() throws Exception {
+		// Given
+		final InFlightRequests inFlightRequests = new InFlightRequests();
+		inFlightRequests.onRequestBegin(null);
+		inFlightRequests.onRequestBegin(null);
+
+		// When
+		final var completion = CompletableFuture.runAsync(() -> {
+			inFlightRequests.onComplete(null);
+			inFlightRequests.onComplete(null);
+		});
+		final boolean drained = inFlightRequests.awaitAtMost(0, 10_000L);
+		completion.get();
+
+		// Then
+		assertTrue(drained);
+		assertEquals(0, inFlightRequests.getCount());
+	}
+
+	@Test
+	public void testTimesOut() throws InterruptedException {
+		// Given
+		final InFlightRequests inFlightRequests = new InFlightRequests();
+		inFlightRequests.onRequestBegin(null);
+		inFlightRequests.onRequestBegin(null);
+
+		// When
+		final boolean drained = inFlightRequests.awaitAtMost(1, 50L);
+
+		// Then
+		assertFalse(drained);
+		assertEquals(2, inFlightRequests.getCount());
+	}
+}
@@ -0,0 +1,79 @@
+package pl.com.salsoft.exercise1.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class AccountDictionaryTest {
+	private static final int THREADS = 8;
+	private static final int ACCOUNTS = 10_000;
+
+	@Test
+	public void testNull() {
+		// Given
+		final var dictionary = new AccountDictionary();
+
+		// When
+		final int code = dictionary.encode(null);
+
+		// Then
+		assertEquals(AccountDictionary.NONE, code);
+		assertNull(dictionary.decode(code));
+		assertEquals(0, dictionary.size());
+	}
+
+	@Test
+	public void testEncodeDecode() {
+		// Given
+		final var dictionary = new AccountDictionary();
+
+		// When
+		final int code1 = dictionary.encode("123");
+		final int code2 = dictionary.encode("456");
+		final int code3 = dictionary.encode(new String("123"));
+
+		// Then
+		assertEquals(code1, code3);
+		assertEquals("123", dictionary.decode(code1));
+		assertEquals("456", dictionary.decode(code2));
+		assertEquals(2, dictionary.size());
+	}
+
+	@Test
+	public void testConcurrentEncode() throws Exception {
+		// Given
+		final var dictionary = new AccountDictionary();
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+		// When
+		final List<Future<int[]>> results = new ArrayList<>();
+		for (int thread = 0; thread < THREADS; thread++) {
+			results.add(executor.submit(() -> {
+				final int[] codes = new int[ACCOUNTS];
+				for (int account = 0; account < ACCOUNTS; account++) {
+					codes[account] = dictionary.encode(Integer.toString(account));
+					assertEquals(Integer.toString(account), dictionary.decode(codes[account]));
+				}
+				return codes;
+			}));
+		}
+		executor.shutdown();
+
+		// Then
+		final int[] expected = results.get(0).get();
+		for (final Future<int[]> result : results) {
+			final int[] codes = result.get();
+			for (int account = 0; account < ACCOUNTS; account++) {
+				assertEquals(expected[account], codes[account]);
+			}
+		}
+		assertEquals(ACCOUNTS, dictionary.size());
+	}
+}
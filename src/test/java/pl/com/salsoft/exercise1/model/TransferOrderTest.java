@@ -1,8 +1,12 @@
 package pl.com.salsoft.exercise1.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 import org.junit.Test;
 
@@ -90,6 +94,7 @@ public class TransferOrderTest {
 				.sourceAccount("0")
 				.targetAccount("0")
 				.status(TransferStatus.REJECTED)
+				.executeAt(Instant.parse("2019-07-01T12:00:00Z"))
 				.build();
 
 		final var updateToApply = TransferOrder.builder()
@@ -98,6 +103,7 @@ public class TransferOrderTest {
 				.sourceAccount("0")
 				.targetAccount("0")
 				.status(TransferStatus.REJECTED)
+				.executeAt(Instant.parse("2019-07-01T12:00:00Z"))
 				.build();
 
 		// When
@@ -137,4 +143,93 @@ public class TransferOrderTest {
 		// Then
 		assertEquals(expected, result);
 	}
+
+	@Test
+	public void testAmountKeptExactly() {
+		// Given
+		final var amount = new BigDecimal("123.450");
+
+		// When
+		final var order = TransferOrder.builder().amount(amount).build();
+
+		// Then
+		assertEquals(amount, order.getAmount());
+		assertEquals(3, order.getAmount().scale());
+	}
+
+	@Test
+	public void testAmountScaleMatters() {
+		// Given
+		final var order1 = TransferOrder.builder().amount(new BigDecimal("10")).build();
+
+		// When
+		final var order2 = TransferOrder.builder().amount(new BigDecimal("10.00")).build();
+
+		// Then
+		assertNotEquals(order1, order2);
+	}
+
+	@Test
+	public void testAmountNegativeScale() {
+		// Given
+		final var amount = new BigDecimal("1E+3");
+
+		// When
+		final var order = TransferOrder.builder().amount(amount).build();
+
+		// Then
+		assertEquals(new BigDecimal("1000"), order.getAmount());
+	}
+
+	@Test
+	public void testNullValues() {
+		// Given
+		// Nothing
+
+		// When
+		final var order = TransferOrder.builder().build();
+
+		// Then
+		assertNull(order.getId());
+		assertNull(order.getSourceAccount());
+		assertNull(order.getTargetAccount());
+		assertNull(order.getAmount());
+		assertNull(order.getStatus());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAmountOutOfRange() {
+		// Given
+		final var amount = new BigDecimal("92233720368547758.08");
+
+		// When
+		TransferOrder.builder().amount(amount);
+
+		// Then
+		// Exception thrown
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAmountTooPrecise() {
+		// Given
+		final var amount = BigDecimal.ONE.movePointLeft(TransferOrder.MAX_AMOUNT_SCALE + 1);
+
+		// When
+		new TransferOrder(1L, "123", "234", amount, TransferStatus.PLANNED);
+
+		// Then
+		// Exception thrown
+	}
+
+	@Test
+	public void testAccountsShared() {
+		// Given
+		final var order1 = TransferOrder.builder().sourceAccount(new String("12345")).build();
+
+		// When
+		final var order2 = TransferOrder.builder().targetAccount(new String("12345")).build();
+
+		// Then
+		assertSame(order1.getSourceAccount(), order2.getTargetAccount());
+	}
 }
@@ -0,0 +1,109 @@
+package pl.com.salsoft.exercise1.replication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class ReplicationLogTest {
+	private static final long TIMEOUT_MILLIS = 10_000L;
+
+	@Test
+	public void testConcurrentAppendsReadInOrder() throws Exception {
+		// Given
+		final int threads = 4;
+		final int appends = 5_000;
+		final ReplicationLog log = new ReplicationLog(threads * appends);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<?>> writers = new ArrayList<>();
+
+		// When
+		try {
+			for (int thread = 0; thread < threads; thread++) {
+				final long firstId = (long) thread * appends;
+				writers.add(executor.submit(() -> {
+					for (long id = firstId; id < firstId + appends; id++) {
+						log.onPersist(null, buildOrder(id));
+					}
+				}));
+			}
+			for (final Future<?> writer : writers) {
+				writer.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		final List<MutationRecord> records = log.read(1L, threads * appends, 0L);
+
+		// Then
+		assertEquals(threads * appends, log.getLastSequence());
+		assertEquals(threads * appends, records.size());
+		final Set<Long> ids = new HashSet<>();
+		for (int i = 0; i < records.size(); i++) {
+			assertEquals(i + 1, records.get(i).getSequence());
+			ids.add(records.get(i).getId());
+		}
+		assertEquals(threads * appends, ids.size());
+	}
+
+	@Test
+	public void testReaderWokenUpByAppend() throws Exception {
+		// Given
+		final ReplicationLog log = new ReplicationLog(10);
+		final CompletableFuture<List<MutationRecord>> read = CompletableFuture.supplyAsync(() -> {
+			try {
+				return log.read(1L, 10, TIMEOUT_MILLIS);
+			} catch (final InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(100L);
+
+		// When
+		log.onPersist(null, buildOrder(1L));
+
+		// Then
+		final List<MutationRecord> records = read.get();
+		assertEquals(1, records.size());
+		assertEquals(1L, records.get(0).getId());
+	}
+
+	@Test
+	public void testOverwrittenRecordsNotRead() throws Exception {
+		// Given
+		final ReplicationLog log = new ReplicationLog(3);
+		for (long id = 1; id <= 5; id++) {
+			log.onPersist(null, buildOrder(id));
+		}
+
+		// When
+		final List<MutationRecord> records = log.read(2L, 10, 0L);
+
+		// Then
+		assertNull(records);
+		assertEquals(3, log.read(3L, 10, 0L).size());
+	}
+
+	private TransferOrder buildOrder(final long orderId) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(BigDecimal.TEN)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.status(TransferStatus.PLANNED)
+				.build();
+	}
+}
@@ -0,0 +1,129 @@
+package pl.com.salsoft.exercise1.replication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class ReplicationTest {
+	private static final String LEADER_URL = "http://localhost:8000";
+	private static final long TIMEOUT_MILLIS = 10_000L;
+
+	private static int findFreePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private InMemoryTransferOrderDao leaderDao;
+	private InMemoryTransferOrderDao followerDao;
+	private ReplicationLeader leader;
+	private ReplicationFollower follower;
+
+	@After
+	public void afterTest() {
+		follower.stop();
+		leader.stop();
+	}
+
+	@Before
+	public void beforeTest() {
+		final int port = findFreePort();
+		leaderDao = new InMemoryTransferOrderDao();
+		followerDao = new InMemoryTransferOrderDao();
+		leader = new ReplicationLeader(leaderDao, port, 4, 2);
+		follower = new ReplicationFollower(followerDao, "localhost", port, LEADER_URL);
+	}
+
+	@Test
+	public void testFollowerRedirectsWrites() {
+		// Given
+		// Nothing
+
+		// When
+		final var leaderRedirect = leader.getWriteRedirectUrl();
+		final var followerRedirect = follower.getWriteRedirectUrl();
+
+		// Then
+		assertFalse(leaderRedirect.isPresent());
+		assertEquals(LEADER_URL, followerRedirect.orElseThrow());
+	}
+
+	@Test
+	public void testReplicatesStream() {
+		// Given
+		leader.start();
+		follower.start();
+		awaitCondition(() -> follower.getStatus().getConnected());
+
+		// When
+		leaderDao.persist(buildOrder(1L, TransferStatus.PLANNED));
+		leaderDao.persist(buildOrder(2L, TransferStatus.PLANNED));
+		leaderDao.persist(buildOrder(1L, TransferStatus.FINISHED));
+		leaderDao.delete(2L);
+
+		// Then
+		awaitCondition(() -> follower.getStatus().getSequence() == 4L);
+		assertEquals(leaderDao.getAll(), followerDao.getAll());
+		assertEquals(0L, follower.getStatus().getLagRecords().longValue());
+		awaitCondition(() -> leader.getStatus().getFollowers().get(0).getAcknowledgedSequence() == 4L);
+	}
+
+	@Test
+	public void testReplicatesSnapshot() {
+		// Given
+		// More modifications than the log capacity, so they can be transferred only with a snapshot.
+		for (long id = 0; id < 10; id++) {
+			leaderDao.persist(buildOrder(id, TransferStatus.PLANNED));
+		}
+		leaderDao.delete(0L);
+		followerDao.persist(buildOrder(100L, TransferStatus.REJECTED));
+		leader.start();
+
+		// When
+		follower.start();
+
+		// Then
+		awaitCondition(() -> follower.getStatus().getSequence() == 11L);
+		assertEquals(leaderDao.getAll(), followerDao.getAll());
+		assertTrue(follower.getStatus().getConnected());
+	}
+
+	private void awaitCondition(final BooleanSupplier condition) {
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("Condition not met in time.");
+			}
+			try {
+				Thread.sleep(10L);
+			} catch (final InterruptedException e) {
+				throw new AssertionError(e);
+			}
+		}
+	}
+
+	private TransferOrder buildOrder(final long orderId, final TransferStatus status) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(BigDecimal.TEN)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.status(status)
+				.build();
+	}
+}
@@ -0,0 +1,178 @@
+package pl.com.salsoft.exercise1.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Properties;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+
+import pl.com.salsoft.exercise1.AppConfig;
+import pl.com.salsoft.exercise1.AppModule;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import spark.Spark;
+
+/**
+ * Runs the server with the Jetty engine, but without routes of {@link TransferOrderController} in Spark,
+ * so requests for orders succeed only if they are served by {@link JettyTransferHandler}.
+ */
+public class JettyTransferHandlerTest {
+	private static final String URL_PATTERN = "http://localhost:%d/%s";
+	private static final int FREE_PORT = findFreePort();
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	private static int findFreePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private HttpClient client;
+
+	@After
+	public void afterTest() {
+		Spark.stop();
+		Spark.awaitStop();
+	}
+
+	@Before
+	public void beforeTest() throws IOException {
+		Spark.port(FREE_PORT);
+		client = HttpClient.newHttpClient();
+
+		final Properties properties = new Properties();
+		try (InputStream input = getClass().getClassLoader().getResourceAsStream("config.properties")) {
+			properties.load(input);
+		}
+		properties.setProperty("server.engine", "jetty");
+		final Injector injector = Guice.createInjector(Modules.override(new AppModule(new AppConfig(properties)))
+				.with(binder -> binder.bind(Clock.class).toInstance(Clock.fixed(NOW, ZoneOffset.UTC))));
+		injector.getInstance(AppServerFactory.class).install();
+		injector.getInstance(JettyTransferHandler.class).install();
+		// Any route, so Spark starts the server.
+		injector.getInstance(DebugController.class).initMapping();
+		Spark.awaitInitialization();
+	}
+
+	@Test
+	public void testCrud() throws IOException, InterruptedException {
+		// Given
+		final TransferOrder order = buildOrder(null);
+
+		// When
+		final var created = send("transfer", "POST", toJson(order), null);
+		final var replaced = send("transfer/0", "PUT", toJson(buildOrder(0L).toBuilder().amount(BigDecimal.ONE).build()), null);
+		final var patched = send("transfer/0", "PATCH", "{\"targetAccount\": null}", "application/merge-patch+json");
+		final var found = send("transfer/0", "GET", null, null);
+		final var all = send("transfer", "GET", null, null);
+		final var deleted = send("transfer/0", "DELETE", null, null);
+		final var missing = send("transfer/0", "GET", null, null);
+
+		// Then
+		assertEquals(HttpStatus.CREATED_201, created.statusCode());
+		assertEquals(buildOrder(0L), fromJson(created.body(), TransferOrder.class));
+		assertEquals(HttpStatus.OK_200, replaced.statusCode());
+		assertEquals(HttpStatus.OK_200, patched.statusCode());
+		final TransferOrder expected = buildOrder(0L).toBuilder().amount(BigDecimal.ONE).targetAccount(null).build();
+		assertEquals(HttpStatus.OK_200, found.statusCode());
+		assertEquals(expected, fromJson(found.body(), TransferOrder.class));
+		assertNotNull(found.headers().firstValue("Server-Timing").orElse(null));
+		assertEquals(HttpStatus.OK_200, all.statusCode());
+		assertEquals(List.of(expected), mapper.readValue(all.body(), new TypeReference<List<TransferOrder>>() {}));
+		assertEquals(HttpStatus.NO_CONTENT_204, deleted.statusCode());
+		assertEquals(HttpStatus.NOT_FOUND_404, missing.statusCode());
+	}
+
+	@Test
+	public void testInvalidOrder() throws IOException, InterruptedException {
+		// Given
+		// Nothing
+
+		// When
+		final var response = send("transfer", "POST", "{\"amount\": ", null);
+
+		// Then
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR_500, response.statusCode());
+		assertEquals("", response.body());
+	}
+
+	@Test
+	public void testOtherRequestsPassedToSpark() throws IOException, InterruptedException {
+		// Given
+		// Nothing
+
+		// When
+		final var query = send("transfer?limit=10", "GET", null, null);
+		final var options = send("transfer", "OPTIONS", null, null);
+		final var invalidId = send("transfer/abc", "GET", null, null);
+		final var debug = send("debug/slow", "GET", null, null);
+
+		// Then
+		// No Spark routes for orders.
+		assertEquals(HttpStatus.NOT_FOUND_404, query.statusCode());
+		assertEquals(HttpStatus.NOT_FOUND_404, options.statusCode());
+		assertEquals(HttpStatus.NOT_FOUND_404, invalidId.statusCode());
+		assertEquals(HttpStatus.OK_200, debug.statusCode());
+	}
+
+	private TransferOrder buildOrder(final Long orderId) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(BigDecimal.TEN)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.status(TransferStatus.PENDIG_RECEPTION)
+				.createdAt(NOW)
+				.updatedAt(NOW)
+				.build();
+	}
+
+	private HttpResponse<String> send(final String resource, final String method, final String body,
+			final String contentType) throws IOException, InterruptedException {
+		final HttpRequest request = HttpRequest.newBuilder()
+				.uri(URI.create(String.format(URL_PATTERN, FREE_PORT, resource)))
+				.header("Content-Type", contentType != null ? contentType : "application/json")
+				.method(method, body != null ? BodyPublishers.ofString(body) : BodyPublishers.noBody())
+				.build();
+		return client.send(request, BodyHandlers.ofString());
+	}
+
+	private <T> T fromJson(final String json, final Class<T> cls) throws IOException {
+		return mapper.readValue(json, cls);
+	}
+
+	private String toJson(final Object object) throws IOException {
+		return mapper.writeValueAsString(object);
+	}
+}
@@ -0,0 +1,189 @@
+package pl.com.salsoft.exercise1.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+
+import lombok.NonNull;
+import pl.com.salsoft.exercise1.AppModule;
+import pl.com.salsoft.exercise1.dao.AsyncTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import spark.Spark;
+
+/**
+ * Requests served with a blocking repository, so they complete asynchronously.
+ */
+public class TransferOrderControllerAsyncTest {
+	private static final String URL_PATTERN = "http://localhost:%d/%s";
+	private static final int FREE_PORT = findFreePort();
+	private static final int MAX_THREADS = 16;
+	private static final int PENDING_REQUESTS = 64;
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	private static int findFreePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private HttpClient client;
+	private final AtomicInteger waiting = new AtomicInteger();
+	private volatile CountDownLatch release = new CountDownLatch(0);
+
+	@After
+	public void afterTest() {
+		release.countDown();
+		Spark.stop();
+		Spark.awaitStop();
+		Spark.threadPool(-1);
+	}
+
+	@Before
+	public void beforeTest() {
+		Spark.port(FREE_PORT);
+		Spark.threadPool(MAX_THREADS);
+		client = HttpClient.newBuilder()
+				.version(Version.HTTP_1_1)
+				.build();
+
+		// Memory backend pretending to wait for I/O on reads, until released
+		final TransferOrderDao blockingDao = new InMemoryTransferOrderDao() {
+			@Override
+			public Optional<TransferOrder> get(@NonNull final Long id) {
+				waiting.incrementAndGet();
+				try {
+					release.await();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.get(id);
+			}
+
+			@Override
+			public boolean isBlocking() {
+				return true;
+			}
+		};
+		final Injector injector = Guice.createInjector(Modules.override(new AppModule())
+				.with(binder -> binder.bind(TransferOrderDao.class).toInstance(blockingDao)));
+		injector.getInstance(AppServerFactory.class).install();
+		injector.getInstance(TransferOrderController.class).initMapping();
+		Spark.awaitInitialization();
+	}
+
+	@Test
+	public void testCrud() throws Exception {
+		// Given
+		final String order = mapper.writeValueAsString(buildOrder(null));
+
+		// When
+		final var responsePost = send("POST", "transfer", order);
+		final var responsePut = send("PUT", "transfer/5", order);
+		final var responsePatch = send("PATCH", "transfer/5", "{\"amount\": 20}");
+		// Held in the repository until it waits, so it's surely answered asynchronously.
+		final int waitingBefore = waiting.get();
+		release = new CountDownLatch(1);
+		final var pendingGet = client.sendAsync(request("GET", "transfer/5", null), BodyHandlers.ofString());
+		while (waiting.get() == waitingBefore) {
+			Thread.sleep(10L);
+		}
+		release.countDown();
+		final var responseGet = pendingGet.get(10, TimeUnit.SECONDS);
+		final var responseDelete = send("DELETE", "transfer/0", null);
+		final var responseGetMissing = send("GET", "transfer/0", null);
+
+		// Then
+		assertEquals(HttpStatus.CREATED_201, responsePost.statusCode());
+		assertEquals(HttpStatus.CREATED_201, responsePut.statusCode());
+		assertEquals(HttpStatus.OK_200, responsePatch.statusCode());
+		assertEquals(HttpStatus.OK_200, responseGet.statusCode());
+		assertEquals(0, new BigDecimal(20).compareTo(mapper.readValue(responseGet.body(), TransferOrder.class).getAmount()));
+		assertTrue(responseGet.headers().firstValue("Server-Timing").orElseThrow().contains("wait;dur="));
+		assertEquals(HttpStatus.NO_CONTENT_204, responseDelete.statusCode());
+		assertEquals(HttpStatus.NOT_FOUND_404, responseGetMissing.statusCode());
+	}
+
+	@Test
+	public void testRequestThreadsReleasedWhileWaiting() throws Exception {
+		// Given
+		send("PUT", "transfer/1", mapper.writeValueAsString(buildOrder(null)));
+		release = new CountDownLatch(1);
+		final List<CompletableFuture<HttpResponse<String>>> pending = new ArrayList<>();
+		for (int i = 0; i < PENDING_REQUESTS; i++) {
+			pending.add(client.sendAsync(request("GET", "transfer/1", null), BodyHandlers.ofString()));
+		}
+
+		while (waiting.get() < AsyncTransferOrderDao.DEFAULT_THREADS) {
+			Thread.sleep(10L);
+		}
+
+		// When
+		// Served by a request thread, while all repository threads wait and further requests queue up for them.
+		final var responseWhileWaiting = client.sendAsync(request("HEAD", "transfer", null), BodyHandlers.ofString())
+				.get(10, TimeUnit.SECONDS);
+		release.countDown();
+
+		// Then
+		assertEquals(HttpStatus.OK_200, responseWhileWaiting.statusCode());
+		for (final CompletableFuture<HttpResponse<String>> response : pending) {
+			assertEquals(HttpStatus.OK_200, response.get(10, TimeUnit.SECONDS).statusCode());
+		}
+	}
+
+	private HttpResponse<String> send(final String method, final String resource, final String body)
+			throws IOException, InterruptedException {
+		return client.send(request(method, resource, body), BodyHandlers.ofString());
+	}
+
+	private HttpRequest request(final String method, final String resource, final String body) {
+		return HttpRequest.newBuilder()
+				.uri(URI.create(String.format(URL_PATTERN, FREE_PORT, resource)))
+				.header("Content-Type", "application/json")
+				.method(method, body == null ? BodyPublishers.noBody() : BodyPublishers.ofString(body))
+				.build();
+	}
+
+	private TransferOrder buildOrder(final Long orderId) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(BigDecimal.TEN)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.build();
+	}
+}
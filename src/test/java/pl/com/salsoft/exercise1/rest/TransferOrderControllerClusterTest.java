@@ -0,0 +1,134 @@
+package pl.com.salsoft.exercise1.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.List;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+
+import pl.com.salsoft.exercise1.AppModule;
+import pl.com.salsoft.exercise1.cluster.ClusterMembership;
+import pl.com.salsoft.exercise1.cluster.ClusterNode;
+import pl.com.salsoft.exercise1.cluster.ClusterService;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import spark.Spark;
+
+public class TransferOrderControllerClusterTest {
+	private static final String URL_PATTERN = "http://localhost:%d/%s";
+	private static final int FREE_PORT = findFreePort();
+	private static final int OTHER_PORT = findFreePort();
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	private static int findFreePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	// Other node is never started, requests served locally don't need it.
+	private final ClusterMembership clusterMembership = new ClusterMembership("node1", List.of(
+			new ClusterNode("node1", String.format("http://localhost:%d", FREE_PORT)),
+			new ClusterNode("node2", String.format("http://localhost:%d", OTHER_PORT))), 16);
+	private TransferOrderDao transferOrderDao;
+
+	@After
+	public void afterTest() {
+		Spark.stop();
+		Spark.awaitStop();
+	}
+
+	@Before
+	public void beforeTest() {
+		Spark.port(FREE_PORT);
+		final Injector injector = Guice.createInjector(Modules.override(new AppModule())
+				.with(binder -> binder.bind(ClusterMembership.class).toInstance(clusterMembership)));
+		injector.getInstance(ClusterService.class).init();
+		injector.getInstance(AppServerFactory.class).install();
+		injector.getInstance(TransferOrderController.class).initMapping();
+		transferOrderDao = injector.getInstance(TransferOrderDao.class);
+		Spark.awaitInitialization();
+	}
+
+	@Test
+	public void testBatchCreatedWithOwnIds() throws IOException, InterruptedException {
+		// Given
+		final List<TransferOrder> orders = List.of(buildOrder(null), buildOrder(null), buildOrder(null));
+
+		// When
+		final var response = postBatch(orders);
+
+		// Then
+		assertEquals(HttpStatus.CREATED_201, response.statusCode());
+		final List<TransferOrder> created = mapper.readValue(response.body(), new TypeReference<List<TransferOrder>>() {});
+		assertEquals(orders.size(), created.size());
+		for (final TransferOrder order : created) {
+			assertTrue(clusterMembership.isOwner(order.getId()));
+			assertTrue(transferOrderDao.contains(order.getId()));
+		}
+	}
+
+	@Test
+	public void testBatchWithIdsRejected() throws IOException, InterruptedException {
+		// Given
+		final List<TransferOrder> orders = List.of(buildOrder(null), buildOrder(ownedBy("node2")));
+
+		// When
+		final var response = postBatch(orders);
+
+		// Then
+		assertEquals(HttpStatus.BAD_REQUEST_400, response.statusCode());
+		assertEquals(0, transferOrderDao.getAll().size());
+	}
+
+	private long ownedBy(final String nodeId) {
+		long id = 1L;
+		while (!clusterMembership.remoteOwnerOf(id).map(node -> node.getId().equals(nodeId)).orElse(false)) {
+			id++;
+		}
+		return id;
+	}
+
+	private HttpResponse<String> postBatch(final List<TransferOrder> orders) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder()
+				.uri(URI.create(String.format(URL_PATTERN, FREE_PORT, "transfer/batch")))
+				.header("Content-Type", "application/json")
+				.POST(BodyPublishers.ofString(mapper.writeValueAsString(orders)))
+				.build(), BodyHandlers.ofString());
+	}
+
+	private TransferOrder buildOrder(final Long orderId) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(BigDecimal.TEN)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.build();
+	}
+}
@@ -15,6 +15,9 @@ import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpRequest.Builder;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -31,11 +34,19 @@ import org.junit.Test;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
 
 import pl.com.salsoft.exercise1.AppModule;
 import pl.com.salsoft.exercise1.model.TransferOrder;
 import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.OrderCsv;
+import pl.com.salsoft.exercise1.tenant.TenantRegistry;
+import pl.com.salsoft.exercise1.tenant.TenantSettings;
 import spark.Spark;
 
 public class TransferOrderControllerIntegrationTest {
@@ -43,7 +54,13 @@ public class TransferOrderControllerIntegrationTest {
 	private static final String URL_PATTERN = "http://localhost:%d/%s";
 	private static final String APPLICATION_JSON = "application/json";
 	private static final int FREE_PORT = findFreePort();
-	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+	private static final String TENANT_A = "unit-a";
+	private static final String TENANT_B = "unit-b";
+	private static final String TENANT_HEADER = "X-Tenant";
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
 	private static int findFreePort() {
 		try (ServerSocket socket = new ServerSocket(0)) {
@@ -66,9 +83,18 @@ public class TransferOrderControllerIntegrationTest {
 		Spark.port(FREE_PORT);
 		client = HttpClient.newHttpClient();
 
-		Guice.createInjector(new AppModule())
-				.getInstance(TransferOrderController.class)
-				.initMapping();
+		final Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+		final TenantRegistry tenantRegistry = new TenantRegistry(List.of(TENANT_A, TENANT_B), TenantSettings.builder()
+				.maxOrders(2L)
+				.build(), new JsonService(), clock);
+		final Injector injector = Guice.createInjector(Modules.override(new AppModule())
+				.with(binder -> {
+					binder.bind(Clock.class).toInstance(clock);
+					binder.bind(TenantRegistry.class).toInstance(tenantRegistry);
+				}));
+		injector.getInstance(AppServerFactory.class).install();
+		injector.getInstance(TransferOrderController.class).initMapping();
+		Spark.awaitInitialization();
 	}
 
 	@Test
@@ -179,6 +205,8 @@ public class TransferOrderControllerIntegrationTest {
 				.targetAccount(order1.getTargetAccount())
 				.amount(patchOrder1.getAmount())
 				.status(patchOrder1.getStatus())
+				.createdAt(NOW)
+				.updatedAt(NOW)
 				.build();
 
 		// When
@@ -194,6 +222,29 @@ public class TransferOrderControllerIntegrationTest {
 		assertEquals(toJson(expectedOrder), responseGet.body());
 	}
 
+	@Test
+	public void testCreateAndUpdateWithMergePatch() throws IOException, InterruptedException {
+		// Given
+		final var order = buildOrder1(null);
+		final var patch = "{\"targetAccount\": null, \"status\": \"REJECTED\"}";
+		final var expectedOrder = order.toBuilder()
+				.id(0L)
+				.targetAccount(null)
+				.status(TransferStatus.REJECTED)
+				.build();
+
+		// When
+		post("transfer", toJson(order));
+		final var responsePatch = mergePatch("transfer/0", patch);
+		final var responseGet = get("transfer/0");
+
+		// Then
+		assertEquals(HttpStatus.OK_200, responsePatch.statusCode());
+		assertEquals(toJson(expectedOrder), responsePatch.body());
+		assertEquals(HttpStatus.OK_200, responseGet.statusCode());
+		assertEquals(toJson(expectedOrder), responseGet.body());
+	}
+
 	@Test
 	public void testGetEmpty() throws IOException, InterruptedException {
 		// Given
@@ -208,6 +259,190 @@ public class TransferOrderControllerIntegrationTest {
 		assertEquals(json, response.body());
 	}
 
+	@Test
+	public void testServerTiming() throws IOException, InterruptedException {
+		// Given
+		post("transfer", toJson(buildOrder1(null)));
+
+		// When
+		final var response = put("transfer/0", toJson(buildOrder2(null)));
+
+		// Then
+		assertEquals(HttpStatus.OK_200, response.statusCode());
+		final String timing = response.headers().firstValue("Server-Timing").orElseThrow();
+		for (final String phase : List.of("read", "deserialize", "service", "dao", "serialize", "total")) {
+			assertTrue(timing, Pattern.compile("(^|, )" + phase + ";dur=\\d+\\.\\d{3}(,|$)").matcher(timing).find());
+		}
+	}
+
+	@Test
+	public void testHttp2() throws IOException, InterruptedException {
+		// Given
+		post("transfer", toJson(buildOrder1(null)));
+
+		// When
+		final var response = get("transfer/0");
+
+		// Then
+		assertEquals(HttpStatus.OK_200, response.statusCode());
+		assertEquals(Version.HTTP_2, response.version());
+	}
+
+	@Test
+	public void testSearchByAccount() throws IOException, InterruptedException {
+		// Given
+		post("transfer", toJson(buildOrder1(null)));
+		post("transfer", toJson(buildOrder2(null)));
+		post("transfer", toJson(buildOrder1(null)));
+
+		// When
+		final var response = get("transfer/search?account=12*");
+		final var limitedResponse = get("transfer/search?account=*&limit=1");
+
+		// Then
+		assertEquals(HttpStatus.OK_200, response.statusCode());
+		final Map<String, Object> result = fromJson(response.body(), new TypeReference<Map<String, Object>>() {});
+		final List<TransferOrder> orders = mapper.convertValue(result.get("orders"), new TypeReference<List<TransferOrder>>() {});
+		assertEquals(Set.of(buildOrder1(0L), buildOrder1(2L)), Set.copyOf(orders));
+		assertEquals(2, orders.size());
+		assertEquals(true, result.get("complete"));
+
+		final Map<String, Object> limitedResult = fromJson(limitedResponse.body(), new TypeReference<Map<String, Object>>() {});
+		assertEquals(1, ((List<?>) limitedResult.get("orders")).size());
+		assertEquals(false, limitedResult.get("complete"));
+	}
+
+	@Test
+	public void testGetLargestWithStatus() throws IOException, InterruptedException {
+		// Given
+		post("transfer", toJson(buildOrder1(null)));
+		post("transfer", toJson(buildOrder2(null)));
+		post("transfer", toJson(buildOrder1(null).toBuilder().amount(BigDecimal.valueOf(20)).build()));
+		post("transfer", toJson(buildOrder3(null)));
+
+		// When
+		final var response = get("transfer?status=PENDIG_RECEPTION&minAmount=5&sort=amount:desc&limit=10");
+		final var invalidResponse = get("transfer?sort=name");
+
+		// Then
+		assertEquals(HttpStatus.OK_200, response.statusCode());
+		final List<TransferOrder> orders = fromJson(response.body(), new TypeReference<List<TransferOrder>>() {});
+		assertEquals(List.of(2L, 0L), orders.stream().map(TransferOrder::getId).collect(Collectors.toList()));
+		assertEquals(HttpStatus.BAD_REQUEST_400, invalidResponse.statusCode());
+	}
+
+	@Test
+	public void testFindWithFilterAndFields() throws IOException, InterruptedException {
+		// Given
+		post("transfer", toJson(buildOrder1(null)));
+		post("transfer", toJson(buildOrder2(null)));
+		post("transfer", toJson(buildOrder1(null).toBuilder().amount(BigDecimal.valueOf(20)).build()));
+		post("transfer", toJson(buildOrder3(null)));
+
+		// When
+		final var response = get("transfer?filter=status%20eq%20PENDIG_RECEPTION%20and%20amount%20gt%205&sort=-id&fields=id,status");
+		final var sortedResponse = get("transfer?filter=not%20(amount%20ge%2010)&sort=amount&limit=1");
+		final var invalidResponse = get("transfer?filter=amount%20gt%20ten");
+		final var conflictingResponse = get("transfer?filter=amount%20gt%205&status=FINISHED");
+		final var invalidFieldsResponse = get("transfer?filter=amount%20gt%205&fields=id,name");
+
+		// Then
+		assertEquals(HttpStatus.OK_200, response.statusCode());
+		assertEquals(List.of(Map.of("id", 2, "status", "PENDIG_RECEPTION"), Map.of("id", 0, "status", "PENDIG_RECEPTION")),
+				fromJson(response.body(), new TypeReference<List<Map<String, Object>>>() {}));
+		assertEquals(HttpStatus.OK_200, sortedResponse.statusCode());
+		assertEquals(List.of(buildOrder3(3L)), fromJson(sortedResponse.body(), new TypeReference<List<TransferOrder>>() {}));
+		assertEquals(HttpStatus.BAD_REQUEST_400, invalidResponse.statusCode());
+		assertEquals(HttpStatus.BAD_REQUEST_400, conflictingResponse.statusCode());
+		assertEquals(HttpStatus.BAD_REQUEST_400, invalidFieldsResponse.statusCode());
+	}
+
+	@Test
+	public void testGetAllWithFields() throws IOException, InterruptedException {
+		// Given
+		post("transfer", toJson(buildOrder1(null)));
+		post("transfer", toJson(buildOrder3(null)));
+
+		// When
+		final var response = get("transfer?fields=id,amount");
+		final var rangeResponse = get("transfer?sort=amount:desc&fields=amount");
+
+		// Then
+		assertEquals(HttpStatus.OK_200, response.statusCode());
+		assertEquals(Set.of(Map.of("id", 0, "amount", 10), Map.of("id", 1, "amount", 0)),
+				Set.copyOf(fromJson(response.body(), new TypeReference<List<Map<String, Object>>>() {})));
+		assertEquals(HttpStatus.OK_200, rangeResponse.statusCode());
+		assertEquals(List.of(Map.of("amount", 10), Map.of("amount", 0)),
+				fromJson(rangeResponse.body(), new TypeReference<List<Map<String, Object>>>() {}));
+	}
+
+	@Test
+	public void testGetCreatedInRange() throws IOException, InterruptedException {
+		// Given
+		post("transfer", toJson(buildOrder1(null)));
+		post("transfer", toJson(buildOrder2(null)));
+
+		// When
+		final var response = get(String.format("transfer?createdAfter=%s&status=FINISHED", NOW.minusSeconds(60)));
+		final var emptyResponse = get(String.format("transfer?createdBefore=%s", NOW));
+		final var invalidResponse = get("transfer?createdAfter=yesterday");
+		final var sortedResponse = get(String.format("transfer?updatedBefore=%s&sort=amount:asc", NOW));
+
+		// Then
+		assertEquals(HttpStatus.OK_200, response.statusCode());
+		assertEquals(List.of(buildOrder2(1L)), fromJson(response.body(), new TypeReference<List<TransferOrder>>() {}));
+		assertEquals(HttpStatus.OK_200, emptyResponse.statusCode());
+		assertEquals("[]", emptyResponse.body());
+		assertEquals(HttpStatus.BAD_REQUEST_400, invalidResponse.statusCode());
+		assertEquals(HttpStatus.BAD_REQUEST_400, sortedResponse.statusCode());
+	}
+
+	@Test
+	public void testExportAndImport() throws IOException, InterruptedException {
+		// Given
+		post("transfer", toJson(buildOrder1(null)));
+		post("transfer", toJson(buildOrder2(null)));
+		final String csv = OrderCsv.HEADER + "\n" + OrderCsv.format(buildOrder3(7L)) + "\n";
+
+		// When
+		final var ndjsonResponse = get("transfer/export");
+		final var csvResponse = get("transfer/export?format=csv");
+		final var invalidFormat = get("transfer/export?format=xml");
+		final var importResponse = send(builder -> builder.setHeader("Content-Type", "text/csv")
+				.POST(BodyPublishers.ofString(csv)), "transfer/import");
+		final var invalidImport = send(builder -> builder.setHeader("Content-Type", "text/csv")
+				.POST(BodyPublishers.ofString("1,2\n")), "transfer/import");
+		final var unsupportedImport = send(builder -> builder.setHeader("Content-Type", "text/plain")
+				.POST(BodyPublishers.ofString(csv)), "transfer/import");
+		final var responseGet = get("transfer/7");
+
+		// Then
+		assertEquals(HttpStatus.OK_200, ndjsonResponse.statusCode());
+		assertEquals("application/x-ndjson", ndjsonResponse.headers().firstValue("Content-Type").orElseThrow());
+		assertEquals(toJson(buildOrder1(0L)) + "\n" + toJson(buildOrder2(1L)) + "\n", ndjsonResponse.body());
+		assertEquals(HttpStatus.OK_200, csvResponse.statusCode());
+		assertEquals(3, csvResponse.body().lines().count());
+		assertEquals(HttpStatus.BAD_REQUEST_400, invalidFormat.statusCode());
+		assertEquals(HttpStatus.OK_200, importResponse.statusCode());
+		assertEquals("{\"imported\":1}", importResponse.body());
+		assertEquals(HttpStatus.BAD_REQUEST_400, invalidImport.statusCode());
+		assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE_415, unsupportedImport.statusCode());
+		assertEquals(buildOrder3(7L), fromJson(responseGet.body(), TransferOrder.class));
+	}
+
+	@Test
+	public void testSearchInvalidParameters() throws IOException, InterruptedException {
+		// Given
+
+		// When
+		final var missingAccount = get("transfer/search");
+		final var invalidLimit = get("transfer/search?account=1*&limit=0");
+
+		// Then
+		assertEquals(HttpStatus.BAD_REQUEST_400, missingAccount.statusCode());
+		assertEquals(HttpStatus.BAD_REQUEST_400, invalidLimit.statusCode());
+	}
+
 	@Test
 	public void testHead() throws IOException, InterruptedException {
 		// Given
@@ -242,6 +477,69 @@ public class TransferOrderControllerIntegrationTest {
 		assertEquals(expectedActions, responseActions);
 	}
 
+	@Test
+	public void testTenantsIsolated() throws IOException, InterruptedException {
+		// Given
+		final var order = toJson(buildOrder1(null));
+
+		// When
+		final var responsePostA = send(builder -> builder.header(TENANT_HEADER, TENANT_A)
+				.POST(BodyPublishers.ofString(order)), "transfer");
+		final var responsePostB = post("tenants/" + TENANT_B + "/transfer", order);
+		final var responseGetA = get("tenants/" + TENANT_A + "/transfer/0");
+		final var responseGetDefault = get("transfer/0");
+		final var responseGetAllB = send(builder -> builder.header(TENANT_HEADER, TENANT_B).GET(), "transfer");
+
+		// Then
+		assertEquals(HttpStatus.CREATED_201, responsePostA.statusCode());
+		assertEquals(toJson(buildOrder1(0L)), responsePostA.body());
+		assertEquals(HttpStatus.CREATED_201, responsePostB.statusCode());
+		assertEquals(toJson(buildOrder1(0L)), responsePostB.body());
+		assertEquals(HttpStatus.OK_200, responseGetA.statusCode());
+		assertEquals(HttpStatus.NOT_FOUND_404, responseGetDefault.statusCode());
+		assertEquals(List.of(buildOrder1(0L)), fromJson(responseGetAllB.body(), new TypeReference<List<TransferOrder>>() { }));
+	}
+
+	@Test
+	public void testTenantOrderQuota() throws IOException, InterruptedException {
+		// Given
+		final String resource = "tenants/" + TENANT_A + "/transfer";
+		post(resource, toJson(buildOrder1(null)));
+		post(resource, toJson(buildOrder1(null)));
+
+		// When
+		final var responsePost = post(resource, toJson(buildOrder1(null)));
+		final var responsePutNew = put(resource + "/7", toJson(buildOrder1(null)));
+		final var responsePutExisting = put(resource + "/1", toJson(buildOrder2(null)));
+
+		// Then
+		assertEquals(HttpStatus.INSUFFICIENT_STORAGE_507, responsePost.statusCode());
+		assertEquals(HttpStatus.INSUFFICIENT_STORAGE_507, responsePutNew.statusCode());
+		assertEquals(HttpStatus.OK_200, responsePutExisting.statusCode());
+	}
+
+	@Test
+	public void testTenantUnknown() throws IOException, InterruptedException {
+		// When
+		final var responsePath = get("tenants/unit-c/transfer");
+		final var responseHeader = send(builder -> builder.header(TENANT_HEADER, "unit-c").GET(), "transfer/0");
+
+		// Then
+		assertEquals(HttpStatus.NOT_FOUND_404, responsePath.statusCode());
+		assertEquals(HttpStatus.NOT_FOUND_404, responseHeader.statusCode());
+	}
+
+	@Test
+	public void testTenantSearchNotImplemented() throws IOException, InterruptedException {
+		// When
+		final var responseSearch = send(builder -> builder.header(TENANT_HEADER, TENANT_A).GET(), "transfer/search?account=123");
+		final var responseRange = send(builder -> builder.header(TENANT_HEADER, TENANT_A).GET(), "transfer?minAmount=1");
+
+		// Then
+		assertEquals(HttpStatus.NOT_IMPLEMENTED_501, responseSearch.statusCode());
+		assertEquals(HttpStatus.NOT_IMPLEMENTED_501, responseRange.statusCode());
+	}
+
 	private TransferOrder buildOrder1(final Long orderId) {
 		return TransferOrder.builder()
 				.id(orderId)
@@ -249,6 +547,8 @@ public class TransferOrderControllerIntegrationTest {
 				.sourceAccount("123")
 				.targetAccount("456")
 				.status(TransferStatus.PENDIG_RECEPTION)
+				.createdAt(NOW)
+				.updatedAt(NOW)
 				.build();
 	}
 
@@ -259,6 +559,8 @@ public class TransferOrderControllerIntegrationTest {
 				.sourceAccount("000")
 				.targetAccount("111")
 				.status(TransferStatus.FINISHED)
+				.createdAt(NOW)
+				.updatedAt(NOW)
 				.build();
 	}
 
@@ -267,6 +569,8 @@ public class TransferOrderControllerIntegrationTest {
 				.id(orderId)
 				.amount(BigDecimal.ZERO)
 				.status(TransferStatus.REJECTED)
+				.createdAt(NOW)
+				.updatedAt(NOW)
 				.build();
 	}
 
@@ -294,6 +598,11 @@ public class TransferOrderControllerIntegrationTest {
 		return send(builder -> builder.method("OPTIONS", BodyPublishers.noBody()), resource);
 	}
 
+	private HttpResponse<String> mergePatch(final String resource, final String body) throws IOException, InterruptedException {
+		return send(builder -> builder.setHeader("Content-Type", "application/merge-patch+json")
+				.method("PATCH", BodyPublishers.ofString(body)), resource);
+	}
+
 	private HttpResponse<String> patch(final String resource, final String body) throws IOException, InterruptedException {
 		return send(builder -> builder.method("PATCH", BodyPublishers.ofString(body)), resource);
 	}
@@ -0,0 +1,144 @@
+package pl.com.salsoft.exercise1.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.List;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import pl.com.salsoft.exercise1.AppModule;
+import pl.com.salsoft.exercise1.concurrency.ConcurrentWorkload;
+import pl.com.salsoft.exercise1.concurrency.ContentionStats;
+import pl.com.salsoft.exercise1.concurrency.LinearizabilityChecker;
+import pl.com.salsoft.exercise1.concurrency.Operation;
+import pl.com.salsoft.exercise1.concurrency.OrderClient;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.service.SavedOrder;
+import spark.Spark;
+
+public class TransferOrderControllerLinearizabilityTest {
+	private static final Logger log = LoggerFactory.getLogger(TransferOrderControllerLinearizabilityTest.class);
+	private static final String URL_PATTERN = "http://localhost:%d/transfer%s";
+	private static final int FREE_PORT = findFreePort();
+	private static final int THREADS = 8;
+	private static final int OPERATIONS_PER_THREAD = 250;
+	private static final int KEYS = 8;
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	private static int findFreePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private HttpClient client;
+
+	@After
+	public void afterTest() {
+		Spark.stop();
+		Spark.awaitStop();
+	}
+
+	@Before
+	public void beforeTest() {
+		Spark.port(FREE_PORT);
+		client = HttpClient.newHttpClient();
+
+		final Injector injector = Guice.createInjector(new AppModule());
+		injector.getInstance(AppServerFactory.class).install();
+		injector.getInstance(TransferOrderController.class).initMapping();
+		Spark.awaitInitialization();
+	}
+
+	@Test
+	public void testConcurrentCrud() throws Exception {
+		// Given
+		final ConcurrentWorkload workload = new ConcurrentWorkload(THREADS, OPERATIONS_PER_THREAD, KEYS, 4L);
+
+		// When
+		final List<Operation> history = workload.run(new RestClient());
+
+		// Then
+		log.info("REST: {}", new ContentionStats(history));
+		assertEquals(List.of(), LinearizabilityChecker.check(history));
+	}
+
+	private final class RestClient implements OrderClient {
+		@Override
+		public TransferOrder create(final TransferOrder order) throws Exception {
+			return read(send("", "POST", order, HttpStatus.CREATED_201));
+		}
+
+		@Override
+		public TransferOrder get(final long id) throws Exception {
+			final HttpResponse<String> response = send("/" + id, "GET", null, HttpStatus.OK_200, HttpStatus.NOT_FOUND_404);
+			return response.statusCode() == HttpStatus.OK_200 ? read(response) : null;
+		}
+
+		@Override
+		public SavedOrder put(final long id, final TransferOrder order) throws Exception {
+			return saved(send("/" + id, "PUT", order, HttpStatus.OK_200, HttpStatus.CREATED_201));
+		}
+
+		@Override
+		public SavedOrder patch(final long id, final TransferOrder order) throws Exception {
+			return saved(send("/" + id, "PATCH", order, HttpStatus.OK_200, HttpStatus.CREATED_201));
+		}
+
+		@Override
+		public boolean delete(final long id) throws Exception {
+			return send("/" + id, "DELETE", null, HttpStatus.NO_CONTENT_204, HttpStatus.NOT_FOUND_404)
+					.statusCode() == HttpStatus.NO_CONTENT_204;
+		}
+
+		private HttpResponse<String> send(final String path, final String method, final TransferOrder order,
+				final int... expectedStatuses) throws Exception {
+			final HttpRequest request = HttpRequest.newBuilder()
+					.uri(URI.create(String.format(URL_PATTERN, FREE_PORT, path)))
+					.header("Content-Type", "application/json")
+					.method(method, order == null
+							? BodyPublishers.noBody()
+							: BodyPublishers.ofString(mapper.writeValueAsString(order)))
+					.build();
+			final HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+			for (final int status : expectedStatuses) {
+				if (response.statusCode() == status) {
+					return response;
+				}
+			}
+			throw new IllegalStateException(String.format("%s %s responded with %d: %s", method, path,
+					response.statusCode(), response.body()));
+		}
+
+		private TransferOrder read(final HttpResponse<String> response) throws IOException {
+			return mapper.readValue(response.body(), TransferOrder.class);
+		}
+
+		private SavedOrder saved(final HttpResponse<String> response) throws IOException {
+			return new SavedOrder(read(response), response.statusCode() == HttpStatus.CREATED_201);
+		}
+	}
+}
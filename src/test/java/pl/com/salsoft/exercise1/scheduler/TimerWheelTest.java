@@ -0,0 +1,155 @@
+package pl.com.salsoft.exercise1.scheduler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TimerWheelTest {
+	private static final long TICK = 100L;
+	private static final long T0 = 1_561_982_400_000L;
+
+	@Test
+	public void testExpireInDeadlineOrder() {
+		// Given
+		final TimerWheel wheel = new TimerWheel(TICK, T0);
+		wheel.add(3L, T0 + 30_000);
+		wheel.add(1L, T0 + 250);
+		wheel.add(2L, T0 + 1_000);
+		final List<Long> expired = new ArrayList<>();
+
+		// When
+		final int early = wheel.advance(T0 + 300, expired::add);
+		final int late = wheel.advance(T0 + 30_000, expired::add);
+
+		// Then
+		assertEquals(1, early);
+		assertEquals(2, late);
+		assertEquals(List.of(1L, 2L, 3L), expired);
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void testNotExpiredBeforeDeadline() {
+		// Given
+		final TimerWheel wheel = new TimerWheel(TICK, T0);
+		wheel.add(1L, T0 + 1_000);
+		final List<Long> expired = new ArrayList<>();
+
+		// When
+		wheel.advance(T0 + 899, expired::add);
+
+		// Then
+		assertEquals(List.of(), expired);
+		assertEquals(1, wheel.size());
+	}
+
+	@Test
+	public void testDeadlineRoundedUpToTick() {
+		// Given
+		final TimerWheel wheel = new TimerWheel(TICK, T0);
+		wheel.add(1L, T0 + 150);
+		final List<Long> expired = new ArrayList<>();
+
+		// When
+		wheel.advance(T0 + 199, expired::add);
+		final List<Long> beforeTick = List.copyOf(expired);
+		wheel.advance(T0 + 200, expired::add);
+
+		// Then
+		assertEquals(List.of(), beforeTick);
+		assertEquals(List.of(1L), expired);
+	}
+
+	@Test
+	public void testPastDeadlineExpiresAtNextAdvance() {
+		// Given
+		final TimerWheel wheel = new TimerWheel(TICK, T0);
+		wheel.advance(T0 + 10_000, id -> { });
+		wheel.add(1L, T0);
+		wheel.add(2L, Long.MIN_VALUE);
+		final List<Long> expired = new ArrayList<>();
+
+		// When
+		wheel.advance(T0 + 10_000, expired::add);
+
+		// Then
+		assertEquals(List.of(1L, 2L), expired);
+	}
+
+	@Test
+	public void testFarDeadlinesCascadeThroughLevels() {
+		// Given
+		// Deadlines from a tick to about a year ahead land at several levels of the wheel.
+		final TimerWheel wheel = new TimerWheel(TICK, T0);
+		final List<Long> deadlines = new ArrayList<>();
+		for (long delay = TICK; delay < 400L * 24 * 3_600_000; delay = delay * 3 + 7) {
+			deadlines.add(T0 + delay);
+			wheel.add(deadlines.size(), T0 + delay);
+		}
+		final List<Long> expired = new ArrayList<>();
+
+		// When
+		// Every deadline is just missed once before it's reached.
+		for (final long deadline : deadlines) {
+			wheel.advance(deadline - TICK - 1, id -> expired.add(-id));
+			wheel.advance(deadline + TICK - 1, expired::add);
+		}
+
+		// Then
+		final List<Long> expected = new ArrayList<>();
+		for (long id = 1; id <= deadlines.size(); id++) {
+			expected.add(id);
+		}
+		assertEquals(expected, expired);
+	}
+
+	@Test
+	public void testRandomDeadlinesExpireOnTime() {
+		// Given
+		// Span of over 65536 ticks, so slots of the two lowest levels cascade many times.
+		final long span = 10_000_000L;
+		final Random random = new Random(43L);
+		final long[] deadlines = new long[100_000];
+		final TimerWheel wheel = new TimerWheel(TICK, T0);
+		for (int id = 0; id < deadlines.length; id++) {
+			deadlines[id] = T0 + (long) (random.nextDouble() * span);
+			wheel.add(id, deadlines[id]);
+		}
+		final List<Long> notOnTime = new ArrayList<>();
+
+		// When
+		// Every entry should expire within a tick after its deadline.
+		for (long now = T0; now <= T0 + span + TICK; now += TICK) {
+			final long time = now;
+			wheel.advance(time, id -> {
+				if (deadlines[(int) id] > time || deadlines[(int) id] <= time - TICK) {
+					notOnTime.add(id);
+				}
+			});
+		}
+
+		// Then
+		assertEquals(List.of(), notOnTime);
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void testManyTimersAtOneTick() {
+		// Given
+		final TimerWheel wheel = new TimerWheel(TICK, T0);
+		for (long id = 0; id < 10_000; id++) {
+			wheel.add(id, T0 + 5_000);
+		}
+
+		// When
+		final int expired = wheel.advance(T0 + 5_000, id -> { });
+
+		// Then
+		assertEquals(10_000, expired);
+		assertEquals(0, wheel.size());
+	}
+}
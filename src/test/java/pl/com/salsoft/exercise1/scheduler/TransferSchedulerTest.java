@@ -0,0 +1,173 @@
+package pl.com.salsoft.exercise1.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class TransferSchedulerTest {
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+	private static final long TICK = 100L;
+
+	private InMemoryTransferOrderDao dao;
+	private MutableClock clock;
+	private TransferScheduler scheduler;
+
+	@Before
+	public void beforeTest() {
+		dao = new InMemoryTransferOrderDao();
+		clock = new MutableClock(NOW);
+		scheduler = new TransferScheduler(dao, clock, TICK, 2, true);
+		dao.addMutationListener(scheduler);
+	}
+
+	@Test
+	public void testPromoteDueOrders() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.SCHEDULED, NOW.plusSeconds(10)));
+		dao.persist(buildOrder(2L, TransferStatus.SCHEDULED, NOW.plusSeconds(20)));
+		dao.persist(buildOrder(3L, TransferStatus.PLANNED, NOW.plusSeconds(10)));
+
+		// When
+		final int early = scheduler.promoteDue();
+		clock.set(NOW.plusSeconds(10));
+		final int due = scheduler.promoteDue();
+
+		// Then
+		assertEquals(0, early);
+		assertEquals(1, due);
+		assertEquals(TransferStatus.PLANNED, dao.get(1L).orElseThrow().getStatus());
+		assertEquals(NOW.plusSeconds(10), dao.get(1L).orElseThrow().getUpdatedAt());
+		assertEquals(TransferStatus.SCHEDULED, dao.get(2L).orElseThrow().getStatus());
+	}
+
+	@Test
+	public void testPromoteInBatches() {
+		// Given
+		for (long id = 1; id <= 5; id++) {
+			dao.persist(buildOrder(id, TransferStatus.SCHEDULED, NOW.plusSeconds(1)));
+		}
+		clock.set(NOW.plusSeconds(1));
+
+		// When
+		final int promoted = scheduler.promoteDue();
+
+		// Then
+		assertEquals(5, promoted);
+		assertEquals(0, scheduler.getTracked());
+	}
+
+	@Test
+	public void testDeletedOrderNotRecreated() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.SCHEDULED, NOW.plusSeconds(1)));
+		dao.delete(1L);
+		clock.set(NOW.plusSeconds(1));
+
+		// When
+		final int promoted = scheduler.promoteDue();
+
+		// Then
+		assertEquals(0, promoted);
+		assertFalse(dao.contains(1L));
+	}
+
+	@Test
+	public void testRescheduledOrderPromotedAtNewTime() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.SCHEDULED, NOW.plusSeconds(1)));
+		dao.persist(buildOrder(1L, TransferStatus.SCHEDULED, NOW.plusSeconds(5)));
+
+		// When
+		clock.set(NOW.plusSeconds(1));
+		final int early = scheduler.promoteDue();
+		clock.set(NOW.plusSeconds(5));
+		final int due = scheduler.promoteDue();
+
+		// Then
+		assertEquals(0, early);
+		assertEquals(1, due);
+		assertEquals(TransferStatus.PLANNED, dao.get(1L).orElseThrow().getStatus());
+	}
+
+	@Test
+	public void testScheduleStoredOrders() {
+		// Given
+		// Orders stored before the scheduler started, one of them due while it wasn't running.
+		final InMemoryTransferOrderDao restoredDao = new InMemoryTransferOrderDao();
+		restoredDao.persist(buildOrder(1L, TransferStatus.SCHEDULED, NOW.minusSeconds(60)));
+		restoredDao.persist(buildOrder(2L, TransferStatus.SCHEDULED, NOW.plusSeconds(60)));
+		final TransferScheduler restoredScheduler = new TransferScheduler(restoredDao, clock, TICK, 2, true);
+
+		// When
+		restoredDao.getAll().forEach(restoredScheduler::schedule);
+		final int promoted = restoredScheduler.promoteDue();
+
+		// Then
+		assertEquals(1, promoted);
+		assertEquals(TransferStatus.PLANNED, restoredDao.get(1L).orElseThrow().getStatus());
+		assertEquals(TransferStatus.SCHEDULED, restoredDao.get(2L).orElseThrow().getStatus());
+	}
+
+	@Test
+	public void testDisabled() {
+		// Given
+		final TransferScheduler disabledScheduler = new TransferScheduler(dao, clock, TICK, 2, false);
+		dao.addMutationListener(disabledScheduler);
+		dao.persist(buildOrder(1L, TransferStatus.SCHEDULED, NOW));
+
+		// When
+		final int promoted = disabledScheduler.promoteDue();
+
+		// Then
+		assertEquals(0, promoted);
+		assertEquals(0, disabledScheduler.getTracked());
+	}
+
+	private TransferOrder buildOrder(final long id, final TransferStatus status, final Instant executeAt) {
+		return TransferOrder.builder()
+				.id(id)
+				.status(status)
+				.executeAt(executeAt)
+				.createdAt(NOW)
+				.updatedAt(NOW)
+				.build();
+	}
+
+	private static final class MutableClock extends Clock {
+		private volatile Instant instant;
+
+		private MutableClock(final Instant instant) {
+			this.instant = instant;
+		}
+
+		private void set(final Instant instant) {
+			this.instant = instant;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(final ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
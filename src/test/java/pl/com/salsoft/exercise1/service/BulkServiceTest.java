@@ -0,0 +1,143 @@
+package pl.com.salsoft.exercise1.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class BulkServiceTest {
+	private InMemoryTransferOrderDao dao;
+	private BulkService bulkService;
+	private Path file;
+
+	@Before
+	public void beforeTest() throws IOException {
+		dao = new InMemoryTransferOrderDao();
+		bulkService = new BulkService(dao, new JsonService(), 4);
+		file = Files.createTempFile("orders", ".csv");
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testExportImportNdjson() throws IOException {
+		testExportImport(BulkFormat.NDJSON);
+	}
+
+	@Test
+	public void testExportImportCsv() throws IOException {
+		testExportImport(BulkFormat.CSV);
+	}
+
+	@Test
+	public void testImportFileMultipleChunks() throws IOException {
+		// Given
+		final int count = 60_000;
+		try (Writer writer = Files.newBufferedWriter(file)) {
+			writer.write(OrderCsv.HEADER + "\r\n");
+			for (long id = 1; id <= count; id++) {
+				writer.write(OrderCsv.format(buildOrder(id)) + "\r\n");
+			}
+		}
+		assertTrue(Files.size(file) > 4 << 20);
+
+		// When
+		final long result = bulkService.importFile(file, BulkFormat.CSV);
+
+		// Then
+		assertEquals(count, result);
+		assertEquals(count, dao.getAll().size());
+		assertEquals(buildOrder(count), dao.get((long) count).orElseThrow());
+		assertEquals(count + 1, dao.generateId());
+	}
+
+	@Test
+	public void testImportFileEmpty() throws IOException {
+		// When
+		final long result = bulkService.importFile(file, BulkFormat.CSV);
+
+		// Then
+		assertEquals(0, result);
+	}
+
+	@Test(expected = BulkService.InvalidLineException.class)
+	public void testImportFileInvalidLine() throws IOException {
+		// Given
+		Files.writeString(file, OrderCsv.format(buildOrder(1L)) + "\n1,2,3\n");
+
+		// When
+		bulkService.importFile(file, BulkFormat.CSV);
+	}
+
+	@Test
+	public void testImportStreamInvalidLine() throws IOException {
+		// Given
+		final String input = "{\"id\":1}\n\n{\"sourceAccount\":\"123\"}\n";
+
+		// When
+		try {
+			bulkService.importStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+					BulkFormat.NDJSON);
+		} catch (final BulkService.InvalidLineException e) {
+			// Then
+			assertEquals("Invalid order at line 3: Order has no ID", e.getMessage());
+			return;
+		}
+		throw new AssertionError("Invalid line not detected");
+	}
+
+	private void testExportImport(final BulkFormat format) throws IOException {
+		// Given
+		final List<TransferOrder> orders = List.of(buildOrder(1L), buildOrder(5L), buildOrder(9L));
+		orders.forEach(dao::persist);
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final long exported = bulkService.export(output, format);
+		final InMemoryTransferOrderDao otherDao = new InMemoryTransferOrderDao();
+		final BulkService otherBulkService = new BulkService(otherDao, new JsonService(), 4);
+
+		// When
+		final long imported = otherBulkService.importStream(new ByteArrayInputStream(output.toByteArray()), format);
+
+		// Then
+		assertEquals(3, exported);
+		assertEquals(3, imported);
+		assertEquals(orders, otherDao.getAll().stream()
+				.sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+				.collect(Collectors.toList()));
+		assertEquals(orders.get(2).getCreatedAt(), otherDao.get(9L).orElseThrow().getCreatedAt());
+		assertEquals(10L, otherDao.generateId());
+	}
+
+	private TransferOrder buildOrder(final long id) {
+		return TransferOrder.builder()
+				.id(id)
+				.sourceAccount("PL" + id)
+				.targetAccount("DE,\"" + id + "\"")
+				.amount(new BigDecimal("100.25").add(BigDecimal.valueOf(id)))
+				.status(TransferStatus.values()[(int) (id % TransferStatus.values().length)])
+				.createdAt(Instant.parse("2019-07-01T12:00:00Z").plusSeconds(id))
+				.updatedAt(Instant.parse("2019-07-01T13:00:00Z").plusSeconds(id))
+				.build();
+	}
+}
@@ -0,0 +1,100 @@
+package pl.com.salsoft.exercise1.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class OrderCsvTest {
+	@Test
+	public void testFormat() {
+		// Given
+		final TransferOrder order = TransferOrder.builder()
+				.id(3L)
+				.sourceAccount("123")
+				.targetAccount("a,\"b\"")
+				.amount(new BigDecimal("1E+3"))
+				.status(TransferStatus.FINISHED)
+				.createdAt(Instant.parse("2019-07-01T12:00:00Z"))
+				.build();
+
+		// When
+		final String result = OrderCsv.format(order);
+
+		// Then
+		assertEquals("3,123,\"a,\"\"b\"\"\",1000,FINISHED,2019-07-01T12:00:00Z,,", result);
+	}
+
+	@Test
+	public void testParseFormatted() {
+		// Given
+		final TransferOrder order = TransferOrder.builder()
+				.id(3L)
+				.sourceAccount("")
+				.targetAccount("a,\"b\"")
+				.amount(new BigDecimal("12.50"))
+				.status(TransferStatus.PROCESSING)
+				.createdAt(Instant.parse("2019-07-01T12:00:00Z"))
+				.updatedAt(Instant.parse("2019-07-01T12:00:01.5Z"))
+				.executeAt(Instant.parse("2019-07-02T08:00:00Z"))
+				.build();
+
+		// When
+		final TransferOrder result = OrderCsv.parse(OrderCsv.format(order));
+
+		// Then
+		assertEquals(order, result);
+		assertEquals(order.getCreatedAt(), result.getCreatedAt());
+		assertEquals(order.getUpdatedAt(), result.getUpdatedAt());
+	}
+
+	@Test
+	public void testParseFormattedLineBreaks() {
+		// Given
+		final TransferOrder order = TransferOrder.builder()
+				.id(4L)
+				.sourceAccount("12\n3")
+				.targetAccount("45\r\n6")
+				.build();
+
+		// When
+		final String line = OrderCsv.format(order);
+		final TransferOrder result = OrderCsv.parse(line);
+
+		// Then
+		assertEquals("4,\"12\n3\",\"45\r\n6\",,,,,", line);
+		assertEquals(order, result);
+	}
+
+	@Test
+	public void testParseMissingValues() {
+		// When
+		final TransferOrder result = OrderCsv.parse("5,,,,,,");
+
+		// Then
+		assertEquals(TransferOrder.builder().id(5L).build(), result);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseWrongFieldCount() {
+		// When
+		OrderCsv.parse("5,123,456");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseInvalidValue() {
+		// When
+		OrderCsv.parse("5,123,456,abc,,,");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseUnterminatedQuote() {
+		// When
+		OrderCsv.parse("5,\"123,456,,,,");
+	}
+}
@@ -0,0 +1,128 @@
+package pl.com.salsoft.exercise1.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class OrderFilterTest {
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+
+	@Test
+	public void testConditions() {
+		// Given
+		final List<TransferOrder> orders = List.of(
+				buildOrder(1L, "100.00", TransferStatus.PLANNED),
+				buildOrder(2L, "5000", TransferStatus.PLANNED),
+				buildOrder(3L, "5000", TransferStatus.FINISHED),
+				buildOrder(4L, null, TransferStatus.PLANNED));
+
+		// When
+		final List<Long> result = filter(orders, "status eq PLANNED and amount gt 1000");
+		final List<Long> equalResult = filter(orders, "amount eq 100");
+		final List<Long> notEqualResult = filter(orders, "amount ne 100");
+		final List<Long> nullResult = filter(orders, "amount eq null");
+
+		// Then
+		assertEquals(List.of(2L), result);
+		assertEquals(List.of(1L), equalResult);
+		assertEquals(List.of(2L, 3L, 4L), notEqualResult);
+		assertEquals(List.of(4L), nullResult);
+	}
+
+	@Test
+	public void testPrecedence() {
+		// Given
+		final List<TransferOrder> orders = List.of(
+				buildOrder(1L, "10", TransferStatus.PLANNED),
+				buildOrder(2L, "20", TransferStatus.FINISHED),
+				buildOrder(3L, "30", TransferStatus.REJECTED));
+
+		// When
+		final List<Long> result = filter(orders, "id eq 1 or id eq 2 AND amount gt 100");
+		final List<Long> groupedResult = filter(orders, "(id eq 1 or id eq 2) and not amount gt 15");
+
+		// Then
+		assertEquals(List.of(1L), result);
+		assertEquals(List.of(1L), groupedResult);
+	}
+
+	@Test
+	public void testQuotedValues() {
+		// Given
+		final TransferOrder order = buildOrder(1L, "10", TransferStatus.PLANNED).toBuilder()
+				.sourceAccount("it's and")
+				.build();
+
+		// When
+		final boolean quoted = OrderFilter.compile("sourceAccount eq 'it''s and'").test(order);
+		final boolean time = OrderFilter.compile("createdAt lt '2019-07-02T00:00:00Z'").test(order);
+
+		// Then
+		assertTrue(quoted);
+		assertTrue(time);
+	}
+
+	@Test
+	public void testMissingFieldNotOrdered() {
+		// Given
+		final TransferOrder order = buildOrder(1L, null, TransferStatus.PLANNED);
+
+		// When
+		final boolean greater = OrderFilter.compile("amount gt 0").test(order);
+		final boolean lessOrEqual = OrderFilter.compile("amount le 0").test(order);
+
+		// Then
+		assertFalse(greater);
+		assertFalse(lessOrEqual);
+	}
+
+	@Test
+	public void testInvalidExpressions() {
+		// Given
+		final List<String> expressions = List.of("", "name eq 1", "amount gt", "amount like 1", "amount gt ten",
+				"status gt PLANNED", "amount gt null", "(id eq 1", "id eq 1 id eq 2", "sourceAccount eq 'a");
+
+		// When
+		final List<String> accepted = expressions.stream()
+				.filter(expression -> {
+					try {
+						OrderFilter.compile(expression);
+						return true;
+					} catch (final IllegalArgumentException e) {
+						return false;
+					}
+				})
+				.collect(Collectors.toList());
+
+		// Then
+		assertEquals(List.of(), accepted);
+	}
+
+	private List<Long> filter(final List<TransferOrder> orders, final String expression) {
+		final Predicate<TransferOrder> predicate = OrderFilter.compile(expression);
+		return orders.stream().filter(predicate).map(TransferOrder::getId).collect(Collectors.toList());
+	}
+
+	private TransferOrder buildOrder(final Long orderId, final String amount, final TransferStatus status) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(amount == null ? null : new BigDecimal(amount))
+				.sourceAccount("123")
+				.targetAccount("456")
+				.status(status)
+				.createdAt(NOW)
+				.updatedAt(NOW)
+				.build();
+	}
+}
@@ -0,0 +1,51 @@
+package pl.com.salsoft.exercise1.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+
+public class OrderSortTest {
+	@Test
+	public void testSort() {
+		// Given
+		final List<TransferOrder> orders = List.of(buildOrder(1L, "10"), buildOrder(2L, null), buildOrder(3L, "20"),
+				buildOrder(4L, "10"));
+
+		// When
+		final List<Long> descending = sort(orders, "-amount");
+		final List<Long> ascending = sort(orders, "+amount,-id");
+
+		// Then
+		assertEquals(List.of(3L, 1L, 4L, 2L), descending);
+		assertEquals(List.of(4L, 1L, 3L, 2L), ascending);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownField() {
+		// Given
+		// Nothing
+
+		// When
+		OrderSort.compile("amount,name");
+
+		// Then
+		// Exception is thrown
+	}
+
+	private List<Long> sort(final List<TransferOrder> orders, final String expression) {
+		return orders.stream().sorted(OrderSort.compile(expression)).map(TransferOrder::getId).collect(Collectors.toList());
+	}
+
+	private TransferOrder buildOrder(final Long orderId, final String amount) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(amount == null ? null : new BigDecimal(amount))
+				.build();
+	}
+}
@@ -0,0 +1,75 @@
+package pl.com.salsoft.exercise1.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.index.TimeIndex;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+
+public class RetentionServiceTest {
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+	private static final long MAX_AGE = 3_600_000L;
+	private static final long INTERVAL = 60_000L;
+
+	private InMemoryTransferOrderDao dao;
+	private TimeIndex timeIndex;
+
+	@Before
+	public void beforeTest() {
+		dao = new InMemoryTransferOrderDao();
+		timeIndex = new TimeIndex();
+		dao.addMutationListener(timeIndex);
+	}
+
+	@Test
+	public void testExpireOnlyOldTerminalOrders() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.FINISHED, MAX_AGE + 1));
+		dao.persist(buildOrder(2L, TransferStatus.REJECTED, 2 * MAX_AGE));
+		dao.persist(buildOrder(3L, TransferStatus.PROCESSING, 2 * MAX_AGE));
+		dao.persist(buildOrder(4L, TransferStatus.FINISHED, MAX_AGE - 1));
+		final RetentionService retentionService = new RetentionService(dao, timeIndex,
+				Clock.fixed(NOW, ZoneOffset.UTC), MAX_AGE, INTERVAL);
+
+		// When
+		final int expired = retentionService.expire();
+
+		// Then
+		assertEquals(2, expired);
+		assertEquals(Set.of(3L, 4L), dao.getAll().stream().map(TransferOrder::getId).collect(Collectors.toSet()));
+	}
+
+	@Test
+	public void testExpireDisabled() {
+		// Given
+		dao.persist(buildOrder(1L, TransferStatus.FINISHED, 2 * MAX_AGE));
+		final RetentionService retentionService = new RetentionService(dao, timeIndex,
+				Clock.fixed(NOW, ZoneOffset.UTC), 0L, INTERVAL);
+
+		// When
+		final int expired = retentionService.expire();
+
+		// Then
+		assertEquals(0, expired);
+		assertEquals(1, dao.getAll().size());
+	}
+
+	private TransferOrder buildOrder(final long id, final TransferStatus status, final long ageMillis) {
+		return TransferOrder.builder()
+				.id(id)
+				.status(status)
+				.createdAt(NOW.minusMillis(2 * MAX_AGE))
+				.updatedAt(NOW.minusMillis(ageMillis))
+				.build();
+	}
+}
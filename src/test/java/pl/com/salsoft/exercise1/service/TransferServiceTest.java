@@ -5,13 +5,22 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -22,16 +31,26 @@ import org.mockito.runners.MockitoJUnitRunner;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 
+import pl.com.salsoft.exercise1.dao.AsyncTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.DaoException;
 import pl.com.salsoft.exercise1.dao.TransferOrderDao;
 import pl.com.salsoft.exercise1.model.TransferOrder;
 import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.velocity.VelocityLimiter;
 
 @RunWith(MockitoJUnitRunner.class)
 public class TransferServiceTest {
+	private static final Instant NOW = Instant.parse("2019-07-01T12:00:00Z");
+	private static final Instant CREATED = Instant.parse("2019-06-30T08:30:00Z");
+
 	class AppTestModule extends AbstractModule {
 		@Override
 		protected void configure() {
 			bind(TransferOrderDao.class).toInstance(transferOrderDao);
+			bind(AsyncTransferOrderDao.class).toInstance(new AsyncTransferOrderDao(transferOrderDao, ForkJoinPool.commonPool()));
+			bind(Clock.class).toInstance(Clock.fixed(NOW, ZoneOffset.UTC));
+			// Two orders or 25.00 per account within an hour
+			bind(VelocityLimiter.class).toInstance(new VelocityLimiter(3_600_000L, 60, 2L, BigDecimal.valueOf(25)));
 			bind(TransferService.class);
 		}
 	}
@@ -60,29 +79,31 @@ public class TransferServiceTest {
 	}
 
 	@Test
+	@SuppressWarnings("unchecked")
 	public void testDeleteTransferNegative() {
 		// Given
 		final long orderId = 1L;
-		doReturn(false).when(transferOrderDao).contains(eq(orderId));
+		doReturn(false).when(transferOrderDao).deleteIf(eq(orderId), any(Predicate.class));
 
 		// When
-		transferService.deleteTransfer(orderId);
+		final boolean result = transferService.deleteTransfer(orderId);
 
 		// Then
-		verify(transferOrderDao, never()).delete(orderId);
+		assertFalse(result);
 	}
 
 	@Test
+	@SuppressWarnings("unchecked")
 	public void testDeleteTransferPositive() {
 		// Given
 		final long orderId = 1L;
-		doReturn(true).when(transferOrderDao).contains(eq(orderId));
+		doReturn(true).when(transferOrderDao).deleteIf(eq(orderId), any(Predicate.class));
 
 		// When
-		transferService.deleteTransfer(orderId);
+		final boolean result = transferService.deleteTransfer(orderId);
 
 		// Then
-		verify(transferOrderDao).delete(orderId);
+		assertTrue(result);
 	}
 
 	@Test(expected = NullPointerException.class)
@@ -182,18 +203,113 @@ public class TransferServiceTest {
 		// Given
 		final var orderId = 5L;
 		final var order = buildOrder1(orderId);
-		final var persisted = buildOrder1(orderId + 1);
-		doReturn(true).when(transferOrderDao).contains(orderId);
+		final var persisted = stamped(buildOrder1(orderId + 1), NOW);
+		doReturn(true).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
+		doReturn(false).when(transferOrderDao).persistIfAbsent(eq(stamped(order, NOW)));
 		doReturn(orderId + 1).when(transferOrderDao).generateId();
 
 		// When
 		final var result = transferService.newTransfer(order);
 
 		// Then
-		verify(transferOrderDao).persist(eq(persisted));
+		verify(transferOrderDao).persistIfAbsent(eq(persisted));
+		assertEquals(persisted, result);
+	}
+
+	@Test
+	public void testNewTransferVelocityOrdersExceeded() {
+		// Given
+		doReturn(true).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
+		transferService.newTransfer(buildOrder1(1L));
+		transferService.newTransfer(buildOrder1(2L));
+
+		// When
+		final var result = transferService.newTransfer(buildOrder1(3L));
+
+		// Then
+		final var persisted = stamped(buildOrder1(3L), NOW).toBuilder().status(TransferStatus.REJECTED).build();
+		verify(transferOrderDao).persistIfAbsent(eq(persisted));
 		assertEquals(persisted, result);
 	}
 
+	@Test
+	public void testNewTransferVelocityAmountExceeded() {
+		// Given
+		doReturn(true).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
+		final var order = buildOrder1(1L).toBuilder().amount(new BigDecimal("25.01")).build();
+
+		// When
+		final var result = transferService.newTransfer(order);
+
+		// Then
+		assertEquals(TransferStatus.REJECTED, result.getStatus());
+	}
+
+	@Test
+	public void testNewTransferVelocityOtherAccount() {
+		// Given
+		doReturn(true).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
+		transferService.newTransfer(buildOrder1(1L));
+		transferService.newTransfer(buildOrder1(2L));
+
+		// When
+		final var result = transferService.newTransfer(buildOrder2(3L));
+
+		// Then
+		assertEquals(buildOrder2(3L).getStatus(), result.getStatus());
+	}
+
+	@Test
+	public void testNewTransferScheduled() {
+		// Given
+		doReturn(true).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
+		final var order = buildOrder1(1L).toBuilder()
+				.status(TransferStatus.PLANNED)
+				.executeAt(NOW.plusSeconds(60))
+				.build();
+
+		// When
+		final var result = transferService.newTransfer(order);
+
+		// Then
+		assertEquals(TransferStatus.SCHEDULED, result.getStatus());
+	}
+
+	@Test
+	public void testNewTransferExecutionTimePassed() {
+		// Given
+		doReturn(true).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
+		final var order = buildOrder1(1L).toBuilder()
+				.status(TransferStatus.PLANNED)
+				.executeAt(NOW)
+				.build();
+
+		// When
+		final var result = transferService.newTransfer(order);
+
+		// Then
+		assertEquals(TransferStatus.PLANNED, result.getStatus());
+	}
+
+	@Test
+	public void testUpdateTransferPartiallyReschedules() {
+		// Given
+		final var orderId = 3L;
+		final var existingOrder = stamped(buildOrder1(orderId), CREATED).toBuilder()
+				.status(TransferStatus.PLANNED)
+				.build();
+		mockUpdateOf(existingOrder);
+
+		// When
+		final var result = transferService.updateTransferPartially(orderId, TransferOrder.builder()
+				.executeAt(NOW.plusSeconds(60))
+				.build());
+
+		// Then
+		assertEquals(TransferStatus.SCHEDULED, result.getOrder().getStatus());
+		assertEquals(NOW.plusSeconds(60), result.getOrder().getExecuteAt());
+	}
+
 	@Test(expected = NullPointerException.class)
 	public void testNewTransferError() {
 		// Given
@@ -210,13 +326,14 @@ public class TransferServiceTest {
 	public void testNewTransferIdProvided() {
 		// Given
 		final var order = buildOrder1(5L);
-		final var persisted = buildOrder1(5L);
+		final var persisted = stamped(buildOrder1(5L), NOW);
+		doReturn(true).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
 
 		// When
 		final var result = transferService.newTransfer(order);
 
 		// Then
-		verify(transferOrderDao).persist(eq(persisted));
+		verify(transferOrderDao).persistIfAbsent(eq(persisted));
 		assertEquals(persisted, result);
 	}
 
@@ -225,30 +342,61 @@ public class TransferServiceTest {
 		// Given
 		final var orderId = 3L;
 		final var order = buildOrder1(null);
-		final var persisted = buildOrder1(orderId);
+		final var persisted = stamped(buildOrder1(orderId), NOW);
 		doReturn(orderId).when(transferOrderDao).generateId();
+		doReturn(true).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
 
 		// When
 		final var result = transferService.newTransfer(order);
 
 		// Then
-		verify(transferOrderDao).persist(eq(persisted));
+		verify(transferOrderDao).persistIfAbsent(eq(persisted));
 		assertEquals(persisted, result);
 	}
 
+	@Test
+	public void testNewTransfersRolledBack() {
+		// Given
+		final var failure = new DaoException("Failed", null);
+		final var persisted = stamped(buildOrder1(3L), NOW);
+		// Both orders of the batch together reach the velocity limit of the account
+		final var batch = List.of(buildOrder1(null), buildOrder1(null));
+		doReturn(3L).doReturn(4L).when(transferOrderDao).generateId();
+		doReturn(true).doThrow(failure).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
+		doReturn(true).when(transferOrderDao).deleteIf(eq(3L), any(Predicate.class));
+
+		// When
+		RuntimeException thrown = null;
+		try {
+			transferService.newTransfers(batch);
+		} catch (final DaoException e) {
+			thrown = e;
+		}
+		doReturn(true).when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
+		final var retried = transferService.newTransfers(batch);
+
+		// Then
+		assertEquals(failure, thrown);
+		verify(transferOrderDao).persistIfAbsent(eq(persisted));
+		verify(transferOrderDao).deleteIf(eq(3L), any(Predicate.class));
+		for (final TransferOrder order : retried) {
+			assertEquals(TransferStatus.PENDIG_RECEPTION, order.getStatus());
+		}
+	}
+
 	@Test
 	public void testUpdateTransferDifferentId() {
 		// Given
 		final var orderId = 3L;
 		final var order = buildOrder1(orderId);
-		final var updatedOrder = buildOrder1(orderId + 1);
+		final var updatedOrder = stamped(buildOrder1(orderId + 1), NOW);
+		mockUpdateOf(null);
 
 		// When
 		final var result = transferService.updateTransfer(orderId + 1, order);
 
 		// Then
-		verify(transferOrderDao).persist(eq(updatedOrder));
-		assertEquals(updatedOrder, result);
+		assertEquals(updatedOrder, result.getOrder());
 	}
 
 	@Test(expected = NullPointerException.class)
@@ -280,14 +428,14 @@ public class TransferServiceTest {
 		// Given
 		final var orderId = 3L;
 		final var order = buildOrder1(null);
-		final var updatedOrder = buildOrder1(orderId);
+		final var updatedOrder = stamped(buildOrder1(orderId), NOW);
+		mockUpdateOf(null);
 
 		// When
 		final var result = transferService.updateTransfer(orderId, order);
 
 		// Then
-		verify(transferOrderDao).persist(eq(updatedOrder));
-		assertEquals(updatedOrder, result);
+		assertEquals(updatedOrder, result.getOrder());
 	}
 
 	@Test
@@ -295,14 +443,14 @@ public class TransferServiceTest {
 		// Given
 		final var orderId = 1L;
 		final var order = buildOrder1(orderId);
-		doReturn(Optional.empty()).when(transferOrderDao).get(eq(orderId));
+		mockUpdateOf(null);
 
 		// When
 		final var result = transferService.updateTransferPartially(orderId, order);
 
 		// Then
-		verify(transferOrderDao).persist(eq(order));
-		assertEquals(order, result);
+		assertEquals(stamped(order, NOW), result.getOrder());
+		assertTrue(result.isCreated());
 	}
 
 	@Test
@@ -317,33 +465,34 @@ public class TransferServiceTest {
 				.targetAccount(order.getTargetAccount())
 				.amount(patchOrder.getAmount())
 				.status(patchOrder.getStatus())
+				.createdAt(NOW)
+				.updatedAt(NOW)
 				.build();
 
-		doReturn(Optional.of(order)).when(transferOrderDao).get(eq(orderId));
+		mockUpdateOf(order);
 
 		// When
 		final var result = transferService.updateTransferPartially(orderId, patchOrder);
 
 		// Then
-		verify(transferOrderDao).persist(any(TransferOrder.class));
-		assertEquals(expectedOrder, result);
+		assertEquals(expectedOrder, result.getOrder());
+		assertFalse(result.isCreated());
 	}
 
 	@Test
 	public void testUpdateTransferPartiallyPositive() {
 		// Given
 		final var orderId = 3L;
-		final var order = buildOrder1(orderId);
+		final var order = stamped(buildOrder1(orderId), CREATED);
 		final var patchOrder = buildOrder2(null);
-		final var updatedOrder = buildOrder2(orderId);
-		doReturn(Optional.of(order)).when(transferOrderDao).get(eq(orderId));
+		final var updatedOrder = stamped(buildOrder2(orderId), NOW).toBuilder().createdAt(CREATED).build();
+		mockUpdateOf(order);
 
 		// When
 		final var result = transferService.updateTransferPartially(orderId, patchOrder);
 
 		// Then
-		verify(transferOrderDao).persist(eq(updatedOrder));
-		assertEquals(updatedOrder, result);
+		assertEquals(updatedOrder, result.getOrder());
 	}
 
 	@Test
@@ -351,13 +500,167 @@ public class TransferServiceTest {
 		// Given
 		final var orderId = 3L;
 		final var order = buildOrder1(orderId);
+		mockUpdateOf(null);
 
 		// When
 		final var result = transferService.updateTransfer(orderId, order);
 
 		// Then
-		verify(transferOrderDao).persist(eq(order));
-		assertEquals(order, result);
+		assertEquals(stamped(order, NOW), result.getOrder());
+	}
+
+	@Test
+	public void testPatchTransferMergePatch() {
+		// Given
+		final var orderId = 3L;
+		final var order = buildOrder1(orderId);
+		final var patch = "{\"id\": 7, \"sourceAccount\": null, \"status\": \"FINISHED\"}".getBytes(StandardCharsets.UTF_8);
+		final var expectedOrder = order.toBuilder()
+				.sourceAccount(null)
+				.status(TransferStatus.FINISHED)
+				.createdAt(NOW)
+				.updatedAt(NOW)
+				.build();
+		mockUpdateOf(order);
+
+		// When
+		final var result = transferService.patchTransfer(orderId, patch, true);
+
+		// Then
+		assertEquals(expectedOrder, result.getOrder());
+	}
+
+	@Test
+	public void testPatchTransferLegacyIgnoresNull() {
+		// Given
+		final var orderId = 3L;
+		final var order = buildOrder1(orderId);
+		final var patch = "{\"sourceAccount\": null, \"amount\": 1.5}".getBytes(StandardCharsets.UTF_8);
+		final var expectedOrder = order.toBuilder()
+				.amount(new BigDecimal("1.5"))
+				.createdAt(NOW)
+				.updatedAt(NOW)
+				.build();
+		mockUpdateOf(order);
+
+		// When
+		final var result = transferService.patchTransfer(orderId, patch, false);
+
+		// Then
+		assertEquals(expectedOrder, result.getOrder());
+	}
+
+	@Test
+	public void testPatchTransferCreateNew() {
+		// Given
+		final var orderId = 3L;
+		final var patch = "{\"status\": \"PLANNED\"}".getBytes(StandardCharsets.UTF_8);
+		final var expectedOrder = TransferOrder.builder()
+				.id(orderId)
+				.status(TransferStatus.PLANNED)
+				.createdAt(NOW)
+				.updatedAt(NOW)
+				.build();
+		mockUpdateOf(null);
+
+		// When
+		final var result = transferService.patchTransfer(orderId, patch, true);
+
+		// Then
+		assertEquals(expectedOrder, result.getOrder());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPatchTransferUnknownField() {
+		// Given
+		final var patch = "{\"currency\": \"EUR\"}".getBytes(StandardCharsets.UTF_8);
+		mockUpdateOf(buildOrder1(3L));
+
+		// When
+		transferService.patchTransfer(3L, patch, true);
+
+		// Then
+		// Exception is thrown
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPatchTransferNotObject() {
+		// Given
+		final var patch = "[]".getBytes(StandardCharsets.UTF_8);
+		mockUpdateOf(buildOrder1(3L));
+
+		// When
+		transferService.patchTransfer(3L, patch, true);
+
+		// Then
+		// Exception is thrown
+	}
+
+	@Test
+	public void testUpdateTransferKeepsCreationTime() {
+		// Given
+		final var orderId = 3L;
+		final var existingOrder = stamped(buildOrder1(orderId), CREATED);
+		final var order = buildOrder2(null).toBuilder()
+				.createdAt(Instant.EPOCH)
+				.updatedAt(Instant.EPOCH)
+				.build();
+		mockUpdateOf(existingOrder);
+
+		// When
+		final var result = transferService.updateTransfer(orderId, order);
+
+		// Then
+		assertEquals(CREATED, result.getOrder().getCreatedAt());
+		assertEquals(NOW, result.getOrder().getUpdatedAt());
+		assertEquals(buildOrder2(orderId), result.getOrder().toBuilder().createdAt(null).updatedAt(null).build());
+		assertFalse(result.isCreated());
+	}
+
+	@Test
+	public void testNewTransferAsyncBlocking() throws Exception {
+		// Given
+		final var order = buildOrder1(null);
+		final var persisted = stamped(buildOrder1(7L), NOW);
+		final Thread caller = Thread.currentThread();
+		doReturn(true).when(transferOrderDao).isBlocking();
+		doReturn(7L).when(transferOrderDao).generateId();
+		doAnswer(invocation -> Thread.currentThread() != caller)
+				.when(transferOrderDao).persistIfAbsent(any(TransferOrder.class));
+
+		// When
+		final var result = transferService.newTransferAsync(order).get(5, TimeUnit.SECONDS);
+
+		// Then
+		verify(transferOrderDao).persistIfAbsent(eq(persisted));
+		assertEquals(persisted, result);
+	}
+
+	@Test
+	public void testPatchTransferAsyncInvalid() {
+		// Given
+		final var patch = "[]".getBytes(StandardCharsets.UTF_8);
+		mockUpdateOf(buildOrder1(3L));
+
+		// When
+		final var result = transferService.patchTransferAsync(3L, patch, true);
+
+		// Then
+		assertTrue(result.isCompletedExceptionally());
+		assertTrue(result.handle((saved, error) -> error).join() instanceof IllegalArgumentException);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void mockUpdateOf(final TransferOrder existingOrder) {
+		doAnswer(invocation -> ((UnaryOperator<TransferOrder>) invocation.getArguments()[1]).apply(existingOrder))
+				.when(transferOrderDao).update(any(Long.class), any(UnaryOperator.class));
+	}
+
+	private TransferOrder stamped(final TransferOrder order, final Instant time) {
+		return order.toBuilder()
+				.createdAt(time)
+				.updatedAt(time)
+				.build();
 	}
 
 	private TransferOrder buildOrder1(final Long orderId) {
@@ -0,0 +1,86 @@
+package pl.com.salsoft.exercise1.tenant;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RateLimiterTest {
+	private static final long T0 = 1_000_000_000L;
+	private static final long MILLI = 1_000_000L;
+
+	@Test
+	public void testBurst() {
+		// Given
+		final RateLimiter limiter = new RateLimiter(10L, 3);
+		limiter.tryAcquire(T0);
+		limiter.tryAcquire(T0);
+		limiter.tryAcquire(T0);
+
+		// When
+		final boolean result = limiter.tryAcquire(T0);
+
+		// Then
+		assertFalse(result);
+	}
+
+	@Test
+	public void testRefill() {
+		// Given
+		final RateLimiter limiter = new RateLimiter(10L, 1);
+		limiter.tryAcquire(T0);
+
+		// When
+		final boolean beforeInterval = limiter.tryAcquire(T0 + 99 * MILLI);
+		final boolean afterInterval = limiter.tryAcquire(T0 + 100 * MILLI);
+
+		// Then
+		assertFalse(beforeInterval);
+		assertTrue(afterInterval);
+	}
+
+	@Test
+	public void testSustainedRate() {
+		// Given
+		final RateLimiter limiter = new RateLimiter(10L, 5);
+
+		// When
+		int accepted = 0;
+		for (int i = 0; i < 1_000; i++) {
+			if (limiter.tryAcquire(T0 + i * MILLI)) {
+				accepted++;
+			}
+		}
+
+		// Then
+		assertTrue(accepted <= 15);
+		assertTrue(accepted >= 10);
+	}
+
+	@Test
+	public void testUnlimited() {
+		// Given
+		final RateLimiter limiter = new RateLimiter(0L, 0);
+
+		// When
+		boolean result = true;
+		for (int i = 0; i < 1_000; i++) {
+			result &= limiter.tryAcquire(T0);
+		}
+
+		// Then
+		assertTrue(result);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoBurst() {
+		// Given
+		// Nothing
+
+		// When
+		new RateLimiter(10L, 0);
+
+		// Then
+		// Exception is thrown
+	}
+}
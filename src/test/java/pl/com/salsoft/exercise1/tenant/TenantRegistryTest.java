@@ -0,0 +1,122 @@
+package pl.com.salsoft.exercise1.tenant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.JsonService;
+
+public class TenantRegistryTest {
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2019-07-01T12:00:00Z"), ZoneOffset.UTC);
+
+	@Test
+	public void testSeparateStores() {
+		// Given
+		final TenantRegistry registry = registry(TenantSettings.builder().build());
+		final Tenant tenantA = registry.get("unit-a").get();
+		final Tenant tenantB = registry.get("unit-b").get();
+		tenantA.getTransferService().newTransfer(order());
+
+		// When
+		final TransferOrder created = tenantB.getTransferService().newTransfer(order());
+
+		// Then
+		assertEquals(Long.valueOf(0L), created.getId());
+		assertEquals(1, tenantA.getTransferService().getTransfers().size());
+		assertEquals(1, tenantB.getTransferService().getTransfers().size());
+	}
+
+	@Test
+	public void testScheduledOrderTracked() {
+		// Given
+		final Tenant tenant = registry(TenantSettings.builder().build()).get("unit-a").get();
+
+		// When
+		final TransferOrder created = tenant.getTransferService().newTransfer(order().toBuilder()
+				.executeAt(CLOCK.instant().plusSeconds(60))
+				.build());
+
+		// Then
+		assertEquals(TransferStatus.SCHEDULED, created.getStatus());
+		assertEquals(1, tenant.getTransferScheduler().getTracked());
+	}
+
+	@Test
+	public void testUnknownTenant() {
+		// Given
+		final TenantRegistry registry = registry(TenantSettings.builder().build());
+
+		// When
+		final boolean result = registry.get("unit-c").isPresent();
+
+		// Then
+		assertFalse(result);
+		assertTrue(registry.isEnabled());
+	}
+
+	@Test
+	public void testFull() {
+		// Given
+		final Tenant tenant = registry(TenantSettings.builder().maxOrders(2L).build()).get("unit-a").get();
+		tenant.getTransferService().newTransfer(order());
+		final TransferOrder second = tenant.getTransferService().newTransfer(order());
+
+		// When
+		final boolean full = tenant.isFull();
+		tenant.getTransferService().deleteTransfer(second.getId());
+
+		// Then
+		assertTrue(full);
+		assertFalse(tenant.isFull());
+		assertEquals(1L, tenant.getOrderCount());
+	}
+
+	@Test
+	public void testRequestSlots() {
+		// Given
+		final Tenant tenant = registry(TenantSettings.builder().maxConcurrentRequests(1).build()).get("unit-a").get();
+		tenant.tryEnter();
+
+		// When
+		final boolean taken = tenant.tryEnter();
+		tenant.exit();
+
+		// Then
+		assertFalse(taken);
+		assertTrue(tenant.tryEnter());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidName() {
+		// Given
+		// Nothing
+
+		// When
+		new TenantRegistry(List.of("unit/a"), TenantSettings.builder().build(), new JsonService(), CLOCK);
+
+		// Then
+		// Exception is thrown
+	}
+
+	private static TenantRegistry registry(final TenantSettings settings) {
+		return new TenantRegistry(List.of("unit-a", "unit-b"), settings, new JsonService(), CLOCK);
+	}
+
+	private static TransferOrder order() {
+		return TransferOrder.builder()
+				.sourceAccount("123")
+				.targetAccount("456")
+				.amount(BigDecimal.TEN)
+				.build();
+	}
+}
@@ -0,0 +1,160 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.TracedTransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.JsonService;
+import pl.com.salsoft.exercise1.service.TransferService;
+
+public class FlightEventsTest {
+	private static final String DAO_EVENT = "pl.com.salsoft.exercise1.Dao";
+	private static final String JSON_EVENT = "pl.com.salsoft.exercise1.Json";
+	private static final String UPDATE_EVENT = "pl.com.salsoft.exercise1.OrderUpdate";
+
+	private final JsonService jsonService = new JsonService();
+	private final TransferService transferService = new TransferService(
+			new TracedTransferOrderDao(new InMemoryTransferOrderDao()), jsonService, Clock.systemUTC());
+	private Recording recording;
+	private Path file;
+
+	@Before
+	public void beforeTest() throws IOException {
+		file = Files.createTempFile("events", ".jfr");
+		recording = new Recording();
+		recording.enable(DAO_EVENT).withoutThreshold();
+		recording.enable(JSON_EVENT).withoutThreshold();
+		recording.enable(UPDATE_EVENT).withoutThreshold();
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		recording.close();
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testOrderUpdates() throws IOException {
+		// Given
+		recording.start();
+
+		// When
+		final long id = transferService.newTransfer(buildOrder()).getId();
+		transferService.patchTransfer(id, "{\"status\": \"FINISHED\"}".getBytes(StandardCharsets.UTF_8), true);
+		transferService.deleteTransfer(id);
+		transferService.deleteTransfer(id);
+
+		// Then
+		final List<RecordedEvent> updates = events(UPDATE_EVENT);
+		assertEquals(3, updates.size());
+		assertUpdate(updates.get(0), "create", id, null, TransferStatus.PLANNED, true);
+		assertUpdate(updates.get(1), "patch", id, TransferStatus.PLANNED, TransferStatus.FINISHED, false);
+		assertUpdate(updates.get(2), "delete", id, TransferStatus.FINISHED, null, false);
+	}
+
+	@Test
+	public void testDaoOperations() throws IOException {
+		// Given
+		recording.start();
+
+		// When
+		final long id = transferService.newTransfer(buildOrder()).getId();
+		transferService.getTransfer(id);
+
+		// Then
+		final List<String> operations = events(DAO_EVENT).stream()
+				.map(event -> event.getString("operation") + ":" + event.getLong("orderId"))
+				.collect(Collectors.toList());
+		assertEquals(List.of("generateId:-1", "persistIfAbsent:" + id, "get:" + id), operations);
+	}
+
+	@Test
+	public void testJsonMapping() throws IOException {
+		// Given
+		recording.start();
+
+		// When
+		final String json = jsonService.map(buildOrder());
+		jsonService.map(json, TransferOrder.class);
+
+		// Then
+		final List<RecordedEvent> mappings = events(JSON_EVENT);
+		assertEquals(2, mappings.size());
+		assertTrue(mappings.get(0).getBoolean("serialization"));
+		assertFalse(mappings.get(1).getBoolean("serialization"));
+		for (final RecordedEvent mapping : mappings) {
+			assertEquals(TransferOrder.class.getName(), mapping.getClass("type").getName());
+			assertEquals(json.length(), mapping.getLong("size"));
+		}
+	}
+
+	@Test
+	public void testNothingRecordedOverThreshold() throws IOException {
+		// Given
+		recording.enable(UPDATE_EVENT).withThreshold(Duration.ofHours(1L));
+		recording.start();
+
+		// When
+		transferService.newTransfer(buildOrder());
+
+		// Then
+		assertTrue(events(UPDATE_EVENT).isEmpty());
+	}
+
+	private List<RecordedEvent> events(final String name) throws IOException {
+		recording.stop();
+		recording.dump(file);
+		return RecordingFile.readAllEvents(file).stream()
+				.filter(event -> event.getEventType().getName().equals(name))
+				.sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+				.collect(Collectors.toList());
+	}
+
+	private static void assertUpdate(final RecordedEvent event, final String operation, final long id,
+			final TransferStatus previousStatus, final TransferStatus status, final boolean created) {
+		assertEquals(operation, event.getString("operation"));
+		assertEquals(id, event.getLong("orderId"));
+		if (previousStatus == null) {
+			assertNull(event.getString("previousStatus"));
+		} else {
+			assertEquals(previousStatus.name(), event.getString("previousStatus"));
+		}
+		if (status == null) {
+			assertNull(event.getString("status"));
+		} else {
+			assertEquals(status.name(), event.getString("status"));
+		}
+		assertEquals(created, event.getBoolean("created"));
+	}
+
+	private static TransferOrder buildOrder() {
+		return TransferOrder.builder()
+				.amount(BigDecimal.TEN)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.status(TransferStatus.PLANNED)
+				.build();
+	}
+}
@@ -0,0 +1,122 @@
+package pl.com.salsoft.exercise1.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import pl.com.salsoft.exercise1.tracing.RequestTrace.Phase;
+
+public class RequestTraceTest {
+	private static final long PAUSE_NANOS = 2_000_000L;
+
+	@Test
+	public void testPhasesAreExclusive() {
+		// Given
+		final RequestTrace trace = RequestTrace.begin(Phase.SERVICE);
+
+		// When
+		final Phase service = RequestTrace.enter(Phase.DAO);
+		LockSupport.parkNanos(PAUSE_NANOS);
+		final Phase dao = RequestTrace.enter(Phase.DESERIALIZE);
+		LockSupport.parkNanos(PAUSE_NANOS);
+		RequestTrace.exit(dao);
+		RequestTrace.exit(service);
+		trace.endHandling();
+
+		// Then
+		assertEquals(Phase.SERVICE, service);
+		assertEquals(Phase.DAO, dao);
+		assertTrue(trace.getNanos(Phase.DAO) >= PAUSE_NANOS);
+		assertTrue(trace.getNanos(Phase.DESERIALIZE) >= PAUSE_NANOS);
+		final long sum = trace.getNanos(Phase.SERVICE) + trace.getNanos(Phase.DAO) + trace.getNanos(Phase.DESERIALIZE);
+		assertEquals(trace.getTotalNanos(), sum);
+	}
+
+	@Test
+	public void testNoTraceOutsideOfRequest() {
+		// Given
+		RequestTrace.begin(Phase.SERVICE).endHandling();
+
+		// When
+		final Phase previous = RequestTrace.enter(Phase.DAO);
+		RequestTrace.exit(previous);
+
+		// Then
+		assertNull(previous);
+	}
+
+	@Test
+	public void testWaitPhaseWhileSuspended() throws InterruptedException {
+		// Given
+		final RequestTrace trace = RequestTrace.begin(Phase.SERVICE);
+		trace.suspend();
+		final Phase suspended = RequestTrace.enter(Phase.DAO);
+		Thread.sleep(PAUSE_NANOS / 1_000_000);
+
+		// When
+		trace.resume();
+		final Phase resumed = RequestTrace.enter(Phase.SERIALIZE);
+		trace.endHandling();
+
+		// Then
+		assertNull(suspended);
+		assertEquals(Phase.SERVICE, resumed);
+		assertTrue(trace.getNanos(Phase.WAIT) >= PAUSE_NANOS);
+		assertEquals(0L, trace.getNanos(Phase.DAO));
+	}
+
+	@Test
+	public void testWritePhaseAfterCompletion() {
+		// Given
+		final RequestTrace trace = RequestTrace.begin(Phase.SERVICE);
+		trace.endHandling();
+		final long handlingNanos = trace.getTotalNanos();
+
+		// When
+		LockSupport.parkNanos(PAUSE_NANOS);
+		trace.complete();
+
+		// Then
+		assertTrue(trace.getNanos(Phase.WRITE) >= PAUSE_NANOS);
+		assertEquals(handlingNanos + trace.getNanos(Phase.WRITE), trace.getTotalNanos());
+		assertEquals(List.of("service", "write"), List.copyOf(trace.getPhaseMillis().keySet()));
+	}
+
+	@Test
+	public void testServerTimingHeader() {
+		// Given
+		final RequestTrace trace = RequestTrace.begin(Phase.READ);
+		RequestTrace.enter(Phase.SERVICE);
+
+		// When
+		trace.endHandling();
+		final String header = trace.toServerTiming();
+
+		// Then
+		assertTrue(header, Pattern.matches("read;dur=\\d+\\.\\d{3}, service;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}", header));
+	}
+
+	@Test
+	public void testSlowRequestLogEvictsOldest() {
+		// Given
+		final SlowRequestLog slowRequestLog = new SlowRequestLog(10L, 2);
+
+		// When
+		for (final String uri : List.of("/transfer/1", "/transfer/2", "/transfer/3")) {
+			slowRequestLog.add(SlowRequest.builder().uri(uri).build());
+		}
+
+		// Then
+		assertTrue(slowRequestLog.isSlow(10_000_000L));
+		assertFalse(slowRequestLog.isSlow(9_999_999L));
+		assertEquals(List.of("/transfer/3", "/transfer/2"),
+				List.of(slowRequestLog.getRequests().get(0).getUri(), slowRequestLog.getRequests().get(1).getUri()));
+	}
+}
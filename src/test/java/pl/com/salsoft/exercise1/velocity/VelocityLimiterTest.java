@@ -0,0 +1,209 @@
+package pl.com.salsoft.exercise1.velocity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class VelocityLimiterTest {
+	private static final long WINDOW_MILLIS = 10_000L;
+	private static final int BUCKETS = 10;
+	private static final long T0 = 1_561_982_400_000L;
+
+	@Test
+	public void testMaxOrders() {
+		// Given
+		final VelocityLimiter limiter = new VelocityLimiter(WINDOW_MILLIS, BUCKETS, 3L, BigDecimal.ZERO);
+		limiter.tryAcquire("123", BigDecimal.ONE, T0);
+		limiter.tryAcquire("123", BigDecimal.ONE, T0 + 1_000);
+		limiter.tryAcquire("123", BigDecimal.ONE, T0 + 2_000);
+
+		// When
+		final boolean result = limiter.tryAcquire("123", BigDecimal.ONE, T0 + 3_000);
+
+		// Then
+		assertFalse(result);
+	}
+
+	@Test
+	public void testMaxAmount() {
+		// Given
+		final VelocityLimiter limiter = new VelocityLimiter(WINDOW_MILLIS, BUCKETS, 0L, new BigDecimal("100.00"));
+		limiter.tryAcquire("123", new BigDecimal("60.00"), T0);
+
+		// When
+		final boolean exceeding = limiter.tryAcquire("123", new BigDecimal("40.01"), T0 + 1_000);
+		final boolean fitting = limiter.tryAcquire("123", new BigDecimal("40.00"), T0 + 1_000);
+
+		// Then
+		assertFalse(exceeding);
+		assertTrue(fitting);
+	}
+
+	@Test
+	public void testReleased() {
+		// Given
+		final VelocityLimiter limiter = new VelocityLimiter(WINDOW_MILLIS, BUCKETS, 2L, new BigDecimal("100.00"));
+		limiter.tryAcquire("123", new BigDecimal("60.00"), T0);
+		limiter.tryAcquire("123", new BigDecimal("40.00"), T0 + 1_000);
+
+		// When
+		limiter.release("123", new BigDecimal("60.00"), T0);
+		final boolean fitting = limiter.tryAcquire("123", new BigDecimal("60.00"), T0 + 2_000);
+		final boolean exceeding = limiter.tryAcquire("123", null, T0 + 2_000);
+
+		// Then
+		assertTrue(fitting);
+		assertFalse(exceeding);
+	}
+
+	@Test
+	public void testWindowSlides() {
+		// Given
+		final VelocityLimiter limiter = new VelocityLimiter(WINDOW_MILLIS, BUCKETS, 2L, BigDecimal.ZERO);
+		limiter.tryAcquire("123", null, T0);
+		limiter.tryAcquire("123", null, T0 + 5_000);
+
+		// When
+		final boolean beforeExpiry = limiter.tryAcquire("123", null, T0 + 9_999);
+		final boolean afterExpiry = limiter.tryAcquire("123", null, T0 + 10_000);
+
+		// Then
+		assertFalse(beforeExpiry);
+		assertTrue(afterExpiry);
+	}
+
+	@Test
+	public void testAccountsCountedSeparately() {
+		// Given
+		final VelocityLimiter limiter = new VelocityLimiter(WINDOW_MILLIS, BUCKETS, 1L, BigDecimal.ZERO);
+		limiter.tryAcquire("123", null, T0);
+
+		// When
+		final boolean result = limiter.tryAcquire("456", null, T0);
+
+		// Then
+		assertTrue(result);
+	}
+
+	@Test
+	public void testRejectedNotCounted() {
+		// Given
+		final VelocityLimiter limiter = new VelocityLimiter(WINDOW_MILLIS, BUCKETS, 0L, BigDecimal.TEN);
+		limiter.tryAcquire("123", BigDecimal.valueOf(6), T0);
+		limiter.tryAcquire("123", BigDecimal.valueOf(6), T0);
+
+		// When
+		final boolean result = limiter.tryAcquire("123", BigDecimal.valueOf(4), T0);
+
+		// Then
+		assertTrue(result);
+	}
+
+	@Test
+	public void testIdleAccountsEvicted() {
+		// Given
+		final VelocityLimiter limiter = new VelocityLimiter(WINDOW_MILLIS, BUCKETS, 1L, BigDecimal.ZERO);
+		limiter.tryAcquire("123", null, T0);
+		limiter.tryAcquire("456", null, T0 + 5_000);
+
+		// When
+		limiter.tryAcquire("789", null, T0 + 12_000);
+
+		// Then
+		assertEquals(2, limiter.getTrackedAccounts());
+	}
+
+	@Test
+	public void testEvictionSpreadOverOrders() {
+		// Given
+		final VelocityLimiter limiter = new VelocityLimiter(WINDOW_MILLIS, BUCKETS, 1L, BigDecimal.ZERO);
+		final int idle = 3 * VelocityLimiter.SWEEP_BATCH;
+		for (int i = 0; i < idle; i++) {
+			limiter.tryAcquire("idle-" + i, null, T0);
+		}
+
+		// When
+		limiter.tryAcquire("123", null, T0 + 12_000);
+		final int afterFirst = limiter.getTrackedAccounts();
+		for (int i = 0; i < 3; i++) {
+			limiter.tryAcquire("123", null, T0 + 12_000);
+		}
+
+		// Then
+		assertTrue(afterFirst > 1);
+		assertTrue(afterFirst < idle);
+		assertEquals(1, limiter.getTrackedAccounts());
+	}
+
+	@Test
+	public void testUnlimited() {
+		// Given
+		final VelocityLimiter limiter = VelocityLimiter.unlimited();
+
+		// When
+		boolean result = true;
+		for (int i = 0; i < 1_000; i++) {
+			result &= limiter.tryAcquire("123", BigDecimal.TEN, T0);
+		}
+
+		// Then
+		assertTrue(result);
+		assertEquals(0, limiter.getTrackedAccounts());
+	}
+
+	@Test
+	public void testConcurrentOrdersNotExceedingLimit() throws Exception {
+		// Given
+		final long maxOrders = 100L;
+		final VelocityLimiter limiter = new VelocityLimiter(WINDOW_MILLIS, BUCKETS, maxOrders, BigDecimal.ZERO);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		final List<Callable<Integer>> tasks = new ArrayList<>();
+		for (int thread = 0; thread < 4; thread++) {
+			tasks.add(() -> {
+				int accepted = 0;
+				for (int i = 0; i < 1_000; i++) {
+					if (limiter.tryAcquire("123", null, T0 + i)) {
+						accepted++;
+					}
+				}
+				return accepted;
+			});
+		}
+
+		// When
+		int accepted = 0;
+		try {
+			for (final Future<Integer> future : executor.invokeAll(tasks)) {
+				accepted += future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// Then
+		assertTrue(accepted <= maxOrders);
+		assertTrue(accepted > 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeLimit() {
+		// Given
+		// Nothing
+
+		// When
+		new VelocityLimiter(WINDOW_MILLIS, BUCKETS, -1L, BigDecimal.ZERO);
+
+		// Then
+		// Exception is thrown
+	}
+}
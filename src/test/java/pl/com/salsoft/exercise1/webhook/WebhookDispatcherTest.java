@@ -0,0 +1,300 @@
+package pl.com.salsoft.exercise1.webhook;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import pl.com.salsoft.exercise1.dao.InMemoryTransferOrderDao;
+import pl.com.salsoft.exercise1.dao.TransferOrderDao;
+import pl.com.salsoft.exercise1.model.TransferOrder;
+import pl.com.salsoft.exercise1.model.TransferStatus;
+import pl.com.salsoft.exercise1.service.JsonService;
+
+public class WebhookDispatcherTest {
+	private static final long TIMEOUT_MILLIS = 10_000L;
+
+	private final JsonService jsonService = new JsonService();
+	private final TransferOrderDao transferOrderDao = new InMemoryTransferOrderDao();
+	private final List<StubReceiver> receivers = new ArrayList<>();
+	private WebhookDispatcher dispatcher;
+
+	@After
+	public void afterTest() {
+		if (dispatcher != null) {
+			dispatcher.stop();
+		}
+		receivers.forEach(StubReceiver::stop);
+	}
+
+	@Test
+	public void testDeliversStatusChangesInBatch() {
+		// Given
+		final StubReceiver receiver = new StubReceiver();
+		dispatcher = new WebhookDispatcher(List.of(receiver.url()), jsonService, settings().build());
+		dispatcher.onPersist(null, buildOrder(1L, TransferStatus.PLANNED));
+		dispatcher.onPersist(null, buildOrder(2L, TransferStatus.PLANNED));
+
+		// When
+		dispatcher.start(transferOrderDao);
+
+		// Then
+		awaitCondition(() -> dispatcher.getDeliveredCount() == 2);
+		assertEquals(List.of(List.of(buildOrder(1L, TransferStatus.PLANNED), buildOrder(2L, TransferStatus.PLANNED))),
+				receiver.batches);
+	}
+
+	@Test
+	public void testFollowsRepositoryOnlyAfterStart() {
+		// Given
+		final StubReceiver receiver = new StubReceiver();
+		dispatcher = new WebhookDispatcher(List.of(receiver.url()), jsonService, settings().build());
+		transferOrderDao.persist(buildOrder(1L, TransferStatus.PLANNED));
+
+		// When
+		dispatcher.start(transferOrderDao);
+		transferOrderDao.persist(buildOrder(2L, TransferStatus.PLANNED));
+
+		// Then
+		awaitCondition(() -> dispatcher.getDeliveredCount() == 1);
+		assertEquals(List.of(List.of(buildOrder(2L, TransferStatus.PLANNED))), receiver.batches);
+	}
+
+	@Test
+	public void testIgnoresOtherChanges() {
+		// Given
+		final StubReceiver receiver = new StubReceiver();
+		dispatcher = new WebhookDispatcher(List.of(receiver.url()), jsonService, settings().build());
+		final TransferOrder order = buildOrder(1L, TransferStatus.PLANNED);
+
+		// When
+		dispatcher.onPersist(order, order.toBuilder().amount(BigDecimal.ONE).build());
+		dispatcher.onDelete(order);
+
+		// Then
+		assertEquals(0, dispatcher.getQueuedCount());
+	}
+
+	@Test
+	public void testCoalescesChangesOfOrder() {
+		// Given
+		final StubReceiver receiver = new StubReceiver();
+		dispatcher = new WebhookDispatcher(List.of(receiver.url()), jsonService, settings().build());
+		dispatcher.onPersist(null, buildOrder(1L, TransferStatus.PLANNED));
+		dispatcher.onPersist(buildOrder(1L, TransferStatus.PLANNED), buildOrder(1L, TransferStatus.PROCESSING));
+		dispatcher.onPersist(buildOrder(1L, TransferStatus.PROCESSING), buildOrder(1L, TransferStatus.FINISHED));
+
+		// When
+		dispatcher.start(transferOrderDao);
+
+		// Then
+		awaitCondition(() -> dispatcher.getDeliveredCount() == 1);
+		assertEquals(List.of(List.of(buildOrder(1L, TransferStatus.FINISHED))), receiver.batches);
+	}
+
+	@Test
+	public void testRetriesFailedBatch() {
+		// Given
+		final StubReceiver receiver = new StubReceiver();
+		receiver.failures.set(2);
+		dispatcher = new WebhookDispatcher(List.of(receiver.url()), jsonService, settings().build());
+		dispatcher.onPersist(null, buildOrder(1L, TransferStatus.PLANNED));
+
+		// When
+		dispatcher.start(transferOrderDao);
+
+		// Then
+		awaitCondition(() -> dispatcher.getDeliveredCount() == 1);
+		assertEquals(3, receiver.requests.get());
+		assertEquals(List.of(List.of(buildOrder(1L, TransferStatus.PLANNED))), receiver.batches);
+	}
+
+	@Test
+	public void testDropsBatchAfterMaxAttempts() {
+		// Given
+		final StubReceiver receiver = new StubReceiver();
+		receiver.failures.set(Integer.MAX_VALUE);
+		dispatcher = new WebhookDispatcher(List.of(receiver.url()), jsonService, settings().maxAttempts(2).build());
+		dispatcher.onPersist(null, buildOrder(1L, TransferStatus.PLANNED));
+
+		// When
+		dispatcher.start(transferOrderDao);
+
+		// Then
+		awaitCondition(() -> dispatcher.getDroppedCount() == 1);
+		assertEquals(2, receiver.requests.get());
+	}
+
+	@Test
+	public void testCircuitOpensAfterFailures() throws InterruptedException {
+		// Given
+		final StubReceiver receiver = new StubReceiver();
+		receiver.failures.set(Integer.MAX_VALUE);
+		dispatcher = new WebhookDispatcher(List.of(receiver.url()), jsonService, settings()
+				.maxAttempts(100)
+				.failureThreshold(3)
+				.openMillis(60_000L)
+				.build());
+		dispatcher.onPersist(null, buildOrder(1L, TransferStatus.PLANNED));
+
+		// When
+		dispatcher.start(transferOrderDao);
+		awaitCondition(() -> receiver.requests.get() == 3);
+		// Many retry intervals.
+		Thread.sleep(300L);
+
+		// Then
+		assertEquals(3, receiver.requests.get());
+		assertEquals(0, dispatcher.getDroppedCount());
+	}
+
+	@Test
+	public void testSlowEndpointDoesNotStallOthers() {
+		// Given
+		final StubReceiver slowReceiver = new StubReceiver();
+		slowReceiver.delayMillis = 5_000L;
+		final StubReceiver receiver = new StubReceiver();
+		dispatcher = new WebhookDispatcher(List.of(slowReceiver.url(), receiver.url()), jsonService, settings().build());
+		dispatcher.start(transferOrderDao);
+
+		// When
+		for (long id = 1; id <= 3; id++) {
+			dispatcher.onPersist(null, buildOrder(id, TransferStatus.PLANNED));
+			final long delivered = id;
+			awaitCondition(() -> receiver.batches.stream().mapToLong(List::size).sum() == delivered);
+		}
+
+		// Then
+		assertEquals(1, slowReceiver.requests.get());
+		assertTrue(slowReceiver.batches.isEmpty());
+	}
+
+	@Test
+	public void testDropsChangesWhenQueueFull() {
+		// Given
+		final StubReceiver receiver = new StubReceiver();
+		dispatcher = new WebhookDispatcher(List.of(receiver.url()), jsonService, settings().queueCapacity(2).build());
+		dispatcher.onPersist(null, buildOrder(1L, TransferStatus.PLANNED));
+		dispatcher.onPersist(null, buildOrder(2L, TransferStatus.PLANNED));
+
+		// When
+		dispatcher.onPersist(null, buildOrder(3L, TransferStatus.PLANNED));
+		dispatcher.onPersist(buildOrder(2L, TransferStatus.PLANNED), buildOrder(2L, TransferStatus.REJECTED));
+
+		// Then
+		assertEquals(1, dispatcher.getDroppedCount());
+		assertEquals(2, dispatcher.getQueuedCount());
+	}
+
+	private WebhookSettings.WebhookSettingsBuilder settings() {
+		return WebhookSettings.builder()
+				.intervalMillis(20L)
+				.queueCapacity(100)
+				.batchSize(10)
+				.maxAttempts(5)
+				.initialBackoffMillis(10L)
+				.maxBackoffMillis(40L)
+				.failureThreshold(10)
+				.openMillis(100L)
+				.requestTimeoutMillis(TIMEOUT_MILLIS);
+	}
+
+	private void awaitCondition(final BooleanSupplier condition) {
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("Condition not met in time.");
+			}
+			try {
+				Thread.sleep(10L);
+			} catch (final InterruptedException e) {
+				throw new AssertionError(e);
+			}
+		}
+	}
+
+	private TransferOrder buildOrder(final long orderId, final TransferStatus status) {
+		return TransferOrder.builder()
+				.id(orderId)
+				.amount(BigDecimal.TEN)
+				.sourceAccount("123")
+				.targetAccount("456")
+				.status(status)
+				.build();
+	}
+
+	/**
+	 * Local webhook receiver, recording received batches. It can fail given number of requests, or respond slowly.
+	 */
+	private final class StubReceiver {
+		private final HttpServer server;
+		private final ExecutorService executor = Executors.newCachedThreadPool();
+		private final List<List<TransferOrder>> batches = new ArrayList<>();
+		private final AtomicInteger requests = new AtomicInteger();
+		private final AtomicInteger failures = new AtomicInteger();
+		private volatile long delayMillis;
+
+		private StubReceiver() {
+			try {
+				server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			} catch (final IOException e) {
+				throw new AssertionError(e);
+			}
+			server.createContext("/hook", this::handle);
+			server.setExecutor(executor);
+			server.start();
+			receivers.add(this);
+		}
+
+		private URI url() {
+			return URI.create(String.format("http://localhost:%d/hook", server.getAddress().getPort()));
+		}
+
+		private void handle(final HttpExchange exchange) throws IOException {
+			final List<TransferOrder> batch;
+			try (InputStream body = exchange.getRequestBody()) {
+				batch = jsonService.map(new String(body.readAllBytes(), StandardCharsets.UTF_8),
+						new TypeReference<List<TransferOrder>>() { });
+			}
+			requests.incrementAndGet();
+			try {
+				Thread.sleep(delayMillis);
+			} catch (final InterruptedException e) {
+				exchange.close();
+				return;
+			}
+			if (failures.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+				exchange.sendResponseHeaders(500, -1);
+			} else {
+				synchronized (batches) {
+					batches.add(batch);
+				}
+				exchange.sendResponseHeaders(204, -1);
+			}
+			exchange.close();
+		}
+
+		private void stop() {
+			server.stop(0);
+			executor.shutdownNow();
+		}
+	}
+}